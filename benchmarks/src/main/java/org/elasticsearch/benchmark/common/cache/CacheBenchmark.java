@@ -0,0 +1,195 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Cache} under concurrent reads of keys that follow a skewed (Zipfian) distribution, which
+ * is typical of the request and field data caches, with either the LRU or the frequency-aware eviction policy. The hits and
+ * misses of the measured reads are reported as auxiliary counters, so the hit ratio of a policy is
+ * {@code hits / (hits + misses)}.
+ * <p>
+ * The {@code lru} configuration only uses the API of the baseline {@link Cache}, so running this benchmark with
+ * {@code -p evictionPolicy=lru} on a build without buffered reads or frequency-aware eviction gives the lock-per-read baseline.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CacheBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 20;
+    private static final int KEYS_MASK = NUMBER_OF_KEYS - 1;
+
+    @Param({"lru", "frequency_aware"})
+    private String evictionPolicy;
+
+    // the number of entries that fit in the cache, as a fraction of the distinct keys that are read
+    @Param({"0.01", "0.1"})
+    private double cacheRatio;
+
+    private Integer[] keys;
+    private Cache<Integer, Integer> cache;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        final int distinctKeys = 1 << 16;
+        final long maximumWeight = (long) (distinctKeys * cacheRatio);
+        final CacheBuilder<Integer, Integer> builder = CacheBuilder.<Integer, Integer>builder().setMaximumWeight(maximumWeight);
+        if (evictionPolicy.equals("frequency_aware")) {
+            // looked up reflectively so that the lru configuration also compiles and runs against the baseline cache
+            CacheBuilder.class.getMethod("setFrequencyAwareEviction", boolean.class).invoke(builder, true);
+        } else if (evictionPolicy.equals("lru") == false) {
+            throw new IllegalArgumentException("unknown eviction policy [" + evictionPolicy + "]");
+        }
+        cache = builder.build();
+        keys = zipfianKeys(distinctKeys, NUMBER_OF_KEYS, new Random(42));
+        for (int i = 0; i < NUMBER_OF_KEYS; i++) {
+            if (cache.get(keys[i]) == null) {
+                cache.put(keys[i], keys[i]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index = new Random().nextInt(NUMBER_OF_KEYS);
+    }
+
+    /**
+     * Counts the hits and misses of the measured reads, excluding the reads that warm up the cache in {@link #setUp()}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HitCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer get_01(ThreadState state, HitCounters counters) {
+        return get(state, counters);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer get_04(ThreadState state, HitCounters counters) {
+        return get(state, counters);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Integer get_16(ThreadState state, HitCounters counters) {
+        return get(state, counters);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer computeIfAbsent_01(ThreadState state, HitCounters counters) throws ExecutionException {
+        return computeIfAbsent(state, counters);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer computeIfAbsent_04(ThreadState state, HitCounters counters) throws ExecutionException {
+        return computeIfAbsent(state, counters);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Integer computeIfAbsent_16(ThreadState state, HitCounters counters) throws ExecutionException {
+        return computeIfAbsent(state, counters);
+    }
+
+    private Integer get(ThreadState state, HitCounters counters) {
+        final Integer value = cache.get(keys[state.index++ & KEYS_MASK]);
+        if (value == null) {
+            counters.misses++;
+        } else {
+            counters.hits++;
+        }
+        return value;
+    }
+
+    private Integer computeIfAbsent(ThreadState state, HitCounters counters) throws ExecutionException {
+        final long misses = counters.misses;
+        final Integer value = cache.computeIfAbsent(keys[state.index++ & KEYS_MASK], key -> {
+            counters.misses++;
+            return key;
+        });
+        if (counters.misses == misses) {
+            counters.hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Draws keys from a Zipfian distribution with an exponent of 1, where the i-th most popular key is read with a probability
+     * proportional to 1/i. The popular keys are scattered over the key space so that they do not share cache segments.
+     */
+    private static Integer[] zipfianKeys(int distinctKeys, int count, Random random) {
+        final double[] cumulative = new double[distinctKeys];
+        double sum = 0;
+        for (int i = 0; i < distinctKeys; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        final Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            keys[i] = rank * 0x9E3779B9;
+        }
+        return keys;
+    }
+}
@@ -106,7 +106,13 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // large clusters
+        "     3000|     10|        1|   200",
+        "    10000|      5|        1|   200",
+        "     1000|     50|        1|   200",
+        "     5000|     10|        1|   500"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -0,0 +1,263 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.cache.query.DisabledQueryCache;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the collection hot path of common aggregations over a synthetic, in-memory index. The index has a single
+ * segment and every document holds one value per field, drawn from <code>cardinality</code> distinct values. The
+ * {@link DocCounter} auxiliary counter reports the time spent per collected document; run with <code>-prof gc</code>
+ * to get the allocation rate, e.g. <code>gradlew -p benchmarks run --args ' AggregationCollectionBenchmark -prof gc'</code>.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class AggregationCollectionBenchmark {
+    private static final String KEYWORD_FIELD = "keyword";
+    private static final String LONG_FIELD = "long";
+    private static final String DATE_FIELD = "date";
+    // 2020-01-01T00:00:00Z, values are spread across minutes from there
+    private static final long START_MILLIS = 1577836800000L;
+
+    @Param({"terms", "histogram", "date_histogram", "cardinality", "composite"})
+    private String aggregation;
+
+    @Param({"1000000"})
+    private int numDocs;
+
+    @Param({"10", "1000", "100000"})
+    private int cardinality;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private SearchContext searchContext;
+    private AggregatorFactories factories;
+
+    /**
+     * Counts the collected documents so that JMH reports the average time per document next to the time per operation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class DocCounter {
+        public long docs;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            docs = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = new ByteBuffersDirectory();
+        Random random = new Random(0);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                int value = random.nextInt(cardinality);
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField(KEYWORD_FIELD, new BytesRef(Integer.toString(value))));
+                doc.add(new SortedNumericDocValuesField(LONG_FIELD, value));
+                doc.add(new SortedNumericDocValuesField(DATE_FIELD, START_MILLIS + value * 60_000L));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+
+        IndexSettings indexSettings = new IndexSettings(IndexMetaData.builder("_index")
+            .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .creationDate(System.currentTimeMillis())
+            .build(), Settings.EMPTY);
+        searchContext = createSearchContext(reader, indexSettings);
+        factories = AggregatorFactories.builder()
+            .addAggregator(aggregationBuilder(aggregation))
+            .build(searchContext.getQueryShardContext(), null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+    }
+
+    @Benchmark
+    public InternalAggregation collect(DocCounter counter) throws IOException {
+        Aggregator aggregator = factories.createTopLevelAggregators(searchContext)[0];
+        try {
+            aggregator.preCollection();
+            searchContext.searcher().search(searchContext.query(), aggregator);
+            aggregator.postCollection();
+            counter.docs += numDocs;
+            return aggregator.buildAggregation(0L);
+        } finally {
+            aggregator.close();
+        }
+    }
+
+    private static AggregationBuilder aggregationBuilder(String aggregation) {
+        switch (aggregation) {
+            case "terms":
+                return new TermsAggregationBuilder("terms", ValueType.STRING).field(KEYWORD_FIELD).executionHint("global_ordinals");
+            case "histogram":
+                return new HistogramAggregationBuilder("histogram").field(LONG_FIELD).interval(1);
+            case "date_histogram":
+                return new DateHistogramAggregationBuilder("date_histogram").field(DATE_FIELD)
+                    .calendarInterval(DateHistogramInterval.HOUR);
+            case "cardinality":
+                return new CardinalityAggregationBuilder("cardinality", ValueType.STRING).field(KEYWORD_FIELD);
+            case "composite":
+                List<CompositeValuesSourceBuilder<?>> sources =
+                    Collections.singletonList(new TermsValuesSourceBuilder(KEYWORD_FIELD).field(KEYWORD_FIELD));
+                return new CompositeAggregationBuilder("composite", sources).size(1000);
+            default:
+                throw new IllegalArgumentException("Unknown aggregation [" + aggregation + "]");
+        }
+    }
+
+    /**
+     * Creates the minimal {@link SearchContext} that aggregations need to be built and to collect, similar to what
+     * <code>AggregatorTestCase</code> does in tests.
+     */
+    private static SearchContext createSearchContext(IndexSearcher indexSearcher, IndexSettings indexSettings) {
+        CircuitBreakerService breakerService = new NoneCircuitBreakerService();
+        BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), breakerService, CircuitBreaker.REQUEST);
+        ContextIndexSearcher searcher = new ContextIndexSearcher(indexSearcher.getIndexReader(), indexSearcher.getSimilarity(),
+            new DisabledQueryCache(indexSettings), new QueryCachingPolicy() {
+                @Override
+                public void onUse(Query query) {
+                }
+
+                @Override
+                public boolean shouldCache(Query query) {
+                    return false;
+                }
+            });
+
+        MapperService mapperService = mock(MapperService.class);
+        when(mapperService.getIndexSettings()).thenReturn(indexSettings);
+        for (MappedFieldType fieldType : fieldTypes()) {
+            when(mapperService.fullName(fieldType.name())).thenReturn(fieldType);
+        }
+        QueryShardContext queryShardContext = new QueryShardContext(0, indexSettings, bigArrays, null,
+            (fieldType, index) -> fieldType.fielddataBuilder(index)
+                .build(indexSettings, fieldType, new IndexFieldDataCache.None(), breakerService, mapperService),
+            mapperService, null, null, NamedXContentRegistry.EMPTY, new NamedWriteableRegistry(Collections.emptyList()),
+            null, searcher, System::currentTimeMillis, null, null);
+
+        SearchContext searchContext = mock(SearchContext.class);
+        when(searchContext.numberOfShards()).thenReturn(1);
+        when(searchContext.searcher()).thenReturn(searcher);
+        when(searchContext.bigArrays()).thenReturn(bigArrays);
+        when(searchContext.query()).thenReturn(new MatchAllDocsQuery());
+        when(searchContext.getQueryShardContext()).thenReturn(queryShardContext);
+        when(searchContext.aggregations())
+            .thenReturn(new SearchContextAggregations(AggregatorFactories.EMPTY, new MultiBucketConsumer(Integer.MAX_VALUE)));
+        return searchContext;
+    }
+
+    private static MappedFieldType[] fieldTypes() {
+        MappedFieldType keyword = new KeywordFieldMapper.KeywordFieldType();
+        keyword.setName(KEYWORD_FIELD);
+        keyword.setHasDocValues(true);
+        MappedFieldType number = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        number.setName(LONG_FIELD);
+        number.setHasDocValues(true);
+        MappedFieldType date = new DateFieldMapper.DateFieldType();
+        date.setName(DATE_FIELD);
+        return new MappedFieldType[] { keyword, number, date };
+    }
+}
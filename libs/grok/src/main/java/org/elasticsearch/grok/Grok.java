@@ -73,6 +73,7 @@ public final class Grok {
     private final Map<String, String> patternBank;
     private final boolean namedCaptures;
     private final Regex compiledExpression;
+    private final List<String> requiredLiterals;
     private final MatcherWatchdog matcherWatchdog;
 
     public Grok(Map<String, String> patternBank, String grokPattern) {
@@ -101,6 +102,7 @@ public final class Grok {
         String expression = toRegex(grokPattern);
         byte[] expressionBytes = expression.getBytes(StandardCharsets.UTF_8);
         this.compiledExpression = new Regex(expressionBytes, 0, expressionBytes.length, Option.DEFAULT, UTF8Encoding.INSTANCE);
+        this.requiredLiterals = RequiredLiterals.extract(expression);
     }
 
     /**
@@ -207,6 +209,29 @@ public final class Grok {
         return grokPattern;
     }
 
+    /**
+     * Returns the literal substrings that every text matched by the given grok expression must contain, expanding pattern
+     * references with this grok's pattern bank. The expression is not compiled.
+     *
+     * @return the required literals, or an empty list if none could be determined
+     */
+    public List<String> requiredLiterals(String grokPattern) {
+        return RequiredLiterals.extract(toRegex(grokPattern));
+    }
+
+    /**
+     * Checks whether the text contains all the given literals. Texts that don't can not match a grok expression whose
+     * {@link #requiredLiterals(String) required literals} these are, without running its regex.
+     */
+    public static boolean containsAll(String text, List<String> literals) {
+        for (String literal : literals) {
+            if (text.contains(literal) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Checks whether a specific text matches the defined grok expression.
      *
@@ -214,6 +239,9 @@ public final class Grok {
      * @return true if grok expression matches text or there is a timeout, false otherwise.
      */
     public boolean match(String text) {
+        if (containsAll(text, requiredLiterals) == false) {
+            return false;
+        }
         Matcher matcher = compiledExpression.matcher(text.getBytes(StandardCharsets.UTF_8));
         int result;
         try {
@@ -233,6 +261,9 @@ public final class Grok {
      * @return a map containing field names and their respective coerced values that matched.
      */
     public Map<String, Object> captures(String text) {
+        if (containsAll(text, requiredLiterals) == false) {
+            return null;
+        }
         byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
         Matcher matcher = compiledExpression.matcher(textAsBytes);
         int result;
@@ -0,0 +1,340 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.grok;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts literal substrings that every text matched by a regular expression must contain. Checking for these literals
+ * with {@link String#indexOf(String)} is much cheaper than running the regex, especially for texts the regex fails on,
+ * because those make the regex engine backtrack through every starting position.
+ *
+ * The extraction is conservative: constructs that are not understood, such as alternations, inline options and
+ * optional atoms, contribute no literals, and an expression that can not be parsed yields no literals at all.
+ */
+final class RequiredLiterals {
+
+    private final String regex;
+    private int pos;
+
+    private RequiredLiterals(String regex) {
+        this.regex = regex;
+    }
+
+    /**
+     * @return the literals any match of the given regular expression contains, longest first. An empty list means that
+     * the expression can not be prefiltered.
+     */
+    static List<String> extract(String regex) {
+        RequiredLiterals parser = new RequiredLiterals(regex);
+        List<String> literals;
+        try {
+            literals = parser.parseAlternation();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return List.of();
+        }
+        if (parser.pos != regex.length()) {
+            return List.of();
+        }
+        // checking the most selective literals first fails fast, and literals contained in others are redundant
+        Set<String> unique = new LinkedHashSet<>(literals);
+        List<String> sorted = new ArrayList<>(unique);
+        sorted.sort(Comparator.comparingInt(String::length).reversed());
+        List<String> result = new ArrayList<>(sorted.size());
+        for (String literal : sorted) {
+            if (result.stream().noneMatch(longer -> longer.contains(literal))) {
+                result.add(literal);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private List<String> parseAlternation() {
+        List<String> literals = parseSequence();
+        if (pos < regex.length() && regex.charAt(pos) == '|') {
+            while (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+                parseSequence();
+            }
+            // none of the branches is required on its own
+            return List.of();
+        }
+        return literals;
+    }
+
+    private List<String> parseSequence() {
+        List<String> literals = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        while (pos < regex.length()) {
+            char c = regex.charAt(pos);
+            if (c == '|' || c == ')') {
+                break;
+            }
+            String literal = null;
+            List<String> atomLiterals = List.of();
+            switch (c) {
+                case '(':
+                    pos++;
+                    atomLiterals = parseGroup();
+                    break;
+                case '[':
+                    skipCharClass();
+                    break;
+                case '\\':
+                    literal = parseEscape();
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                    pos++;
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                    throw new IllegalArgumentException("dangling quantifier");
+                default:
+                    if (c == '{' && intervalEnd(pos) != -1) {
+                        throw new IllegalArgumentException("dangling quantifier");
+                    }
+                    int end = Character.isHighSurrogate(c) && pos + 1 < regex.length() ? pos + 2 : pos + 1;
+                    literal = regex.substring(pos, end);
+                    pos = end;
+                    break;
+            }
+
+            int min = 1;
+            boolean repeated = false;
+            if (pos < regex.length()) {
+                char q = regex.charAt(pos);
+                if (q == '?' || q == '*') {
+                    min = 0;
+                    pos++;
+                } else if (q == '+') {
+                    repeated = true;
+                    pos++;
+                } else if (q == '{' && intervalEnd(pos) != -1) {
+                    int end = intervalEnd(pos);
+                    String interval = regex.substring(pos + 1, end);
+                    int comma = interval.indexOf(',');
+                    String lower = comma == -1 ? interval : interval.substring(0, comma);
+                    min = lower.isEmpty() ? 0 : Integer.parseInt(lower);
+                    repeated = interval.equals("1") == false;
+                    pos = end + 1;
+                }
+                if (min != 1 || repeated) {
+                    // lazy and possessive modifiers
+                    if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+                        pos++;
+                    }
+                }
+            }
+
+            if (min == 0) {
+                flush(current, literals);
+            } else if (literal != null) {
+                current.append(literal);
+                if (repeated) {
+                    flush(current, literals);
+                }
+            } else {
+                flush(current, literals);
+                literals.addAll(atomLiterals);
+            }
+        }
+        flush(current, literals);
+        return literals;
+    }
+
+    private List<String> parseGroup() {
+        if (regex.charAt(pos) != '?') {
+            return parseGroupBody();
+        }
+        pos++;
+        char kind = regex.charAt(pos);
+        switch (kind) {
+            case ':':
+            case '>':
+                pos++;
+                return parseGroupBody();
+            case '=':
+            case '!':
+                pos++;
+                parseGroupBody();
+                return List.of();
+            case '#':
+                pos = regex.indexOf(')', pos);
+                if (pos == -1) {
+                    throw new IllegalArgumentException("unterminated comment");
+                }
+                pos++;
+                return List.of();
+            case '<':
+                char next = regex.charAt(pos + 1);
+                if (next == '=' || next == '!') {
+                    pos += 2;
+                    parseGroupBody();
+                    return List.of();
+                }
+                pos = skipTo('>', pos + 1);
+                return parseGroupBody();
+            case '\'':
+                pos = skipTo('\'', pos + 1);
+                return parseGroupBody();
+            default:
+                // inline options such as (?i) change what the literals match, so give up
+                throw new IllegalArgumentException("unsupported group [" + kind + "]");
+        }
+    }
+
+    private List<String> parseGroupBody() {
+        List<String> literals = parseAlternation();
+        if (pos >= regex.length() || regex.charAt(pos) != ')') {
+            throw new IllegalArgumentException("unterminated group");
+        }
+        pos++;
+        return literals;
+    }
+
+    private void skipCharClass() {
+        pos++;
+        if (regex.charAt(pos) == '^') {
+            pos++;
+        }
+        if (regex.charAt(pos) == ']') {
+            pos++;
+        }
+        while (true) {
+            char c = regex.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == '[') {
+                skipCharClass();
+            } else if (c == ']') {
+                pos++;
+                return;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * @return the escaped character if the escape sequence at the current position stands for a literal character,
+     * {@code null} otherwise
+     */
+    private String parseEscape() {
+        char c = regex.charAt(pos + 1);
+        pos += 2;
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            switch (c) {
+                case 'x':
+                    if (pos < regex.length() && regex.charAt(pos) == '{') {
+                        pos = skipTo('}', pos + 1);
+                    } else {
+                        skipHexDigits(2);
+                    }
+                    break;
+                case 'u':
+                    skipHexDigits(4);
+                    break;
+                case 'o':
+                case 'p':
+                case 'P':
+                    if (pos < regex.length() && regex.charAt(pos) == '{') {
+                        pos = skipTo('}', pos + 1);
+                    }
+                    break;
+                case 'k':
+                case 'g':
+                    if (pos < regex.length() && regex.charAt(pos) == '<') {
+                        pos = skipTo('>', pos + 1);
+                    } else if (pos < regex.length() && regex.charAt(pos) == '\'') {
+                        pos = skipTo('\'', pos + 1);
+                    }
+                    break;
+                case 'c':
+                    pos++;
+                    break;
+                case 'C':
+                case 'M':
+                    throw new IllegalArgumentException("unsupported escape [" + c + "]");
+                default:
+                    while (c >= '0' && c <= '9' && pos < regex.length() && Character.isDigit(regex.charAt(pos))) {
+                        pos++;
+                    }
+                    break;
+            }
+            return null;
+        }
+        return String.valueOf(c);
+    }
+
+    private void skipHexDigits(int max) {
+        for (int i = 0; i < max && pos < regex.length() && Character.digit(regex.charAt(pos), 16) != -1; i++) {
+            pos++;
+        }
+    }
+
+    /**
+     * @return the position after the next occurrence of the given character
+     */
+    private int skipTo(char c, int from) {
+        int index = regex.indexOf(c, from);
+        if (index == -1) {
+            throw new IllegalArgumentException("expected [" + c + "]");
+        }
+        return index + 1;
+    }
+
+    /**
+     * @return the position of the closing brace if an interval quantifier such as <code>{2,5}</code> starts at the
+     * given position, {@code -1} otherwise
+     */
+    private int intervalEnd(int start) {
+        int end = regex.indexOf('}', start);
+        if (end == -1 || end == start + 1) {
+            return -1;
+        }
+        boolean comma = false;
+        boolean digits = false;
+        for (int i = start + 1; i < end; i++) {
+            char c = regex.charAt(i);
+            if (c == ',' && comma == false) {
+                comma = true;
+            } else if (c >= '0' && c <= '9') {
+                digits = true;
+            } else {
+                return -1;
+            }
+        }
+        return digits ? end : -1;
+    }
+
+    private static void flush(StringBuilder current, List<String> literals) {
+        if (current.length() > 0) {
+            literals.add(current.toString());
+            current.setLength(0);
+        }
+    }
+}
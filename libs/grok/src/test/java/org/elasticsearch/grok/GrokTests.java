@@ -400,6 +400,33 @@ public class GrokTests extends ESTestCase {
         assertThat(grok.captures("nomatch"), nullValue());
     }
 
+    public void testRequiredLiterals() {
+        assertThat(RequiredLiterals.extract("foo(bar)?baz"), equalTo(List.of("foo", "baz")));
+        assertThat(RequiredLiterals.extract("a\\.b+c"), equalTo(List.of("a.b", "c")));
+        assertThat(RequiredLiterals.extract("x{2,3}yz"), equalTo(List.of("yz", "x")));
+        assertThat(RequiredLiterals.extract("(?<name>hello) (?:world)[a-z]*"), equalTo(List.of("hello", "world", " ")));
+        assertThat(RequiredLiterals.extract("(?<![0-9])abc\\d{2}de"), equalTo(List.of("abc", "de")));
+        assertThat(RequiredLiterals.extract("\\x41bc\\p{Alpha}"), equalTo(List.of("bc")));
+        assertThat(RequiredLiterals.extract("abc|abd"), equalTo(List.of()));
+        assertThat(RequiredLiterals.extract("(?i)abc"), equalTo(List.of()));
+        assertThat(RequiredLiterals.extract("[abc]+.*"), equalTo(List.of()));
+
+        Grok grok = new Grok(basePatterns, "%{IP:client} GET %{URIPATH:path}");
+        assertThat(grok.requiredLiterals("%{IP:client} GET %{URIPATH:path}"), equalTo(List.of(" GET ", "/")));
+    }
+
+    public void testRequiredLiteralsPrefilter() {
+        Grok grok = new Grok(basePatterns, "%{IP:client} GET %{URIPATH:path}");
+        assertThat(grok.captures("55.3.244.1 POST /index.html"), nullValue());
+        assertThat(grok.match("55.3.244.1 POST /index.html"), is(false));
+        assertThat(grok.captures("55.3.244.1 GET /index.html").get("path"), equalTo("/index.html"));
+        assertThat(grok.match("55.3.244.1 GET /index.html"), is(true));
+
+        // inline options disable the prefilter rather than producing wrong literals
+        grok = new Grok(Collections.emptyMap(), "(?<a>(?i)abc)");
+        assertThat(grok.captures("ABC").get("a"), equalTo("ABC"));
+    }
+
     public void testMultipleNamedCapturesWithSameName() {
         Map<String, String> bank = new HashMap<>();
         bank.put("SINGLEDIGIT", "[0-9]");
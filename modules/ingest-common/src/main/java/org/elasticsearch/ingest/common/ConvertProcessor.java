@@ -147,11 +147,15 @@ public final class ConvertProcessor extends AbstractProcessor {
     private final String targetField;
     private final Type convertType;
     private final boolean ignoreMissing;
+    private final IngestDocument.FieldPath fieldPath;
+    private final IngestDocument.FieldPath targetFieldPath;
 
     ConvertProcessor(String tag, String field, String targetField, Type convertType, boolean ignoreMissing) {
         super(tag);
         this.field = field;
         this.targetField = targetField;
+        this.fieldPath = IngestDocument.FieldPath.of(field);
+        this.targetFieldPath = IngestDocument.FieldPath.of(targetField);
         this.convertType = convertType;
         this.ignoreMissing = ignoreMissing;
     }
@@ -174,7 +178,7 @@ public final class ConvertProcessor extends AbstractProcessor {
 
     @Override
     public IngestDocument execute(IngestDocument document) {
-        Object oldValue = document.getFieldValue(field, Object.class, ignoreMissing);
+        Object oldValue = document.getFieldValue(fieldPath, Object.class, ignoreMissing);
         Object newValue;
 
         if (oldValue == null && ignoreMissing) {
@@ -193,7 +197,7 @@ public final class ConvertProcessor extends AbstractProcessor {
         } else {
             newValue = convertType.convert(oldValue);
         }
-        document.setFieldValue(targetField, newValue);
+        document.setFieldValue(targetFieldPath, newValue);
         return document;
     }
 
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.ingest.common;
 
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.grok.Grok;
 import org.elasticsearch.grok.MatcherWatchdog;
 import org.elasticsearch.ingest.AbstractProcessor;
@@ -26,9 +27,11 @@ import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.Processor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.elasticsearch.ingest.ConfigurationUtils.newConfigurationException;
 
@@ -36,12 +39,20 @@ public final class GrokProcessor extends AbstractProcessor {
 
     public static final String TYPE = "grok";
     private static final String PATTERN_MATCH_KEY = "_ingest._grok_match_index";
+    // the number of groks over subsets of the match patterns that are compiled on demand
+    static final int MAX_CANDIDATE_GROKS = 32;
 
     private final String matchField;
     private final List<String> matchPatterns;
     private final Grok grok;
     private final boolean traceMatch;
     private final boolean ignoreMissing;
+    private final Map<String, String> patternBank;
+    private final MatcherWatchdog matcherWatchdog;
+    // the literals required by each match pattern, or null if the patterns aren't prefiltered as a list
+    private final List<List<String>> patternLiterals;
+    // groks that only try the match patterns in the bit set used as key
+    private final ConcurrentMap<Long, Grok> candidateGroks = ConcurrentCollections.newConcurrentMap();
 
     GrokProcessor(String tag, Map<String, String> patternBank, List<String> matchPatterns, String matchField,
                   boolean traceMatch, boolean ignoreMissing, MatcherWatchdog matcherWatchdog) {
@@ -51,6 +62,24 @@ public final class GrokProcessor extends AbstractProcessor {
         this.grok = new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), matcherWatchdog);
         this.traceMatch = traceMatch;
         this.ignoreMissing = ignoreMissing;
+        this.patternBank = patternBank;
+        this.matcherWatchdog = matcherWatchdog;
+        this.patternLiterals = patternLiterals(grok, matchPatterns);
+    }
+
+    private static List<List<String>> patternLiterals(Grok grok, List<String> matchPatterns) {
+        // a single pattern is prefiltered by the grok itself
+        if (matchPatterns.size() <= 1 || matchPatterns.size() > Long.SIZE) {
+            return null;
+        }
+        List<List<String>> patternLiterals = new ArrayList<>(matchPatterns.size());
+        boolean anyLiterals = false;
+        for (String matchPattern : matchPatterns) {
+            List<String> literals = grok.requiredLiterals(matchPattern);
+            anyLiterals |= literals.isEmpty() == false;
+            patternLiterals.add(literals);
+        }
+        return anyLiterals ? patternLiterals : null;
     }
 
     @Override
@@ -63,7 +92,8 @@ public final class GrokProcessor extends AbstractProcessor {
             throw new IllegalArgumentException("field [" + matchField + "] is null, cannot process it.");
         }
 
-        Map<String, Object> matches = grok.captures(fieldValue);
+        Grok candidateGrok = selectGrok(fieldValue);
+        Map<String, Object> matches = candidateGrok == null ? null : candidateGrok.captures(fieldValue);
         if (matches == null) {
             throw new IllegalArgumentException("Provided Grok expressions do not match field value: [" + fieldValue + "]");
         }
@@ -84,6 +114,37 @@ public final class GrokProcessor extends AbstractProcessor {
         return ingestDocument;
     }
 
+    /**
+     * Returns a grok that only tries the match patterns that can match the given value based on their required literals,
+     * or {@code null} if none of them can. Leaving out patterns that can not match anywhere in the value doesn't change
+     * which of the remaining patterns matches first.
+     */
+    private Grok selectGrok(String value) {
+        if (patternLiterals == null) {
+            return grok;
+        }
+        long candidates = 0L;
+        for (int i = 0; i < patternLiterals.size(); i++) {
+            if (Grok.containsAll(value, patternLiterals.get(i))) {
+                candidates |= 1L << i;
+            }
+        }
+        if (candidates == 0L) {
+            return null;
+        } else if (Long.bitCount(candidates) == patternLiterals.size()) {
+            return grok;
+        }
+        Grok candidateGrok = candidateGroks.get(candidates);
+        if (candidateGrok == null) {
+            if (candidateGroks.size() >= MAX_CANDIDATE_GROKS) {
+                return grok;
+            }
+            candidateGrok = candidateGroks.computeIfAbsent(candidates,
+                key -> new Grok(patternBank, combinePatterns(matchPatterns, key, traceMatch), matcherWatchdog));
+        }
+        return candidateGrok;
+    }
+
     @Override
     public String getType() {
         return TYPE;
@@ -110,13 +171,7 @@ public final class GrokProcessor extends AbstractProcessor {
         if (patterns.size() > 1) {
             combinedPattern = "";
             for (int i = 0; i < patterns.size(); i++) {
-                String pattern = patterns.get(i);
-                String valueWrap;
-                if (traceMatch) {
-                    valueWrap = "(?<" + PATTERN_MATCH_KEY + "." + i + ">" + pattern + ")";
-                } else {
-                    valueWrap = "(?:" + patterns.get(i) + ")";
-                }
+                String valueWrap = wrapPattern(patterns.get(i), i, traceMatch);
                 if (combinedPattern.equals("")) {
                     combinedPattern = valueWrap;
                 } else {
@@ -130,6 +185,30 @@ public final class GrokProcessor extends AbstractProcessor {
         return combinedPattern;
     }
 
+    /**
+     * Combines the patterns whose bit is set in {@code candidates}, keeping their original index for {@code trace_match}.
+     */
+    static String combinePatterns(List<String> patterns, long candidates, boolean traceMatch) {
+        StringBuilder combinedPattern = new StringBuilder();
+        for (int i = 0; i < patterns.size(); i++) {
+            if ((candidates & (1L << i)) != 0) {
+                if (combinedPattern.length() > 0) {
+                    combinedPattern.append('|');
+                }
+                combinedPattern.append(wrapPattern(patterns.get(i), i, traceMatch));
+            }
+        }
+        return combinedPattern.toString();
+    }
+
+    private static String wrapPattern(String pattern, int index, boolean traceMatch) {
+        if (traceMatch) {
+            return "(?<" + PATTERN_MATCH_KEY + "." + index + ">" + pattern + ")";
+        } else {
+            return "(?:" + pattern + ")";
+        }
+    }
+
     public static final class Factory implements Processor.Factory {
 
         private final Map<String, String> builtinPatterns;
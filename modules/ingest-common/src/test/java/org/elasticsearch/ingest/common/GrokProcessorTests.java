@@ -27,6 +27,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.elasticsearch.ingest.IngestDocumentMatcher.assertIngestDocument;
@@ -208,6 +209,40 @@ public class GrokProcessorTests extends ESTestCase {
         assertThat(combined, equalTo("(?<_ingest._grok_match_index.0>foo)|(?<_ingest._grok_match_index.1>bar)"));
     }
 
+    public void testCombinedCandidatePatterns() {
+        List<String> patterns = Arrays.asList("foo", "bar", "baz");
+        assertThat(GrokProcessor.combinePatterns(patterns, 0b101, false), equalTo("(?:foo)|(?:baz)"));
+        assertThat(GrokProcessor.combinePatterns(patterns, 0b010, true), equalTo("(?<_ingest._grok_match_index.1>bar)"));
+        assertThat(GrokProcessor.combinePatterns(patterns, 0b111, true), equalTo(GrokProcessor.combinePatterns(patterns, true)));
+    }
+
+    public void testPrefilteredPatterns() throws Exception {
+        Map<String, String> patternBank = new HashMap<>();
+        patternBank.put("NUM", "[0-9]+");
+        List<String> patterns = Arrays.asList("GET %{NUM:get}", "PUT %{NUM:put}", "POST %{NUM:post}", "%{NUM:any}");
+        GrokProcessor processor = new GrokProcessor(randomAlphaOfLength(10), patternBank, patterns, "field", true, false,
+            MatcherWatchdog.noop());
+
+        IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        doc.setFieldValue("field", "POST 12");
+        processor.execute(doc);
+        assertThat(doc.getFieldValue("post", String.class), equalTo("12"));
+        assertThat(doc.hasField("any"), equalTo(false));
+        assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("2"));
+
+        doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        doc.setFieldValue("field", "DELETE 12");
+        processor.execute(doc);
+        assertThat(doc.getFieldValue("any", String.class), equalTo("12"));
+        assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("3"));
+
+        // only the last pattern passes the prefilter, and it fails to match a value without digits
+        IngestDocument noMatch = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        noMatch.setFieldValue("field", "DELETE");
+        Exception e = expectThrows(IllegalArgumentException.class, () -> processor.execute(noMatch));
+        assertThat(e.getMessage(), equalTo("Provided Grok expressions do not match field value: [DELETE]"));
+    }
+
     public void testCombineSamePatternNameAcrossPatterns() throws Exception {
         String fieldName = RandomDocumentPicks.randomFieldName(random());
         IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
@@ -75,6 +75,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -746,6 +747,9 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                     response -> new BulkResponse(response.getItems(), response.getTook().getMillis(), ingestTookInMillis));
             } else {
                 return ActionListener.delegateFailure(actionListener, (delegatedListener, response) -> {
+                    // items may have failed or been dropped out of order if they were processed concurrently or by async
+                    // processors, but merging the responses below relies on them being sorted by slot
+                    itemResponses.sort(Comparator.comparingInt(BulkItemResponse::getItemId));
                     BulkItemResponse[] items = response.getItems();
                     for (int i = 0; i < items.length; i++) {
                         itemResponses.add(originalSlots.get(i), response.getItems()[i]);
@@ -56,6 +56,7 @@ final class DfsQueryPhase extends SearchPhase {
         super("dfs_query");
         this.progressListener = context.getTask().getProgressListener();
         this.queryResult = searchPhaseController.newSearchPhaseResults(progressListener, context.getRequest(), context.getNumShards());
+        context.addReleasable(queryResult);
         this.searchPhaseController = searchPhaseController;
         this.dfsSearchResults = dfsSearchResults;
         this.nextPhaseFactory = nextPhaseFactory;
@@ -21,6 +21,7 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -66,6 +67,11 @@ interface SearchPhaseContext extends Executor {
      */
     void onFailure(Exception e);
 
+    /**
+     * Registers a {@link Releasable} that is released once the search request completes, successfully or not.
+     */
+    void addReleasable(Releasable releasable);
+
     /**
      * This method will communicate a fatal phase failure back to the user. In contrast to a shard failure
      * will this method immediately fail the search request and return the failure to the issuer of the request
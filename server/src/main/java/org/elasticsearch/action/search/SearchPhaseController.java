@@ -33,8 +33,16 @@ import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
 import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.collect.HppcMaps;
+import org.elasticsearch.common.io.stream.CountingStreamOutput;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -56,6 +64,8 @@ import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.Suggest.Suggestion;
 import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -70,7 +80,17 @@ public final class SearchPhaseController {
 
     private static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
 
+    /**
+     * The amount of memory that shard level aggregation results may use on the coordinating node before they are reduced, regardless
+     * of the batched reduce size of the request. Once this is reached, results are merged with the partially reduced result as they
+     * arrive, so that wide searches use bounded memory.
+     */
+    public static final Setting<ByteSizeValue> MAX_BUFFERED_AGGS_SIZE_SETTING = Setting.memorySizeSetting(
+        "search.max_buffered_aggs_size", "1%", Property.Dynamic, Property.NodeScope);
+
     private final Function<Boolean, ReduceContext> reduceContextFunction;
+    private final CircuitBreaker circuitBreaker;
+    private volatile long maxBufferedAggsBytes;
 
     /**
      * Constructor.
@@ -78,6 +98,34 @@ public final class SearchPhaseController {
      */
     public SearchPhaseController(Function<Boolean, ReduceContext> reduceContextFunction) {
         this.reduceContextFunction = reduceContextFunction;
+        this.circuitBreaker = new NoopCircuitBreaker(CircuitBreaker.REQUEST);
+        this.maxBufferedAggsBytes = Long.MAX_VALUE;
+    }
+
+    /**
+     * Constructor.
+     * @param reduceContextFunction A function that builds a context for the reduce of an {@link InternalAggregation}
+     * @param circuitBreaker the breaker that accounts for the aggregation results that are buffered and reduced
+     * @param clusterSettings the cluster settings to read the {@link #MAX_BUFFERED_AGGS_SIZE_SETTING} from
+     */
+    public SearchPhaseController(Function<Boolean, ReduceContext> reduceContextFunction, CircuitBreaker circuitBreaker,
+                                 ClusterSettings clusterSettings) {
+        this.reduceContextFunction = reduceContextFunction;
+        this.circuitBreaker = circuitBreaker;
+        this.maxBufferedAggsBytes = clusterSettings.get(MAX_BUFFERED_AGGS_SIZE_SETTING).getBytes();
+        clusterSettings.addSettingsUpdateConsumer(MAX_BUFFERED_AGGS_SIZE_SETTING, value -> this.maxBufferedAggsBytes = value.getBytes());
+    }
+
+    /**
+     * Estimates the memory used by the given aggregation results from their serialized size.
+     */
+    static long estimateSize(InternalAggregations aggregations) {
+        try (CountingStreamOutput out = new CountingStreamOutput()) {
+            aggregations.writeTo(out);
+            return out.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public AggregatedDfs aggregateDfs(Collection<DfsSearchResult> results) {
@@ -577,6 +625,14 @@ public final class SearchPhaseController {
         private int numReducePhases = 0;
         private final TopDocsStats topDocsStats;
         private final boolean performFinalReduce;
+        private final CircuitBreaker circuitBreaker;
+        private final long maxBufferedAggsBytes;
+        // the estimated size of the buffered aggs
+        private long bufferedAggsBytes;
+        // the bytes that are currently accounted for in the circuit breaker
+        private long accountedBytes;
+        private Exception aggsFailure;
+        private boolean closed;
 
         /**
          * Creates a new {@link QueryPhaseResultConsumer}
@@ -611,26 +667,38 @@ public final class SearchPhaseController {
             this.bufferSize = bufferSize;
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
             this.performFinalReduce = performFinalReduce;
+            this.circuitBreaker = controller.circuitBreaker;
+            this.maxBufferedAggsBytes = controller.maxBufferedAggsBytes;
         }
 
         @Override
         public void consumeResult(SearchPhaseResult result) {
             super.consumeResult(result);
             QuerySearchResult queryResult = result.queryResult();
-            consumeInternal(queryResult);
+            // estimated before taking the lock, the size of the aggs of remote results is known from their serialized form
+            final long aggsSize = hasAggs ? estimateAggsSize(queryResult) : 0;
+            consumeInternal(queryResult, aggsSize);
             progressListener.notifyQueryResult(queryResult.getShardIndex());
         }
 
-        private synchronized void consumeInternal(QuerySearchResult querySearchResult) {
-            if (index == bufferSize) {
+        private static long estimateAggsSize(QuerySearchResult querySearchResult) {
+            final long serializedSize = querySearchResult.serializedAggsSize();
+            if (serializedSize >= 0) {
+                return serializedSize;
+            }
+            // results of local shards are not serialized
+            final InternalAggregations aggs = querySearchResult.peekAggs();
+            return aggs == null ? 0 : estimateSize(aggs);
+        }
+
+        private synchronized void consumeInternal(QuerySearchResult querySearchResult, long aggsSize) {
+            // reduce once the buffer is full, or as soon as possible once the buffered aggs use too much memory
+            if (index == bufferSize || (hasAggs && index > 1 && bufferedAggsBytes > maxBufferedAggsBytes)) {
                 if (hasAggs) {
-                    ReduceContext reduceContext = controller.reduceContextFunction.apply(false);
-                    InternalAggregations reducedAggs = InternalAggregations.topLevelReduce(Arrays.asList(aggsBuffer), reduceContext);
-                    Arrays.fill(aggsBuffer, null);
-                    aggsBuffer[0] = reducedAggs;
+                    reduceAggsBuffer();
                 }
                 if (hasTopDocs) {
-                    TopDocs reducedTopDocs = mergeTopDocs(Arrays.asList(topDocsBuffer),
+                    TopDocs reducedTopDocs = mergeTopDocs(Arrays.asList(topDocsBuffer).subList(0, index),
                         // we have to merge here in the same way we collect on a shard
                         querySearchResult.from() + querySearchResult.size(), 0);
                     Arrays.fill(topDocsBuffer, null);
@@ -638,14 +706,24 @@ public final class SearchPhaseController {
                 }
                 numReducePhases++;
                 index = 1;
-                if (hasAggs) {
+                if (hasAggs && aggsFailure == null) {
                     progressListener.notifyPartialReduce(progressListener.searchShards(processedShards),
                         topDocsStats.getTotalHits(), aggsBuffer[0], numReducePhases);
                 }
             }
             final int i = index++;
             if (hasAggs) {
-                aggsBuffer[i] = (InternalAggregations) querySearchResult.consumeAggs();
+                // always consume the aggs so that the shard result doesn't hold on to them
+                final InternalAggregations aggs = (InternalAggregations) querySearchResult.consumeAggs();
+                if (aggsFailure == null && closed == false) {
+                    try {
+                        addToBreaker(aggsSize);
+                        bufferedAggsBytes += aggsSize;
+                        aggsBuffer[i] = aggs;
+                    } catch (Exception e) {
+                        onAggsFailure(e);
+                    }
+                }
             }
             if (hasTopDocs) {
                 final TopDocsAndMaxScore topDocs = querySearchResult.consumeTopDocs(); // can't be null
@@ -656,7 +734,61 @@ public final class SearchPhaseController {
             processedShards[querySearchResult.getShardIndex()] = querySearchResult.getSearchShardTarget();
         }
 
+        private void reduceAggsBuffer() {
+            if (aggsFailure != null || closed) {
+                return;
+            }
+            try {
+                // the reduce may need as much memory as the buffered results
+                addToBreaker(bufferedAggsBytes);
+                final InternalAggregations reducedAggs;
+                try {
+                    ReduceContext reduceContext = controller.reduceContextFunction.apply(false);
+                    reducedAggs = InternalAggregations.topLevelReduce(Arrays.asList(aggsBuffer).subList(0, index), reduceContext);
+                } finally {
+                    addToBreaker(-bufferedAggsBytes);
+                }
+                // the reduced result may be larger than any of the results it merges, e.g. the union of disjoint terms
+                final long reducedSize = estimateSize(reducedAggs);
+                Arrays.fill(aggsBuffer, null);
+                aggsBuffer[0] = reducedAggs;
+                // the buffered shard results are released, only the reduced result remains
+                addToBreaker(reducedSize - bufferedAggsBytes);
+                bufferedAggsBytes = reducedSize;
+            } catch (Exception e) {
+                onAggsFailure(e);
+            }
+        }
+
+        private void addToBreaker(long bytes) {
+            if (bytes > 0) {
+                circuitBreaker.addEstimateBytesAndMaybeBreak(bytes, "<reduce_aggs>");
+            } else {
+                circuitBreaker.addWithoutBreaking(bytes);
+            }
+            accountedBytes += bytes;
+        }
+
+        /**
+         * Drops all buffered aggs after a failure, e.g. a tripped breaker. The failure is rethrown by the final {@link #reduce()},
+         * which fails the search rather than the coordinating node.
+         */
+        private void onAggsFailure(Exception e) {
+            aggsFailure = e;
+            Arrays.fill(aggsBuffer, null);
+            releaseAccountedBytes();
+        }
+
+        private void releaseAccountedBytes() {
+            circuitBreaker.addWithoutBreaking(-accountedBytes);
+            accountedBytes = 0;
+            bufferedAggsBytes = 0;
+        }
+
         private synchronized List<InternalAggregations> getRemainingAggs() {
+            if (aggsFailure != null) {
+                throw ExceptionsHelper.convertToRuntime(aggsFailure);
+            }
             return hasAggs ? Arrays.asList(aggsBuffer).subList(0, index) : null;
         }
 
@@ -664,13 +796,32 @@ public final class SearchPhaseController {
             return hasTopDocs ? Arrays.asList(topDocsBuffer).subList(0, index) : null;
         }
 
+        private synchronized void accountFinalReduce() {
+            if (hasAggs && aggsFailure == null && closed == false) {
+                addToBreaker(bufferedAggsBytes);
+            }
+        }
+
         @Override
         public ReducedQueryPhase reduce() {
-            ReducedQueryPhase reducePhase = controller.reducedQueryPhase(results.asList(),
-                getRemainingAggs(), getRemainingTopDocs(), topDocsStats, numReducePhases, false, performFinalReduce);
-            progressListener.notifyReduce(progressListener.searchShards(results.asList()),
-                reducePhase.totalHits, reducePhase.aggregations);
-            return reducePhase;
+            try {
+                accountFinalReduce();
+                ReducedQueryPhase reducePhase = controller.reducedQueryPhase(results.asList(),
+                    getRemainingAggs(), getRemainingTopDocs(), topDocsStats, numReducePhases, false, performFinalReduce);
+                progressListener.notifyReduce(progressListener.searchShards(results.asList()),
+                    reducePhase.totalHits, reducePhase.aggregations);
+                return reducePhase;
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed == false) {
+                closed = true;
+                releaseAccountedBytes();
+            }
         }
 
         /**
@@ -692,7 +692,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             state = State.fromId(in.readByte());
             settings = Settings.readSettingsFromStream(in);
             primaryTerms = in.readVLongArray();
-            mappings = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), MappingMetaData::new,
+            mappings = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), MappingMetaData::readFrom,
                 MappingMetaData::readDiffFrom);
             aliases = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), AliasMetaData::new,
                 AliasMetaData::readDiffFrom);
@@ -758,7 +758,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         builder.primaryTerms(in.readVLongArray());
         int mappingsSize = in.readVInt();
         for (int i = 0; i < mappingsSize; i++) {
-            MappingMetaData mappingMd = new MappingMetaData(in);
+            MappingMetaData mappingMd = MappingMetaData.readFrom(in);
             builder.putMapping(mappingMd);
         }
         int aliasesSize = in.readVInt();
@@ -949,7 +949,8 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         public Builder putMapping(MappingMetaData mappingMd) {
             mappings.clear();
             if (mappingMd != null) {
-                mappings.put(MapperService.SINGLE_MAPPING_NAME, mappingMd);
+                // share a single instance between all indices with the same mapping
+                mappings.put(MapperService.SINGLE_MAPPING_NAME, MappingMetaData.intern(mappingMd));
             }
             return this;
         }
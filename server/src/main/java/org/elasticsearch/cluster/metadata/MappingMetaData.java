@@ -33,9 +33,11 @@ import org.elasticsearch.index.mapper.DocumentMapper;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
 
@@ -46,6 +48,14 @@ public class MappingMetaData extends AbstractDiffable<MappingMetaData> {
 
     public static final MappingMetaData EMPTY_MAPPINGS = new MappingMetaData("_doc", Collections.emptyMap());
 
+    /**
+     * Canonical instances of the mappings in use on this node. Clusters often hold many indices with identical mappings, for instance
+     * indices created from the same template, so {@link IndexMetaData} keeps a single instance per distinct mapping rather than one
+     * copy of the compressed source per index. Keys are held weakly, so mappings that are no longer referenced by any index metadata
+     * are dropped.
+     */
+    private static final Map<MappingMetaData, WeakReference<MappingMetaData>> INTERNED_MAPPINGS = new WeakHashMap<>();
+
     private final String type;
 
     private final CompressedXContent source;
@@ -172,7 +182,30 @@ public class MappingMetaData extends AbstractDiffable<MappingMetaData> {
         routingRequired = in.readBoolean();
     }
 
+    /**
+     * Reads a mapping and returns the canonical instance that is equal to it, see {@link #intern(MappingMetaData)}.
+     */
+    public static MappingMetaData readFrom(StreamInput in) throws IOException {
+        return intern(new MappingMetaData(in));
+    }
+
     public static Diff<MappingMetaData> readDiffFrom(StreamInput in) throws IOException {
-        return readDiffFrom(MappingMetaData::new, in);
+        return readDiffFrom(MappingMetaData::readFrom, in);
+    }
+
+    /**
+     * Returns the canonical instance that is equal to the given mapping, registering the given mapping as the canonical instance if
+     * there is none yet.
+     */
+    public static MappingMetaData intern(MappingMetaData mappingMetaData) {
+        synchronized (INTERNED_MAPPINGS) {
+            final WeakReference<MappingMetaData> existingReference = INTERNED_MAPPINGS.get(mappingMetaData);
+            final MappingMetaData existing = existingReference == null ? null : existingReference.get();
+            if (existing != null) {
+                return existing;
+            }
+            INTERNED_MAPPINGS.put(mappingMetaData, new WeakReference<>(mappingMetaData));
+            return mappingMetaData;
+        }
     }
 }
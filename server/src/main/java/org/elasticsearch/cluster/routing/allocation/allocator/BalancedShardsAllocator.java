@@ -41,6 +41,7 @@ import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision.Type;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -51,6 +52,8 @@ import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.gateway.PriorityComparator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -59,6 +62,7 @@ import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
@@ -257,6 +261,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final MetaData metaData;
         private final float avgShardsPerNode;
         private final NodeSorter sorter;
+        private final NodesByShardCount nodesByShardCount;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
             this.logger = logger;
@@ -268,12 +273,13 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             avgShardsPerNode = ((float) metaData.getTotalNumberOfShards()) / routingNodes.size();
             nodes = Collections.unmodifiableMap(buildModelFromAssigned());
             sorter = newNodeSorter();
+            nodesByShardCount = new NodesByShardCount(nodes.values());
         }
 
         /**
          * Returns an array view on the nodes in the balancer. Nodes should not be removed from this list.
          */
-        private ModelNode[] nodesArray() {
+        ModelNode[] nodesArray() {
             return nodes.values().toArray(new ModelNode[nodes.size()]);
         }
 
@@ -297,7 +303,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * returned sorter is not sorted. Use {@link NodeSorter#reset(String)}
          * to sort based on an index.
          */
-        private NodeSorter newNodeSorter() {
+        NodeSorter newNodeSorter() {
             return new NodeSorter(nodesArray(), weight, this);
         }
 
@@ -482,27 +488,35 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
             for (String index : buildWeightOrderedIndices()) {
+                // shards of other indices may have moved since the indices were ordered, but if the weights of all nodes are within
+                // the threshold then no two nodes can be balanced for this index and there is no need to ask the deciders
+                if (lessThan(weightDelta(index), threshold)) {
+                    continue;
+                }
+
                 IndexMetaData indexMetaData = metaData.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
-                // move these nodes to the front of modelNodes so that we can only balance based on these nodes
+                // move these nodes to the front of modelNodes in the order of their weight so that we can only balance based on
+                // these nodes without sorting them
                 int relevantNodes = 0;
-                for (int i = 0; i < modelNodes.length; i++) {
-                    ModelNode modelNode = modelNodes[i];
+                int irrelevantNodes = modelNodes.length;
+                for (Iterator<ModelNode> nodeIterator = nodesInWeightOrder(index, 0); nodeIterator.hasNext(); ) {
+                    final ModelNode modelNode = nodeIterator.next();
                     if (modelNode.getIndex(index) != null
                         || deciders.canAllocate(indexMetaData, modelNode.getRoutingNode(), allocation).type() != Type.NO) {
-                        // swap nodes at position i and relevantNodes
-                        modelNodes[i] = modelNodes[relevantNodes];
-                        modelNodes[relevantNodes] = modelNode;
-                        relevantNodes++;
+                        modelNodes[relevantNodes++] = modelNode;
+                    } else {
+                        modelNodes[--irrelevantNodes] = modelNode;
                     }
                 }
+                assert relevantNodes == irrelevantNodes : relevantNodes + " relevant nodes but " + irrelevantNodes + " irrelevant nodes";
 
                 if (relevantNodes < 2) {
                     continue;
                 }
 
-                sorter.reset(index, 0, relevantNodes);
+                sorter.resetSorted(index, 0, relevantNodes);
                 int lowIdx = 0;
                 int highIdx = relevantNodes - 1;
                 while (true) {
@@ -542,13 +556,14 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                          * a relocation must bring us closer to the balance if we only achieve the same delta the relocation is useless */
                         if (tryRelocateShard(minNode, maxNode, index, delta)) {
                             /*
-                             * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                             * we could just find the place to insert linearly but the win might be minor
-                             * compared to the added complexity
+                             * only the weights of the two nodes changed and all other nodes are still sorted, so rather than
+                             * sorting all nodes again we just move these two nodes to their new positions
                              */
-                            weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
-                            weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                            sorter.sort(0, relevantNodes);
+                            sorter.updateWeight(lowIdx, 0, relevantNodes);
+                            // if the min node moved past the max node then the max node shifted down by one position
+                            final int maxNodeIdx = modelNodes[highIdx] == maxNode ? highIdx : highIdx - 1;
+                            assert modelNodes[maxNodeIdx] == maxNode;
+                            sorter.updateWeight(maxNodeIdx, 0, relevantNodes);
                             lowIdx = 0;
                             highIdx = relevantNodes - 1;
                             continue;
@@ -591,8 +606,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = weightDelta(indices[i]);
             }
             new IntroSorter() {
 
@@ -627,6 +641,95 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return indices;
         }
 
+        /**
+         * Returns the difference between the highest and the lowest weight of all nodes for the given index, without computing the
+         * weight of every node. The weight of a node that holds no shards of the index only grows with its total number of shards, so
+         * among these nodes the extreme weights belong to the first such nodes with the fewest and with the most shards.
+         */
+        float weightDelta(String index) {
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : nodesByShardCount.nodesWithShards(index)) {
+                final float nodeWeight = weight.weight(this, node, index);
+                minWeight = Math.min(minWeight, nodeWeight);
+                maxWeight = Math.max(maxWeight, nodeWeight);
+            }
+            final ModelNode[] nodesInShardCountOrder = nodesByShardCount.nodes;
+            for (ModelNode node : nodesInShardCountOrder) {
+                if (node.getIndex(index) == null) {
+                    minWeight = Math.min(minWeight, weight.weight(this, node, index));
+                    break;
+                }
+            }
+            for (int i = nodesInShardCountOrder.length - 1; i >= 0; i--) {
+                if (nodesInShardCountOrder[i].getIndex(index) == null) {
+                    maxWeight = Math.max(maxWeight, weight.weight(this, nodesInShardCountOrder[i], index));
+                    break;
+                }
+            }
+            return maxWeight - minWeight;
+        }
+
+        /**
+         * Returns all nodes in ascending order of their weight for the given index, with the given number of shards added to each
+         * node. Only the nodes that hold shards of the index are weighed and sorted up front, the others are visited in the order of
+         * their number of shards. The model must not change while the returned iterator is in use.
+         */
+        Iterator<ModelNode> nodesInWeightOrder(String index, int numAdditionalShards) {
+            return new WeightOrderIterator(index, numAdditionalShards);
+        }
+
+        private final class WeightOrderIterator implements Iterator<ModelNode> {
+            private final String index;
+            private final int numAdditionalShards;
+            private final NodeSorter nodesWithShards;
+            private final ModelNode[] nodesInShardCountOrder;
+            private int nextWithShards;
+            private int nextWithoutShards;
+            private float nextWithoutShardsWeight;
+
+            WeightOrderIterator(String index, int numAdditionalShards) {
+                this.index = index;
+                this.numAdditionalShards = numAdditionalShards;
+                this.nodesWithShards = new NodeSorter(nodesByShardCount.nodesWithShards(index).toArray(new ModelNode[0]), weight,
+                    Balancer.this, numAdditionalShards);
+                this.nodesWithShards.reset(index);
+                this.nodesInShardCountOrder = nodesByShardCount.nodes;
+                advanceWithoutShards(0);
+            }
+
+            private void advanceWithoutShards(int from) {
+                nextWithoutShards = from;
+                while (nextWithoutShards < nodesInShardCountOrder.length
+                    && nodesInShardCountOrder[nextWithoutShards].getIndex(index) != null) {
+                    nextWithoutShards++;
+                }
+                if (nextWithoutShards < nodesInShardCountOrder.length) {
+                    nextWithoutShardsWeight = weight.weight(Balancer.this, nodesInShardCountOrder[nextWithoutShards], index,
+                        numAdditionalShards);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextWithShards < nodesWithShards.modelNodes.length || nextWithoutShards < nodesInShardCountOrder.length;
+            }
+
+            @Override
+            public ModelNode next() {
+                if (hasNext() == false) {
+                    throw new NoSuchElementException();
+                }
+                if (nextWithShards < nodesWithShards.modelNodes.length && (nextWithoutShards == nodesInShardCountOrder.length
+                    || nodesWithShards.weights[nextWithShards] <= nextWithoutShardsWeight)) {
+                    return nodesWithShards.modelNodes[nextWithShards++];
+                }
+                final ModelNode node = nodesInShardCountOrder[nextWithoutShards];
+                advanceWithoutShards(nextWithoutShards + 1);
+                return node;
+            }
+        }
+
         /**
          * Move started shards that can not be allocated to a node anymore
          *
@@ -688,18 +791,17 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 return MoveDecision.stay(canRemain);
             }
 
-            sorter.reset(shardRouting.getIndexName());
             /*
-             * the sorter holds the minimum weight node first for the shards index.
-             * We now walk through the nodes until we find a node to allocate the shard.
-             * This is not guaranteed to be balanced after this operation we still try best effort to
+             * We walk through the nodes in ascending order of their weight for the shard's index until we find a node to allocate the
+             * shard. This is not guaranteed to be balanced after this operation we still try best effort to
              * allocate on the minimal eligible node.
              */
             Type bestDecision = Type.NO;
             RoutingNode targetNode = null;
             final List<NodeAllocationResult> nodeExplanationMap = explain ? new ArrayList<>() : null;
             int weightRanking = 0;
-            for (ModelNode currentNode : sorter.modelNodes) {
+            for (Iterator<ModelNode> nodeIterator = nodesInWeightOrder(shardRouting.getIndexName(), 0); nodeIterator.hasNext(); ) {
+                final ModelNode currentNode = nodeIterator.next();
                 if (currentNode != sourceNode) {
                     RoutingNode target = currentNode.getRoutingNode();
                     // don't use canRebalance as we want hard filtering rules to apply. See #17698
@@ -769,10 +871,6 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 return;
             }
 
-            /*
-             * TODO: We could be smarter here and group the shards by index and then
-             * use the sorter to save some iterations.
-             */
             final AllocationDeciders deciders = allocation.deciders();
             final PriorityComparator secondaryComparator = PriorityComparator.getAllocationComparator(allocation);
             final Comparator<ShardRouting> comparator = (o1, o2) -> {
@@ -909,7 +1007,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
              * iteration order is different for each run and makes testing hard */
             Map<String, NodeAllocationResult> nodeExplanationMap = explain ? new HashMap<>() : null;
             List<Tuple<String, Float>> nodeWeights = explain ? new ArrayList<>() : null;
-            for (ModelNode node : nodes.values()) {
+            // visit the nodes in ascending order of their weight with the shard added, so we can stop at the first heavier node
+            for (Iterator<ModelNode> nodeIterator = nodesInWeightOrder(shard.getIndexName(), 1); nodeIterator.hasNext(); ) {
+                final ModelNode node = nodeIterator.next();
                 if ((throttledNodes.contains(node) || node.containsShard(shard)) && explain == false) {
                     // decision is NO without needing to check anything further, so short circuit
                     continue;
@@ -917,9 +1017,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
                 // simulate weight if we would add shard to node
                 float currentWeight = weight.weightShardAdded(this, node, shard.getIndexName());
-                // moving the shard would not improve the balance, and we are not in explain mode, so short circuit
+                // neither this nor any of the remaining nodes would improve the balance, and we are not in explain mode, so short circuit
                 if (currentWeight > minWeight && explain == false) {
-                    continue;
+                    break;
                 }
 
                 Decision currentDecision = allocation.deciders().canAllocate(shard, node.getRoutingNode(), allocation);
@@ -1054,6 +1154,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
         private final RoutingNode routingNode;
+        // the order by number of shards that this node is kept in, and its position in that order
+        private NodesByShardCount shardCountOrder;
+        private int shardCountPosition;
 
         ModelNode(RoutingNode routingNode) {
             this.routingNode = routingNode;
@@ -1090,23 +1193,32 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
         public void addShard(ShardRouting shard) {
             ModelIndex index = indices.get(shard.getIndexName());
-            if (index == null) {
+            final boolean addedIndex = index == null;
+            if (addedIndex) {
                 index = new ModelIndex(shard.getIndexName());
                 indices.put(index.getIndexId(), index);
             }
             index.addShard(shard);
             numShards++;
+            if (shardCountOrder != null) {
+                shardCountOrder.shardAdded(this, addedIndex ? index.getIndexId() : null);
+            }
         }
 
         public void removeShard(ShardRouting shard) {
             ModelIndex index = indices.get(shard.getIndexName());
+            boolean removedIndex = false;
             if (index != null) {
                 index.removeShard(shard);
                 if (index.numShards() == 0) {
                     indices.remove(shard.getIndexName());
+                    removedIndex = true;
                 }
             }
             numShards--;
+            if (shardCountOrder != null) {
+                shardCountOrder.shardRemoved(this, removedIndex ? shard.getIndexName() : null);
+            }
         }
 
         @Override
@@ -1180,6 +1292,89 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         }
     }
 
+    /**
+     * Keeps the nodes of a {@link Balancer} ordered by ascending number of shards, and tracks which nodes hold shards of each index, as
+     * shards are added to and removed from the nodes. The weight of a node that holds no shards of an index only grows with its number
+     * of shards, so this allows the balancer to visit the nodes in the order of their weight for an index while only computing and
+     * sorting the weights of the nodes that hold shards of that index.
+     */
+    static final class NodesByShardCount {
+
+        final ModelNode[] nodes;
+        private final Map<String, List<ModelNode>> nodesByIndex = new HashMap<>();
+
+        NodesByShardCount(Collection<ModelNode> modelNodes) {
+            nodes = modelNodes.toArray(new ModelNode[0]);
+            Arrays.sort(nodes, Comparator.comparingInt(ModelNode::numShards));
+            for (int i = 0; i < nodes.length; i++) {
+                final ModelNode node = nodes[i];
+                assert node.shardCountOrder == null : node + " is already kept in order";
+                node.shardCountOrder = this;
+                node.shardCountPosition = i;
+                for (ModelIndex index : node) {
+                    nodesByIndex.computeIfAbsent(index.getIndexId(), k -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+
+        /**
+         * Returns the nodes that hold shards of the given index
+         */
+        List<ModelNode> nodesWithShards(String index) {
+            return nodesByIndex.getOrDefault(index, Collections.emptyList());
+        }
+
+        private void shardAdded(ModelNode node, @Nullable String addedIndex) {
+            if (addedIndex != null) {
+                nodesByIndex.computeIfAbsent(addedIndex, k -> new ArrayList<>()).add(node);
+            }
+            // the node swaps places with the last of the nodes that had as many shards as it had before
+            final int previousShards = node.numShards() - 1;
+            int low = node.shardCountPosition + 1;
+            int high = nodes.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (nodes[mid].numShards() <= previousShards) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            swap(node.shardCountPosition, high);
+        }
+
+        private void shardRemoved(ModelNode node, @Nullable String removedIndex) {
+            if (removedIndex != null) {
+                final List<ModelNode> nodesWithShards = nodesByIndex.get(removedIndex);
+                nodesWithShards.remove(node);
+                if (nodesWithShards.isEmpty()) {
+                    nodesByIndex.remove(removedIndex);
+                }
+            }
+            // the node swaps places with the first of the nodes that had as many shards as it had before
+            final int previousShards = node.numShards() + 1;
+            int low = 0;
+            int high = node.shardCountPosition - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (nodes[mid].numShards() >= previousShards) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            swap(node.shardCountPosition, low);
+        }
+
+        private void swap(int i, int j) {
+            final ModelNode node = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = node;
+            nodes[i].shardCountPosition = i;
+            nodes[j].shardCountPosition = j;
+        }
+    }
+
     static final class NodeSorter extends IntroSorter {
 
         final ModelNode[] modelNodes;
@@ -1188,12 +1383,21 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final WeightFunction function;
         private String index;
         private final Balancer balancer;
+        private final int numAdditionalShards;
         private float pivotWeight;
 
         NodeSorter(ModelNode[] modelNodes, WeightFunction function, Balancer balancer) {
+            this(modelNodes, function, balancer, 0);
+        }
+
+        /**
+         * Creates a sorter that sorts the nodes by their weight with the given number of shards added to each node
+         */
+        NodeSorter(ModelNode[] modelNodes, WeightFunction function, Balancer balancer, int numAdditionalShards) {
             this.function = function;
             this.balancer = balancer;
             this.modelNodes = modelNodes;
+            this.numAdditionalShards = numAdditionalShards;
             weights = new float[modelNodes.length];
         }
 
@@ -1213,8 +1417,38 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             reset(index, 0, modelNodes.length);
         }
 
+        /**
+         * Resets the sorter to nodes that are already sorted by their weight for the given index, and recalculates their weights.
+         */
+        public void resetSorted(String index, int from, int to) {
+            this.index = index;
+            for (int i = from; i < to; i++) {
+                weights[i] = weight(modelNodes[i]);
+                assert i == from || weights[i - 1] <= weights[i] : "nodes are not sorted by weight";
+            }
+        }
+
         public float weight(ModelNode node) {
-            return function.weight(balancer, node, index);
+            return function.weight(balancer, node, index, numAdditionalShards);
+        }
+
+        /**
+         * Recalculates the weight of the node at position {@code i} and moves the node to its sorted position within
+         * {@code [from, to)}, assuming that all other nodes in this range are sorted by their current weights.
+         *
+         * @return the new position of the node
+         */
+        public int updateWeight(int i, int from, int to) {
+            weights[i] = weight(modelNodes[i]);
+            while (i > from && weights[i - 1] > weights[i]) {
+                swap(i - 1, i);
+                i--;
+            }
+            while (i < to - 1 && weights[i + 1] < weights[i]) {
+                swap(i, i + 1);
+                i++;
+            }
+            return i;
         }
 
         @Override
@@ -1241,9 +1475,5 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         protected int comparePivot(int j) {
             return Float.compare(pivotWeight, weights[j]);
         }
-
-        public float delta() {
-            return weights[weights.length - 1] - weights[0];
-        }
     }
 }
@@ -38,6 +38,7 @@ import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -45,22 +46,29 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -77,8 +85,19 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         Setting.positiveTimeSetting("cluster.service.slow_task_logging_threshold", TimeValue.timeValueSeconds(30),
             Setting.Property.Dynamic, Setting.Property.NodeScope);
 
+    /**
+     * The number of threads that apply cluster states, including the cluster applier thread itself. Appliers are always called in order
+     * on the cluster applier thread, but with more than one thread they may spread independent work across the other threads with
+     * {@link #runConcurrently}.
+     */
+    public static final Setting<Integer> CLUSTER_SERVICE_APPLIER_THREADS_SETTING =
+        Setting.intSetting("cluster.service.applier_threads", 1, 1, 32, Setting.Property.NodeScope);
+
     public static final String CLUSTER_UPDATE_THREAD_NAME = "clusterApplierService#updateTask";
 
+    // the threads that run the work that appliers spread with runConcurrently, on behalf of the cluster applier thread
+    static final String CLUSTER_UPDATE_PARALLEL_THREAD_NAME = "clusterApplierService#parallelUpdateTask";
+
     private final ClusterSettings clusterSettings;
     protected final ThreadPool threadPool;
 
@@ -86,6 +105,12 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private volatile PrioritizedEsThreadPoolExecutor threadPoolExecutor;
 
+    private final int applierThreads;
+    // only set if there is more than one applier thread
+    private volatile ExecutorService parallelApplierExecutor;
+
+    private final Map<String, MeanMetric> applierTimings = ConcurrentCollections.newConcurrentMap();
+
     /**
      * Those 3 state listeners are changing infrequently - CopyOnWriteArrayList is just fine
      */
@@ -115,6 +140,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         this.state = new AtomicReference<>();
         this.localNodeMasterListeners = new LocalNodeMasterListeners(threadPool);
         this.nodeName = nodeName;
+        this.applierThreads = CLUSTER_SERVICE_APPLIER_THREADS_SETTING.get(settings);
 
         this.slowTaskLoggingThreshold = CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
         this.clusterSettings.addSettingsUpdateConsumer(CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
@@ -145,6 +171,10 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         Objects.requireNonNull(state.get(), "please set initial state before starting");
         addListener(localNodeMasterListeners);
         threadPoolExecutor = createThreadPoolExecutor();
+        if (applierThreads > 1) {
+            parallelApplierExecutor = EsExecutors.newFixed(nodeName + "/" + CLUSTER_UPDATE_PARALLEL_THREAD_NAME, applierThreads - 1, -1,
+                daemonThreadFactory(nodeName, CLUSTER_UPDATE_PARALLEL_THREAD_NAME), threadPool.getThreadContext());
+        }
     }
 
     protected PrioritizedEsThreadPoolExecutor createThreadPoolExecutor() {
@@ -189,6 +219,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
             }
         }
         ThreadPool.terminate(threadPoolExecutor, 10, TimeUnit.SECONDS);
+        ThreadPool.terminate(parallelApplierExecutor, 10, TimeUnit.SECONDS);
         // close timeout listeners that did not have an ongoing timeout
         timeoutClusterStateListeners.forEach(TimeoutClusterStateListener::onClose);
         removeListener(localNodeMasterListeners);
@@ -365,16 +396,20 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
     }
 
-    /** asserts that the current thread is <b>NOT</b> the cluster state update thread */
+    /** asserts that the current thread is <b>NOT</b> the cluster state update thread nor one of its parallel threads */
     public static boolean assertNotClusterStateUpdateThread(String reason) {
-        assert Thread.currentThread().getName().contains(CLUSTER_UPDATE_THREAD_NAME) == false :
+        final String threadName = Thread.currentThread().getName();
+        assert threadName.contains(CLUSTER_UPDATE_THREAD_NAME) == false
+            && threadName.contains(CLUSTER_UPDATE_PARALLEL_THREAD_NAME) == false :
             "Expected current thread [" + Thread.currentThread() + "] to not be the cluster state update thread. Reason: [" + reason + "]";
         return true;
     }
 
     /** asserts that the current stack trace does <b>NOT</b> involve a cluster state applier */
     private static boolean assertNotCalledFromClusterStateApplier(String reason) {
-        if (Thread.currentThread().getName().contains(CLUSTER_UPDATE_THREAD_NAME)) {
+        final String threadName = Thread.currentThread().getName();
+        final boolean parallelApplierThread = threadName.contains(CLUSTER_UPDATE_PARALLEL_THREAD_NAME);
+        if (parallelApplierThread || threadName.contains(CLUSTER_UPDATE_THREAD_NAME)) {
             for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
                 final String className = element.getClassName();
                 final String methodName = element.getMethodName();
@@ -382,10 +417,14 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
                     // people may start an observer from an applier
                     return true;
                 } else if (className.equals(ClusterApplierService.class.getName())
-                    && methodName.equals("callClusterStateAppliers")) {
+                    && methodName.equals("callClusterStateApplier")) {
                     throw new AssertionError("should not be called by a cluster state applier. reason [" + reason + "]");
                 }
             }
+            if (parallelApplierThread) {
+                // the parallel threads only run work that a cluster state applier spread with runConcurrently
+                throw new AssertionError("should not be called by a cluster state applier. reason [" + reason + "]");
+            }
         }
         return true;
     }
@@ -505,12 +544,96 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     }
 
     private void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
-        clusterStateAppliers.forEach(applier -> {
-            logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
-            try (Releasable ignored = stopWatch.timing("running applier [" + applier + "]")) {
-                applier.applyClusterState(clusterChangedEvent);
+        clusterStateAppliers.forEach(applier -> callClusterStateApplier(applier, clusterChangedEvent, stopWatch));
+    }
+
+    private void callClusterStateApplier(ClusterStateApplier applier, ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
+        logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
+        final long startTimeNanos = System.nanoTime();
+        try (Releasable ignored = stopWatch.timing("running applier [" + applier + "]")) {
+            applier.applyClusterState(clusterChangedEvent);
+        } finally {
+            applierTimings.computeIfAbsent(applier.getClass().getName(), k -> new MeanMetric())
+                .inc(System.nanoTime() - startTimeNanos);
+        }
+    }
+
+    /**
+     * Runs the given tasks and waits for all of them to complete. If there is more than one applier thread (see
+     * {@link #CLUSTER_SERVICE_APPLIER_THREADS_SETTING}) then the tasks are spread across these threads and the current one, otherwise
+     * they run in order on the current thread. Appliers may use this to parallelize independent pieces of work while applying a cluster
+     * state. If any task fails then the remaining tasks still run, and the first failure is rethrown once all tasks are done.
+     */
+    public void runConcurrently(List<Runnable> tasks) {
+        final ExecutorService executor = parallelApplierExecutor;
+        final AtomicInteger nextTask = new AtomicInteger();
+        final Runnable worker = () -> {
+            RuntimeException failure = null;
+            int task;
+            while ((task = nextTask.getAndIncrement()) < tasks.size()) {
+                try {
+                    tasks.get(task).run();
+                } catch (RuntimeException e) {
+                    failure = addFailure(failure, e);
+                }
             }
-        });
+            if (failure != null) {
+                throw failure;
+            }
+        };
+        final List<Future<?>> futures = new ArrayList<>();
+        final int workers = executor == null ? 0 : Math.min(applierThreads - 1, tasks.size() - 1);
+        for (int i = 0; i < workers; i++) {
+            try {
+                futures.add(executor.submit(threadPool.getThreadContext().preserveContext(worker)));
+            } catch (EsRejectedExecutionException e) {
+                assert executor.isShutdown() : "only expect rejections when shutting down";
+                break; // the current thread runs the remaining tasks
+            }
+        }
+        RuntimeException failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // once the current thread runs out of tasks every task has been claimed, so workers that did not start yet have nothing to do;
+        // cancelling them also avoids waiting behind the current thread if it is a parallel applier thread itself
+        futures.removeIf(FutureUtils::cancel);
+        failure = waitForAll(futures, failure);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static RuntimeException waitForAll(List<Future<?>> futures, @Nullable RuntimeException failure) {
+        for (Future<?> future : futures) {
+            try {
+                FutureUtils.get(future);
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        return failure;
+    }
+
+    private static RuntimeException addFailure(@Nullable RuntimeException failure, RuntimeException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    /**
+     * Returns the number of times each applier was called and the total time these calls took
+     */
+    public ClusterApplierStats stats() {
+        return new ClusterApplierStats(applierTimings.entrySet().stream()
+            .map(entry -> new ClusterApplierStats.Recording(entry.getKey(), entry.getValue().count(),
+                TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum())))
+            .sorted(Comparator.comparingLong(ClusterApplierStats.Recording::getTimeInMillis).reversed())
+            .collect(Collectors.toList()));
     }
 
     private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics about the time the {@link ClusterApplierService} spent in each of its cluster state appliers.
+ */
+public class ClusterApplierStats implements Writeable, ToXContentFragment {
+
+    private final List<Recording> recordings;
+
+    public ClusterApplierStats(List<Recording> recordings) {
+        this.recordings = recordings;
+    }
+
+    public ClusterApplierStats(StreamInput in) throws IOException {
+        this(in.readList(Recording::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(recordings);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cluster_applier_stats");
+        builder.startArray("recordings");
+        for (Recording recording : recordings) {
+            recording.toXContent(builder, params);
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * Returns one recording per applier, sorted by descending cumulative execution time
+     */
+    public List<Recording> getRecordings() {
+        return recordings;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClusterApplierStats that = (ClusterApplierStats) o;
+        return recordings.equals(that.recordings);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recordings);
+    }
+
+    /**
+     * The number of times an applier was called and the total time these calls took.
+     */
+    public static class Recording implements Writeable, ToXContentObject {
+
+        private final String name;
+        private final long count;
+        private final long timeInMillis;
+
+        public Recording(String name, long count, long timeInMillis) {
+            this.name = name;
+            this.count = count;
+            this.timeInMillis = timeInMillis;
+        }
+
+        public Recording(StreamInput in) throws IOException {
+            this(in.readString(), in.readVLong(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(count);
+            out.writeVLong(timeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("name", name);
+            builder.field("cumulative_execution_count", count);
+            builder.humanReadableField("cumulative_execution_time_millis", "cumulative_execution_time", new TimeValue(timeInMillis));
+            builder.endObject();
+            return builder;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTimeInMillis() {
+            return timeInMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Recording that = (Recording) o;
+            return count == that.count && timeInMillis == that.timeInMillis && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count, timeInMillis);
+        }
+
+        @Override
+        public String toString() {
+            return "Recording{name=" + name + ", count=" + count + ", timeInMillis=" + timeInMillis + '}';
+        }
+    }
+}
@@ -183,7 +183,9 @@ public class ClusterService extends AbstractLifecycleComponent {
     }
 
     public static boolean assertClusterOrMasterStateThread() {
+        // the parallel applier threads run work on behalf of the cluster state update thread while it waits for them
         assert Thread.currentThread().getName().contains(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME) ||
+            Thread.currentThread().getName().contains(ClusterApplierService.CLUSTER_UPDATE_PARALLEL_THREAD_NAME) ||
             Thread.currentThread().getName().contains(MasterService.MASTER_UPDATE_THREAD_NAME) :
             "not called from the master/cluster state update thread";
         return true;
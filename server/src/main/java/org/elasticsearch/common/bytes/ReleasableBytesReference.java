@@ -21,9 +21,11 @@ package org.elasticsearch.common.bytes;
 
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.io.stream.FilterStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -32,20 +34,54 @@ import java.io.OutputStream;
 /**
  * An extension to {@link BytesReference} that requires releasing its content. This
  * class exists to make it explicit when a bytes reference needs to be released, and when not.
+ * <p>
+ * The content is reference counted: {@link #retain()} and {@link #retainedSlice(int, int)} take an additional reference that
+ * must be released with {@link #close()}, and the underlying releasable is only released once all references are released.
+ * The {@link StreamInput} of a releasable bytes reference shares its bytes through
+ * {@link StreamInput#readReleasableBytesReference()} instead of copying them.
  */
 public final class ReleasableBytesReference implements Releasable, BytesReference {
 
     private final BytesReference delegate;
-    private final Releasable releasable;
+    private final AbstractRefCounted refCounted;
 
     public ReleasableBytesReference(BytesReference delegate, Releasable releasable) {
+        this(delegate, new RefCountedReleasable(releasable));
+    }
+
+    private ReleasableBytesReference(BytesReference delegate, AbstractRefCounted refCounted) {
         this.delegate = delegate;
-        this.releasable = releasable;
+        this.refCounted = refCounted;
+    }
+
+    /**
+     * Wraps a bytes reference that does not need to be released.
+     */
+    public static ReleasableBytesReference wrap(BytesReference reference) {
+        return new ReleasableBytesReference(reference, () -> {});
+    }
+
+    /**
+     * Takes an additional reference on the content, which must be released with {@link #close()}.
+     */
+    public ReleasableBytesReference retain() {
+        refCounted.incRef();
+        return this;
+    }
+
+    /**
+     * Returns a slice of this reference that shares its content and holds an additional reference on it, which must be
+     * released by closing the returned slice.
+     */
+    public ReleasableBytesReference retainedSlice(int from, int length) {
+        final BytesReference slice = delegate.slice(from, length);
+        refCounted.incRef();
+        return new ReleasableBytesReference(slice, refCounted);
     }
 
     @Override
     public void close() {
-        Releasables.close(releasable);
+        refCounted.decRef();
     }
 
     @Override
@@ -80,7 +116,7 @@ public final class ReleasableBytesReference implements Releasable, BytesReferenc
 
     @Override
     public StreamInput streamInput() throws IOException {
-        return delegate.streamInput();
+        return new RetainingStreamInput(this, delegate.streamInput());
     }
 
     @Override
@@ -127,4 +163,60 @@ public final class ReleasableBytesReference implements Releasable, BytesReferenc
     public int hashCode() {
         return delegate.hashCode();
     }
+
+    private static final class RefCountedReleasable extends AbstractRefCounted {
+
+        private final Releasable releasable;
+
+        RefCountedReleasable(Releasable releasable) {
+            super("bytes_reference");
+            this.releasable = releasable;
+        }
+
+        @Override
+        protected void closeInternal() {
+            Releasables.close(releasable);
+        }
+    }
+
+    /**
+     * A stream that returns retained slices of the reference it reads from rather than copies of its bytes.
+     */
+    private static final class RetainingStreamInput extends FilterStreamInput {
+
+        private final ReleasableBytesReference reference;
+
+        RetainingStreamInput(ReleasableBytesReference reference, StreamInput delegate) {
+            super(delegate);
+            this.reference = reference;
+        }
+
+        @Override
+        public ReleasableBytesReference readReleasableBytesReference(int length) throws IOException {
+            if (length == 0) {
+                return wrap(BytesArray.EMPTY);
+            }
+            ensureCanReadBytes(length);
+            final int offset = reference.length() - available();
+            final ReleasableBytesReference slice = reference.retainedSlice(offset, length);
+            final long skipped = delegate.skip(length);
+            assert skipped == length : "skipped [" + skipped + "] bytes instead of [" + length + "]";
+            return slice;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return delegate.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return delegate.markSupported();
+        }
+
+        @Override
+        public void mark(int readLimit) {
+            delegate.mark(readLimit);
+        }
+    }
 }
@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -52,17 +54,21 @@ import java.util.function.ToLongBiFunction;
  * if they are reading a segment that a writer is writing to).
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. Cache hits do not take this lock: instead they
+ * record the entry in one of a set of small striped read buffers, and the promotions are replayed in bulk by whichever
+ * thread next holds the lock, or by the reader that filled a buffer if the lock happens to be free. Reads that find
+ * their buffer full or contended are dropped, which only makes the recency order slightly less accurate. Buffered
+ * reads are always replayed before the list is otherwise mutated, so a single thread observes exact LRU ordering.
  * <p>
- * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
- * invalidation) or an explicit call to {@link #refresh()}.
+ * By default entries are evicted in LRU order. Caches built with
+ * {@link CacheBuilder#setFrequencyAwareEviction(boolean)} instead use a W-TinyLFU style policy: new entries enter a
+ * small admission window at the head of the list that holds about 1% of the maximum weight, and entries that overflow
+ * the window are only admitted to the main region if a {@link FrequencySketch} estimates that they have been accessed
+ * more often than the entry that would have to be evicted to make room for them. This keeps popular entries cached
+ * in the face of scans and bursts of one-off keys, at the cost of the iteration order no longer being strictly LRU.
+ * <p>
+ * Evictions only occur after a mutation to the cache (meaning a cache insertion or a manual invalidation), when
+ * buffered reads are replayed, or on an explicit call to {@link #refresh()}.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -97,6 +103,20 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // true if entries must be admitted by the frequency sketch rather than evicting in strict LRU order
+    private boolean frequencyAware;
+
+    // the estimated access frequencies of keys, only used if frequencyAware
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private static final long INITIAL_SKETCH_CAPACITY = 1 << 16;
+
+    // the last entry of the admission window at the head of the LRU list, only used if frequencyAware
+    Entry<K, V> windowTail;
+
+    // the weight of the entries in the admission window, only used if frequencyAware
+    private long windowWeight = 0;
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -127,6 +147,11 @@ public class Cache<K, V> {
         return this.expireAfterWriteNanos;
     }
 
+    // pkg-private for testing
+    int getSketchTableLength() {
+        return sketch.tableLength();
+    }
+
     void setMaximumWeight(long maximumWeight) {
         if (maximumWeight < 0) {
             throw new IllegalArgumentException("maximumWeight < 0");
@@ -144,6 +169,10 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setFrequencyAware(boolean frequencyAware) {
+        this.frequencyAware = frequencyAware;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -168,6 +197,8 @@ public class Cache<K, V> {
         Entry<K, V> before;
         Entry<K, V> after;
         State state = State.NEW;
+        // true if the entry is in the admission window of a frequency-aware cache
+        boolean inWindow;
 
         Entry(K key, V value, long writeTime) {
             this.key = key;
@@ -351,6 +382,73 @@ public class Cache<K, V> {
     // lock protecting mutations to the LRU list
     private final ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
+    /**
+     * A bounded buffer of entries that were read from the cache and whose promotion in the LRU list is pending.
+     * <p>
+     * Any number of readers may offer entries concurrently. An offer that loses a race against another reader is
+     * dropped rather than retried since losing the odd promotion is harmless. Entries are only drained by the holder
+     * of the LRU lock.
+     */
+    private static final class ReadBuffer<K, V> {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+
+        final AtomicReferenceArray<Entry<K, V>> slots = new AtomicReferenceArray<>(SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        // only written while holding the LRU lock
+        volatile long readCounter;
+
+        /**
+         * Records a read of the given entry.
+         *
+         * @return true if the buffer is full and should be drained
+         */
+        boolean offer(Entry<K, V> entry) {
+            final long read = readCounter;
+            final long write = writeCounter.get();
+            final long size = write - read;
+            if (size >= SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(write, write + 1)) {
+                slots.lazySet((int) (write & MASK), entry);
+                return size + 1 >= SIZE;
+            }
+            return false;
+        }
+
+        void drain(Consumer<Entry<K, V>> consumer) {
+            long read = readCounter;
+            final long write = writeCounter.get();
+            for (; read < write; read++) {
+                final int index = (int) (read & MASK);
+                final Entry<K, V> entry = slots.get(index);
+                if (entry == null) {
+                    // the reader that claimed this slot has not published its entry yet
+                    break;
+                }
+                slots.lazySet(index, null);
+                consumer.accept(entry);
+            }
+            readCounter = read;
+        }
+    }
+
+    // a power of two no smaller than the number of processors, so that concurrent readers rarely share a buffer
+    private static final int NUMBER_OF_READ_BUFFERS =
+        Math.min(64, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ReadBuffer<K, V>[] readBuffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+
+    {
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    private final Consumer<Entry<K, V>> onRead = this::onRead;
+
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      *
@@ -367,11 +465,42 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            afterRead(entry, now);
             return entry.value;
         }
     }
 
+    private void afterRead(Entry<K, V> entry, long now) {
+        final ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (buffer.offer(entry)) {
+            // the buffer is full; drain it unless another thread is already busy with the LRU list, in which case
+            // this read is dropped and the buffer is drained the next time the lock is acquired
+            try (ReleasableLock locked = lruLock.tryAcquire()) {
+                if (locked != null) {
+                    drainReadBuffers();
+                    evict(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Acquires the LRU lock and replays the buffered reads so that the LRU list is up to date.
+     */
+    private ReleasableLock acquireLruLock() {
+        final ReleasableLock locked = lruLock.acquire();
+        drainReadBuffers();
+        return locked;
+    }
+
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(onRead);
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -390,7 +519,7 @@ public class Cache<K, V> {
         long now = now();
         // we have to eagerly evict expired entries or our putIfAbsent call below will fail
         V value = get(key, now, e -> {
-            try (ReleasableLock ignored = lruLock.acquire()) {
+            try (ReleasableLock ignored = acquireLruLock()) {
                 evictEntry(e);
             }
         });
@@ -410,7 +539,7 @@ public class Cache<K, V> {
 
             BiFunction<? super Entry<K, V>, Throwable, ? extends V> handler = (ok, ex) -> {
                 if (ok != null) {
-                    try (ReleasableLock ignored = lruLock.acquire()) {
+                    try (ReleasableLock ignored = acquireLruLock()) {
                         promote(ok, now);
                     }
                     return ok.value;
@@ -477,7 +606,7 @@ public class Cache<K, V> {
         CacheSegment<K, V> segment = getCacheSegment(key);
         Tuple<Entry<K, V>, Entry<K, V>> tuple = segment.put(key, value, now);
         boolean replaced = false;
-        try (ReleasableLock ignored = lruLock.acquire()) {
+        try (ReleasableLock ignored = acquireLruLock()) {
             if (tuple.v2() != null && tuple.v2().state == State.EXISTING) {
                 if (unlink(tuple.v2())) {
                     replaced = true;
@@ -494,7 +623,7 @@ public class Cache<K, V> {
     private final Consumer<CompletableFuture<Entry<K, V>>> invalidationConsumer = f -> {
         try {
             Entry<K, V> entry = f.get();
-            try (ReleasableLock ignored = lruLock.acquire()) {
+            try (ReleasableLock ignored = acquireLruLock()) {
                 delete(entry, RemovalNotification.RemovalReason.INVALIDATED);
             }
         } catch (ExecutionException e) {
@@ -541,7 +670,7 @@ public class Cache<K, V> {
                 segments[i].segmentLock.writeLock().lock();
                 haveSegmentLock[i] = true;
             }
-            try (ReleasableLock ignored = lruLock.acquire()) {
+            try (ReleasableLock ignored = acquireLruLock()) {
                 h = head;
                 Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
                 Entry<K, V> current = head;
@@ -549,9 +678,10 @@ public class Cache<K, V> {
                     current.state = State.DELETED;
                     current = current.after;
                 }
-                head = tail = null;
+                head = tail = windowTail = null;
                 count = 0;
                 weight = 0;
+                windowWeight = 0;
             }
         } finally {
             for (int i = NUMBER_OF_SEGMENTS - 1; i >= 0; i--) {
@@ -571,7 +701,7 @@ public class Cache<K, V> {
      */
     public void refresh() {
         long now = now();
-        try (ReleasableLock ignored = lruLock.acquire()) {
+        try (ReleasableLock ignored = acquireLruLock()) {
             evict(now);
         }
     }
@@ -677,7 +807,7 @@ public class Cache<K, V> {
             if (entry != null) {
                 CacheSegment<K, V> segment = getCacheSegment(entry.key);
                 segment.remove(entry.key, entry.value, f -> {});
-                try (ReleasableLock ignored = lruLock.acquire()) {
+                try (ReleasableLock ignored = acquireLruLock()) {
                     current = null;
                     delete(entry, RemovalNotification.RemovalReason.INVALIDATED);
                 }
@@ -728,34 +858,91 @@ public class Cache<K, V> {
     }
 
     private boolean promote(Entry<K, V> entry, long now) {
+        assert lruLock.isHeldByCurrentThread();
+
         boolean promoted = true;
-        try (ReleasableLock ignored = lruLock.acquire()) {
-            switch (entry.state) {
-                case DELETED:
-                    promoted = false;
-                    break;
-                case EXISTING:
-                    relinkAtHead(entry);
-                    break;
-                case NEW:
-                    linkAtHead(entry);
-                    break;
-            }
-            if (promoted) {
-                evict(now);
-            }
+        switch (entry.state) {
+            case DELETED:
+                promoted = false;
+                break;
+            case EXISTING:
+                onRead(entry);
+                break;
+            case NEW:
+                if (frequencyAware) {
+                    // growing the sketch loses its estimates, so start with enough room for a cache full of light entries
+                    final long initialCapacity = maximumWeight == -1 ? INITIAL_SKETCH_CAPACITY
+                        : Math.min(maximumWeight, INITIAL_SKETCH_CAPACITY);
+                    sketch.ensureCapacity(Math.max(count + 1, initialCapacity));
+                    sketch.increment(entry.key);
+                }
+                linkAtHead(entry);
+                break;
+        }
+        if (promoted) {
+            evict(now);
         }
         return promoted;
     }
 
+    private void onRead(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        // entries that are not linked yet are linked by whoever inserted them, and deleted entries stay deleted
+        if (entry.state != State.EXISTING) {
+            return;
+        }
+        if (frequencyAware) {
+            sketch.increment(entry.key);
+            if (entry.inWindow == false) {
+                // promote to the head of the main region, just behind the admission window
+                if (entry.before != windowTail) {
+                    unlink(entry);
+                    link(windowTail, entry);
+                }
+                return;
+            }
+        }
+        relinkAtHead(entry);
+    }
+
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
+        if (frequencyAware) {
+            // the admission window and the main region are each in LRU order so both of their tails may have expired
+            while (windowTail != null && isExpired(windowTail, now)) {
+                evictEntry(windowTail);
+            }
+            while (tail != null && isExpired(tail, now)) {
+                evictEntry(tail);
+            }
+            final long maximumWindowWeight = maximumWindowWeight();
+            while (windowTail != null && windowWeight > maximumWindowWeight) {
+                // move the eldest entry of the window to the main region where, if the cache is full, it competes
+                // with the eldest entry of the main region for its place in the cache
+                final Entry<K, V> candidate = windowTail;
+                windowTail = candidate.before;
+                windowWeight -= weigher.applyAsLong(candidate.key, candidate.value);
+                candidate.inWindow = false;
+                if (exceedsWeight() && candidate != tail) {
+                    evictEntry(admit(candidate, tail) ? tail : candidate);
+                }
+            }
+        }
         while (tail != null && shouldPrune(tail, now)) {
             evictEntry(tail);
         }
     }
 
+    private long maximumWindowWeight() {
+        return maximumWeight == -1 ? Long.MAX_VALUE : Math.max(1, maximumWeight / 100);
+    }
+
+    private boolean admit(Entry<K, V> candidate, Entry<K, V> victim) {
+        return sketch.frequency(candidate.key) > sketch.frequency(victim.key);
+    }
+
     private void evictEntry(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
@@ -791,6 +978,14 @@ public class Cache<K, V> {
         assert lruLock.isHeldByCurrentThread();
 
         if (entry.state == State.EXISTING) {
+            if (entry.inWindow) {
+                if (windowTail == entry) {
+                    windowTail = entry.before;
+                }
+                windowWeight -= weigher.applyAsLong(entry.key, entry.value);
+                entry.inWindow = false;
+            }
+
             final Entry<K, V> before = entry.before;
             final Entry<K, V> after = entry.after;
 
@@ -832,14 +1027,34 @@ public class Cache<K, V> {
     private void linkAtHead(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
-        Entry<K, V> h = head;
-        entry.before = null;
-        entry.after = head;
-        head = entry;
-        if (h == null) {
+        link(null, entry);
+        if (frequencyAware) {
+            entry.inWindow = true;
+            windowWeight += weigher.applyAsLong(entry.key, entry.value);
+            if (windowTail == null) {
+                windowTail = entry;
+            }
+        }
+    }
+
+    /**
+     * Links the entry into the LRU list right after the given entry, or at the head if it is null.
+     */
+    private void link(Entry<K, V> before, Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        final Entry<K, V> after = before == null ? head : before.after;
+        entry.before = before;
+        entry.after = after;
+        if (before == null) {
+            head = entry;
+        } else {
+            before.after = entry;
+        }
+        if (after == null) {
             tail = entry;
         } else {
-            h.before = entry;
+            after.before = entry;
         }
 
         count++;
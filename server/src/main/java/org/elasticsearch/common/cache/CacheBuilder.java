@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private boolean frequencyAwareEviction;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,6 +91,16 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Sets whether entries are admitted to the cache based on how frequently their keys are accessed rather than evicting entries in
+     * strict LRU order. This protects frequently accessed entries from being evicted by scans over rarely accessed keys, see
+     * {@link Cache} for details. Defaults to {@code false}.
+     */
+    public CacheBuilder<K, V> setFrequencyAwareEviction(boolean frequencyAwareEviction) {
+        this.frequencyAwareEviction = frequencyAwareEviction;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
@@ -107,6 +118,7 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        cache.setFrequencyAware(frequencyAwareEviction);
         return cache;
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+/**
+ * A probabilistic estimate of how often keys have been accessed, used by {@link Cache} to decide whether a new entry is worth
+ * admitting at the expense of an existing one.
+ * <p>
+ * This is a count-min sketch with four hash functions whose counters are four bits wide, so sixteen counters are packed in each
+ * {@code long}. Counters saturate at 15. Once the number of increments reaches ten times the width of the table all counters are
+ * halved, which makes the estimates decay so that keys that were popular a long time ago do not keep their advantage forever.
+ * <p>
+ * This class is not thread-safe; {@link Cache} only uses it while holding its LRU lock.
+ */
+final class FrequencySketch {
+
+    static final int MAXIMUM_FREQUENCY = 15;
+
+    // sized for up to a million distinct keys, which costs 8MB
+    private static final int MAXIMUM_TABLE_LENGTH = 1 << 20;
+    private static final int MINIMUM_TABLE_LENGTH = 8;
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * Grows the sketch so that it can accurately track the given number of distinct keys. Growing discards the estimates
+     * gathered so far.
+     */
+    void ensureCapacity(long expectedKeys) {
+        final int length = nextPowerOfTwo((int) Math.min(MAXIMUM_TABLE_LENGTH, Math.max(MINIMUM_TABLE_LENGTH, expectedKeys)));
+        if (table.length >= length) {
+            return;
+        }
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = 10 * length;
+        size = 0;
+    }
+
+    /**
+     * Returns the estimated number of accesses to the given key, at most {@link #MAXIMUM_FREQUENCY}.
+     */
+    int frequency(Object key) {
+        if (table.length == 0) {
+            return 0;
+        }
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int shift = (start + i) << 2;
+            final int count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the given key, periodically aging all estimates.
+     */
+    void increment(Object key) {
+        if (table.length == 0) {
+            return;
+        }
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    // pkg-private for testing
+    int tableLength() {
+        return table.length;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int shift = counter << 2;
+        final long mask = 0xfL << shift;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << shift;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        // halving truncates odd counters, so account for the increments that were lost
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.io.stream;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+
+import java.io.IOException;
+
+/**
+ * A {@link FilterStreamInput} that counts the number of bytes read from the wrapped stream, for measuring the serialized size
+ * of objects as they are read. {@link NamedWriteable}s can only be read if the stream is wrapped in a
+ * {@link NamedWriteableAwareStreamInput}, see {@link #readCounting(StreamInput, Writeable.Reader)}.
+ */
+public final class CountingStreamInput extends FilterStreamInput {
+
+    private long count;
+
+    public CountingStreamInput(StreamInput delegate) {
+        super(delegate);
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     */
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        final byte b = delegate.readByte();
+        count++;
+        return b;
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+        delegate.readBytes(b, offset, len);
+        count += len;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = delegate.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public ReleasableBytesReference readReleasableBytesReference(int length) throws IOException {
+        final ReleasableBytesReference reference = delegate.readReleasableBytesReference(length);
+        count += length;
+        return reference;
+    }
+
+    /**
+     * Reads an object from <code>in</code> with the given reader and returns the number of bytes it was read from. The
+     * {@link NamedWriteableRegistry} of <code>in</code> is preserved.
+     */
+    public static <T> Counted<T> readCounting(StreamInput in, Writeable.Reader<T> reader) throws IOException {
+        final CountingStreamInput counting = new CountingStreamInput(in);
+        final NamedWriteableRegistry registry = in.namedWriteableRegistry();
+        final StreamInput countingIn = registry == null ? counting : new NamedWriteableAwareStreamInput(counting, registry);
+        final T value = reader.read(countingIn);
+        return new Counted<>(value, counting.count());
+    }
+
+    /**
+     * An object and the number of bytes it was read from.
+     */
+    public static final class Counted<T> {
+        private final T value;
+        private final long bytes;
+
+        Counted(T value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+
+        public T value() {
+            return value;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.common.io.stream;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 
 import java.io.EOFException;
 import java.io.IOException;
@@ -60,6 +61,11 @@ public abstract class FilterStreamInput extends StreamInput {
         delegate.close();
     }
 
+    @Override
+    public ReleasableBytesReference readReleasableBytesReference(int length) throws IOException {
+        return delegate.readReleasableBytesReference(length);
+    }
+
     @Override
     public int available() throws IOException {
         return delegate.available();
@@ -75,6 +81,11 @@ public abstract class FilterStreamInput extends StreamInput {
         delegate.setVersion(version);
     }
 
+    @Override
+    public NamedWriteableRegistry namedWriteableRegistry() {
+        return delegate.namedWriteableRegistry();
+    }
+
     @Override
     protected void ensureCanReadBytes(int length) throws EOFException {
         delegate.ensureCanReadBytes(length);
@@ -35,6 +35,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.settings.SecureString;
 import org.elasticsearch.common.text.Text;
@@ -176,6 +177,23 @@ public abstract class StreamInput extends InputStream {
         return new BytesArray(bytes, 0, length);
     }
 
+    /**
+     * Reads a releasable bytes reference from this stream. Streams that read from a
+     * {@link org.elasticsearch.common.bytes.ReleasableBytesReference} return a retained slice of its content without copying it,
+     * all other streams return a copy. The returned reference must be released once it is no longer used.
+     */
+    public ReleasableBytesReference readReleasableBytesReference() throws IOException {
+        int length = readArraySize();
+        return readReleasableBytesReference(length);
+    }
+
+    /**
+     * Reads a releasable bytes reference of the given length from this stream, see {@link #readReleasableBytesReference()}.
+     */
+    public ReleasableBytesReference readReleasableBytesReference(int length) throws IOException {
+        return ReleasableBytesReference.wrap(readBytesReference(length));
+    }
+
     public BytesRef readBytesRef() throws IOException {
         int length = readArraySize();
         return readBytesRef(length);
@@ -1112,6 +1130,14 @@ public abstract class StreamInput extends InputStream {
         throw new UnsupportedOperationException("can't read named writeable from StreamInput");
     }
 
+    /**
+     * Returns the registry that this stream reads {@link NamedWriteable}s with, or <code>null</code> if it can't read them.
+     */
+    @Nullable
+    public NamedWriteableRegistry namedWriteableRegistry() {
+        return null;
+    }
+
     /**
      * Reads an optional {@link NamedWriteable}.
      */
@@ -122,6 +122,9 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.MAX_ANALYZED_OFFSET_SETTING,
             IndexSettings.MAX_TERMS_COUNT_SETTING,
             IndexSettings.INDEX_TRANSLOG_SYNC_INTERVAL_SETTING,
+            IndexSettings.INDEX_TRANSLOG_GROUP_COMMIT_MAX_DELAY_SETTING,
+            IndexSettings.INDEX_TRANSLOG_MMAP_READERS_SETTING,
+            IndexSettings.INDEX_ID_BLOOM_FILTER_SETTING,
             IndexSettings.DEFAULT_FIELD_SETTING,
             IndexSettings.QUERY_STRING_LENIENT_SETTING,
             IndexSettings.ALLOW_UNMAPPED,
@@ -134,6 +137,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.INDEX_SOFT_DELETES_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING,
+            IndexSettings.INDEX_REPLICATION_TYPE_SETTING,
             IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING,
             UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING,
             EnableAllocationDecider.INDEX_ROUTING_REBALANCE_ENABLE_SETTING,
@@ -161,6 +165,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexModule.INDEX_QUERY_CACHE_ENABLED_SETTING,
             FsDirectoryFactory.INDEX_LOCK_FACTOR_SETTING,
             EngineConfig.INDEX_CODEC_SETTING,
+            EngineConfig.INDEX_PACKED_VERSION_MAP_SETTING,
             IndexMetaData.SETTING_WAIT_FOR_ACTIVE_SHARDS,
             IndexSettings.DEFAULT_PIPELINE,
             IndexSettings.FINAL_PIPELINE,
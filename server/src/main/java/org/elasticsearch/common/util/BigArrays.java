@@ -429,7 +429,7 @@ public class BigArrays {
         return this.circuitBreakingInstance.breakerService;
     }
 
-    private <T extends AbstractBigArray> T resizeInPlace(T array, long newSize) {
+    <T extends AbstractBigArray> T resizeInPlace(T array, long newSize) {
         final long oldMemSize = array.ramBytesUsed();
         final long oldSize = array.size();
         assert oldMemSize == array.ramBytesEstimated(oldSize) :
@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+/**
+ * A {@link BigArrays} that allocates the pages of large byte, long and double arrays off-heap, in direct
+ * {@link java.nio.ByteBuffer}s that are recycled through the {@link PageCacheRecycler}. This keeps the memory
+ * of high-cardinality aggregations out of the old generation. Memory usage is accounted on the circuit breaker
+ * exactly like for on-heap pages. Arrays that fit in a single page are still allocated on-heap, and so are pages
+ * once the direct pages of the recycler are all in use, see {@link PageCacheRecycler#LIMIT_DIRECT_SETTING}.
+ */
+public class DirectBigArrays extends BigArrays {
+
+    public static final Setting<Boolean> OFF_HEAP_SETTING =
+        Setting.boolSetting("node.big_arrays.off_heap", false, Property.NodeScope);
+
+    private final BigArrays circuitBreakingInstance;
+
+    public DirectBigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName) {
+        this(recycler, breakerService, breakerName, false);
+    }
+
+    private DirectBigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName,
+                            boolean checkBreaker) {
+        super(recycler, breakerService, breakerName, checkBreaker);
+        if (checkBreaker) {
+            this.circuitBreakingInstance = this;
+        } else {
+            this.circuitBreakingInstance = new DirectBigArrays(recycler, breakerService, breakerName, true);
+        }
+    }
+
+    @Override
+    public BigArrays withCircuitBreaking() {
+        return circuitBreakingInstance;
+    }
+
+    @Override
+    public ByteArray newByteArray(long size, boolean clearOnResize) {
+        if (size > PageCacheRecycler.BYTE_PAGE_SIZE) {
+            // when allocating big arrays, we want to first ensure we have the capacity by
+            // checking with the circuit breaker before attempting to allocate
+            adjustBreaker(BigDirectByteArray.estimateRamBytes(size), false);
+            return new BigDirectByteArray(size, this, clearOnResize);
+        }
+        return super.newByteArray(size, clearOnResize);
+    }
+
+    @Override
+    public ByteArray resize(ByteArray array, long size) {
+        if (array instanceof BigDirectByteArray) {
+            return resizeInPlace((BigDirectByteArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+
+    @Override
+    public LongArray newLongArray(long size, boolean clearOnResize) {
+        if (size > PageCacheRecycler.LONG_PAGE_SIZE) {
+            // when allocating big arrays, we want to first ensure we have the capacity by
+            // checking with the circuit breaker before attempting to allocate
+            adjustBreaker(BigDirectLongArray.estimateRamBytes(size), false);
+            return new BigDirectLongArray(size, this, clearOnResize);
+        }
+        return super.newLongArray(size, clearOnResize);
+    }
+
+    @Override
+    public LongArray resize(LongArray array, long size) {
+        if (array instanceof BigDirectLongArray) {
+            return resizeInPlace((BigDirectLongArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+
+    @Override
+    public DoubleArray newDoubleArray(long size, boolean clearOnResize) {
+        if (size > PageCacheRecycler.LONG_PAGE_SIZE) {
+            // when allocating big arrays, we want to first ensure we have the capacity by
+            // checking with the circuit breaker before attempting to allocate
+            adjustBreaker(BigDirectDoubleArray.estimateRamBytes(size), false);
+            return new BigDirectDoubleArray(size, this, clearOnResize);
+        }
+        return super.newDoubleArray(size, clearOnResize);
+    }
+
+    @Override
+    public DoubleArray resize(DoubleArray array, long size) {
+        if (array instanceof BigDirectDoubleArray) {
+            return resizeInPlace((BigDirectDoubleArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+}
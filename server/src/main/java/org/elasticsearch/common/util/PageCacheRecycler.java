@@ -26,10 +26,15 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.recycler.Recyclers.concurrent;
 import static org.elasticsearch.common.recycler.Recyclers.concurrentDeque;
@@ -52,6 +57,10 @@ public class PageCacheRecycler {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    // direct pages are only allocated by DirectBigArrays and are accounted separately from the heap limit, which also caps the
+    // direct memory that they use since direct pages are never freed
+    public static final Setting<ByteSizeValue> LIMIT_DIRECT_SETTING  =
+        Setting.memorySizeSetting("cache.recycler.page.limit.direct", "10%", Property.NodeScope);
 
     /** Page size in bytes: 16KB */
     public static final int PAGE_SIZE_IN_BYTES = 1 << 14;
@@ -64,11 +73,17 @@ public class PageCacheRecycler {
     private final Recycler<int[]> intPage;
     private final Recycler<long[]> longPage;
     private final Recycler<Object[]> objectPage;
+    private final int maxDirectPageCount;
+    private final AtomicInteger directPageCount = new AtomicInteger();
+    private final Deque<ByteBuffer> freeDirectPages = ConcurrentCollections.newDeque();
 
     public static final PageCacheRecycler NON_RECYCLING_INSTANCE;
 
     static {
-        NON_RECYCLING_INSTANCE = new PageCacheRecycler(Settings.builder().put(LIMIT_HEAP_SETTING.getKey(), "0%").build());
+        NON_RECYCLING_INSTANCE = new PageCacheRecycler(Settings.builder()
+            .put(LIMIT_HEAP_SETTING.getKey(), "0%")
+            .put(LIMIT_DIRECT_SETTING.getKey(), "0%")
+            .build());
     }
 
     public PageCacheRecycler(Settings settings) {
@@ -146,6 +161,17 @@ public class PageCacheRecycler {
         });
 
         assert PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount) <= limit;
+
+        // The memory of a direct buffer is only freed once the buffer is garbage collected, which may happen long after it is
+        // released. Direct pages are therefore never dropped: at most maxDirectPageCount of them are allocated, and they are
+        // kept for reuse once released, whatever the recycler type.
+        final long directLimit = LIMIT_DIRECT_SETTING.get(settings).getBytes();
+        maxDirectPageCount = (int) Math.min(Integer.MAX_VALUE, directLimit / PAGE_SIZE_IN_BYTES);
+    }
+
+    /** Allocates a new on-heap page of {@link #PAGE_SIZE_IN_BYTES} bytes in native byte order, for when no direct page is available. */
+    static ByteBuffer newHeapPage() {
+        return ByteBuffer.allocate(PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -177,6 +203,77 @@ public class PageCacheRecycler {
         return objectPage.obtain();
     }
 
+    /**
+     * Obtain an off-heap page of {@link #PAGE_SIZE_IN_BYTES} bytes in native byte order. Once {@link #LIMIT_DIRECT_SETTING} worth of
+     * direct pages are in use, this returns on-heap pages instead, which are not recycled.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        final ByteBuffer recycled = freeDirectPages.pollFirst();
+        if (recycled != null) {
+            if (clear) {
+                for (int i = 0; i < PAGE_SIZE_IN_BYTES; i += Long.BYTES) {
+                    recycled.putLong(i, 0L);
+                }
+            }
+            return new DirectPage(recycled, true);
+        }
+        if (directPageCount.incrementAndGet() <= maxDirectPageCount) {
+            return new DirectPage(ByteBuffer.allocateDirect(PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder()), false);
+        }
+        directPageCount.decrementAndGet();
+        final ByteBuffer page = newHeapPage();
+        return new Recycler.V<ByteBuffer>() {
+            @Override
+            public ByteBuffer v() {
+                return page;
+            }
+
+            @Override
+            public boolean isRecycled() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+                // nothing to do, heap pages are freed by the garbage collector
+            }
+        };
+    }
+
+    /**
+     * Returns the number of bytes of the direct pages that were allocated, whether they are in use or kept for reuse.
+     */
+    public long directMemoryInBytes() {
+        return (long) directPageCount.get() * PAGE_SIZE_IN_BYTES;
+    }
+
+    private final class DirectPage implements Recycler.V<ByteBuffer> {
+
+        private final ByteBuffer page;
+        private final boolean recycled;
+
+        DirectPage(ByteBuffer page, boolean recycled) {
+            this.page = page;
+            this.recycled = recycled;
+        }
+
+        @Override
+        public ByteBuffer v() {
+            return page;
+        }
+
+        @Override
+        public boolean isRecycled() {
+            return recycled;
+        }
+
+        @Override
+        public void close() {
+            // pages are only accessed through absolute get and put operations, so there is no state to reset
+            freeDirectPages.addFirst(page);
+        }
+    }
+
     private static <T> Recycler<T> build(Type type, int limit, int availableProcessors, Recycler.C<T> c) {
         final Recycler<T> recycler;
         if (limit == 0) {
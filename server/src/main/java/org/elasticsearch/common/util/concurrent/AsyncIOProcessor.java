@@ -65,6 +65,7 @@ public abstract class AsyncIOProcessor<Item> {
             // in this case we are not responsible and can just block until there is space
             try {
                 queue.put(new Tuple<>(item, preserveContext(listener)));
+                onQueued();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 listener.accept(e);
@@ -92,6 +93,7 @@ public abstract class AsyncIOProcessor<Item> {
     private void drainAndProcessAndRelease(List<Tuple<Item, Consumer<Exception>>> candidates) {
         Exception exception;
         try {
+            awaitBatch(candidates.size());
             queue.drainTo(candidates);
             exception = processList(candidates);
         } finally {
@@ -135,6 +137,29 @@ public abstract class AsyncIOProcessor<Item> {
         };
     }
 
+    /**
+     * Called by the processing thread right before it drains the queue, allowing implementations to wait for more items to be queued
+     * so that they are written out in a single batch. Does not wait by default.
+     *
+     * @param ownItems the number of items that the processing thread brings along itself, which are not in the queue
+     */
+    protected void awaitBatch(int ownItems) {
+    }
+
+    /**
+     * Called by a thread that is not processing right after it queued its item, allowing implementations to wake up a processing
+     * thread that waits in {@link #awaitBatch(int)}. Does nothing by default.
+     */
+    protected void onQueued() {
+    }
+
+    /**
+     * Returns the number of items that are queued for processing.
+     */
+    protected final int queuedItems() {
+        return queue.size();
+    }
+
     /**
      * Writes or processes the items out or to disk.
      */
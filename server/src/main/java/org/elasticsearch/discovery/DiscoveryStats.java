@@ -19,6 +19,8 @@
 
 package org.elasticsearch.discovery;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -26,6 +28,8 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
+import org.elasticsearch.gateway.PersistedClusterStateStats;
 
 import java.io.IOException;
 
@@ -33,21 +37,41 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
 
     private final PendingClusterStateStats queueStats;
     private final PublishClusterStateStats publishStats;
+    private final PersistedClusterStateStats persistenceStats;
+    private final ClusterApplierStats applierStats;
 
     public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats) {
+        this(queueStats, publishStats, null, null);
+    }
+
+    public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats,
+                          @Nullable PersistedClusterStateStats persistenceStats, @Nullable ClusterApplierStats applierStats) {
         this.queueStats = queueStats;
         this.publishStats = publishStats;
+        this.persistenceStats = persistenceStats;
+        this.applierStats = applierStats;
     }
 
     public DiscoveryStats(StreamInput in) throws IOException {
         queueStats = in.readOptionalWriteable(PendingClusterStateStats::new);
         publishStats = in.readOptionalWriteable(PublishClusterStateStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            persistenceStats = in.readOptionalWriteable(PersistedClusterStateStats::new);
+            applierStats = in.readOptionalWriteable(ClusterApplierStats::new);
+        } else {
+            persistenceStats = null;
+            applierStats = null;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeOptionalWriteable(queueStats);
         out.writeOptionalWriteable(publishStats);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(persistenceStats);
+            out.writeOptionalWriteable(applierStats);
+        }
     }
 
     @Override
@@ -59,6 +83,12 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         if (publishStats != null) {
             publishStats.toXContent(builder, params);
         }
+        if (persistenceStats != null) {
+            persistenceStats.toXContent(builder, params);
+        }
+        if (applierStats != null) {
+            applierStats.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -74,4 +104,14 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
     public PublishClusterStateStats getPublishStats() {
         return publishStats;
     }
+
+    @Nullable
+    public PersistedClusterStateStats getPersistenceStats() {
+        return persistenceStats;
+    }
+
+    @Nullable
+    public ClusterApplierStats getClusterApplierStats() {
+        return applierStats;
+    }
 }
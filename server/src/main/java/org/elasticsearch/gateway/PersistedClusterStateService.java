@@ -57,6 +57,7 @@ import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.unit.TimeValue;
@@ -138,6 +139,7 @@ public class PersistedClusterStateService {
     private final BigArrays bigArrays;
     private final boolean preserveUnknownCustoms;
     private final LongSupplier relativeTimeMillisSupplier;
+    private final WriteStatsTracker writeStatsTracker = new WriteStatsTracker();
 
     private volatile TimeValue slowWriteLoggingThreshold;
 
@@ -168,6 +170,13 @@ public class PersistedClusterStateService {
         return nodeId;
     }
 
+    /**
+     * Returns statistics about the cluster states written by all the writers this service created
+     */
+    public PersistedClusterStateStats stats() {
+        return writeStatsTracker.stats();
+    }
+
     /**
      * Creates a new disk-based writer for cluster states
      */
@@ -190,7 +199,8 @@ public class PersistedClusterStateService {
                 IOUtils.closeWhileHandlingException(closeables);
             }
         }
-        return new Writer(metaDataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold);
+        return new Writer(metaDataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold,
+            writeStatsTracker);
     }
 
     private static IndexWriter createIndexWriter(Directory directory, boolean openExisting) throws IOException {
@@ -540,6 +550,35 @@ public class PersistedClusterStateService {
         }
     }
 
+    /**
+     * Accumulates the statistics of all writers; writers are used sequentially but may be replaced, so the totals live here.
+     */
+    private static class WriteStatsTracker {
+        private final CounterMetric fullWriteCount = new CounterMetric();
+        private final CounterMetric fullWriteTimeMillis = new CounterMetric();
+        private final CounterMetric incrementalWriteCount = new CounterMetric();
+        private final CounterMetric incrementalWriteTimeMillis = new CounterMetric();
+        private final CounterMetric indicesWritten = new CounterMetric();
+        private final CounterMetric indicesSkipped = new CounterMetric();
+
+        void onFullWrite(long durationMillis) {
+            fullWriteCount.inc();
+            fullWriteTimeMillis.inc(durationMillis);
+        }
+
+        void onIncrementalWrite(long durationMillis, Writer.WriterStats stats) {
+            incrementalWriteCount.inc();
+            incrementalWriteTimeMillis.inc(durationMillis);
+            indicesWritten.inc(stats.numIndicesUpdated);
+            indicesSkipped.inc(stats.numIndicesUnchanged);
+        }
+
+        PersistedClusterStateStats stats() {
+            return new PersistedClusterStateStats(fullWriteCount.count(), fullWriteTimeMillis.count(), incrementalWriteCount.count(),
+                incrementalWriteTimeMillis.count(), indicesWritten.count(), indicesSkipped.count());
+        }
+    }
+
     public static class Writer implements Closeable {
 
         private final List<MetaDataIndexWriter> metaDataIndexWriters;
@@ -547,17 +586,20 @@ public class PersistedClusterStateService {
         private final BigArrays bigArrays;
         private final LongSupplier relativeTimeMillisSupplier;
         private final Supplier<TimeValue> slowWriteLoggingThresholdSupplier;
+        private final WriteStatsTracker writeStatsTracker;
 
         boolean fullStateWritten = false;
         private final AtomicBoolean closed = new AtomicBoolean();
 
         private Writer(List<MetaDataIndexWriter> metaDataIndexWriters, String nodeId, BigArrays bigArrays,
-                       LongSupplier relativeTimeMillisSupplier, Supplier<TimeValue> slowWriteLoggingThresholdSupplier) {
+                       LongSupplier relativeTimeMillisSupplier, Supplier<TimeValue> slowWriteLoggingThresholdSupplier,
+                       WriteStatsTracker writeStatsTracker) {
             this.metaDataIndexWriters = metaDataIndexWriters;
             this.nodeId = nodeId;
             this.bigArrays = bigArrays;
             this.relativeTimeMillisSupplier = relativeTimeMillisSupplier;
             this.slowWriteLoggingThresholdSupplier = slowWriteLoggingThresholdSupplier;
+            this.writeStatsTracker = writeStatsTracker;
         }
 
         private void ensureOpen() {
@@ -592,6 +634,7 @@ public class PersistedClusterStateService {
                 commit(currentTerm, clusterState.version());
                 fullStateWritten = true;
                 final long durationMillis = relativeTimeMillisSupplier.getAsLong() - startTimeMillis;
+                writeStatsTracker.onFullWrite(durationMillis);
                 final TimeValue finalSlowWriteLoggingThreshold = slowWriteLoggingThresholdSupplier.get();
                 if (durationMillis >= finalSlowWriteLoggingThreshold.getMillis()) {
                     logger.warn("writing cluster state took [{}ms] which is above the warn threshold of [{}]; " +
@@ -619,6 +662,7 @@ public class PersistedClusterStateService {
                 final WriterStats stats = updateMetaData(previousClusterState.metaData(), clusterState.metaData());
                 commit(currentTerm, clusterState.version());
                 final long durationMillis = relativeTimeMillisSupplier.getAsLong() - startTimeMillis;
+                writeStatsTracker.onIncrementalWrite(durationMillis, stats);
                 final TimeValue finalSlowWriteLoggingThreshold = slowWriteLoggingThresholdSupplier.get();
                 if (durationMillis >= finalSlowWriteLoggingThreshold.getMillis()) {
                     logger.warn("writing cluster state took [{}ms] which is above the warn threshold of [{}]; " +
@@ -644,6 +688,13 @@ public class PersistedClusterStateService {
             logger.trace("currentTerm [{}] matches previous currentTerm, writing changes only",
                 metaData.coordinationMetaData().term());
 
+            if (previouslyWrittenMetaData == metaData) {
+                // Cluster state updates that only touch the routing table or the nodes keep the same metadata instance, in which case
+                // there is nothing to write and committing the new version is enough.
+                logger.trace("metadata unchanged, skipping [{}] indices", metaData.indices().size());
+                return new WriterStats(false, 0, metaData.indices().size());
+            }
+
             final boolean updateGlobalMeta = MetaData.isGlobalStateEquals(previouslyWrittenMetaData, metaData) == false;
             if (updateGlobalMeta) {
                 try (ReleasableDocument globalMetaDataDocument = makeGlobalMetaDataDocument(metaData)) {
@@ -653,19 +704,18 @@ public class PersistedClusterStateService {
                 }
             }
 
-            final Map<String, Long> indexMetaDataVersionByUUID = new HashMap<>(previouslyWrittenMetaData.indices().size());
-            for (ObjectCursor<IndexMetaData> cursor : previouslyWrittenMetaData.indices().values()) {
-                final IndexMetaData indexMetaData = cursor.value;
-                final Long previousValue = indexMetaDataVersionByUUID.putIfAbsent(indexMetaData.getIndexUUID(), indexMetaData.getVersion());
-                assert previousValue == null : indexMetaData.getIndexUUID() + " already mapped to " + previousValue;
-            }
-
             int numIndicesUpdated = 0;
             int numIndicesUnchanged = 0;
             for (ObjectCursor<IndexMetaData> cursor : metaData.indices().values()) {
                 final IndexMetaData indexMetaData = cursor.value;
-                final Long previousVersion = indexMetaDataVersionByUUID.get(indexMetaData.getIndexUUID());
-                if (previousVersion == null || indexMetaData.getVersion() != previousVersion) {
+                // looks the index up by name and UUID, so a recreated index with the same name counts as a new index
+                final IndexMetaData previousIndexMetaData = previouslyWrittenMetaData.index(indexMetaData.getIndex());
+                if (previousIndexMetaData == indexMetaData
+                    || (previousIndexMetaData != null && previousIndexMetaData.getVersion() == indexMetaData.getVersion())) {
+                    numIndicesUnchanged++;
+                    logger.trace("no action required for [{}]", indexMetaData.getIndex());
+                } else {
+                    final Long previousVersion = previousIndexMetaData == null ? null : previousIndexMetaData.getVersion();
                     logger.trace("updating metadata for [{}], changing version from [{}] to [{}]",
                         indexMetaData.getIndex(), previousVersion, indexMetaData.getVersion());
                     numIndicesUpdated++;
@@ -674,16 +724,15 @@ public class PersistedClusterStateService {
                             metaDataIndexWriter.updateIndexMetaDataDocument(indexMetaDataDocument.getDocument(), indexMetaData.getIndex());
                         }
                     }
-                } else {
-                    numIndicesUnchanged++;
-                    logger.trace("no action required for [{}]", indexMetaData.getIndex());
                 }
-                indexMetaDataVersionByUUID.remove(indexMetaData.getIndexUUID());
             }
 
-            for (String removedIndexUUID : indexMetaDataVersionByUUID.keySet()) {
-                for (MetaDataIndexWriter metaDataIndexWriter : metaDataIndexWriters) {
-                    metaDataIndexWriter.deleteIndexMetaData(removedIndexUUID);
+            for (ObjectCursor<IndexMetaData> cursor : previouslyWrittenMetaData.indices().values()) {
+                final IndexMetaData previousIndexMetaData = cursor.value;
+                if (metaData.index(previousIndexMetaData.getIndex()) == null) {
+                    for (MetaDataIndexWriter metaDataIndexWriter : metaDataIndexWriters) {
+                        metaDataIndexWriter.deleteIndexMetaData(previousIndexMetaData.getIndexUUID());
+                    }
                 }
             }
 
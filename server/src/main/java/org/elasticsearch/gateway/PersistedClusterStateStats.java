@@ -0,0 +1,133 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Statistics about the cluster states that {@link PersistedClusterStateService} wrote to disk on this node.
+ */
+public class PersistedClusterStateStats implements Writeable, ToXContentObject {
+
+    private final long fullWriteCount;
+    private final long fullWriteTimeMillis;
+    private final long incrementalWriteCount;
+    private final long incrementalWriteTimeMillis;
+    private final long indicesWritten;
+    private final long indicesSkipped;
+
+    /**
+     * @param fullWriteCount             the number of times the whole cluster state was written
+     * @param fullWriteTimeMillis        the total time spent writing and committing whole cluster states
+     * @param incrementalWriteCount      the number of times only the changes to the previously written cluster state were written
+     * @param incrementalWriteTimeMillis the total time spent writing and committing these changes
+     * @param indicesWritten             the number of index metadata documents written by incremental writes
+     * @param indicesSkipped             the number of unchanged index metadata documents that incremental writes did not need to write
+     */
+    public PersistedClusterStateStats(long fullWriteCount, long fullWriteTimeMillis, long incrementalWriteCount,
+                                      long incrementalWriteTimeMillis, long indicesWritten, long indicesSkipped) {
+        this.fullWriteCount = fullWriteCount;
+        this.fullWriteTimeMillis = fullWriteTimeMillis;
+        this.incrementalWriteCount = incrementalWriteCount;
+        this.incrementalWriteTimeMillis = incrementalWriteTimeMillis;
+        this.indicesWritten = indicesWritten;
+        this.indicesSkipped = indicesSkipped;
+    }
+
+    public PersistedClusterStateStats(StreamInput in) throws IOException {
+        fullWriteCount = in.readVLong();
+        fullWriteTimeMillis = in.readVLong();
+        incrementalWriteCount = in.readVLong();
+        incrementalWriteTimeMillis = in.readVLong();
+        indicesWritten = in.readVLong();
+        indicesSkipped = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(fullWriteCount);
+        out.writeVLong(fullWriteTimeMillis);
+        out.writeVLong(incrementalWriteCount);
+        out.writeVLong(incrementalWriteTimeMillis);
+        out.writeVLong(indicesWritten);
+        out.writeVLong(indicesSkipped);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cluster_state_persistence");
+        {
+            builder.startObject("full_states");
+            builder.field("count", fullWriteCount);
+            builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(fullWriteTimeMillis));
+            builder.endObject();
+        }
+        {
+            builder.startObject("incremental_states");
+            builder.field("count", incrementalWriteCount);
+            builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(incrementalWriteTimeMillis));
+            builder.field("indices_written", indicesWritten);
+            builder.field("indices_skipped", indicesSkipped);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public long getFullWriteCount() {
+        return fullWriteCount;
+    }
+
+    public long getFullWriteTimeMillis() {
+        return fullWriteTimeMillis;
+    }
+
+    public long getIncrementalWriteCount() {
+        return incrementalWriteCount;
+    }
+
+    public long getIncrementalWriteTimeMillis() {
+        return incrementalWriteTimeMillis;
+    }
+
+    public long getIndicesWritten() {
+        return indicesWritten;
+    }
+
+    public long getIndicesSkipped() {
+        return indicesSkipped;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistedClusterStateStats(full=" + fullWriteCount + "/" + fullWriteTimeMillis + "ms"
+            + ", incremental=" + incrementalWriteCount + "/" + incrementalWriteTimeMillis + "ms"
+            + ", indicesWritten=" + indicesWritten
+            + ", indicesSkipped=" + indicesSkipped
+            + ")";
+    }
+}
@@ -32,6 +32,7 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.replication.ReplicationType;
 import org.elasticsearch.ingest.IngestService;
 import org.elasticsearch.node.Node;
 
@@ -64,6 +65,25 @@ public final class IndexSettings {
     public static final Setting<TimeValue> INDEX_TRANSLOG_SYNC_INTERVAL_SETTING =
         Setting.timeSetting("index.translog.sync_interval", TimeValue.timeValueSeconds(5), TimeValue.timeValueMillis(100),
             Property.Dynamic, Property.IndexScope);
+    /**
+     * The longest time that a request-durability translog sync waits for further operations so that they can be made durable by the
+     * same fsync. The actual delay adapts to the observed fsync latency and is zero unless concurrent syncs were recently coalesced.
+     */
+    public static final Setting<TimeValue> INDEX_TRANSLOG_GROUP_COMMIT_MAX_DELAY_SETTING =
+        Setting.timeSetting("index.translog.group_commit.max_delay", TimeValue.ZERO, TimeValue.ZERO, TimeValue.timeValueMillis(100),
+            Property.Dynamic, Property.IndexScope);
+    /**
+     * Whether snapshots of translog generations that are no longer written to parse operations directly from a read-only memory
+     * mapping of the generation rather than reading them through the file channel.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_MMAP_READERS_SETTING =
+        Setting.boolSetting("index.translog.mmap_readers", false, Property.Dynamic, Property.IndexScope);
+    /**
+     * Whether segments that are flushed or merged store a bloom filter over their {@code _id} terms, which lets version lookups
+     * skip segments that do not contain a document without seeking into their terms dictionary.
+     */
+    public static final Setting<Boolean> INDEX_ID_BLOOM_FILTER_SETTING =
+        Setting.boolSetting("index.id_bloom_filter.enabled", false, Property.Dynamic, Property.IndexScope);
     public static final Setting<TimeValue> INDEX_SEARCH_IDLE_AFTER =
         Setting.timeSetting("index.search.idle.after", TimeValue.timeValueSeconds(30),
             TimeValue.timeValueMinutes(0), Property.IndexScope, Property.Dynamic);
@@ -232,6 +252,14 @@ public final class IndexSettings {
     public static final Setting<Boolean> INDEX_SOFT_DELETES_SETTING =
         Setting.boolSetting("index.soft_deletes.enabled", true, Property.IndexScope, Property.Final);
 
+    /**
+     * Specifies whether replicas re-index every operation ({@code document}) or copy the Lucene segments of their
+     * primary and only write the operations to their translog ({@code segment}).
+     */
+    public static final Setting<ReplicationType> INDEX_REPLICATION_TYPE_SETTING =
+        new Setting<>("index.replication.type", ReplicationType.DOCUMENT.toString(), ReplicationType::parse,
+            Property.IndexScope, Property.Final);
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -349,6 +377,9 @@ public final class IndexSettings {
     private final boolean defaultAllowUnmappedFields;
     private volatile Translog.Durability durability;
     private volatile TimeValue syncInterval;
+    private volatile TimeValue groupCommitMaxDelay;
+    private volatile boolean translogMmapReaders;
+    private volatile boolean idBloomFilterEnabled;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile TimeValue translogRetentionAge;
@@ -361,6 +392,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final ReplicationType replicationType;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -484,6 +516,9 @@ public final class IndexSettings {
         this.durability = scopedSettings.get(INDEX_TRANSLOG_DURABILITY_SETTING);
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
+        groupCommitMaxDelay = scopedSettings.get(INDEX_TRANSLOG_GROUP_COMMIT_MAX_DELAY_SETTING);
+        translogMmapReaders = scopedSettings.get(INDEX_TRANSLOG_MMAP_READERS_SETTING);
+        idBloomFilterEnabled = scopedSettings.get(INDEX_ID_BLOOM_FILTER_SETTING);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
@@ -493,6 +528,7 @@ public final class IndexSettings {
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
+        replicationType = scopedSettings.get(INDEX_REPLICATION_TYPE_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
@@ -536,6 +572,9 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.AUTO_THROTTLE_SETTING, mergeSchedulerConfig::setAutoThrottle);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_DURABILITY_SETTING, this::setTranslogDurability);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_SYNC_INTERVAL_SETTING, this::setTranslogSyncInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_GROUP_COMMIT_MAX_DELAY_SETTING, this::setTranslogGroupCommitMaxDelay);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_MMAP_READERS_SETTING, this::setTranslogMmapReaders);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_ID_BLOOM_FILTER_SETTING, this::setIdBloomFilterEnabled);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
@@ -755,6 +794,39 @@ public final class IndexSettings {
         this.syncInterval = translogSyncInterval;
     }
 
+    /**
+     * Returns the longest time that a request-durability translog sync may wait to be coalesced with concurrent syncs
+     */
+    public TimeValue getTranslogGroupCommitMaxDelay() {
+        return groupCommitMaxDelay;
+    }
+
+    private void setTranslogGroupCommitMaxDelay(TimeValue groupCommitMaxDelay) {
+        this.groupCommitMaxDelay = groupCommitMaxDelay;
+    }
+
+    /**
+     * Returns <code>true</code> if snapshots of immutable translog generations read operations from a memory mapping
+     */
+    public boolean isTranslogMmapReaders() {
+        return translogMmapReaders;
+    }
+
+    private void setTranslogMmapReaders(boolean translogMmapReaders) {
+        this.translogMmapReaders = translogMmapReaders;
+    }
+
+    /**
+     * Returns <code>true</code> if new segments store a bloom filter over their <code>_id</code> terms
+     */
+    public boolean isIdBloomFilterEnabled() {
+        return idBloomFilterEnabled;
+    }
+
+    private void setIdBloomFilterEnabled(boolean idBloomFilterEnabled) {
+        this.idBloomFilterEnabled = idBloomFilterEnabled;
+    }
+
     /**
      * Returns this interval in which the shards of this index are asynchronously refreshed. {@code -1} means async refresh is disabled.
      */
@@ -1010,6 +1082,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if the replicas of this index copy the segments of their primary instead of indexing documents.
+     */
+    public boolean isSegmentReplicationEnabled() {
+        return replicationType == ReplicationType.SEGMENT;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
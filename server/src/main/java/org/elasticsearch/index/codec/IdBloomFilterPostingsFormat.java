@@ -0,0 +1,390 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.FieldsConsumer;
+import org.apache.lucene.codecs.FieldsProducer;
+import org.apache.lucene.codecs.NormsProducer;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene84.Lucene84PostingsFormat;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
+import org.elasticsearch.common.hash.MurmurHash3;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link PostingsFormat} that writes its terms with the default postings format and additionally builds a bloom filter over
+ * the terms of each field when a segment is flushed or merged. The filter is stored in its own file next to the terms
+ * dictionary and loaded on heap when the segment is opened. {@link TermsEnum#seekExact(BytesRef)} consults it before seeking
+ * into the terms dictionary, which saves the disk seek for most terms that do not exist in the segment.
+ *
+ * This pays off for primary key lookups of the {@code _id} field when indexing documents with client-generated ids into an
+ * index with many segments, since every such document needs to be looked up in all segments but exists in at most one.
+ */
+public final class IdBloomFilterPostingsFormat extends PostingsFormat {
+
+    public static final String NAME = "ESIdBloomFilter84";
+
+    static final String CODEC_NAME = "IdBloomFilter";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+    static final String EXTENSION = "bfi";
+
+    /** Number of bits per term the filter is sized for, which yields a false positive probability below 1%. */
+    static final int BITS_PER_TERM = 10;
+    static final int NUM_HASH_FUNCTIONS = 7;
+
+    private final PostingsFormat delegate;
+
+    public IdBloomFilterPostingsFormat() {
+        super(NAME);
+        this.delegate = new Lucene84PostingsFormat();
+    }
+
+    @Override
+    public FieldsConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        return new BloomFilterFieldsConsumer(delegate.fieldsConsumer(state), state);
+    }
+
+    @Override
+    public FieldsProducer fieldsProducer(SegmentReadState state) throws IOException {
+        final FieldsProducer delegateProducer = delegate.fieldsProducer(state);
+        boolean success = false;
+        try {
+            final FieldsProducer producer = new BloomFilterFieldsProducer(delegateProducer, readFilters(state));
+            success = true;
+            return producer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(delegateProducer);
+            }
+        }
+    }
+
+    private static Map<String, BloomFilter> readFilters(SegmentReadState state) throws IOException {
+        final String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+        final Map<String, BloomFilter> filters = new HashMap<>();
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(fileName, state.context)) {
+            Throwable priorException = null;
+            try {
+                CodecUtil.checkIndexHeader(in, CODEC_NAME, VERSION_START, VERSION_CURRENT, state.segmentInfo.getId(),
+                    state.segmentSuffix);
+                final int numFields = in.readVInt();
+                for (int i = 0; i < numFields; i++) {
+                    final String field = in.readString();
+                    final int numHashFunctions = in.readVInt();
+                    final long[] bits = new long[in.readVInt()];
+                    for (int j = 0; j < bits.length; j++) {
+                        bits[j] = in.readLong();
+                    }
+                    filters.put(field, new BloomFilter(bits, numHashFunctions));
+                }
+            } catch (Throwable exception) {
+                priorException = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorException);
+            }
+        }
+        return filters;
+    }
+
+    private static final class BloomFilterFieldsConsumer extends FieldsConsumer {
+
+        private final FieldsConsumer delegate;
+        private final SegmentWriteState state;
+
+        BloomFilterFieldsConsumer(FieldsConsumer delegate, SegmentWriteState state) {
+            this.delegate = delegate;
+            this.state = state;
+        }
+
+        @Override
+        public void write(Fields fields, NormsProducer norms) throws IOException {
+            delegate.write(fields, norms);
+            final List<String> fieldNames = new ArrayList<>();
+            final List<BloomFilter> filters = new ArrayList<>();
+            for (String field : fields) {
+                final Terms terms = fields.terms(field);
+                if (terms == null) {
+                    continue;
+                }
+                // a segment has at most one _id per document, so max_doc bounds the number of terms
+                final BloomFilter filter = BloomFilter.withExpectedTerms(state.segmentInfo.maxDoc());
+                final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+                final TermsEnum termsEnum = terms.iterator();
+                for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                    filter.add(term, hash);
+                }
+                fieldNames.add(field);
+                filters.add(filter.downsize());
+            }
+            final String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
+            try (IndexOutput out = state.directory.createOutput(fileName, state.context)) {
+                CodecUtil.writeIndexHeader(out, CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                out.writeVInt(fieldNames.size());
+                for (int i = 0; i < fieldNames.size(); i++) {
+                    out.writeString(fieldNames.get(i));
+                    filters.get(i).writeTo(out);
+                }
+                CodecUtil.writeFooter(out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class BloomFilterFieldsProducer extends FieldsProducer {
+
+        private final FieldsProducer delegate;
+        private final Map<String, BloomFilter> filters;
+
+        BloomFilterFieldsProducer(FieldsProducer delegate, Map<String, BloomFilter> filters) {
+            this.delegate = delegate;
+            this.filters = filters;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public Terms terms(String field) throws IOException {
+            final Terms terms = delegate.terms(field);
+            final BloomFilter filter = filters.get(field);
+            if (terms == null || filter == null) {
+                return terms;
+            }
+            return new BloomFilteredTerms(terms, filter);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            // the filters were fully verified against their checksum when the segment was opened
+            delegate.checkIntegrity();
+        }
+
+        @Override
+        public FieldsProducer getMergeInstance() throws IOException {
+            // merges iterate over all terms and never seek, so the filters would not help
+            return delegate.getMergeInstance();
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long ramBytesUsed = delegate.ramBytesUsed();
+            for (BloomFilter filter : filters.values()) {
+                ramBytesUsed += filter.ramBytesUsed();
+            }
+            return ramBytesUsed;
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            final List<Accountable> resources = new ArrayList<>();
+            resources.add(Accountables.namedAccountable("delegate", delegate));
+            resources.addAll(Accountables.namedAccountables("bloom filter", filters));
+            return Collections.unmodifiableList(resources);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(fields=" + filters.keySet() + ",delegate=" + delegate + ")";
+        }
+    }
+
+    private static final class BloomFilteredTerms extends FilterLeafReader.FilterTerms {
+
+        private final BloomFilter filter;
+
+        BloomFilteredTerms(Terms in, BloomFilter filter) {
+            super(in);
+            this.filter = filter;
+        }
+
+        @Override
+        public TermsEnum iterator() throws IOException {
+            return new BloomFilteredTermsEnum(in.iterator(), filter);
+        }
+
+        @Override
+        public TermsEnum intersect(CompiledAutomaton compiled, BytesRef startTerm) throws IOException {
+            return in.intersect(compiled, startTerm);
+        }
+
+        @Override
+        public BytesRef getMin() throws IOException {
+            return in.getMin();
+        }
+
+        @Override
+        public BytesRef getMax() throws IOException {
+            return in.getMax();
+        }
+    }
+
+    private static final class BloomFilteredTermsEnum extends FilterLeafReader.FilterTermsEnum {
+
+        private final BloomFilter filter;
+        private final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+
+        BloomFilteredTermsEnum(TermsEnum in, BloomFilter filter) {
+            super(in);
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean seekExact(BytesRef text) throws IOException {
+            if (filter.mightContain(text, hash) == false) {
+                return false;
+            }
+            return in.seekExact(text);
+        }
+    }
+
+    /**
+     * A bloom filter whose number of bits is a power of two so that it can be folded in half once the actual number of
+     * terms turns out to be smaller than expected.
+     */
+    static final class BloomFilter implements Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(BloomFilter.class);
+        private static final int MAX_NUM_WORDS = 1 << 24;
+
+        private final long[] bits;
+        private final long mask;
+        private final int numHashFunctions;
+        private int numTerms;
+
+        BloomFilter(long[] bits, int numHashFunctions) {
+            if (Long.bitCount(bits.length) != 1) {
+                throw new IllegalArgumentException("number of words must be a power of two but was [" + bits.length + "]");
+            }
+            this.bits = bits;
+            this.mask = ((long) bits.length << 6) - 1;
+            this.numHashFunctions = numHashFunctions;
+        }
+
+        static BloomFilter withExpectedTerms(int expectedTerms) {
+            final long numBits = Math.max(Long.SIZE, (long) expectedTerms * BITS_PER_TERM);
+            // cap the filter to 128MB, larger segments get more false positives but are still filtered correctly
+            final int numWords = (int) Math.min(MAX_NUM_WORDS, Long.highestOneBit((numBits - 1) >>> 6) << 1);
+            return new BloomFilter(new long[Math.max(1, numWords)], NUM_HASH_FUNCTIONS);
+        }
+
+        void add(BytesRef term, MurmurHash3.Hash128 hash) {
+            MurmurHash3.hash128(term.bytes, term.offset, term.length, 0, hash);
+            // derive the hash functions from the two halves of the murmur hash, the increment is odd so that it cycles
+            // through all bits of the power of two sized filter
+            final long increment = hash.h2 | 1;
+            long combined = hash.h1;
+            for (int i = 0; i < numHashFunctions; i++) {
+                final long index = combined & mask;
+                bits[(int) (index >>> 6)] |= 1L << index;
+                combined += increment;
+            }
+            numTerms++;
+        }
+
+        /**
+         * Returns {@code false} if the given term was definitely never added to this filter.
+         */
+        boolean mightContain(BytesRef term, MurmurHash3.Hash128 hash) {
+            MurmurHash3.hash128(term.bytes, term.offset, term.length, 0, hash);
+            final long increment = hash.h2 | 1;
+            long combined = hash.h1;
+            for (int i = 0; i < numHashFunctions; i++) {
+                final long index = combined & mask;
+                if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                    return false;
+                }
+                combined += increment;
+            }
+            return true;
+        }
+
+        /**
+         * Folds this filter in half as long as it still has at least {@link #BITS_PER_TERM} bits per added term. A bit of the
+         * folded filter is set if any of the bits that map to it were set, so terms that were added remain present.
+         */
+        BloomFilter downsize() {
+            int numWords = bits.length;
+            while (numWords > 1 && ((long) numWords << 6) / 2 >= (long) numTerms * BITS_PER_TERM) {
+                numWords /= 2;
+            }
+            if (numWords == bits.length) {
+                return this;
+            }
+            final long[] folded = new long[numWords];
+            for (int i = 0; i < bits.length; i++) {
+                folded[i & (numWords - 1)] |= bits[i];
+            }
+            return new BloomFilter(folded, numHashFunctions);
+        }
+
+        void writeTo(IndexOutput out) throws IOException {
+            out.writeVInt(numHashFunctions);
+            out.writeVInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(bits);
+        }
+    }
+}
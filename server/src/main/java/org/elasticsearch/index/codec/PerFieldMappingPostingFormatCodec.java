@@ -26,6 +26,7 @@ import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat;
 import org.apache.lucene.codecs.lucene84.Lucene84Codec;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.index.mapper.CompletionFieldMapper;
+import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
 
@@ -38,6 +39,8 @@ import org.elasticsearch.index.mapper.MapperService;
  * configured for a specific field the default postings format is used.
  */
 public class PerFieldMappingPostingFormatCodec extends Lucene84Codec {
+    private static final PostingsFormat ID_BLOOM_FILTER_POSTINGS_FORMAT = new IdBloomFilterPostingsFormat();
+
     private final Logger logger;
     private final MapperService mapperService;
 
@@ -54,6 +57,9 @@ public class PerFieldMappingPostingFormatCodec extends Lucene84Codec {
 
     @Override
     public PostingsFormat getPostingsFormatForField(String field) {
+        if (IdFieldMapper.NAME.equals(field) && mapperService.getIndexSettings().isIdBloomFilterEnabled()) {
+            return ID_BLOOM_FILTER_POSTINGS_FORMAT;
+        }
         final MappedFieldType fieldType = mapperService.fullName(field);
         if (fieldType == null) {
             logger.warn("no index mapper found for field: [{}] returning default postings format", field);
@@ -63,13 +63,20 @@ class ElasticsearchReaderManager extends ReferenceManager<ElasticsearchDirectory
 
     @Override
     protected ElasticsearchDirectoryReader refreshIfNeeded(ElasticsearchDirectoryReader referenceToRefresh) throws IOException {
-        final ElasticsearchDirectoryReader reader = (ElasticsearchDirectoryReader) DirectoryReader.openIfChanged(referenceToRefresh);
+        final ElasticsearchDirectoryReader reader = openIfChanged(referenceToRefresh);
         if (reader != null) {
             refreshListener.accept(reader, referenceToRefresh);
         }
         return reader;
     }
 
+    /**
+     * Opens a new reader if the index changed since the given reader was opened, or returns <code>null</code> otherwise.
+     */
+    protected ElasticsearchDirectoryReader openIfChanged(ElasticsearchDirectoryReader reader) throws IOException {
+        return (ElasticsearchDirectoryReader) DirectoryReader.openIfChanged(reader);
+    }
+
     @Override
     protected boolean tryIncRef(ElasticsearchDirectoryReader reference) {
         return reference.tryIncRef();
@@ -116,6 +116,17 @@ public final class EngineConfig {
         }
     }, Property.IndexScope, Property.NodeScope);
 
+    /**
+     * Index setting to pack the versions of documents that were indexed since the last refresh into paged primitive arrays
+     * instead of keeping a few objects per document on the heap. This trades a little CPU on version lookups for a much smaller
+     * and GC-friendlier version map, which matters for update-heavy indices with long refresh intervals.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<Boolean> INDEX_PACKED_VERSION_MAP_SETTING =
+        Setting.boolSetting("index.engine.packed_version_map", false, Property.IndexScope);
+
+    private final boolean packedVersionMap;
+
     private final TranslogConfig translogConfig;
 
     /**
@@ -145,6 +156,7 @@ public final class EngineConfig {
         this.codecService = codecService;
         this.eventListener = eventListener;
         codecName = indexSettings.getValue(INDEX_CODEC_SETTING);
+        packedVersionMap = indexSettings.getValue(INDEX_PACKED_VERSION_MAP_SETTING);
         // We need to make the indexing buffer for this shard at least as large
         // as the amount of memory that is available for all engines on the
         // local node so that decisions to flush segments to disk are made by
@@ -182,6 +194,14 @@ public final class EngineConfig {
         this.enableGcDeletes = enableGcDeletes;
     }
 
+    /**
+     * Returns <code>true</code> iff the live version map should pack its entries into primitive arrays.
+     * @see #INDEX_PACKED_VERSION_MAP_SETTING
+     */
+    public boolean isPackedVersionMap() {
+        return packedVersionMap;
+    }
+
     /**
      * Returns the initial index buffer size. This setting is only read on startup and otherwise controlled
      * by {@link IndexingMemoryController}
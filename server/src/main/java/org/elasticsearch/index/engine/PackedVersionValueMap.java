@@ -0,0 +1,369 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A concurrent map from _uid to {@link IndexVersionValue} that packs its entries into paged primitive arrays instead of
+ * keeping a {@link BytesRef}, a {@link VersionValue} and a {@link Translog.Location} object alive per document. Values
+ * are materialized on read, so the garbage collector only ever sees a handful of large primitive arrays no matter how
+ * many documents were indexed since the last refresh.
+ *
+ * The map is split into segments that are each guarded by their own monitor. A segment only allocates its arrays once
+ * it receives its first entry, which keeps the maps that {@link LiveVersionMap} creates on every refresh cheap.
+ * Removed entries are reclaimed when their segment is rehashed. {@link #entrySet()} returns a point in time snapshot.
+ */
+final class PackedVersionValueMap extends AbstractMap<BytesRef, VersionValue> implements Accountable {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int INITIAL_CAPACITY = 16;
+    /** Maximum length of a _uid, bounded by the number of bits reserved for it in a uid reference. */
+    static final int MAX_UID_LENGTH = 0xFFFF;
+    private static final long NO_LOCATION = -1;
+
+    // per entry longs: [uid reference, version, seq_no, term, location generation, location offset]
+    private static final int LONGS_PER_ENTRY = 6;
+    private static final int UID_REF = 0;
+    private static final int VERSION = 1;
+    private static final int SEQ_NO = 2;
+    private static final int TERM = 3;
+    private static final int LOCATION_GENERATION = 4;
+    private static final int LOCATION_OFFSET = 5;
+    // per entry ints: [hash, location size]
+    private static final int INTS_PER_ENTRY = 2;
+    private static final int HASH = 0;
+    private static final int LOCATION_SIZE = 1;
+
+    private final BigArrays bigArrays;
+    private final Segment[] segments;
+
+    PackedVersionValueMap() {
+        this(BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    PackedVersionValueMap(BigArrays bigArrays) {
+        this.bigArrays = bigArrays;
+        this.segments = new Segment[1 << SEGMENT_BITS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        if (key instanceof BytesRef == false) {
+            return null;
+        }
+        final BytesRef uid = (BytesRef) key;
+        final int hash = uid.hashCode();
+        return segmentFor(hash).get(uid, hash);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        if (value instanceof IndexVersionValue == false) {
+            throw new IllegalArgumentException("only index versions can be packed but got [" + value + "]");
+        }
+        if (uid.length > MAX_UID_LENGTH) {
+            throw new IllegalArgumentException("uid of length [" + uid.length + "] exceeds [" + MAX_UID_LENGTH + "]");
+        }
+        final int hash = uid.hashCode();
+        return segmentFor(hash).put(uid, hash, value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        if (key instanceof BytesRef == false) {
+            return null;
+        }
+        final BytesRef uid = (BytesRef) key;
+        final int hash = uid.hashCode();
+        return segmentFor(hash).remove(uid, hash);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Map<BytesRef, VersionValue> snapshot = new HashMap<>();
+        for (Segment segment : segments) {
+            segment.copyTo(snapshot);
+        }
+        return Collections.unmodifiableMap(snapshot).entrySet();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = 0;
+        for (Segment segment : segments) {
+            ramBytesUsed += segment.ramBytesUsed;
+        }
+        return ramBytesUsed;
+    }
+
+    private final class Segment {
+
+        /** open addressing table of entry ids plus one, {@code 0} marks a free slot */
+        private IntArray slots;
+        private int mask;
+        private LongArray longs;
+        private IntArray ints;
+        private ByteArray uidBytes;
+        private long uidBytesUsed;
+        /** number of entries allocated since the last rehash, including removed ones */
+        private int entries;
+        private int maxEntries;
+        private final BytesRef scratch = new BytesRef();
+
+        volatile int size;
+        volatile long ramBytesUsed;
+
+        synchronized VersionValue get(BytesRef uid, int hash) {
+            if (slots == null) {
+                return null;
+            }
+            final long slot = find(uid, hash);
+            return slot < 0 ? null : materialize(slots.get(slot) - 1);
+        }
+
+        synchronized VersionValue put(BytesRef uid, int hash, VersionValue value) {
+            if (slots == null) {
+                rehash(INITIAL_CAPACITY);
+            }
+            long slot = find(uid, hash);
+            if (slot >= 0) {
+                final int id = slots.get(slot) - 1;
+                final VersionValue previous = materialize(id);
+                writeValue(id, value);
+                return previous;
+            }
+            if (entries == maxEntries) {
+                // grow if the live entries fill more than half of the table, otherwise only drop the removed entries
+                rehash(size >= maxEntries / 2 ? (mask + 1) * 2 : mask + 1);
+            }
+            final int id = entries++;
+            uidBytes = bigArrays.grow(uidBytes, uidBytesUsed + uid.length);
+            uidBytes.set(uidBytesUsed, uid.bytes, uid.offset, uid.length);
+            longs.set(offset(id, UID_REF), (uidBytesUsed << 16) | uid.length);
+            uidBytesUsed += uid.length;
+            ints.set((long) id * INTS_PER_ENTRY + HASH, hash);
+            writeValue(id, value);
+            slots.set(-1 - find(uid, hash), id + 1);
+            size++;
+            updateRamBytesUsed();
+            return null;
+        }
+
+        synchronized VersionValue remove(BytesRef uid, int hash) {
+            if (slots == null) {
+                return null;
+            }
+            long slot = find(uid, hash);
+            if (slot < 0) {
+                return null;
+            }
+            final VersionValue previous = materialize(slots.get(slot) - 1);
+            // backward shift deletion keeps the probe sequences of the remaining entries intact
+            long next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                final int nextId = slots.get(next);
+                if (nextId == 0) {
+                    break;
+                }
+                final long home = ints.get((long) (nextId - 1) * INTS_PER_ENTRY + HASH) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    slots.set(slot, nextId);
+                    slot = next;
+                }
+            }
+            slots.set(slot, 0);
+            size--;
+            return previous;
+        }
+
+        synchronized void clear() {
+            slots = null;
+            longs = null;
+            ints = null;
+            uidBytes = null;
+            uidBytesUsed = 0;
+            entries = 0;
+            maxEntries = 0;
+            size = 0;
+            ramBytesUsed = 0;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> map) {
+            if (slots == null) {
+                return;
+            }
+            for (long slot = 0; slot <= mask; slot++) {
+                final int id = slots.get(slot) - 1;
+                if (id >= 0) {
+                    map.put(BytesRef.deepCopyOf(uid(id)), materialize(id));
+                }
+            }
+        }
+
+        /**
+         * Returns the slot holding the given uid, or {@code -1 - slot} of the free slot where it would be inserted.
+         */
+        private long find(BytesRef uid, int hash) {
+            long slot = hash & mask;
+            while (true) {
+                final int id = slots.get(slot) - 1;
+                if (id < 0) {
+                    return -1 - slot;
+                }
+                if (ints.get((long) id * INTS_PER_ENTRY + HASH) == hash && uid(id).bytesEquals(uid)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private BytesRef uid(int id) {
+            final long ref = longs.get(offset(id, UID_REF));
+            uidBytes.get(ref >>> 16, (int) (ref & MAX_UID_LENGTH), scratch);
+            return scratch;
+        }
+
+        private void writeValue(int id, VersionValue value) {
+            longs.set(offset(id, VERSION), value.version);
+            longs.set(offset(id, SEQ_NO), value.seqNo);
+            longs.set(offset(id, TERM), value.term);
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                longs.set(offset(id, LOCATION_GENERATION), NO_LOCATION);
+            } else {
+                assert location.generation != NO_LOCATION;
+                longs.set(offset(id, LOCATION_GENERATION), location.generation);
+                longs.set(offset(id, LOCATION_OFFSET), location.translogLocation);
+                ints.set((long) id * INTS_PER_ENTRY + LOCATION_SIZE, location.size);
+            }
+        }
+
+        private VersionValue materialize(int id) {
+            final long generation = longs.get(offset(id, LOCATION_GENERATION));
+            final Translog.Location location = generation == NO_LOCATION ? null : new Translog.Location(generation,
+                longs.get(offset(id, LOCATION_OFFSET)), ints.get((long) id * INTS_PER_ENTRY + LOCATION_SIZE));
+            return new IndexVersionValue(location, longs.get(offset(id, VERSION)), longs.get(offset(id, SEQ_NO)),
+                longs.get(offset(id, TERM)));
+        }
+
+        private void rehash(int capacity) {
+            final IntArray oldSlots = slots;
+            final LongArray oldLongs = longs;
+            final IntArray oldInts = ints;
+            final ByteArray oldUidBytes = uidBytes;
+            final long oldMask = mask;
+            mask = capacity - 1;
+            maxEntries = capacity / 2;
+            slots = bigArrays.newIntArray(capacity);
+            longs = bigArrays.newLongArray((long) maxEntries * LONGS_PER_ENTRY, false);
+            ints = bigArrays.newIntArray((long) maxEntries * INTS_PER_ENTRY, false);
+            uidBytes = bigArrays.newByteArray(oldUidBytes == null ? 0 : uidBytesUsed, false);
+            uidBytesUsed = 0;
+            entries = 0;
+            if (oldSlots != null) {
+                for (long slot = 0; slot <= oldMask; slot++) {
+                    final int oldId = oldSlots.get(slot) - 1;
+                    if (oldId < 0) {
+                        continue;
+                    }
+                    final int id = entries++;
+                    for (int i = 0; i < LONGS_PER_ENTRY; i++) {
+                        longs.set(offset(id, i), oldLongs.get((long) oldId * LONGS_PER_ENTRY + i));
+                    }
+                    for (int i = 0; i < INTS_PER_ENTRY; i++) {
+                        ints.set((long) id * INTS_PER_ENTRY + i, oldInts.get((long) oldId * INTS_PER_ENTRY + i));
+                    }
+                    final long ref = longs.get(offset(id, UID_REF));
+                    final int length = (int) (ref & MAX_UID_LENGTH);
+                    oldUidBytes.get(ref >>> 16, length, scratch);
+                    uidBytes.set(uidBytesUsed, scratch.bytes, scratch.offset, length);
+                    longs.set(offset(id, UID_REF), (uidBytesUsed << 16) | length);
+                    uidBytesUsed += length;
+                    long newSlot = ints.get((long) id * INTS_PER_ENTRY + HASH) & mask;
+                    while (slots.get(newSlot) != 0) {
+                        newSlot = (newSlot + 1) & mask;
+                    }
+                    slots.set(newSlot, id + 1);
+                }
+            }
+            updateRamBytesUsed();
+        }
+
+        private void updateRamBytesUsed() {
+            ramBytesUsed = slots.ramBytesUsed() + longs.ramBytesUsed() + ints.ramBytesUsed() + uidBytes.ramBytesUsed();
+        }
+    }
+
+    private static long offset(int id, int field) {
+        return (long) id * LONGS_PER_ENTRY + field;
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SoftDeletesDirectoryReaderWrapper;
+import org.apache.lucene.index.StandardDirectoryReader;
+import org.apache.lucene.store.BufferedChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.common.CheckedRunnable;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
+import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogDeletionPolicy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An engine for the replicas of an index that uses segment replication. Operations replicated from the primary are only
+ * written to the translog and marked as processed; the Lucene index is never modified by the index writer of this engine.
+ * Instead, the segments that the primary refreshed are copied to the replica and installed with
+ * {@link #installSegmentInfos(byte[], long, Set, CheckedRunnable)}, which commits them on top of the translog of the replica
+ * and opens a new reader on them while the engine keeps serving operations and searches. As this engine never commits on its
+ * own, the translog remains the source of durability.
+ * <p>
+ * The copied segments may contain operations above the global checkpoint, which are lost if the primary fails. Like the
+ * {@link CombinedDeletionPolicy} of a regular engine, this engine therefore keeps the newest commit whose operations are all at
+ * or below the global checkpoint, the safe commit, as well as the commits after it, and the translog keeps the operations above
+ * the local checkpoint of the safe commit. When the replica is promoted or reset, the new engine rolls the Lucene index back to
+ * the safe commit (see {@link org.elasticsearch.index.store.Store#trimUnsafeCommits}) and replays the translog on top of it.
+ */
+public final class SegmentReplicaEngine extends InternalEngine {
+
+    private final Object installMutex = new Object();
+    // the number of times each commit was acquired; the files of these commits must not be deleted
+    private final Map<IndexCommit, Integer> acquiredCommits = new HashMap<>();
+    private volatile SegmentInfos installedSegmentInfos;
+
+    public SegmentReplicaEngine(EngineConfig engineConfig) {
+        super(engineConfig);
+    }
+
+    @Override
+    protected IndexingStrategy indexingStrategyForOperation(Index index) throws IOException {
+        if (index.origin() == Operation.Origin.PRIMARY) {
+            throw new IllegalStateException("a segment replica engine can not index operations as a primary");
+        }
+        return IndexingStrategy.processButSkipLucene(false, index.version());
+    }
+
+    @Override
+    protected DeletionStrategy deletionStrategyForOperation(Delete delete) throws IOException {
+        if (delete.origin() == Operation.Origin.PRIMARY) {
+            throw new IllegalStateException("a segment replica engine can not delete documents as a primary");
+        }
+        return DeletionStrategy.processButSkipLucene(false, delete.version());
+    }
+
+    @Override
+    protected boolean shouldAddNoOpTombstoneToLucene(NoOp noOp) {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldRestoreVersionMapAndCheckpointTracker() {
+        // The segments copied from the primary may contain operations that this replica never received, and which may never be
+        // acknowledged. Marking them as persisted would let the global checkpoint advance past operations that are not in the
+        // translog of this replica.
+        return false;
+    }
+
+    @Override
+    IndexWriter createWriter(Directory directory, IndexWriterConfig iwc) throws IOException {
+        // the segments are owned by the primary, merging them here would only produce files that the next copy deletes again
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        // The index writer only knows the commit that this engine was opened on. It must not delete the files that were copied
+        // since, for instance when it is rolled back on close; unreferenced files are deleted when new segments are installed.
+        return super.createWriter(new FilterDirectory(directory) {
+            @Override
+            public void deleteFile(String name) {
+            }
+        }, iwc);
+    }
+
+    @Override
+    ElasticsearchReaderManager createInternalReaderManager(
+        BiConsumer<ElasticsearchDirectoryReader, ElasticsearchDirectoryReader> refreshListener) throws IOException {
+        // called by the constructor of InternalEngine, before the index writer is used
+        installedSegmentInfos = store.readLastCommittedSegmentsInfo();
+        final ElasticsearchDirectoryReader reader = openReader(Lucene.getIndexCommit(installedSegmentInfos, store.directory()));
+        return new ElasticsearchReaderManager(reader, refreshListener) {
+            @Override
+            protected ElasticsearchDirectoryReader openIfChanged(ElasticsearchDirectoryReader reader) throws IOException {
+                final SegmentInfos segmentInfos = installedSegmentInfos;
+                final IndexCommit commit = Lucene.getIndexCommit(segmentInfos, store.directory());
+                final SegmentInfos readerSegmentInfos =
+                    ((StandardDirectoryReader) FilterDirectoryReader.unwrap(reader)).getSegmentInfos();
+                if (hasSameSegmentIds(readerSegmentInfos, segmentInfos)) {
+                    return (ElasticsearchDirectoryReader) DirectoryReader.openIfChanged(reader, commit);
+                }
+                // A new primary may have written segments under the same names as the ones of the previous primary. Lucene
+                // refuses to reopen such segments, so a new reader is opened from scratch.
+                return openReader(commit);
+            }
+        };
+    }
+
+    private ElasticsearchDirectoryReader openReader(IndexCommit commit) throws IOException {
+        final DirectoryReader reader = DirectoryReader.open(commit, getReaderAttributes(commit.getDirectory()));
+        return ElasticsearchDirectoryReader.wrap(new SoftDeletesDirectoryReaderWrapper(reader, Lucene.SOFT_DELETES_FIELD), shardId);
+    }
+
+    private static boolean hasSameSegmentIds(SegmentInfos left, SegmentInfos right) {
+        final Map<String, byte[]> ids = new HashMap<>();
+        for (SegmentCommitInfo info : left) {
+            ids.put(info.info.name, info.info.getId());
+        }
+        for (SegmentCommitInfo info : right) {
+            final byte[] id = ids.get(info.info.name);
+            if (id != null && Arrays.equals(id, info.info.getId()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Installs segments copied from the primary: commits them with the translog of this replica, so that the operations above
+     * their local checkpoint are replayed if the engine is reopened, and opens a new reader on them. Neither operations nor
+     * searches are blocked while doing so. The commits before the safe commit and the files that are no longer referenced are
+     * then deleted.
+     *
+     * @param segmentInfosBytes      the segments of the primary, as written by {@link SegmentInfos#write(Directory, IndexOutput)}
+     * @param segmentInfosGeneration the generation of the last commit of the primary when these segments were captured
+     * @param copiedFiles            the final names of the copied files, which replace the existing files with the same names
+     * @param renameTempFiles        moves the files that were copied under temporary names to their final names
+     * @throws EngineException if the copied files would replace files of the safe commit or of an acquired commit, which happens
+     *                         when a new primary wrote segments under the names of segments of the previous primary
+     */
+    public void installSegmentInfos(byte[] segmentInfosBytes, long segmentInfosGeneration, Set<String> copiedFiles,
+                                    CheckedRunnable<IOException> renameTempFiles) throws IOException {
+        final boolean installed;
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            synchronized (installMutex) {
+                final Directory directory = store.directory();
+                final Translog translog = getTranslog();
+                deleteCommitsReferencingFiles(copiedFiles, translog.getLastSyncedGlobalCheckpoint());
+                renameTempFiles.run();
+                final SegmentInfos segmentInfos = SegmentInfos.readCommit(directory,
+                    new BufferedChecksumIndexInput(new ByteArrayIndexInput("segment infos", segmentInfosBytes)), segmentInfosGeneration);
+                final SegmentInfos previousSegmentInfos = installedSegmentInfos;
+                // nothing to install if nothing changed on the primary since the last copy
+                installed = isInstalled(segmentInfos, previousSegmentInfos) == false;
+                if (installed) {
+                    final long localCheckpoint = Long.parseLong(segmentInfos.getUserData().get(SequenceNumbers.LOCAL_CHECKPOINT_KEY));
+                    final Translog.TranslogGeneration translogGeneration = translog.getMinGenerationForSeqNo(localCheckpoint + 1);
+                    final Map<String, String> userData = new HashMap<>(segmentInfos.getUserData());
+                    userData.put(Translog.TRANSLOG_UUID_KEY, translogGeneration.translogUUID);
+                    userData.put(Translog.TRANSLOG_GENERATION_KEY, Long.toString(translogGeneration.translogFileGeneration));
+                    segmentInfos.setUserData(userData, false);
+                    segmentInfos.setNextWriteGeneration(
+                        Math.max(segmentInfos.getGeneration(), previousSegmentInfos.getGeneration()) + 1);
+                    installedSegmentInfos = SegmentInfos.readCommit(directory, writeCommit(directory, segmentInfos));
+                }
+                // the global checkpoint may have advanced since the last copy, even if the segments did not change
+                deleteCommitsBeforeSafeCommit(translog);
+            }
+        }
+        if (installed) {
+            refresh("segment_replication");
+        }
+        synchronized (installMutex) {
+            deleteUnreferencedFiles();
+        }
+    }
+
+    /**
+     * Deletes the commits that reference any of the given files. These files are about to be replaced by files of a new primary
+     * with the same names but a different content, which leaves such commits unreadable. The safe commit and acquired commits
+     * must remain readable, so this fails if they reference any of the given files.
+     */
+    private void deleteCommitsReferencingFiles(Set<String> files, long globalCheckpoint) throws IOException {
+        assert Thread.holdsLock(installMutex);
+        if (files.isEmpty()) {
+            return;
+        }
+        final List<IndexCommit> commits = DirectoryReader.listCommits(store.directory());
+        final IndexCommit safeCommit = CombinedDeletionPolicy.findSafeCommitPoint(commits, globalCheckpoint);
+        for (IndexCommit commit : commits) {
+            if (Collections.disjoint(commit.getFileNames(), files) == false) {
+                if (commit.equals(safeCommit) || acquiredCommits.containsKey(commit)) {
+                    throw new EngineException(shardId, "segments copied from the primary replace files of the "
+                        + (commit.equals(safeCommit) ? "safe" : "acquired") + " commit [" + commit.getSegmentsFileName() + "]");
+                }
+                store.directory().deleteFile(commit.getSegmentsFileName());
+            }
+        }
+    }
+
+    /**
+     * Deletes the commits that are older than the safe commit, and lets the translog drop the operations that are at or below the
+     * local checkpoint of the safe commit, like the {@link CombinedDeletionPolicy} of a regular engine does.
+     */
+    private void deleteCommitsBeforeSafeCommit(Translog translog) throws IOException {
+        assert Thread.holdsLock(installMutex);
+        final List<IndexCommit> commits = DirectoryReader.listCommits(store.directory());
+        final IndexCommit safeCommit = CombinedDeletionPolicy.findSafeCommitPoint(commits, translog.getLastSyncedGlobalCheckpoint());
+        for (IndexCommit commit : commits) {
+            if (commit.getGeneration() < safeCommit.getGeneration() && acquiredCommits.containsKey(commit) == false) {
+                store.directory().deleteFile(commit.getSegmentsFileName());
+            }
+        }
+        final TranslogDeletionPolicy deletionPolicy = translog.getDeletionPolicy();
+        final long lastGen = Long.parseLong(installedSegmentInfos.getUserData().get(Translog.TRANSLOG_GENERATION_KEY));
+        if (lastGen > deletionPolicy.getTranslogGenerationOfLastCommit()) {
+            deletionPolicy.setTranslogGenerationOfLastCommit(lastGen);
+        }
+        final long minRequiredGen = Math.min(Long.parseLong(safeCommit.getUserData().get(Translog.TRANSLOG_GENERATION_KEY)),
+            deletionPolicy.getTranslogGenerationOfLastCommit());
+        if (minRequiredGen > deletionPolicy.getMinTranslogGenerationForRecovery()) {
+            deletionPolicy.setMinTranslogGenerationForRecovery(minRequiredGen);
+        }
+        translog.trimUnreferencedReaders();
+    }
+
+    private static boolean isInstalled(SegmentInfos segmentInfos, SegmentInfos installedSegmentInfos) throws IOException {
+        final Map<String, String> userData = segmentInfos.getUserData();
+        final Map<String, String> installedUserData = installedSegmentInfos.getUserData();
+        return userData.get(SequenceNumbers.LOCAL_CHECKPOINT_KEY).equals(installedUserData.get(SequenceNumbers.LOCAL_CHECKPOINT_KEY))
+            && userData.get(SequenceNumbers.MAX_SEQ_NO).equals(installedUserData.get(SequenceNumbers.MAX_SEQ_NO))
+            && new HashSet<>(segmentInfos.files(false)).equals(new HashSet<>(installedSegmentInfos.files(false)))
+            && hasSameSegmentIds(segmentInfos, installedSegmentInfos);
+    }
+
+    /**
+     * Writes the given segments as a new commit the same way an index writer does, and returns the name of its segments file.
+     */
+    private static String writeCommit(Directory directory, SegmentInfos segmentInfos) throws IOException {
+        final String pendingSegmentsFileName =
+            IndexFileNames.fileNameFromGeneration(IndexFileNames.PENDING_SEGMENTS, "", segmentInfos.getGeneration());
+        final String segmentsFileName = IndexFileNames.fileNameFromGeneration(IndexFileNames.SEGMENTS, "", segmentInfos.getGeneration());
+        try (IndexOutput output = directory.createOutput(pendingSegmentsFileName, IOContext.DEFAULT)) {
+            segmentInfos.write(directory, output);
+        }
+        directory.sync(Collections.singleton(pendingSegmentsFileName));
+        directory.rename(pendingSegmentsFileName, segmentsFileName);
+        directory.syncMetaData();
+        return segmentsFileName;
+    }
+
+    /**
+     * Deletes the segment files that are neither referenced by a retained commit nor by an acquired commit. Files that are
+     * still open by a searcher may fail to be deleted, they are deleted after the next installation.
+     */
+    private void deleteUnreferencedFiles() throws IOException {
+        assert Thread.holdsLock(installMutex);
+        final Set<String> referencedFiles = new HashSet<>();
+        for (IndexCommit commit : DirectoryReader.listCommits(store.directory())) {
+            referencedFiles.addAll(commit.getFileNames());
+        }
+        for (IndexCommit commit : acquiredCommits.keySet()) {
+            referencedFiles.addAll(commit.getFileNames());
+        }
+        for (String file : store.directory().listAll()) {
+            if (referencedFiles.contains(file) == false
+                && (file.startsWith(IndexFileNames.SEGMENTS) || IndexFileNames.CODEC_FILE_PATTERN.matcher(file).matches())) {
+                store.deleteQuiet(file);
+            }
+        }
+    }
+
+    @Override
+    protected SegmentInfos getLastCommittedSegmentInfos() {
+        return installedSegmentInfos;
+    }
+
+    @Override
+    public IndexCommitRef acquireLastIndexCommit(boolean flushFirst) throws EngineException {
+        // the commits of the index writer are never updated, the last commit is the one of the installed segments
+        synchronized (installMutex) {
+            try {
+                return acquireCommit(Lucene.getIndexCommit(installedSegmentInfos, store.directory()));
+            } catch (IOException e) {
+                throw new EngineException(shardId, "failed to acquire the last index commit", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum sequence number of the operations in the installed segments, which this replica may not have received.
+     */
+    public long getMaxSeqNoOfInstalledSegments() {
+        return Long.parseLong(installedSegmentInfos.getUserData().get(SequenceNumbers.MAX_SEQ_NO));
+    }
+
+    @Override
+    public IndexCommitRef acquireSafeIndexCommit() throws EngineException {
+        synchronized (installMutex) {
+            try {
+                final List<IndexCommit> commits = DirectoryReader.listCommits(store.directory());
+                return acquireCommit(CombinedDeletionPolicy.findSafeCommitPoint(commits, getTranslog().getLastSyncedGlobalCheckpoint()));
+            } catch (IOException e) {
+                throw new EngineException(shardId, "failed to acquire the safe index commit", e);
+            }
+        }
+    }
+
+    private IndexCommitRef acquireCommit(IndexCommit commit) {
+        assert Thread.holdsLock(installMutex);
+        acquiredCommits.merge(commit, 1, Integer::sum);
+        return new IndexCommitRef(commit, () -> {
+            synchronized (installMutex) {
+                acquiredCommits.computeIfPresent(commit, (c, count) -> count == 1 ? null : count - 1);
+            }
+        });
+    }
+
+    @Override
+    public List<Segment> segments(boolean verbose) {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return Arrays.asList(getSegmentInfo(installedSegmentInfos, verbose));
+        }
+    }
+
+    @Override
+    protected void commitIndexWriter(IndexWriter writer, Translog translog, @Nullable String syncId) throws IOException {
+        // The only commits of a segment replica are the ones of the segments copied from its primary. Committing here would
+        // record a local checkpoint that covers operations which are only in the translog, and would then allow the translog to
+        // be trimmed.
+        translog.sync();
+    }
+
+    @Override
+    public boolean shouldPeriodicallyFlush() {
+        return false;
+    }
+}
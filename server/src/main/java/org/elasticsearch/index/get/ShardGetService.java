@@ -44,6 +44,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.TranslogLeafReader;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.DocumentMapper;
@@ -54,9 +55,11 @@ import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.RoutingFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import java.io.IOException;
@@ -171,7 +174,9 @@ public final class ShardGetService extends AbstractIndexShardComponent {
         fetchSourceContext = normalizeFetchSourceContent(fetchSourceContext, gFields);
 
         Term uidTerm = new Term(IdFieldMapper.NAME, Uid.encodeId(id));
-        Engine.GetResult get = indexShard.get(new Engine.Get(realtime, realtime, id, uidTerm)
+        // synthetic source is reconstructed from doc values, so it can't be read from the translog
+        final boolean readFromTranslog = realtime && isSyntheticSource() == false;
+        Engine.GetResult get = indexShard.get(new Engine.Get(realtime, readFromTranslog, id, uidTerm)
             .version(version).versionType(versionType).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm));
         assert get.isFromTranslog() == false || realtime : "should only read from translog if realtime enabled";
         if (get.exists() == false) {
@@ -190,6 +195,23 @@ public final class ShardGetService extends AbstractIndexShardComponent {
         }
     }
 
+    private boolean isSyntheticSource() {
+        final DocumentMapper docMapper = mapperService.documentMapper();
+        return docMapper != null && docMapper.sourceMapper().isSynthetic();
+    }
+
+    private BytesReference loadSyntheticSource(String id, DocIdAndVersion docIdAndVersion) {
+        // only fields with doc values support synthetic source, and their field data is loaded without caching
+        final SyntheticSourceLoader loader = new SyntheticSourceLoader(mapperService.documentMapper(),
+            fieldType -> fieldType.fielddataBuilder(shardId.getIndexName()).build(indexSettings, fieldType,
+                new IndexFieldDataCache.None(), new NoneCircuitBreakerService(), mapperService));
+        try {
+            return loader.load(docIdAndVersion.reader, docIdAndVersion.docId);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to load synthetic source for id [" + id + "]", e);
+        }
+    }
+
     private GetResult innerGetLoadFromStoredFields(String id, String[] storedFields, FetchSourceContext fetchSourceContext,
                                                    Engine.GetResult get, MapperService mapperService) {
         assert get.exists() : "method should only be called if document could be retrieved";
@@ -224,6 +246,10 @@ public final class ShardGetService extends AbstractIndexShardComponent {
                 throw new ElasticsearchException("Failed to get id [" + id + "]", e);
             }
             source = fieldVisitor.source();
+            if (source == null && fetchSourceContext.fetchSource() && isSyntheticSource()) {
+                assert get.isFromTranslog() == false : "synthetic source must not be read from translog";
+                source = loadSyntheticSource(id, docIdAndVersion);
+            }
 
             // in case we read from translog, some extra steps are needed to make _source consistent and to load stored fields
             if (get.isFromTranslog()) {
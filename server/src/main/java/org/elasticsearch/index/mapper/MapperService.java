@@ -198,6 +198,12 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         assert newIndexMetaData.getIndex().equals(index()) : "index mismatch: expected " + index()
             + " but was " + newIndexMetaData.getIndex();
 
+        if (mapper != null && currentIndexMetaData != null && currentIndexMetaData.mapping() == newIndexMetaData.mapping()) {
+            // mapping instances are shared across metadata updates (see MappingMetaData#intern), so an unchanged mapping is the very
+            // same instance and there is no need to compare its source with the one of the current mapper
+            return false;
+        }
+
         final DocumentMapper updatedMapper;
         try {
             // only update entries if needed
@@ -373,6 +379,9 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
 
         MapperMergeValidator.validateNewMappers(objectMappers, fieldMappers, fieldAliasMappers, fieldTypes);
         checkPartitionedIndexConstraints(newMapper);
+        if (newMapper.sourceMapper().isSynthetic()) {
+            SyntheticSourceLoader.validate(newMapper);
+        }
 
         // update lookup data-structures
         fieldTypes = fieldTypes.copyAndAddAll(newMapper.type(), fieldMappers, fieldAliasMappers);
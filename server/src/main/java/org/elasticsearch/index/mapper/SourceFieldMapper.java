@@ -54,11 +54,14 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static final String RECOVERY_SOURCE_NAME = "_recovery_source";
 
     public static final String CONTENT_TYPE = "_source";
+    public static final String STORED_MODE = "stored";
+    public static final String SYNTHETIC_MODE = "synthetic";
     private final Function<Map<String, ?>, Map<String, Object>> filter;
 
     public static class Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SYNTHETIC = false;
 
         public static final MappedFieldType FIELD_TYPE = new SourceFieldType();
 
@@ -78,6 +81,8 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         private boolean enabled = Defaults.ENABLED;
 
+        private boolean synthetic = Defaults.SYNTHETIC;
+
         private String[] includes = null;
         private String[] excludes = null;
 
@@ -90,6 +95,11 @@ public class SourceFieldMapper extends MetadataFieldMapper {
             return this;
         }
 
+        public Builder synthetic(boolean synthetic) {
+            this.synthetic = synthetic;
+            return this;
+        }
+
         public Builder includes(String[] includes) {
             this.includes = includes;
             return this;
@@ -102,7 +112,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         @Override
         public SourceFieldMapper build(BuilderContext context) {
-            return new SourceFieldMapper(enabled, includes, excludes, context.indexSettings());
+            return new SourceFieldMapper(enabled, synthetic, includes, excludes, context.indexSettings());
         }
     }
 
@@ -135,8 +145,23 @@ public class SourceFieldMapper extends MetadataFieldMapper {
                     }
                     builder.excludes(excludes);
                     iterator.remove();
+                } else if (fieldName.equals("mode")) {
+                    String mode = fieldNode.toString();
+                    if (mode.equals(SYNTHETIC_MODE)) {
+                        builder.synthetic(true);
+                    } else if (mode.equals(STORED_MODE)) {
+                        builder.synthetic(false);
+                    } else {
+                        throw new MapperParsingException("Unknown mode [" + mode + "] for [" + name + "], must be one of ["
+                            + STORED_MODE + ", " + SYNTHETIC_MODE + "]");
+                    }
+                    iterator.remove();
                 }
             }
+            if (builder.synthetic && (builder.enabled == false || builder.includes != null || builder.excludes != null)) {
+                throw new MapperParsingException("[" + name + "] in [" + SYNTHETIC_MODE
+                    + "] mode can't be disabled or use [includes] or [excludes]");
+            }
             return builder;
         }
 
@@ -178,6 +203,9 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     private final boolean enabled;
 
+    /** indicates whether the source isn't stored but reconstructed from doc values, see {@link SyntheticSourceLoader} */
+    private final boolean synthetic;
+
     /** indicates whether the source will always exist and be complete, for use by features like the update API */
     private final boolean complete;
 
@@ -185,23 +213,31 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     private final String[] excludes;
 
     private SourceFieldMapper(Settings indexSettings) {
-        this(Defaults.ENABLED, null, null, indexSettings);
+        this(Defaults.ENABLED, Defaults.SYNTHETIC, null, null, indexSettings);
     }
 
-    private SourceFieldMapper(boolean enabled, String[] includes, String[] excludes, Settings indexSettings) {
+    private SourceFieldMapper(boolean enabled, boolean synthetic, String[] includes, String[] excludes, Settings indexSettings) {
         super(NAME, Defaults.FIELD_TYPE.clone(), Defaults.FIELD_TYPE, indexSettings); // Only stored.
         this.enabled = enabled;
+        this.synthetic = synthetic;
         this.includes = includes;
         this.excludes = excludes;
         final boolean filtered = (includes != null && includes.length > 0) || (excludes != null && excludes.length > 0);
         this.filter = enabled && filtered && fieldType().stored() ? XContentMapValues.filter(includes, excludes) : null;
-        this.complete = enabled && includes == null && excludes == null;
+        this.complete = enabled && synthetic == false && includes == null && excludes == null;
     }
 
     public boolean enabled() {
         return enabled;
     }
 
+    /**
+     * Whether the source isn't stored but reconstructed from the doc values of the document's fields when it is fetched.
+     */
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
     public String[] excludes() {
         return this.excludes != null ? this.excludes : Strings.EMPTY_ARRAY;
 
@@ -246,7 +282,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     @Nullable
     public BytesReference applyFilters(@Nullable BytesReference originalSource, @Nullable XContentType contentType) throws IOException {
-        if (enabled && fieldType().stored() && originalSource != null) {
+        if (enabled && synthetic == false && fieldType().stored() && originalSource != null) {
             // Percolate and tv APIs may not set the source and that is ok, because these APIs will not index any data
             if (filter != null) {
                 // we don't update the context source if we filter, we want to keep it as is...
@@ -276,13 +312,16 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         boolean includeDefaults = params.paramAsBoolean("include_defaults", false);
 
         // all are defaults, no need to write it at all
-        if (!includeDefaults && enabled == Defaults.ENABLED && includes == null && excludes == null) {
+        if (!includeDefaults && enabled == Defaults.ENABLED && synthetic == Defaults.SYNTHETIC && includes == null && excludes == null) {
             return builder;
         }
         builder.startObject(contentType());
         if (includeDefaults || enabled != Defaults.ENABLED) {
             builder.field("enabled", enabled);
         }
+        if (includeDefaults || synthetic != Defaults.SYNTHETIC) {
+            builder.field("mode", synthetic ? SYNTHETIC_MODE : STORED_MODE);
+        }
 
         if (includes != null) {
             builder.array("includes", includes);
@@ -307,6 +346,9 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         if (this.enabled != sourceMergeWith.enabled) {
             conflicts.add("Cannot update enabled setting for [_source]");
         }
+        if (this.synthetic != sourceMergeWith.synthetic) {
+            conflicts.add("Cannot update mode setting for [_source]");
+        }
         if (Arrays.equals(includes(), sourceMergeWith.includes()) == false) {
             conflicts.add("Cannot update includes setting for [_source]");
         }
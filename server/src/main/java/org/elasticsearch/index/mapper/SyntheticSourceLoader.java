@@ -0,0 +1,186 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.AtomicNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.index.fielddata.plain.SortedNumericDVIndexFieldData;
+import org.elasticsearch.search.DocValueFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reconstructs the {@code _source} of documents from the doc values of their fields, for mappings that use
+ * {@link SourceFieldMapper#isSynthetic() synthetic source}. The reconstructed source follows the structure of the mapping
+ * rather than that of the original document: fields come in mapping order, multi-valued fields are returned as sorted
+ * arrays and values are rendered in their doc values format.
+ */
+public final class SyntheticSourceLoader {
+
+    private static final Set<String> SUPPORTED_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "keyword", "ip", "boolean", "date", "date_nanos",
+        "long", "integer", "short", "byte", "double", "float", "half_float", "scaled_float")));
+
+    private final DocumentMapper documentMapper;
+    private final Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup;
+
+    public SyntheticSourceLoader(DocumentMapper documentMapper, Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup) {
+        assert documentMapper.sourceMapper().isSynthetic() : "mapping doesn't use synthetic source";
+        this.documentMapper = documentMapper;
+        this.fieldDataLookup = fieldDataLookup;
+    }
+
+    /**
+     * Reconstructs the source of the given document of the given segment.
+     */
+    public BytesReference load(LeafReader reader, int docId) throws IOException {
+        final Map<String, Object> source = loadObject(documentMapper.root(), reader.getContext(), docId);
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.map(source == null ? Collections.emptyMap() : source);
+            return BytesReference.bytes(builder);
+        }
+    }
+
+    private Map<String, Object> loadObject(ObjectMapper objectMapper, LeafReaderContext context, int docId) throws IOException {
+        Map<String, Object> object = null;
+        for (Mapper mapper : objectMapper) {
+            final Object value;
+            if (mapper instanceof ObjectMapper) {
+                value = loadObject((ObjectMapper) mapper, context, docId);
+            } else if (mapper instanceof FieldMapper) {
+                value = loadField((FieldMapper) mapper, context, docId);
+            } else {
+                // field aliases have no values of their own
+                continue;
+            }
+            if (value != null) {
+                if (object == null) {
+                    object = new LinkedHashMap<>();
+                }
+                object.put(mapper.simpleName(), value);
+            }
+        }
+        return object;
+    }
+
+    private Object loadField(FieldMapper fieldMapper, LeafReaderContext context, int docId) throws IOException {
+        final MappedFieldType fieldType = fieldMapper.fieldType();
+        final IndexFieldData<?> fieldData = fieldDataLookup.apply(fieldType);
+        final AtomicFieldData data = fieldData.load(context);
+        final List<Object> values = new ArrayList<>(1);
+        if (fieldData instanceof IndexNumericFieldData) {
+            final NumericType numericType = ((IndexNumericFieldData) fieldData).getNumericType();
+            if (numericType.isFloatingPoint()) {
+                final DocValueFormat format = fieldType.docValueFormat(null, null);
+                final boolean singlePrecision = numericType == NumericType.FLOAT || numericType == NumericType.HALF_FLOAT;
+                final SortedNumericDoubleValues doubleValues = ((AtomicNumericFieldData) data).getDoubleValues();
+                if (doubleValues.advanceExact(docId)) {
+                    for (int i = 0, count = doubleValues.docValueCount(); i < count; ++i) {
+                        final double value = doubleValues.nextValue();
+                        values.add(singlePrecision ? (Object) (float) value : format.format(value));
+                    }
+                }
+            } else {
+                final DocValueFormat format;
+                final SortedNumericDocValues longValues;
+                if (numericType == NumericType.DATE_NANOSECONDS) {
+                    format = DocValueFormat.withNanosecondResolution(fieldType.docValueFormat(null, null));
+                    longValues = ((SortedNumericDVIndexFieldData.NanoSecondFieldData) data).getLongValuesAsNanos();
+                } else {
+                    format = fieldType.docValueFormat(null, null);
+                    longValues = ((AtomicNumericFieldData) data).getLongValues();
+                }
+                if (longValues.advanceExact(docId)) {
+                    for (int i = 0, count = longValues.docValueCount(); i < count; ++i) {
+                        values.add(format.format(longValues.nextValue()));
+                    }
+                }
+            }
+        } else {
+            final DocValueFormat format = fieldType.docValueFormat(null, null);
+            final SortedBinaryDocValues binaryValues = data.getBytesValues();
+            if (binaryValues.advanceExact(docId)) {
+                for (int i = 0, count = binaryValues.docValueCount(); i < count; ++i) {
+                    values.add(format.format(binaryValues.nextValue()));
+                }
+            }
+        }
+        switch (values.size()) {
+            case 0:
+                return null;
+            case 1:
+                return values.get(0);
+            default:
+                return values;
+        }
+    }
+
+    /**
+     * Checks that the source of documents of the given mapping can be reconstructed from doc values.
+     */
+    public static void validate(DocumentMapper documentMapper) {
+        validateObject(documentMapper.root());
+    }
+
+    private static void validateObject(ObjectMapper objectMapper) {
+        for (Mapper mapper : objectMapper) {
+            if (mapper instanceof ObjectMapper) {
+                ObjectMapper child = (ObjectMapper) mapper;
+                if (child.nested().isNested()) {
+                    throw new IllegalArgumentException("nested field [" + child.name() + "] isn't supported with synthetic [_source]");
+                }
+                if (child.isEnabled() == false) {
+                    throw new IllegalArgumentException("disabled object [" + child.name() + "] isn't supported with synthetic [_source]");
+                }
+                validateObject(child);
+            } else if (mapper instanceof FieldMapper) {
+                FieldMapper fieldMapper = (FieldMapper) mapper;
+                MappedFieldType fieldType = fieldMapper.fieldType();
+                if (SUPPORTED_TYPES.contains(fieldType.typeName()) == false || fieldType.hasDocValues() == false) {
+                    throw new IllegalArgumentException("field [" + fieldMapper.name() + "] of type [" + fieldType.typeName()
+                        + "] must be one of " + SUPPORTED_TYPES + " with doc values enabled to use synthetic [_source]");
+                }
+                if (fieldMapper.copyTo() != null && fieldMapper.copyTo().copyToFields().isEmpty() == false) {
+                    throw new IllegalArgumentException("field [" + fieldMapper.name() + "] can't use [copy_to] with synthetic [_source]");
+                }
+            }
+        }
+    }
+}
@@ -71,9 +71,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
-import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
 import org.elasticsearch.common.util.concurrent.RunOnce;
-import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.gateway.WriteStateException;
@@ -93,10 +91,12 @@ import org.elasticsearch.index.engine.Engine.GetResult;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.EngineException;
 import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.engine.InternalEngine;
 import org.elasticsearch.index.engine.ReadOnlyEngine;
 import org.elasticsearch.index.engine.RefreshFailedEngineException;
 import org.elasticsearch.index.engine.SafeCommitInfo;
 import org.elasticsearch.index.engine.Segment;
+import org.elasticsearch.index.engine.SegmentReplicaEngine;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.fielddata.ShardFieldData;
@@ -305,7 +305,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
-        this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine);
+        this.translogSyncProcessor = new TranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine,
+            indexSettings::getTranslogGroupCommitMaxDelay);
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
@@ -548,9 +549,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                                  * primary/replica re-sync completes successfully and we are now being promoted, we have to restore
                                  * the reverted operations on this shard by replaying the translog to avoid losing acknowledged writes.
                                  */
+                                if (isSegmentReplica()) {
+                                    /*
+                                     * The copied segments of a segment replica may contain operations above the global checkpoint
+                                     * that the new primary does not have, so we open a regular engine, which rolls the Lucene index
+                                     * back to the safe commit of the replica and indexes the operations of the translog on top of it.
+                                     */
+                                    resetEngine(false);
+                                } else {
+                                    getEngine().restoreLocalHistoryFromTranslog((resettingEngine, snapshot) ->
+                                        runTranslogRecovery(resettingEngine, snapshot, Engine.Operation.Origin.LOCAL_RESET, () -> {}));
+                                }
                                 final Engine engine = getEngine();
-                                engine.restoreLocalHistoryFromTranslog((resettingEngine, snapshot) ->
-                                    runTranslogRecovery(resettingEngine, snapshot, Engine.Operation.Origin.LOCAL_RESET, () -> {}));
                                 /* Rolling the translog generation is not strictly needed here (as we will never have collisions between
                                  * sequence numbers in a translog generation in a new primary as it takes the last known sequence number
                                  * as a starting point), but it simplifies reasoning about the relationship between primary terms and
@@ -1196,9 +1206,28 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * Acquire the searcher without applying the additional reader wrapper.
      */
     public Engine.Searcher acquireSearcherNoWrap(String source) {
+        return acquireSearcherNoWrap(source, Engine.SearcherScope.EXTERNAL);
+    }
+
+    /**
+     * Acquire the searcher of the given scope without applying the additional reader wrapper.
+     */
+    public Engine.Searcher acquireSearcherNoWrap(String source, Engine.SearcherScope scope) {
         readAllowed();
         markSearcherAccessed();
-        return getEngine().acquireSearcher(source, Engine.SearcherScope.EXTERNAL);
+        return getEngine().acquireSearcher(source, scope);
+    }
+
+    /**
+     * Returns the local checkpoint of the last internal refresh: all the operations up to it are visible to the searchers of
+     * {@link Engine.SearcherScope#INTERNAL} scope that are acquired after this method returns.
+     */
+    public long getLastRefreshedCheckpoint() {
+        final Engine engine = getEngine();
+        if (engine instanceof InternalEngine == false) {
+            throw new IllegalStateException("shard " + shardId + " does not refresh its engine [" + engine.getClass().getName() + "]");
+        }
+        return ((InternalEngine) engine).lastRefreshedCheckpoint();
     }
 
     public Engine.Searcher acquireSearcher(String source) {
@@ -1583,7 +1612,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             assert currentEngineReference.get() == null : "engine is running";
             verifyNotClosed();
             // we must create a new engine under mutex (see IndexShard#snapshotStoreMetadata).
-            final Engine newEngine = engineFactory.newReadWriteEngine(config);
+            final Engine newEngine = newReadWriteEngine(config);
             onNewEngine(newEngine);
             currentEngineReference.set(newEngine);
             // We set active because we are now writing operations to the engine; this way,
@@ -1597,6 +1626,21 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         assert recoveryState.getStage() == RecoveryState.Stage.TRANSLOG : "TRANSLOG stage expected but was: " + recoveryState.getStage();
     }
 
+    private Engine newReadWriteEngine(EngineConfig config) {
+        // a replica that is being promoted is already in primary mode before its routing entry is updated
+        if (indexSettings.isSegmentReplicationEnabled() && shardRouting.primary() == false && replicationTracker.isPrimaryMode() == false) {
+            return new SegmentReplicaEngine(config);
+        }
+        return engineFactory.newReadWriteEngine(config);
+    }
+
+    /**
+     * Returns <code>true</code> if this shard is a replica that copies the segments of its primary rather than indexing documents.
+     */
+    public boolean isSegmentReplica() {
+        return getEngineOrNull() instanceof SegmentReplicaEngine;
+    }
+
     private boolean assertSequenceNumbersInCommit() throws IOException {
         final Map<String, String> userData = SegmentInfos.readLatestCommit(store.directory()).getUserData();
         assert userData.containsKey(SequenceNumbers.LOCAL_CHECKPOINT_KEY) : "commit point doesn't contains a local checkpoint";
@@ -2952,7 +2996,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     bumpPrimaryTerm(opPrimaryTerm, () -> {
                         updateGlobalCheckpointOnReplica(globalCheckpoint, "primary term transition");
                         final long currentGlobalCheckpoint = getLastKnownGlobalCheckpoint();
-                        final long maxSeqNo = seqNoStats().getMaxSeqNo();
+                        final long maxSeqNo = Math.max(seqNoStats().getMaxSeqNo(), maxSeqNoOfCopiedSegments());
                         logger.info("detected new primary with primary term [{}], global checkpoint [{}], max_seq_no [{}]",
                             opPrimaryTerm, currentGlobalCheckpoint, maxSeqNo);
                         if (currentGlobalCheckpoint < maxSeqNo) {
@@ -2998,25 +3042,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return indexShardOperationPermits.getActiveOperations();
     }
 
-    private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
-
-    private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(Logger logger, ThreadContext threadContext,
-                                                                                   Supplier<Engine> engineSupplier) {
-        return new AsyncIOProcessor<>(logger, 1024, threadContext) {
-            @Override
-            protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-                try {
-                    engineSupplier.get().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-                } catch (AlreadyClosedException ex) {
-                    // that's fine since we already synced everything on engine close - this also is conform with the methods
-                    // documentation
-                } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                    logger.debug("failed to sync translog", ex);
-                    throw ex;
-                }
-            }
-        };
-    }
+    private final TranslogSyncProcessor translogSyncProcessor;
 
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
@@ -3313,10 +3339,58 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         };
     }
 
+    /**
+     * Returns the maximum sequence number of the segments that this shard copied from its primary if it is a segment replica. These
+     * segments may contain operations that this shard never received, which are rolled back if they are above the global checkpoint.
+     */
+    private long maxSeqNoOfCopiedSegments() {
+        final Engine engine = getEngine();
+        return engine instanceof SegmentReplicaEngine
+            ? ((SegmentReplicaEngine) engine).getMaxSeqNoOfInstalledSegments() : SequenceNumbers.NO_OPS_PERFORMED;
+    }
+
     /**
      * Rollback the current engine to the safe commit, then replay local translog up to the global checkpoint.
      */
     void resetEngineToGlobalCheckpoint() throws IOException {
+        resetEngine(true);
+    }
+
+    /**
+     * Installs segments copied from the primary on this segment replica. Operations and searches are not blocked; searches see the
+     * new segments once this method returns.
+     *
+     * @param primaryTerm            the operation primary term of this shard when the copy started
+     * @param segmentInfosBytes      the serialized segment infos of the primary
+     * @param segmentInfosGeneration the generation of the last commit of the primary when the segment infos were captured
+     * @param copiedFiles            the final names of the copied files
+     * @param renameTempFiles        moves the copied files, which were written under temporary names, to their final names
+     */
+    public void installSegmentReplicationCommit(long primaryTerm, byte[] segmentInfosBytes, long segmentInfosGeneration,
+                                                Set<String> copiedFiles, CheckedRunnable<IOException> renameTempFiles) throws IOException {
+        final Engine engine = getEngine();
+        if (engine instanceof SegmentReplicaEngine == false) {
+            throw new IllegalStateException("shard " + shardId + " is not a segment replica");
+        }
+        if (primaryTerm != getOperationPrimaryTerm()) {
+            // the segments of a previous primary may contain operations that the new primary rolled back
+            throw new IllegalStateException("shard " + shardId + " copied segments under primary term [" + primaryTerm
+                + "] but its primary term is now [" + getOperationPrimaryTerm() + "]");
+        }
+        try {
+            ((SegmentReplicaEngine) engine).installSegmentInfos(segmentInfosBytes, segmentInfosGeneration, copiedFiles, renameTempFiles);
+        } catch (IOException | EngineException e) {
+            // the copied files may have replaced files of the installed segments already, recover from the primary instead
+            failShard("failed to install segments copied from the primary", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the current engine and opens a new engine that replays the local translog, either up to the global checkpoint or
+     * entirely.
+     */
+    private void resetEngine(boolean toGlobalCheckpoint) throws IOException {
         assert Thread.holdsLock(mutex) == false : "resetting engine under mutex";
         assert getActiveOperationsCount() == OPERATIONS_BLOCKED
             : "resetting engine without blocking operations; active operations are [" + getActiveOperations() + ']';
@@ -3369,14 +3443,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     }
                 };
             IOUtils.close(currentEngineReference.getAndSet(readOnlyEngine));
-            newEngineReference.set(engineFactory.newReadWriteEngine(newEngineConfig(replicationTracker)));
+            newEngineReference.set(newReadWriteEngine(newEngineConfig(replicationTracker)));
             onNewEngine(newEngineReference.get());
         }
         final Engine.TranslogRecoveryRunner translogRunner = (engine, snapshot) -> runTranslogRecovery(
             engine, snapshot, Engine.Operation.Origin.LOCAL_RESET, () -> {
                 // TODO: add a dedicate recovery stats for the reset translog
             });
-        newEngineReference.get().recoverFromTranslog(translogRunner, globalCheckpoint);
+        newEngineReference.get().recoverFromTranslog(translogRunner, toGlobalCheckpoint ? globalCheckpoint : Long.MAX_VALUE);
         newEngineReference.get().refresh("reset_engine");
         synchronized (engineMutex) {
             verifyNotClosed();
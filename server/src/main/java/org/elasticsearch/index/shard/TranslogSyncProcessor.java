@@ -0,0 +1,164 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Makes translog locations durable on behalf of write requests, coalescing the locations of concurrent requests into a single fsync.
+ * <p>
+ * Like any {@link AsyncIOProcessor} the locations that are queued while an fsync is in flight are synced together by the next fsync.
+ * In addition, if the previous fsync coalesced the locations of several requests, this group-commit scheduler holds the next fsync
+ * back for a short window so that the requests that are likely to arrive right behind it do not each need an fsync of their own. The
+ * window ends early once as many locations are pending as the previous fsync synced, and never lasts longer than half the
+ * average fsync latency or the configured {@link org.elasticsearch.index.IndexSettings#INDEX_TRANSLOG_GROUP_COMMIT_MAX_DELAY_SETTING}.
+ * Requests that are not concurrent are therefore never delayed. The processing thread does not poll while it holds the fsync back: it
+ * waits for the window to elapse or for the thread that queues the last expected location to end the window.
+ */
+final class TranslogSyncProcessor extends AsyncIOProcessor<Translog.Location> {
+
+    // weight of the latest fsync in the moving average of the fsync latency
+    private static final double ALPHA = 0.3;
+
+    private final Logger logger;
+    private final CheckedFunction<Stream<Translog.Location>, Boolean, IOException> syncFunction;
+    private final Supplier<TimeValue> maxDelaySupplier;
+    private final LongSupplier relativeTimeInNanosSupplier;
+
+    // only modified by the processing thread
+    private volatile double averageSyncNanos;
+    private volatile int lastBatchSize;
+    // the window the processing thread currently holds the fsync back for, or null if it does not wait
+    private volatile BatchWindow batchWindow;
+
+    TranslogSyncProcessor(Logger logger, ThreadContext threadContext, Supplier<Engine> engineSupplier,
+                          Supplier<TimeValue> maxDelaySupplier) {
+        this(logger, threadContext, locations -> engineSupplier.get().ensureTranslogSynced(locations), maxDelaySupplier, System::nanoTime);
+    }
+
+    TranslogSyncProcessor(Logger logger, ThreadContext threadContext,
+                          CheckedFunction<Stream<Translog.Location>, Boolean, IOException> syncFunction,
+                          Supplier<TimeValue> maxDelaySupplier, LongSupplier relativeTimeInNanosSupplier) {
+        super(logger, 1024, threadContext);
+        this.logger = logger;
+        this.syncFunction = syncFunction;
+        this.maxDelaySupplier = maxDelaySupplier;
+        this.relativeTimeInNanosSupplier = relativeTimeInNanosSupplier;
+    }
+
+    /**
+     * Returns how long the next fsync is held back for if fewer locations than the previous fsync synced are pending, or {@code 0} if
+     * the next fsync is not held back at all.
+     */
+    long batchWindowNanos() {
+        final long maxDelayNanos = maxDelaySupplier.get().nanos();
+        if (maxDelayNanos <= 0 || lastBatchSize <= 1) {
+            return 0L;
+        }
+        // delaying by more than half an fsync costs more latency than a second fsync would
+        return Math.min(maxDelayNanos, (long) (averageSyncNanos / 2));
+    }
+
+    /**
+     * Returns whether the processing thread currently holds the fsync back.
+     */
+    boolean isAwaitingBatch() {
+        return batchWindow != null;
+    }
+
+    @Override
+    protected void awaitBatch(int ownItems) {
+        final long windowNanos = batchWindowNanos();
+        if (windowNanos <= 0 || ownItems + queuedItems() == 0) {
+            // nothing to hold back, the locations of this thread have been synced by the previous processing thread already
+            return;
+        }
+        final BatchWindow window = new BatchWindow(lastBatchSize - ownItems);
+        batchWindow = window;
+        try {
+            // publish the window before checking the queue so that a location queued in between completes the window
+            if (queuedItems() < window.expectedQueuedItems) {
+                window.full.get(windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            // the window elapsed, sync whatever is pending
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new AssertionError("batch window is never completed exceptionally", e);
+        } finally {
+            batchWindow = null;
+        }
+    }
+
+    @Override
+    protected void onQueued() {
+        final BatchWindow window = batchWindow;
+        if (window != null && queuedItems() >= window.expectedQueuedItems) {
+            window.full.complete(null);
+        }
+    }
+
+    @Override
+    protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
+        try {
+            final long startTime = relativeTimeInNanosSupplier.getAsLong();
+            if (syncFunction.apply(candidates.stream().map(Tuple::v1))) {
+                final long tookNanos = relativeTimeInNanosSupplier.getAsLong() - startTime;
+                averageSyncNanos = averageSyncNanos == 0 ? tookNanos : ALPHA * tookNanos + (1 - ALPHA) * averageSyncNanos;
+            }
+            lastBatchSize = candidates.size();
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
+    private static final class BatchWindow {
+        private final int expectedQueuedItems;
+        private final CompletableFuture<Void> full = new CompletableFuture<>();
+
+        private BatchWindow(int expectedQueuedItems) {
+            this.expectedQueuedItems = expectedQueuedItems;
+        }
+    }
+}
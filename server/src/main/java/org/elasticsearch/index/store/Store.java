@@ -291,11 +291,49 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         }
     }
 
+    /**
+     * Returns a new MetadataSnapshot for the files of the given segments, which do not need to be committed, for instance the
+     * segments of a near-real-time reader. The returned snapshot does not contain a segments file. The caller must make sure that
+     * the files of these segments are not deleted concurrently, for instance by holding a reader that was opened on them.
+     *
+     * @throws CorruptIndexException      if the lucene index is corrupted. This can be caused by a checksum mismatch.
+     * @throws FileNotFoundException      if one or more files referenced by the segments are not present.
+     * @throws NoSuchFileException        if one or more files referenced by the segments are not present.
+     */
+    public MetadataSnapshot getMetadata(SegmentInfos segmentInfos) throws IOException {
+        ensureOpen();
+        failIfCorrupted();
+        metadataLock.readLock().lock();
+        try {
+            final Map<String, StoreFileMetaData> builder = new HashMap<>();
+            MetadataSnapshot.loadFileMetadata(segmentInfos, directory, logger, false, builder);
+            return new MetadataSnapshot(unmodifiableMap(builder), unmodifiableMap(new HashMap<>(segmentInfos.getUserData())),
+                Lucene.getNumDocs(segmentInfos));
+        } catch (CorruptIndexException | IndexFormatTooOldException | IndexFormatTooNewException ex) {
+            markStoreCorrupted(ex);
+            throw ex;
+        } finally {
+            metadataLock.readLock().unlock();
+        }
+    }
+
     /**
      * Renames all the given files from the key of the map to the
      * value of the map. All successfully renamed files are removed from the map in-place.
      */
     public void renameTempFilesSafe(Map<String, String> tempFileMap) throws IOException {
+        renameTempFilesSafe(tempFileMap, true);
+    }
+
+    /**
+     * Renames all the given files from the key of the map to the
+     * value of the map. All successfully renamed files are removed from the map in-place.
+     *
+     * @param obtainWriteLock if <code>true</code> the index writer lock is obtained while renaming. This must be <code>false</code>
+     *                        if an index writer is open on this store, in which case the caller makes sure it does not touch the
+     *                        renamed files.
+     */
+    public void renameTempFilesSafe(Map<String, String> tempFileMap, boolean obtainWriteLock) throws IOException {
         // this works just like a lucene commit - we rename all temp files and once we successfully
         // renamed all the segments we rename the commit to ensure we don't leave half baked commits behind.
         final Map.Entry<String, String>[] entries = tempFileMap.entrySet().toArray(new Map.Entry[0]);
@@ -314,7 +352,7 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         metadataLock.writeLock().lock();
         // we make sure that nobody fetches the metadata while we do this rename operation here to ensure we don't
         // get exceptions if files are still open.
-        try (Lock writeLock = directory().obtainLock(IndexWriter.WRITE_LOCK_NAME)) {
+        try (Closeable ignored = obtainWriteLock ? directory().obtainLock(IndexWriter.WRITE_LOCK_NAME) : () -> {}) {
             for (Map.Entry<String, String> entry : entries) {
                 String tempFile = entry.getKey();
                 String origFile = entry.getValue();
@@ -822,27 +860,7 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
                 final SegmentInfos segmentCommitInfos = Store.readSegmentsInfo(commit, directory);
                 numDocs = Lucene.getNumDocs(segmentCommitInfos);
                 commitUserDataBuilder.putAll(segmentCommitInfos.getUserData());
-                // we don't know which version was used to write so we take the max version.
-                Version maxVersion = segmentCommitInfos.getMinSegmentLuceneVersion();
-                for (SegmentCommitInfo info : segmentCommitInfos) {
-                    final Version version = info.info.getVersion();
-                    if (version == null) {
-                        // version is written since 3.1+: we should have already hit IndexFormatTooOld.
-                        throw new IllegalArgumentException("expected valid version value: " + info.info.toString());
-                    }
-                    if (version.onOrAfter(maxVersion)) {
-                        maxVersion = version;
-                    }
-                    for (String file : info.files()) {
-                        checksumFromLuceneFile(directory, file, builder, logger, version,
-                            SEGMENT_INFO_EXTENSION.equals(IndexFileNames.getExtension(file)));
-                    }
-                }
-                if (maxVersion == null) {
-                    maxVersion = org.elasticsearch.Version.CURRENT.minimumIndexCompatibilityVersion().luceneVersion;
-                }
-                final String segmentsFile = segmentCommitInfos.getSegmentsFileName();
-                checksumFromLuceneFile(directory, segmentsFile, builder, logger, maxVersion, true);
+                loadFileMetadata(segmentCommitInfos, directory, logger, true, builder);
             } catch (CorruptIndexException | IndexNotFoundException | IndexFormatTooOldException | IndexFormatTooNewException ex) {
                 // we either know the index is corrupted or it's just not there
                 throw ex;
@@ -867,6 +885,37 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
             return new LoadedMetadata(unmodifiableMap(builder), unmodifiableMap(commitUserDataBuilder), numDocs);
         }
 
+        /**
+         * Reads the metadata of the files of the given segments into the given map, including their segments file if
+         * {@code includeSegmentsFile} is set.
+         */
+        static void loadFileMetadata(SegmentInfos segmentCommitInfos, Directory directory, Logger logger, boolean includeSegmentsFile,
+                                     Map<String, StoreFileMetaData> builder) throws IOException {
+            // we don't know which version was used to write so we take the max version.
+            Version maxVersion = segmentCommitInfos.getMinSegmentLuceneVersion();
+            for (SegmentCommitInfo info : segmentCommitInfos) {
+                final Version version = info.info.getVersion();
+                if (version == null) {
+                    // version is written since 3.1+: we should have already hit IndexFormatTooOld.
+                    throw new IllegalArgumentException("expected valid version value: " + info.info.toString());
+                }
+                if (version.onOrAfter(maxVersion)) {
+                    maxVersion = version;
+                }
+                for (String file : info.files()) {
+                    checksumFromLuceneFile(directory, file, builder, logger, version,
+                        SEGMENT_INFO_EXTENSION.equals(IndexFileNames.getExtension(file)));
+                }
+            }
+            if (includeSegmentsFile) {
+                if (maxVersion == null) {
+                    maxVersion = org.elasticsearch.Version.CURRENT.minimumIndexCompatibilityVersion().luceneVersion;
+                }
+                final String segmentsFile = segmentCommitInfos.getSegmentsFileName();
+                checksumFromLuceneFile(directory, segmentsFile, builder, logger, maxVersion, true);
+            }
+        }
+
         private static void checksumFromLuceneFile(Directory directory, String file, Map<String, StoreFileMetaData> builder,
                 Logger logger, Version version, boolean readFileAsHash) throws IOException {
             final String checksum;
@@ -33,6 +33,8 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
@@ -60,8 +62,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -133,6 +135,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     private final String translogUUID;
     private final TranslogDeletionPolicy deletionPolicy;
     private final LongConsumer persistedSequenceNumberConsumer;
+    // the fsyncs caused by ensureSynced and the number of locations that they made durable
+    private final MeanMetric syncMetric = new MeanMetric();
+    private final CounterMetric syncedLocations = new CounterMetric();
 
     /**
      * Creates a new Translog instance. This method will create a new transaction log unless the given {@link TranslogGeneration} is
@@ -620,9 +625,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 throw new IllegalArgumentException("requested snapshot generation [" + fromFileGen + "] is not available. " +
                     "Min referenced generation is [" + getMinFileGeneration() + "]");
             }
-            TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
-                .filter(reader -> reader.getGeneration() >= fromFileGen && reader.getCheckpoint().minSeqNo <= upToSeqNo)
-                .map(BaseTranslogReader::newSnapshot).toArray(TranslogSnapshot[]::new);
+            TranslogSnapshot[] snapshots = newSnapshots(Stream.concat(readers.stream(), Stream.of(current))
+                .filter(reader -> reader.getGeneration() >= fromFileGen && reader.getCheckpoint().minSeqNo <= upToSeqNo));
             final Snapshot snapshot = newMultiSnapshot(snapshots);
             if (upToSeqNo == Long.MAX_VALUE) {
                 return snapshot;
@@ -665,12 +669,34 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public Snapshot newSnapshotFromMinSeqNo(long minSeqNo) throws IOException {
         try (ReleasableLock ignored = readLock.acquire()) {
             ensureOpen();
-            TranslogSnapshot[] snapshots = readersAboveMinSeqNo(minSeqNo).map(BaseTranslogReader::newSnapshot)
-                .toArray(TranslogSnapshot[]::new);
+            TranslogSnapshot[] snapshots = newSnapshots(readersAboveMinSeqNo(minSeqNo));
             return newMultiSnapshot(snapshots);
         }
     }
 
+    private TranslogSnapshot[] newSnapshots(Stream<? extends BaseTranslogReader> readers) throws IOException {
+        final boolean mmapReaders = config.getIndexSettings().isTranslogMmapReaders();
+        final List<TranslogSnapshot> snapshots = new ArrayList<>();
+        boolean success = false;
+        try {
+            for (Iterator<? extends BaseTranslogReader> iterator = readers.iterator(); iterator.hasNext(); ) {
+                final BaseTranslogReader reader = iterator.next();
+                if (mmapReaders && reader instanceof TranslogReader) {
+                    // only generations that are no longer written to can be mapped
+                    snapshots.add(((TranslogReader) reader).newMappedSnapshot());
+                } else {
+                    snapshots.add(reader.newSnapshot());
+                }
+            }
+            success = true;
+            return snapshots.toArray(new TranslogSnapshot[0]);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(snapshots);
+            }
+        }
+    }
+
     private Snapshot newMultiSnapshot(TranslogSnapshot[] snapshots) throws IOException {
         final Closeable onClose;
         if (snapshots.length == 0) {
@@ -687,7 +713,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             return result;
         } finally {
             if (success == false) {
-                onClose.close();
+                try {
+                    IOUtils.close(snapshots);
+                } finally {
+                    onClose.close();
+                }
             }
         }
     }
@@ -797,10 +827,20 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
      * @return Returns <code>true</code> iff this call caused an actual sync operation otherwise <code>false</code>
      */
     public boolean ensureSynced(Location location) throws IOException {
+        return ensureSynced(location, 1);
+    }
+
+    private boolean ensureSynced(Location location, long numberOfLocations) throws IOException {
         try (ReleasableLock lock = readLock.acquire()) {
             if (location.generation == current.getGeneration()) { // if we have a new one it's already synced
                 ensureOpen();
-                return current.syncUpTo(location.translogLocation + location.size);
+                final long startTime = System.nanoTime();
+                final boolean synced = current.syncUpTo(location.translogLocation + location.size);
+                if (synced) {
+                    syncMetric.inc(System.nanoTime() - startTime);
+                    syncedLocations.inc(numberOfLocations);
+                }
+                return synced;
             }
         } catch (final Exception ex) {
             closeOnTragicEvent(ex);
@@ -817,11 +857,19 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
      * @return Returns <code>true</code> iff this call caused an actual sync operation otherwise <code>false</code>
      */
     public boolean ensureSynced(Stream<Location> locations) throws IOException {
-        final Optional<Location> max = locations.max(Location::compareTo);
+        Location max = null;
+        long numberOfLocations = 0;
+        for (Iterator<Location> iterator = locations.iterator(); iterator.hasNext(); ) {
+            final Location location = iterator.next();
+            if (max == null || location.compareTo(max) > 0) {
+                max = location;
+            }
+            numberOfLocations++;
+        }
         // we only need to sync the max location since it will sync all other
         // locations implicitly
-        if (max.isPresent()) {
-            return ensureSynced(max.get());
+        if (max != null) {
+            return ensureSynced(max, numberOfLocations);
         } else {
             return false;
         }
@@ -862,7 +910,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try (ReleasableLock lock = readLock.acquire()) {
             final long uncommittedGen = deletionPolicy.getTranslogGenerationOfLastCommit();
             return new TranslogStats(totalOperations(), sizeInBytes(), totalOperationsByMinGen(uncommittedGen),
-                sizeInBytesByMinGen(uncommittedGen), earliestLastModifiedAge());
+                sizeInBytesByMinGen(uncommittedGen), earliestLastModifiedAge(), syncMetric.count(),
+                TimeUnit.NANOSECONDS.toMillis(syncMetric.sum()), syncedLocations.count());
         }
     }
 
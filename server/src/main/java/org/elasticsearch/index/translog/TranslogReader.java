@@ -20,7 +20,11 @@
 package org.elasticsearch.index.translog;
 
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
@@ -43,6 +47,8 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final AtomicBoolean closed = new AtomicBoolean(false);
+    // a read-only mapping of the generation, created by the first mapped snapshot and shared by all later ones
+    private MappedGeneration mappedGeneration; // guarded by this
 
     /**
      * Create a translog writer against the specified translog file channel.
@@ -80,6 +86,7 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
      */
     TranslogReader closeIntoTrimmedReader(long aboveSeqNo, ChannelFactory channelFactory) throws IOException {
         if (closed.compareAndSet(false, true)) {
+            releaseMappedGeneration();
             Closeable toCloseOnFailure = channel;
             final TranslogReader newReader;
             try {
@@ -121,6 +128,53 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         return checkpoint;
     }
 
+    /**
+     * Returns a snapshot that parses the operations of this generation directly from a read-only memory mapping of the translog file,
+     * which avoids a positional read for every operation. Falls back to {@link #newSnapshot()} if the file is shorter than the
+     * checkpoint claims, in which case reading it reports the corruption. The mapping is unmapped once this reader and all the
+     * snapshots that read from it are closed.
+     */
+    TranslogSnapshot newMappedSnapshot() throws IOException {
+        synchronized (this) {
+            ensureOpen();
+            if (mappedGeneration == null) {
+                if (channel.size() < length) {
+                    return newSnapshot();
+                }
+                try (MMapDirectory directory = new MMapDirectory(path.getParent())) {
+                    mappedGeneration = new MappedGeneration(directory.openInput(path.getFileName().toString(), IOContext.READ));
+                }
+            }
+            mappedGeneration.incRef();
+            final MappedGeneration mapped = mappedGeneration;
+            boolean success = false;
+            try {
+                final TranslogSnapshot snapshot = new TranslogSnapshot(this, sizeInBytes(), mapped.input.clone(), mapped::decRef);
+                success = true;
+                return snapshot;
+            } finally {
+                if (success == false) {
+                    mapped.decRef();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of references to the mapping of this generation, held by this reader and the snapshots that read from it.
+     */
+    synchronized int mappedGenerationRefCount() {
+        return mappedGeneration == null ? 0 : mappedGeneration.refCount();
+    }
+
+    private synchronized void releaseMappedGeneration() {
+        assert isClosed() : "the mapping must only be released when the reader is closed";
+        if (mappedGeneration != null) {
+            // no new snapshot can be created from a closed reader, so the mapping is unmapped once the open snapshots are closed
+            mappedGeneration.decRef();
+        }
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -138,7 +192,11 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
     @Override
     public final void close() throws IOException {
         if (closed.compareAndSet(false, true)) {
-            channel.close();
+            try {
+                releaseMappedGeneration();
+            } finally {
+                channel.close();
+            }
         }
     }
 
@@ -151,4 +209,22 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
             throw new AlreadyClosedException(toString() + " is already closed");
         }
     }
+
+    /**
+     * A memory mapping of a translog generation that is unmapped when the last reference to it is released.
+     */
+    private static final class MappedGeneration extends AbstractRefCounted {
+        private final IndexInput input;
+
+        private MappedGeneration(IndexInput input) {
+            super("mapped translog generation");
+            this.input = input;
+        }
+
+        @Override
+        protected void closeInternal() {
+            // closing the input unmaps the generation if the JVM supports unmapping, see MMapDirectory#UNMAP_SUPPORTED
+            IOUtils.closeWhileHandlingException(input);
+        }
+    }
 }
@@ -18,20 +18,31 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-final class TranslogSnapshot extends BaseTranslogReader {
+final class TranslogSnapshot extends BaseTranslogReader implements Closeable {
 
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
 
     private final ByteBuffer reusableBuffer;
+    // a read-only mapping of the whole translog file if operations are parsed from memory, otherwise null
+    private final IndexInput mappedInput;
+    // releases the mapping of the translog file once this snapshot is closed
+    private final Releasable onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
     private long position;
     private int skippedOperations;
     private int readOperations;
@@ -41,7 +52,18 @@ final class TranslogSnapshot extends BaseTranslogReader {
      * Create a snapshot of translog file channel.
      */
     TranslogSnapshot(final BaseTranslogReader reader, final long length) {
+        this(reader, length, null, () -> {});
+    }
+
+    /**
+     * Create a snapshot of translog file channel that parses operations from the given read-only mapping of the translog file. The
+     * given releasable is called once the snapshot is closed.
+     */
+    TranslogSnapshot(final BaseTranslogReader reader, final long length, final IndexInput mappedInput, final Releasable onClose) {
         super(reader.generation, reader.channel, reader.path, reader.header);
+        assert mappedInput == null || mappedInput.length() >= length : "mapping does not cover the snapshot";
+        this.mappedInput = mappedInput;
+        this.onClose = onClose;
         this.length = length;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
@@ -78,7 +100,14 @@ final class TranslogSnapshot extends BaseTranslogReader {
 
     private Translog.Operation readOperation() throws IOException {
         final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        if (mappedInput == null) {
+            reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        } else {
+            // readSize validated that the operation lies within the snapshot, which the mapping covers
+            mappedInput.seek(position);
+            reuse = new BufferedChecksumStreamInput(new InputStreamStreamInput(new InputStreamIndexInput(mappedInput, opSize), opSize),
+                path.toString(), reuse);
+        }
         Translog.Operation op = read(reuse);
         position += opSize;
         readOperations++;
@@ -102,12 +131,30 @@ final class TranslogSnapshot extends BaseTranslogReader {
                 throw new IOException("read requested before position of first ops. pos [" + position + "] first op on: [" +
                     getFirstOperationOffset() + "], generation: [" + getGeneration() + "], path: [" + path + "]");
             }
-            Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            if (mappedInput == null) {
+                Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            } else {
+                if (position + buffer.remaining() > length) {
+                    throw new EOFException("read requested past EOF. pos [" + position + "] length [" + buffer.remaining() + "] end: ["
+                        + length + "], generation: [" + getGeneration() + "], path: [" + path + "]");
+                }
+                assert buffer.hasArray() : "snapshots only read into heap buffers";
+                mappedInput.seek(position);
+                mappedInput.readBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            }
         } catch (EOFException e) {
             throw new TranslogCorruptedException(path.toString(), "translog truncated", e);
         }
     }
 
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.close();
+        }
+    }
+
     @Override
     public String toString() {
         return "TranslogSnapshot{" +
@@ -117,6 +164,7 @@ final class TranslogSnapshot extends BaseTranslogReader {
                 ", length=" + length +
                 ", generation=" + generation +
                 ", reusableBuffer=" + reusableBuffer +
+                ", mapped=" + (mappedInput != null) +
                 '}';
     }
 }
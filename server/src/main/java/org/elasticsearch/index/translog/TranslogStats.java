@@ -18,11 +18,13 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
@@ -35,6 +37,9 @@ public class TranslogStats implements Writeable, ToXContentFragment {
     private long uncommittedSizeInBytes;
     private int  uncommittedOperations;
     private long earliestLastModifiedAge;
+    private long syncTotal;
+    private long syncTotalTimeInMillis;
+    private long syncedLocations;
 
     public TranslogStats() {
     }
@@ -45,6 +50,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         uncommittedOperations = in.readVInt();
         uncommittedSizeInBytes = in.readVLong();
         earliestLastModifiedAge = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            syncTotal = in.readVLong();
+            syncTotalTimeInMillis = in.readVLong();
+            syncedLocations = in.readVLong();
+        }
     }
 
     public TranslogStats(int numberOfOperations, long translogSizeInBytes, int uncommittedOperations, long uncommittedSizeInBytes,
@@ -71,6 +81,23 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         this.earliestLastModifiedAge = earliestLastModifiedAge;
     }
 
+    public TranslogStats(int numberOfOperations, long translogSizeInBytes, int uncommittedOperations, long uncommittedSizeInBytes,
+                         long earliestLastModifiedAge, long syncTotal, long syncTotalTimeInMillis, long syncedLocations) {
+        this(numberOfOperations, translogSizeInBytes, uncommittedOperations, uncommittedSizeInBytes, earliestLastModifiedAge);
+        if (syncTotal < 0) {
+            throw new IllegalArgumentException("syncTotal must be >= 0");
+        }
+        if (syncTotalTimeInMillis < 0) {
+            throw new IllegalArgumentException("syncTotalTimeInMillis must be >= 0");
+        }
+        if (syncedLocations < 0) {
+            throw new IllegalArgumentException("syncedLocations must be >= 0");
+        }
+        this.syncTotal = syncTotal;
+        this.syncTotalTimeInMillis = syncTotalTimeInMillis;
+        this.syncedLocations = syncedLocations;
+    }
+
     public void add(TranslogStats translogStats) {
         if (translogStats == null) {
             return;
@@ -82,6 +109,9 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         this.uncommittedSizeInBytes += translogStats.uncommittedSizeInBytes;
         this.earliestLastModifiedAge =
             Math.min(this.earliestLastModifiedAge, translogStats.earliestLastModifiedAge);
+        this.syncTotal += translogStats.syncTotal;
+        this.syncTotalTimeInMillis += translogStats.syncTotalTimeInMillis;
+        this.syncedLocations += translogStats.syncedLocations;
     }
 
     public long getTranslogSizeInBytes() {
@@ -104,6 +134,24 @@ public class TranslogStats implements Writeable, ToXContentFragment {
 
     public long getEarliestLastModifiedAge() { return earliestLastModifiedAge; }
 
+    /** the number of fsyncs that were needed to make the locations of durable write requests durable */
+    public long getSyncTotal() {
+        return syncTotal;
+    }
+
+    /** the total time spent in the fsyncs counted by {@link #getSyncTotal()} */
+    public long getSyncTotalTimeInMillis() {
+        return syncTotalTimeInMillis;
+    }
+
+    /**
+     * the number of locations of durable write requests made durable by the fsyncs counted by {@link #getSyncTotal()}, so that
+     * the ratio of the two is the average number of requests coalesced into a single fsync
+     */
+    public long getSyncedLocations() {
+        return syncedLocations;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -112,6 +160,9 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", new ByteSizeValue(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        builder.field("sync_total", syncTotal);
+        builder.humanReadableField("sync_total_time_in_millis", "sync_total_time", new TimeValue(syncTotalTimeInMillis));
+        builder.field("synced_locations", syncedLocations);
         builder.endObject();
         return builder;
     }
@@ -128,5 +179,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         out.writeVInt(uncommittedOperations);
         out.writeVLong(uncommittedSizeInBytes);
         out.writeVLong(earliestLastModifiedAge);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(syncTotal);
+            out.writeVLong(syncTotalTimeInMillis);
+            out.writeVLong(syncedLocations);
+        }
     }
 }
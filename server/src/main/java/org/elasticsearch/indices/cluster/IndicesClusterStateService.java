@@ -40,8 +40,10 @@ import org.elasticsearch.cluster.routing.RecoverySource.Type;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterApplierService;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -522,46 +524,67 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
             return;
         }
         final ClusterState state = event.state();
+        final List<Runnable> indexUpdates = new ArrayList<>();
+        final Map<Index, Tuple<String, Exception>> failedIndexUpdates = ConcurrentCollections.newConcurrentMap();
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
             final Index index = indexService.index();
             final IndexMetaData currentIndexMetaData = indexService.getIndexSettings().getIndexMetaData();
             final IndexMetaData newIndexMetaData = state.metaData().index(index);
             assert newIndexMetaData != null : "index " + index + " should have been removed by deleteIndices";
             if (ClusterChangedEvent.indexMetaDataChanged(currentIndexMetaData, newIndexMetaData)) {
-                String reason = null;
-                try {
-                    reason = "metadata update failed";
+                indexUpdates.add(() -> {
+                    String reason = null;
                     try {
-                        indexService.updateMetaData(currentIndexMetaData, newIndexMetaData);
+                        reason = "metadata update failed";
+                        try {
+                            indexService.updateMetaData(currentIndexMetaData, newIndexMetaData);
+                        } catch (Exception e) {
+                            assert false : e;
+                            throw e;
+                        }
+
+                        reason = "mapping update failed";
+                        if (indexService.updateMapping(currentIndexMetaData, newIndexMetaData) && sendRefreshMapping) {
+                            nodeMappingRefreshAction.nodeMappingRefresh(state.nodes().getMasterNode(),
+                                new NodeMappingRefreshAction.NodeMappingRefreshRequest(newIndexMetaData.getIndex().getName(),
+                                    newIndexMetaData.getIndexUUID(), state.nodes().getLocalNodeId())
+                            );
+                        }
                     } catch (Exception e) {
-                        assert false : e;
-                        throw e;
+                        failedIndexUpdates.put(index, Tuple.tuple(reason, e));
                     }
+                });
+            }
+        }
 
-                    reason = "mapping update failed";
-                    if (indexService.updateMapping(currentIndexMetaData, newIndexMetaData) && sendRefreshMapping) {
-                        nodeMappingRefreshAction.nodeMappingRefresh(state.nodes().getMasterNode(),
-                            new NodeMappingRefreshAction.NodeMappingRefreshRequest(newIndexMetaData.getIndex().getName(),
-                                newIndexMetaData.getIndexUUID(), state.nodes().getLocalNodeId())
-                        );
-                    }
-                } catch (Exception e) {
-                    indicesService.removeIndex(indexService.index(), FAILURE, "removing index (" + reason + ")");
-
-                    // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-                    if (localRoutingNode != null) {
-                        for (final ShardRouting shardRouting : localRoutingNode) {
-                            if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
-                                sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
-                            }
-                        }
+        // indices are updated independently of each other, so this may spread the updates over several threads
+        runConcurrently(indexUpdates);
+
+        for (Map.Entry<Index, Tuple<String, Exception>> failedIndexUpdate : failedIndexUpdates.entrySet()) {
+            final Index index = failedIndexUpdate.getKey();
+            final String reason = failedIndexUpdate.getValue().v1();
+            final Exception e = failedIndexUpdate.getValue().v2();
+            indicesService.removeIndex(index, FAILURE, "removing index (" + reason + ")");
+
+            // fail shards that would be created or updated by createOrUpdateShards
+            RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+            if (localRoutingNode != null) {
+                for (final ShardRouting shardRouting : localRoutingNode) {
+                    if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
+                        sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Runs the given independent tasks and waits for them to complete, see {@link ClusterApplierService#runConcurrently}
+     */
+    protected void runConcurrently(List<Runnable> tasks) {
+        clusterService.getClusterApplierService().runConcurrently(tasks);
+    }
+
     private void createOrUpdateShards(final ClusterState state) {
         RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
@@ -0,0 +1,168 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+/**
+ * Adapts the number of file chunk requests that a {@link MultiFileTransfer} keeps in flight, and the size of these chunks, to the
+ * round-trip times it observes, similar to delay-based TCP congestion control.
+ * <p>
+ * The controller tracks the smallest round-trip time seen for the current chunk size as the latency of an idle path, and a smoothed
+ * round-trip time of the recent chunks. As long as the smoothed round-trip time stays close to the minimum, neither the network nor
+ * the target is queueing chunks, so the window grows by one chunk per round trip. Once the window hits its maximum, the chunk size
+ * doubles and the window halves so that the number of bytes in flight stays the same while the per-request overhead drops. When the
+ * smoothed round-trip time grows well beyond the minimum, chunks are queueing up somewhere and the window shrinks multiplicatively, at
+ * most once per round trip. Once the window is down to a single chunk, the chunk size halves instead.
+ * <p>
+ * Instances are not thread-safe; a {@link MultiFileTransfer} only calls them while processing responses, which it does sequentially.
+ */
+public final class AdaptiveFileChunkController {
+
+    /** Smallest chunk size the controller shrinks to, chosen so that per-request overhead stays small compared to the payload. */
+    static final int MIN_CHUNK_SIZE_IN_BYTES = 64 * 1024 - 16;
+    /** Largest chunk size the controller grows to, a multiple of the default chunk size. */
+    static final int MAX_CHUNK_SIZE_IN_BYTES = Math.toIntExact(RecoverySettings.DEFAULT_CHUNK_SIZE.getBytes() * 4);
+    /** The window may grow to this multiple of the configured number of concurrent file chunks. */
+    static final int MAX_WINDOW_MULTIPLIER = 4;
+
+    // smoothed round-trip times below this multiple of the minimum round-trip time indicate that nothing is queueing
+    private static final double GROW_THRESHOLD = 1.25;
+    // smoothed round-trip times above this multiple of the minimum round-trip time indicate congestion
+    private static final double SHRINK_THRESHOLD = 2.0;
+    private static final double SHRINK_FACTOR = 0.75;
+    private static final double SMOOTHING = 0.125;
+
+    private final int maxWindow;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+
+    private double window;
+    private int chunkSize;
+    // incremented whenever the chunk size changes, so that round trips of chunks of the previous size can be ignored
+    private long generation;
+    private long minRttNanos = Long.MAX_VALUE;
+    private double smoothedRttNanos = 0;
+    private boolean shrunk = false;
+    private long lastShrinkNanos;
+
+    /**
+     * @param initialChunkSize          the chunk size to start with, usually {@link RecoverySettings#getChunkSize()}
+     * @param initialConcurrentChunks   the number of chunks to keep in flight initially, usually
+     *                                  {@link RecoverySettings#getMaxConcurrentFileChunks()}
+     */
+    public AdaptiveFileChunkController(int initialChunkSize, int initialConcurrentChunks) {
+        this(initialChunkSize, initialConcurrentChunks, initialConcurrentChunks * MAX_WINDOW_MULTIPLIER,
+            Math.min(initialChunkSize, MIN_CHUNK_SIZE_IN_BYTES), Math.max(initialChunkSize, MAX_CHUNK_SIZE_IN_BYTES));
+    }
+
+    AdaptiveFileChunkController(int initialChunkSize, int initialConcurrentChunks, int maxWindow, int minChunkSize, int maxChunkSize) {
+        if (initialConcurrentChunks < 1 || initialConcurrentChunks > maxWindow) {
+            throw new IllegalArgumentException("initial concurrent chunks must be in [1, " + maxWindow + "] but was ["
+                + initialConcurrentChunks + "]");
+        }
+        if (initialChunkSize < minChunkSize || initialChunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("initial chunk size must be in [" + minChunkSize + ", " + maxChunkSize + "] but was ["
+                + initialChunkSize + "]");
+        }
+        this.window = initialConcurrentChunks;
+        this.chunkSize = initialChunkSize;
+        this.maxWindow = maxWindow;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Returns the number of file chunk requests that may currently be in flight
+     */
+    public int window() {
+        return (int) window;
+    }
+
+    /**
+     * Returns the largest number of file chunk requests this controller may allow to be in flight
+     */
+    public int maxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * Returns the number of bytes the next file chunk request should carry
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the largest chunk size this controller may ask for, which callers should size their buffers for
+     */
+    public int maxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * Returns a token that identifies the current chunk size, to be passed back to {@link #onResponse(long, long, long)}
+     */
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Records the response to a file chunk request.
+     *
+     * @param generation the {@link #generation()} at the time the request was sent
+     * @param rttNanos   the time between sending the request and receiving its response
+     * @param nowNanos   the current relative time in nanoseconds
+     */
+    void onResponse(long generation, long rttNanos, long nowNanos) {
+        if (generation != this.generation) {
+            return; // the chunk was sent with a different chunk size, its round trip time tells nothing about the current one
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : smoothedRttNanos + SMOOTHING * (rttNanos - smoothedRttNanos);
+        if (smoothedRttNanos <= minRttNanos * GROW_THRESHOLD) {
+            window = Math.min(maxWindow, window + 1.0 / window);
+            if (window >= maxWindow && chunkSize < maxChunkSize) {
+                setChunkSize(Math.min(maxChunkSize, chunkSize * 2L));
+                window = Math.max(1, window / 2);
+            }
+        } else if (smoothedRttNanos > minRttNanos * SHRINK_THRESHOLD
+            && (shrunk == false || nowNanos - lastShrinkNanos > smoothedRttNanos)) {
+            shrunk = true;
+            lastShrinkNanos = nowNanos;
+            if (window >= 2) {
+                window = Math.max(1, window * SHRINK_FACTOR);
+            } else if (chunkSize > minChunkSize) {
+                setChunkSize(Math.max(minChunkSize, chunkSize / 2L));
+            }
+        }
+    }
+
+    private void setChunkSize(long chunkSize) {
+        this.chunkSize = Math.toIntExact(chunkSize);
+        this.generation++;
+        this.minRttNanos = Long.MAX_VALUE;
+        this.smoothedRttNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveFileChunkController{window=" + window() + ", chunkSize=" + chunkSize + ", minRtt=" + minRttNanos
+            + "ns, smoothedRtt=" + (long) smoothedRttNanos + "ns}";
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.store.RateLimiter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throttles the file chunks sent by a single recovery or segment replication according to the rate limiter of the
+ * {@link RecoverySettings}.
+ */
+public final class FileChunkRateLimiter {
+
+    private final RecoverySettings recoverySettings;
+
+    // How many bytes we've copied since we last called RateLimiter.pause
+    private final AtomicLong bytesSinceLastPause = new AtomicLong();
+
+    public FileChunkRateLimiter(RecoverySettings recoverySettings) {
+        this.recoverySettings = recoverySettings;
+    }
+
+    /**
+     * Pauses the calling thread if the given number of bytes, together with the bytes sent since the last pause, exceeds what the
+     * rate limiter allows.
+     *
+     * @return the time paused in nanoseconds
+     */
+    public long maybePause(int bytes) throws IOException {
+        // always fetch the ratelimiter - it might be updated in real-time on the recovery settings
+        final RateLimiter rl = recoverySettings.rateLimiter();
+        if (rl != null) {
+            final long bytesSincePause = bytesSinceLastPause.addAndGet(bytes);
+            if (bytesSincePause > rl.getMinPauseCheckBytes()) {
+                // Time to pause
+                bytesSinceLastPause.addAndGet(-bytesSincePause);
+                return rl.pause(bytesSincePause);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.transport.Transports;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link MultiFileTransfer} that reads the files it sends from a {@link Store}, chunk by chunk. This is the sending counterpart
+ * of {@link MultiFileWriter}; subclasses decide where the chunks go and how failures are handled.
+ */
+public abstract class MultiFileSender extends MultiFileTransfer<MultiFileSender.FileChunk> {
+
+    private final Logger logger;
+    private final Store store;
+    @Nullable
+    private final AdaptiveFileChunkController chunkController;
+    private final byte[] buffer;
+    private InputStreamIndexInput currentInput = null;
+    private long offset = 0;
+
+    /**
+     * @param store            the store to read the files from, which must be kept open until the transfer completes
+     * @param chunkSizeInBytes the size of the chunks, unless a {@code chunkController} adapts it
+     * @param chunkController  adapts the number and the size of the chunks in flight, or {@code null} to send chunks of
+     *                         {@code chunkSizeInBytes} with at most {@code maxConcurrentFileChunks} in flight
+     */
+    protected MultiFileSender(Logger logger, ThreadContext threadContext, ActionListener<Void> listener, Store store,
+                              int chunkSizeInBytes, int maxConcurrentFileChunks, @Nullable AdaptiveFileChunkController chunkController,
+                              List<StoreFileMetaData> files) {
+        super(logger, threadContext, listener, maxConcurrentFileChunks, chunkController, files);
+        this.logger = logger;
+        this.store = store;
+        this.chunkController = chunkController;
+        this.buffer = new byte[chunkController == null ? chunkSizeInBytes : chunkController.maxChunkSize()];
+    }
+
+    @Override
+    protected void onNewFile(StoreFileMetaData md) throws IOException {
+        offset = 0;
+        IOUtils.close(currentInput, () -> currentInput = null);
+        final IndexInput indexInput = store.directory().openInput(md.name(), IOContext.READONCE);
+        currentInput = new InputStreamIndexInput(indexInput, md.length()) {
+            @Override
+            public void close() throws IOException {
+                IOUtils.close(indexInput, super::close); // InputStreamIndexInput's close is a noop
+            }
+        };
+    }
+
+    @Override
+    protected FileChunk nextChunkRequest(StoreFileMetaData md) throws IOException {
+        assert Transports.assertNotTransportThread("read file chunk");
+        final int bytesRead = currentInput.read(buffer, 0, chunkController == null ? buffer.length : chunkController.chunkSize());
+        if (bytesRead == -1) {
+            throw new CorruptIndexException("file truncated; length=" + md.length() + " offset=" + offset, md.name());
+        }
+        final boolean lastChunk = offset + bytesRead == md.length();
+        final FileChunk chunk = new FileChunk(md, new BytesArray(buffer, 0, bytesRead), offset, lastChunk);
+        offset += bytesRead;
+        return chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (chunkController != null) {
+            logger.trace("finished sending files with {}", chunkController);
+        }
+        IOUtils.close(currentInput, () -> currentInput = null);
+    }
+
+    public static final class FileChunk implements MultiFileTransfer.ChunkRequest {
+        private final StoreFileMetaData md;
+        private final BytesReference content;
+        private final long position;
+        private final boolean lastChunk;
+
+        FileChunk(StoreFileMetaData md, BytesReference content, long position, boolean lastChunk) {
+            this.md = md;
+            this.content = content;
+            this.position = position;
+            this.lastChunk = lastChunk;
+        }
+
+        public StoreFileMetaData md() {
+            return md;
+        }
+
+        /**
+         * Returns the content of this chunk. The underlying buffer is reused for the next chunk, so the content must be sent before
+         * the next chunk is read.
+         */
+        public BytesReference content() {
+            return content;
+        }
+
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public boolean lastChunk() {
+            return lastChunk;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.Assertions;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
@@ -34,6 +35,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static org.elasticsearch.index.seqno.SequenceNumbers.NO_OPS_PERFORMED;
@@ -56,24 +58,42 @@ import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
  * greater than {@code maxConcurrentFileChunks}), the sending/requesting thread will abort its execution. That process will be resumed by
  * one of the networking threads which receive/handle the responses of the current pending file chunk requests. This process will continue
  * until all chunk requests are sent/responded.
+ * <p>
+ * If an {@link AdaptiveFileChunkController} is given, it replaces the fixed {@code maxConcurrentFileChunks} limit with a window that
+ * adapts to the round-trip times of the file chunk requests. Subclasses should then size their chunks by
+ * {@link AdaptiveFileChunkController#chunkSize()}.
  */
 public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkRequest> implements Closeable {
+    // markers of the send time of a chunk request that is not sent yet or that already got its response
+    private static final long NOT_SENT = Long.MIN_VALUE;
+    private static final long RESPONDED = Long.MIN_VALUE + 1;
+
     private Status status = Status.PROCESSING;
     private final Logger logger;
     private final ActionListener<Void> listener;
     private final LocalCheckpointTracker requestSeqIdTracker = new LocalCheckpointTracker(NO_OPS_PERFORMED, NO_OPS_PERFORMED);
     private final AsyncIOProcessor<FileChunkResponseItem> processor;
     private final int maxConcurrentFileChunks;
+    @Nullable
+    private final AdaptiveFileChunkController chunkController;
     private StoreFileMetaData currentFile = null;
     private final Iterator<StoreFileMetaData> remainingFiles;
     private Tuple<StoreFileMetaData, Request> readAheadRequest = null;
 
     protected MultiFileTransfer(Logger logger, ThreadContext threadContext, ActionListener<Void> listener,
                                 int maxConcurrentFileChunks, List<StoreFileMetaData> files) {
+        this(logger, threadContext, listener, maxConcurrentFileChunks, null, files);
+    }
+
+    protected MultiFileTransfer(Logger logger, ThreadContext threadContext, ActionListener<Void> listener,
+                                int maxConcurrentFileChunks, @Nullable AdaptiveFileChunkController chunkController,
+                                List<StoreFileMetaData> files) {
         this.logger = logger;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.chunkController = chunkController;
         this.listener = listener;
-        this.processor = new AsyncIOProcessor<>(logger, maxConcurrentFileChunks, threadContext) {
+        final int queueSize = chunkController == null ? maxConcurrentFileChunks : chunkController.maxWindow();
+        this.processor = new AsyncIOProcessor<>(logger, queueSize, threadContext) {
             @Override
             protected void write(List<Tuple<FileChunkResponseItem, Consumer<Exception>>> items) {
                 handleItems(items);
@@ -83,11 +103,15 @@ public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkR
     }
 
     public final void start() {
-        addItem(UNASSIGNED_SEQ_NO, null, null); // put a dummy item to start the processor
+        addItem(UNASSIGNED_SEQ_NO, null, null, 0L, -1L); // put a dummy item to start the processor
+    }
+
+    private void addItem(long requestSeqId, StoreFileMetaData md, Exception failure, long generation, long rttNanos) {
+        processor.put(new FileChunkResponseItem(requestSeqId, md, failure, generation, rttNanos), e -> { assert e == null : e; });
     }
 
-    private void addItem(long requestSeqId, StoreFileMetaData md, Exception failure) {
-        processor.put(new FileChunkResponseItem(requestSeqId, md, failure), e -> { assert e == null : e; });
+    private int maxConcurrentFileChunks() {
+        return chunkController == null ? maxConcurrentFileChunks : chunkController.window();
     }
 
     private void handleItems(List<Tuple<FileChunkResponseItem, Consumer<Exception>>> items) {
@@ -109,8 +133,11 @@ public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkR
                     handleError(resp.md, resp.failure);
                     throw resp.failure;
                 }
+                if (chunkController != null && resp.rttNanos >= 0) {
+                    chunkController.onResponse(resp.generation, resp.rttNanos, System.nanoTime());
+                }
             }
-            while (requestSeqIdTracker.getMaxSeqNo() - requestSeqIdTracker.getProcessedCheckpoint() < maxConcurrentFileChunks) {
+            while (requestSeqIdTracker.getMaxSeqNo() - requestSeqIdTracker.getProcessedCheckpoint() < maxConcurrentFileChunks()) {
                 final Tuple<StoreFileMetaData, Request> request = readAheadRequest != null ? readAheadRequest : getNextRequest();
                 readAheadRequest = null;
                 if (request == null) {
@@ -121,9 +148,14 @@ public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkR
                     return;
                 }
                 final long requestSeqId = requestSeqIdTracker.generateSeqNo();
+                final long generation = chunkController == null ? 0L : chunkController.generation();
+                // implementations pause before they send the request if the transfer is throttled, so the round trip only
+                // starts once executeChunkRequest returns. Responses that arrive earlier have no round-trip time.
+                final AtomicLong sentNanos = new AtomicLong(NOT_SENT);
                 executeChunkRequest(request.v2(), ActionListener.wrap(
-                    r -> addItem(requestSeqId, request.v1(), null),
-                    e -> addItem(requestSeqId, request.v1(), e)));
+                    r -> addItem(requestSeqId, request.v1(), null, generation, roundTripNanos(sentNanos)),
+                    e -> addItem(requestSeqId, request.v1(), e, generation, roundTripNanos(sentNanos))));
+                sentNanos.compareAndSet(NOT_SENT, System.nanoTime());
             }
             // While we are waiting for the responses, we can prepare the next request in advance
             // so we can send it immediately when the responses arrive to reduce the transfer time.
@@ -135,6 +167,16 @@ public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkR
         }
     }
 
+    /**
+     * Returns the round-trip time of a chunk request whose response just arrived, or {@code -1} if the response arrived
+     * before the request was considered sent.
+     */
+    private static long roundTripNanos(AtomicLong sentNanos) {
+        final long sent = sentNanos.getAndSet(RESPONDED);
+        assert sent != RESPONDED : "chunk request completed twice";
+        return sent == NOT_SENT ? -1L : System.nanoTime() - sent;
+    }
+
     private void onCompleted(Exception failure) {
         if (Assertions.ENABLED && status != Status.PROCESSING) {
             throw new AssertionError("invalid status: expected [" + Status.PROCESSING + "] actual [" + status + "]", failure);
@@ -179,6 +221,10 @@ public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkR
 
     protected abstract Request nextChunkRequest(StoreFileMetaData md) throws IOException;
 
+    /**
+     * Sends the given chunk request. Implementations that throttle the transfer must pause before they return rather than
+     * before they complete the listener, so that the pause is not counted in the round-trip time of the request.
+     */
     protected abstract void executeChunkRequest(Request request, ActionListener<Void> listener);
 
     protected abstract void handleError(StoreFileMetaData md, Exception e) throws Exception;
@@ -187,11 +233,15 @@ public abstract class MultiFileTransfer<Request extends MultiFileTransfer.ChunkR
         final long requestSeqId;
         final StoreFileMetaData md;
         final Exception failure;
+        final long generation;
+        final long rttNanos;
 
-        FileChunkResponseItem(long requestSeqId, StoreFileMetaData md, Exception failure) {
+        FileChunkResponseItem(long requestSeqId, StoreFileMetaData md, Exception failure, long generation, long rttNanos) {
             this.requestSeqId = requestSeqId;
             this.md = md;
             this.failure = failure;
+            this.generation = generation;
+            this.rttNanos = rttNanos;
         }
     }
 
@@ -26,7 +26,9 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.store.Store;
@@ -37,9 +39,11 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -71,7 +75,10 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         throws IOException {
         assert Transports.assertNotTransportThread("multi_file_writer");
         final FileChunkWriter writer = fileChunkWriters.computeIfAbsent(fileMetaData.name(), name -> new FileChunkWriter());
-        writer.writeChunk(new FileChunk(fileMetaData, content, position, lastChunk));
+        // the content may be a slice of a network buffer which must outlive this call if the chunk is buffered
+        final BytesReference retainedContent =
+            content instanceof ReleasableBytesReference ? ((ReleasableBytesReference) content).retain() : content;
+        writer.writeChunk(new FileChunk(fileMetaData, retainedContent, position, lastChunk));
     }
 
     /** Get a temporary name for the provided file name. */
@@ -151,6 +158,9 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
     @Override
     protected void closeInternal() {
+        for (FileChunkWriter writer : fileChunkWriters.values()) {
+            writer.releasePendingChunks();
+        }
         fileChunkWriters.clear();
         // clean open index outputs
         Iterator<Map.Entry<String, IndexOutput>> iterator = openIndexOutputs.entrySet().iterator();
@@ -173,13 +183,29 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         }
     }
 
+    /**
+     * Returns the final names of the files that were written by this writer.
+     */
+    public Set<String> fileNames() {
+        return new HashSet<>(tempFileNames.values());
+    }
+
     /** renames all temporary files to their true name, potentially overriding existing files */
     public void renameAllTempFiles() throws IOException {
+        renameAllTempFiles(true);
+    }
+
+    /**
+     * renames all temporary files to their true name, potentially overriding existing files
+     *
+     * @param obtainWriteLock whether the index writer lock is obtained while renaming, which fails if an index writer is open on the store
+     */
+    public void renameAllTempFiles(boolean obtainWriteLock) throws IOException {
         ensureOpen.run();
-        store.renameTempFilesSafe(tempFileNames);
+        store.renameTempFilesSafe(tempFileNames, obtainWriteLock);
     }
 
-    static final class FileChunk {
+    static final class FileChunk implements Releasable {
         final StoreFileMetaData md;
         final BytesReference content;
         final long position;
@@ -190,6 +216,13 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
             this.position = position;
             this.lastChunk = lastChunk;
         }
+
+        @Override
+        public void close() {
+            if (content instanceof ReleasableBytesReference) {
+                ((ReleasableBytesReference) content).close();
+            }
+        }
     }
 
     private final class FileChunkWriter {
@@ -210,10 +243,13 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
                     }
                     pendingChunks.remove();
                 }
-                innerWriteFileChunk(chunk.md, chunk.position, chunk.content, chunk.lastChunk);
+                final int chunkLength = chunk.content.length();
+                try (FileChunk toWrite = chunk) {
+                    innerWriteFileChunk(toWrite.md, toWrite.position, toWrite.content, toWrite.lastChunk);
+                }
                 synchronized (this) {
                     assert lastPosition == chunk.position : "last_position " + lastPosition + " != chunk_position " + chunk.position;
-                    lastPosition += chunk.content.length();
+                    lastPosition += chunkLength;
                     if (chunk.lastChunk) {
                         assert pendingChunks.isEmpty() == true : "still have pending chunks [" + pendingChunks + "]";
                         fileChunkWriters.remove(chunk.md.name());
@@ -222,5 +258,10 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
                 }
             }
         }
+
+        synchronized void releasePendingChunks() {
+            Releasables.close(pendingChunks);
+            pendingChunks.clear();
+        }
     }
 }
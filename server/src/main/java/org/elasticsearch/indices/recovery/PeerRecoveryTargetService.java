@@ -515,6 +515,7 @@ public class PeerRecoveryTargetService implements IndexEventListener {
                 if (request.sourceThrottleTimeInNanos() != RecoveryState.Index.UNKNOWN) {
                     indexState.addSourceThrottling(request.sourceThrottleTimeInNanos());
                 }
+                indexState.addFileChunk(request.content().length(), System.nanoTime());
 
                 RateLimiter rateLimiter = recoverySettings.rateLimiter();
                 if (rateLimiter != null) {
@@ -21,8 +21,10 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.util.Version;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetaData;
@@ -30,12 +32,17 @@ import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
 
-public final class RecoveryFileChunkRequest extends TransportRequest {
+/**
+ * A chunk of a file that is sent to a recovering shard. When received over the network its content is a slice of the
+ * inbound message rather than a copy, so it is only valid until the request is released once its handler returns;
+ * handlers that keep the content around for longer must {@link ReleasableBytesReference#retain() retain} it.
+ */
+public final class RecoveryFileChunkRequest extends TransportRequest implements Releasable {
     private boolean lastChunk;
     private long recoveryId;
     private ShardId shardId;
     private long position;
-    private BytesReference content;
+    private ReleasableBytesReference content;
     private StoreFileMetaData metaData;
     private long sourceThrottleTimeInNanos;
 
@@ -49,7 +56,7 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         position = in.readVLong();
         long length = in.readVLong();
         String checksum = in.readString();
-        content = in.readBytesReference();
+        content = in.readReleasableBytesReference();
         Version writtenBy = Lucene.parseVersionLenient(in.readString(), null);
         assert writtenBy != null;
         metaData = new StoreFileMetaData(name, length, checksum, writtenBy);
@@ -64,7 +71,7 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         this.shardId = shardId;
         this.metaData = metaData;
         this.position = position;
-        this.content = content;
+        this.content = ReleasableBytesReference.wrap(content);
         this.lastChunk = lastChunk;
         this.totalTranslogOps = totalTranslogOps;
         this.sourceThrottleTimeInNanos = sourceThrottleTimeInNanos;
@@ -90,7 +97,7 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         return metaData.length();
     }
 
-    public BytesReference content() {
+    public ReleasableBytesReference content() {
         return content;
     }
 
@@ -118,6 +125,11 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         out.writeLong(sourceThrottleTimeInNanos);
     }
 
+    @Override
+    public void close() {
+        content.close();
+    }
+
     @Override
     public String toString() {
         return shardId + ": name='" + name() + '\'' +
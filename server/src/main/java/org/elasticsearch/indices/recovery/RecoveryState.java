@@ -42,6 +42,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Keeps track of state related to shard recovery.
@@ -343,6 +344,11 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String SOURCE_THROTTLE_TIME_IN_MILLIS = "source_throttle_time_in_millis";
         static final String TARGET_THROTTLE_TIME = "target_throttle_time";
         static final String TARGET_THROTTLE_TIME_IN_MILLIS = "target_throttle_time_in_millis";
+        static final String FILE_CHUNKS = "file_chunks";
+        static final String MAX_SIZE = "max_size";
+        static final String MAX_SIZE_IN_BYTES = "max_size_in_bytes";
+        static final String THROUGHPUT_PER_SEC = "throughput_per_sec";
+        static final String THROUGHPUT_IN_BYTES_PER_SEC = "throughput_in_bytes_per_sec";
     }
 
     public static class Timer implements Writeable {
@@ -697,6 +703,13 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         private long sourceThrottlingInNanos = UNKNOWN;
         private long targetThrottleTimeInNanos = UNKNOWN;
 
+        // statistics about the file chunks received, used to report the file transfer throughput
+        private long fileChunks = 0;
+        private long fileChunkBytes = 0;
+        private long maxFileChunkSize = 0;
+        private long firstFileChunkNanos = 0;
+        private long fileChunkTimeInNanos = 0;
+
         public Index() {
         }
 
@@ -709,6 +722,12 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             }
             sourceThrottlingInNanos = in.readLong();
             targetThrottleTimeInNanos = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                fileChunks = in.readVLong();
+                fileChunkBytes = in.readVLong();
+                maxFileChunkSize = in.readVLong();
+                fileChunkTimeInNanos = in.readVLong();
+            }
         }
 
         @Override
@@ -721,6 +740,12 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             }
             out.writeLong(sourceThrottlingInNanos);
             out.writeLong(targetThrottleTimeInNanos);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeVLong(fileChunks);
+                out.writeVLong(fileChunkBytes);
+                out.writeVLong(maxFileChunkSize);
+                out.writeVLong(fileChunkTimeInNanos);
+            }
         }
 
         public synchronized List<File> fileDetails() {
@@ -732,6 +757,11 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             fileDetails.clear();
             sourceThrottlingInNanos = UNKNOWN;
             targetThrottleTimeInNanos = UNKNOWN;
+            fileChunks = 0;
+            fileChunkBytes = 0;
+            maxFileChunkSize = 0;
+            firstFileChunkNanos = 0;
+            fileChunkTimeInNanos = 0;
         }
 
         public synchronized void addFileDetail(String name, long length, boolean reused) {
@@ -761,6 +791,45 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             }
         }
 
+        /**
+         * Records the receipt of a file chunk of the given size at the given relative time in nanoseconds
+         */
+        public synchronized void addFileChunk(long bytes, long nowNanos) {
+            if (fileChunks == 0) {
+                firstFileChunkNanos = nowNanos;
+            } else {
+                // the first chunk only marks the start of the transfer, its bytes were sent before
+                fileChunkBytes += bytes;
+                fileChunkTimeInNanos = Math.max(fileChunkTimeInNanos, nowNanos - firstFileChunkNanos);
+            }
+            fileChunks++;
+            maxFileChunkSize = Math.max(maxFileChunkSize, bytes);
+        }
+
+        /**
+         * number of file chunks received so far
+         */
+        public synchronized long fileChunks() {
+            return fileChunks;
+        }
+
+        /**
+         * size of the largest file chunk received so far
+         */
+        public synchronized long maxFileChunkSize() {
+            return maxFileChunkSize;
+        }
+
+        /**
+         * average number of bytes per second at which file chunks were received, or {@code 0} if it is not known yet
+         */
+        public synchronized long fileChunkThroughput() {
+            if (fileChunkTimeInNanos <= 0) {
+                return 0;
+            }
+            return (long) (fileChunkBytes * (double) TimeUnit.SECONDS.toNanos(1) / fileChunkTimeInNanos);
+        }
+
         public synchronized TimeValue sourceThrottling() {
             return TimeValue.timeValueNanos(sourceThrottlingInNanos);
         }
@@ -932,6 +1001,12 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
             builder.humanReadableField(Fields.SOURCE_THROTTLE_TIME_IN_MILLIS, Fields.SOURCE_THROTTLE_TIME, sourceThrottling());
             builder.humanReadableField(Fields.TARGET_THROTTLE_TIME_IN_MILLIS, Fields.TARGET_THROTTLE_TIME, targetThrottling());
+            builder.startObject(Fields.FILE_CHUNKS);
+            builder.field(Fields.TOTAL, fileChunks());
+            builder.humanReadableField(Fields.MAX_SIZE_IN_BYTES, Fields.MAX_SIZE, new ByteSizeValue(maxFileChunkSize()));
+            builder.humanReadableField(Fields.THROUGHPUT_IN_BYTES_PER_SEC, Fields.THROUGHPUT_PER_SEC,
+                new ByteSizeValue(fileChunkThroughput()));
+            builder.endObject();
             return builder;
         }
 
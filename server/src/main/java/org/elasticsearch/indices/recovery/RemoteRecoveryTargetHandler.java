@@ -19,7 +19,6 @@
 
 package org.elasticsearch.indices.recovery;
 
-import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionListenerResponseHandler;
@@ -40,7 +39,6 @@ import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
@@ -54,7 +52,7 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
     private final TransportRequestOptions translogOpsRequestOptions;
     private final TransportRequestOptions fileChunkRequestOptions;
 
-    private final AtomicLong bytesSinceLastPause = new AtomicLong();
+    private final FileChunkRateLimiter rateLimiter;
 
     private final Consumer<Long> onSourceThrottle;
 
@@ -66,6 +64,7 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
         this.targetNode = targetNode;
         this.recoverySettings = recoverySettings;
         this.onSourceThrottle = onSourceThrottle;
+        this.rateLimiter = new FileChunkRateLimiter(recoverySettings);
         this.translogOpsRequestOptions = TransportRequestOptions.builder()
                 .withType(TransportRequestOptions.Type.RECOVERY)
                 .withTimeout(recoverySettings.internalActionLongTimeout())
@@ -154,24 +153,13 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
                                boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener) {
         // Pause using the rate limiter, if desired, to throttle the recovery
         final long throttleTimeInNanos;
-        // always fetch the ratelimiter - it might be updated in real-time on the recovery settings
-        final RateLimiter rl = recoverySettings.rateLimiter();
-        if (rl != null) {
-            long bytes = bytesSinceLastPause.addAndGet(content.length());
-            if (bytes > rl.getMinPauseCheckBytes()) {
-                // Time to pause
-                bytesSinceLastPause.addAndGet(-bytes);
-                try {
-                    throttleTimeInNanos = rl.pause(bytes);
-                    onSourceThrottle.accept(throttleTimeInNanos);
-                } catch (IOException e) {
-                    throw new ElasticsearchException("failed to pause recovery", e);
-                }
-            } else {
-                throttleTimeInNanos = 0;
-            }
-        } else {
-            throttleTimeInNanos = 0;
+        try {
+            throttleTimeInNanos = rateLimiter.maybePause(content.length());
+        } catch (IOException e) {
+            throw new ElasticsearchException("failed to pause recovery", e);
+        }
+        if (throttleTimeInNanos > 0) {
+            onSourceThrottle.accept(throttleTimeInNanos);
         }
 
         transportService.sendRequest(targetNode, PeerRecoveryTargetService.Actions.FILE_CHUNK,
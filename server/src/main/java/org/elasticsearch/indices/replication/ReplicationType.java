@@ -0,0 +1,55 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.replication;
+
+import java.util.Locale;
+
+/**
+ * The way the operations indexed on a primary shard reach its replicas.
+ */
+public enum ReplicationType {
+
+    /**
+     * Every operation is replicated and re-indexed on each replica. This is the default.
+     */
+    DOCUMENT,
+
+    /**
+     * Operations are only written to the translog of the replicas, which periodically copy the Lucene segments of the
+     * primary instead of indexing the documents themselves.
+     */
+    SEGMENT;
+
+    public static ReplicationType parse(String value) {
+        switch (value) {
+            case "document":
+                return DOCUMENT;
+            case "segment":
+                return SEGMENT;
+            default:
+                throw new IllegalArgumentException("unknown replication type [" + value + "], must be one of [document, segment]");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.replication;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+
+/**
+ * Sent by a segment replica to its primary to receive the files of the refreshed segments of the primary that it is missing.
+ */
+public class SegmentReplicationRequest extends TransportRequest {
+
+    private final long replicationId;
+    private final ShardId shardId;
+    private final DiscoveryNode targetNode;
+    private final Store.MetadataSnapshot metadataSnapshot;
+
+    public SegmentReplicationRequest(StreamInput in) throws IOException {
+        super(in);
+        replicationId = in.readLong();
+        shardId = new ShardId(in);
+        targetNode = new DiscoveryNode(in);
+        metadataSnapshot = new Store.MetadataSnapshot(in);
+    }
+
+    /**
+     * @param replicationId    the id under which the replica tracks the files it receives
+     * @param shardId          the shard ID to replicate
+     * @param targetNode       the node of the replica, to which the files are sent
+     * @param metadataSnapshot the Lucene metadata of the last commit of the replica
+     */
+    public SegmentReplicationRequest(long replicationId, ShardId shardId, DiscoveryNode targetNode,
+                                     Store.MetadataSnapshot metadataSnapshot) {
+        this.replicationId = replicationId;
+        this.shardId = shardId;
+        this.targetNode = targetNode;
+        this.metadataSnapshot = metadataSnapshot;
+    }
+
+    public long replicationId() {
+        return replicationId;
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    public DiscoveryNode targetNode() {
+        return targetNode;
+    }
+
+    public Store.MetadataSnapshot metadataSnapshot() {
+        return metadataSnapshot;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeLong(replicationId);
+        shardId.writeTo(out);
+        targetNode.writeTo(out);
+        metadataSnapshot.writeTo(out);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.replication;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+
+/**
+ * Sent by the primary once all the files of its refreshed segments that a segment replica was missing have been copied.
+ */
+public final class SegmentReplicationResponse extends TransportResponse {
+
+    private final BytesReference segmentInfos;
+    private final long generation;
+
+    public SegmentReplicationResponse(StreamInput in) throws IOException {
+        super(in);
+        segmentInfos = in.readBytesReference();
+        generation = in.readLong();
+    }
+
+    SegmentReplicationResponse(BytesReference segmentInfos, long generation) {
+        this.segmentInfos = segmentInfos;
+        this.generation = generation;
+    }
+
+    /**
+     * Returns the segment infos of the refreshed segments of the primary, as written by Lucene.
+     */
+    public BytesReference segmentInfos() {
+        return segmentInfos;
+    }
+
+    /**
+     * Returns the generation of the last commit of the primary when its segments were captured, which is needed to read the
+     * segment infos.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeBytesReference(segmentInfos);
+        out.writeLong(generation);
+    }
+}
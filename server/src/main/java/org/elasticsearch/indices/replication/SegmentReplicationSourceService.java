@@ -0,0 +1,172 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.replication;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StandardDirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.OutputStreamIndexOutput;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
+import org.elasticsearch.action.support.ChannelActionListener;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.recovery.AdaptiveFileChunkController;
+import org.elasticsearch.indices.recovery.FileChunkRateLimiter;
+import org.elasticsearch.indices.recovery.MultiFileSender;
+import org.elasticsearch.indices.recovery.RecoveryFileChunkRequest;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs on the node of a primary shard of an index that uses segment replication. On request of a replica, it copies the files
+ * of the segments that the primary refreshed and that the replica is missing, reusing the chunked file transfer of peer
+ * recoveries, and then returns the segment infos that the replica installs. The primary neither flushes nor commits for this.
+ */
+public class SegmentReplicationSourceService {
+
+    private static final Logger logger = LogManager.getLogger(SegmentReplicationSourceService.class);
+
+    public static class Actions {
+        public static final String START_REPLICATION = "internal:index/shard/segment_replication/start";
+    }
+
+    private final TransportService transportService;
+    private final IndicesService indicesService;
+    private final RecoverySettings recoverySettings;
+
+    public SegmentReplicationSourceService(TransportService transportService, IndicesService indicesService,
+                                           RecoverySettings recoverySettings) {
+        this.transportService = transportService;
+        this.indicesService = indicesService;
+        this.recoverySettings = recoverySettings;
+        transportService.registerRequestHandler(Actions.START_REPLICATION, ThreadPool.Names.GENERIC, SegmentReplicationRequest::new,
+            (request, channel, task) -> replicate(request, new ChannelActionListener<>(channel, Actions.START_REPLICATION, request)));
+    }
+
+    void replicate(SegmentReplicationRequest request, ActionListener<SegmentReplicationResponse> listener) {
+        final IndexShard shard = indicesService.indexServiceSafe(request.shardId().getIndex()).getShard(request.shardId().id());
+        final ShardRouting routingEntry = shard.routingEntry();
+        if (routingEntry.primary() == false || routingEntry.active() == false) {
+            throw new IllegalStateException("source shard [" + routingEntry + "] is not an active primary");
+        }
+        // Read before acquiring the searcher, which therefore contains all the operations up to this checkpoint. Operations above
+        // the global checkpoint may be rolled back if the primary fails, so they are not covered by the copied checkpoint.
+        final long localCheckpoint = Math.min(shard.getLastRefreshedCheckpoint(), shard.getLastSyncedGlobalCheckpoint());
+        // the searcher holds a reference on the store, and prevents the index writer from deleting the files of its segments
+        final Engine.Searcher searcher = shard.acquireSearcherNoWrap("segment_replication", Engine.SearcherScope.INTERNAL);
+        final ActionListener<SegmentReplicationResponse> releasingListener = ActionListener.runAfter(listener, searcher::close);
+        try {
+            final Store store = shard.store();
+            final long maxSeqNo = shard.seqNoStats().getMaxSeqNo();
+            final SegmentInfos segmentInfos =
+                ((StandardDirectoryReader) FilterDirectoryReader.unwrap(searcher.getDirectoryReader())).getSegmentInfos().clone();
+            final Map<String, String> userData = new HashMap<>(segmentInfos.getUserData());
+            userData.put(SequenceNumbers.LOCAL_CHECKPOINT_KEY, Long.toString(localCheckpoint));
+            userData.put(SequenceNumbers.MAX_SEQ_NO, Long.toString(maxSeqNo));
+            segmentInfos.setUserData(userData, false);
+
+            final Store.MetadataSnapshot sourceMetaData = store.getMetadata(segmentInfos);
+            // unlike a recovery diff, which re-sends whole segments if any of their files differ, only send the files that differ:
+            // the replica replaces the files with the same names, and must not drop a commit that still references identical ones
+            final List<StoreFileMetaData> files = new ArrayList<>();
+            for (StoreFileMetaData md : sourceMetaData) {
+                final StoreFileMetaData existing = request.metadataSnapshot().get(md.name());
+                if (existing == null || existing.isSame(md) == false) {
+                    files.add(md);
+                }
+            }
+            files.sort(Comparator.comparingLong(StoreFileMetaData::length)); // send smallest first
+            final SegmentReplicationResponse response =
+                new SegmentReplicationResponse(serialize(segmentInfos, store.directory()), segmentInfos.getGeneration());
+            logger.trace("{} sending [{}] files of segments version [{}] to segment replica on {}",
+                request.shardId(), files.size(), segmentInfos.getVersion(), request.targetNode());
+            sendFiles(request, store, files, ActionListener.map(releasingListener, ignored -> response));
+        } catch (Exception e) {
+            releasingListener.onFailure(e);
+        }
+    }
+
+    private static BytesReference serialize(SegmentInfos segmentInfos, Directory directory) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        try (IndexOutput output = new OutputStreamIndexOutput("segment infos", "segment_infos", out, 1024)) {
+            segmentInfos.write(directory, output);
+        }
+        return out.bytes();
+    }
+
+    private void sendFiles(SegmentReplicationRequest request, Store store, List<StoreFileMetaData> files, ActionListener<Void> listener) {
+        final int chunkSizeInBytes = Math.toIntExact(recoverySettings.getChunkSize().getBytes());
+        final int maxConcurrentFileChunks = recoverySettings.getMaxConcurrentFileChunks();
+        final AdaptiveFileChunkController chunkController = recoverySettings.isAdaptiveFileChunks()
+            ? new AdaptiveFileChunkController(chunkSizeInBytes, maxConcurrentFileChunks) : null;
+        final FileChunkRateLimiter rateLimiter = new FileChunkRateLimiter(recoverySettings);
+        final TransportRequestOptions fileChunkRequestOptions = TransportRequestOptions.builder()
+            .withType(TransportRequestOptions.Type.RECOVERY)
+            .withTimeout(recoverySettings.internalActionTimeout())
+            .build();
+        final MultiFileSender multiFileSender = new MultiFileSender(logger, transportService.getThreadPool().getThreadContext(),
+            listener, store, chunkSizeInBytes, maxConcurrentFileChunks, chunkController, files) {
+
+            @Override
+            protected void executeChunkRequest(FileChunk chunk, ActionListener<Void> listener) {
+                final long throttleTimeInNanos;
+                try {
+                    throttleTimeInNanos = rateLimiter.maybePause(chunk.content().length());
+                } catch (IOException e) {
+                    throw new ElasticsearchException("failed to pause segment replication", e);
+                }
+                transportService.sendRequest(request.targetNode(), SegmentReplicationTargetService.Actions.FILE_CHUNK,
+                    new RecoveryFileChunkRequest(request.replicationId(), request.shardId(), chunk.md(), chunk.position(),
+                        chunk.content(), chunk.lastChunk(), 0, throttleTimeInNanos), fileChunkRequestOptions,
+                    new ActionListenerResponseHandler<>(ActionListener.map(listener, r -> null), in -> TransportResponse.Empty.INSTANCE,
+                        ThreadPool.Names.GENERIC));
+            }
+
+            @Override
+            protected void handleError(StoreFileMetaData md, Exception e) throws Exception {
+                throw e;
+            }
+        };
+        multiFileSender.start();
+    }
+}
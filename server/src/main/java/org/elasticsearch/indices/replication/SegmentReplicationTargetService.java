@@ -0,0 +1,235 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.replication;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.recovery.MultiFileWriter;
+import org.elasticsearch.indices.recovery.RecoveryFileChunkRequest;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.indices.recovery.RecoveryState;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportRequestHandler;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs on every data node and periodically brings the started replicas of indices that use segment replication up to date
+ * with the segments that their primary refreshed: the missing files are copied under temporary names while the replica keeps
+ * serving, and the segments are then installed on the replica (see {@link IndexShard#installSegmentReplicationCommit}) without
+ * blocking its operations.
+ */
+public class SegmentReplicationTargetService extends AbstractLifecycleComponent {
+
+    private static final Logger logger = LogManager.getLogger(SegmentReplicationTargetService.class);
+
+    public static class Actions {
+        public static final String FILE_CHUNK = "internal:index/shard/segment_replication/file_chunk";
+    }
+
+    /**
+     * How often the replicas of indices that use segment replication copy the segments of their primary.
+     */
+    public static final Setting<TimeValue> SEGMENT_REPLICATION_INTERVAL_SETTING =
+        Setting.timeSetting("indices.replication.segment.interval", TimeValue.timeValueSeconds(1), TimeValue.timeValueMillis(100),
+            Property.NodeScope);
+
+    private static final String REPLICATION_PREFIX = "replication.";
+
+    private final TransportService transportService;
+    private final IndicesService indicesService;
+    private final ClusterService clusterService;
+    private final RecoverySettings recoverySettings;
+    private final TimeValue interval;
+
+    private final AtomicLong idGenerator = new AtomicLong();
+    private final Map<Long, ReplicationTarget> ongoingReplications = ConcurrentCollections.newConcurrentMap();
+    private final Set<ShardId> replicatingShards = ConcurrentCollections.newConcurrentSet();
+
+    private volatile Scheduler.Cancellable scheduledReplication;
+
+    public SegmentReplicationTargetService(Settings settings, TransportService transportService, IndicesService indicesService,
+                                           ClusterService clusterService, RecoverySettings recoverySettings) {
+        this.transportService = transportService;
+        this.indicesService = indicesService;
+        this.clusterService = clusterService;
+        this.recoverySettings = recoverySettings;
+        this.interval = SEGMENT_REPLICATION_INTERVAL_SETTING.get(settings);
+        transportService.registerRequestHandler(Actions.FILE_CHUNK, ThreadPool.Names.GENERIC, RecoveryFileChunkRequest::new,
+            new FileChunkTransportRequestHandler());
+    }
+
+    @Override
+    protected void doStart() {
+        scheduledReplication = transportService.getThreadPool().scheduleWithFixedDelay(this::replicateAll, interval,
+            ThreadPool.Names.GENERIC);
+    }
+
+    @Override
+    protected void doStop() {
+        final Scheduler.Cancellable scheduled = scheduledReplication;
+        if (scheduled != null) {
+            scheduled.cancel();
+        }
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    private void replicateAll() {
+        for (IndexService indexService : indicesService) {
+            if (indexService.getIndexSettings().isSegmentReplicationEnabled() == false) {
+                continue;
+            }
+            for (IndexShard shard : indexService) {
+                if (shard.state() == IndexShardState.STARTED && shard.isSegmentReplica()) {
+                    replicate(shard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the files of the refreshed segments of the primary that the given replica is missing and installs these segments.
+     * Does nothing if the shard is already being replicated.
+     */
+    void replicate(IndexShard shard) {
+        final ShardId shardId = shard.shardId();
+        if (replicatingShards.add(shardId) == false) {
+            return;
+        }
+        final ActionListener<Void> listener = ActionListener.runAfter(ActionListener.wrap(r -> {},
+            e -> logger.debug(() -> new ParameterizedMessage("{} segment replication failed", shardId), e)),
+            () -> replicatingShards.remove(shardId));
+        try {
+            final DiscoveryNode primaryNode = findPrimaryNode(clusterService.state(), shardId);
+            if (primaryNode == null) {
+                logger.trace("{} skipping segment replication, primary is not active", shardId);
+                listener.onResponse(null);
+                return;
+            }
+            final long primaryTerm = shard.getOperationPrimaryTerm();
+            final Store.MetadataSnapshot metadataSnapshot = shard.snapshotStoreMetadata();
+            final long replicationId = idGenerator.incrementAndGet();
+            final ReplicationTarget target = new ReplicationTarget(shard);
+            ongoingReplications.put(replicationId, target);
+            final ActionListener<Void> releasingListener = ActionListener.runAfter(listener, () -> {
+                ongoingReplications.remove(replicationId);
+                target.close();
+            });
+            transportService.sendRequest(primaryNode, SegmentReplicationSourceService.Actions.START_REPLICATION,
+                new SegmentReplicationRequest(replicationId, shardId, clusterService.localNode(), metadataSnapshot),
+                TransportRequestOptions.builder().withTimeout(recoverySettings.internalActionLongTimeout()).build(),
+                new ActionListenerResponseHandler<>(ActionListener.wrap(response -> {
+                    logger.trace("{} installing segments copied from primary on {}", shardId, primaryNode);
+                    // the index writer of the replica engine holds the write lock, but never touches the copied files
+                    shard.installSegmentReplicationCommit(primaryTerm, BytesReference.toBytes(response.segmentInfos()),
+                        response.generation(), target.writer.fileNames(), () -> target.writer.renameAllTempFiles(false));
+                    releasingListener.onResponse(null);
+                }, releasingListener::onFailure), SegmentReplicationResponse::new, ThreadPool.Names.GENERIC));
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    private static DiscoveryNode findPrimaryNode(ClusterState state, ShardId shardId) {
+        final ShardRouting primary = state.routingTable().shardRoutingTable(shardId).primaryShard();
+        if (primary == null || primary.active() == false) {
+            return null;
+        }
+        return state.nodes().get(primary.currentNodeId());
+    }
+
+    // exposed for testing
+    final int numberOfOngoingReplications() {
+        return ongoingReplications.size();
+    }
+
+    private static final class ReplicationTarget {
+        final Store store;
+        final RecoveryState.Index indexState = new RecoveryState.Index();
+        final MultiFileWriter writer;
+
+        ReplicationTarget(IndexShard shard) {
+            this.store = shard.store();
+            store.incRef();
+            this.writer = new MultiFileWriter(store, indexState, REPLICATION_PREFIX + UUIDs.randomBase64UUID() + ".", logger, () -> {});
+        }
+
+        void close() {
+            try {
+                writer.close();
+            } finally {
+                store.decRef();
+            }
+        }
+    }
+
+    class FileChunkTransportRequestHandler implements TransportRequestHandler<RecoveryFileChunkRequest> {
+
+        @Override
+        public void messageReceived(final RecoveryFileChunkRequest request, TransportChannel channel, Task task) throws Exception {
+            final ReplicationTarget target = ongoingReplications.get(request.recoveryId());
+            if (target == null || target.writer.tryIncRef() == false) {
+                throw new IllegalStateException("segment replication [" + request.recoveryId() + "] of " + request.shardId()
+                    + " is not in progress");
+            }
+            try {
+                if (request.position() == 0) {
+                    target.indexState.addFileDetail(request.name(), request.length(), false);
+                }
+                target.writer.writeFileChunk(request.metadata(), request.position(), request.content(), request.lastChunk());
+            } finally {
+                target.writer.decRef();
+            }
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.script.TemplateScript;
+
+import java.util.Map;
+
+/**
+ * A {@link TemplateScript.Factory} for property values that contain no template snippets. Rendering such a template
+ * never looks at the model, so {@link IngestDocument} resolves it without building one.
+ */
+final class ConstantTemplateScriptFactory implements TemplateScript.Factory {
+
+    private final String value;
+    // parsed on first use since most constant templates are values rather than field paths
+    private IngestDocument.FieldPath fieldPath;
+
+    ConstantTemplateScriptFactory(String value) {
+        this.value = value;
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the value parsed as a field path, parsing it only once for all the documents that the processor handles.
+     */
+    IngestDocument.FieldPath getFieldPath() {
+        IngestDocument.FieldPath fieldPath = this.fieldPath;
+        if (fieldPath == null) {
+            // field paths are immutable so racing threads at worst parse the path more than once
+            fieldPath = IngestDocument.FieldPath.of(value);
+            this.fieldPath = fieldPath;
+        }
+        return fieldPath;
+    }
+
+    @Override
+    public TemplateScript newInstance(Map<String, Object> params) {
+        return new TemplateScript(params) {
+            @Override
+            public String execute() {
+                return value;
+            }
+        };
+    }
+}
@@ -107,12 +107,23 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(String path, Class<T> clazz) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        return getFieldValue(FieldPath.of(path), clazz);
+    }
+
+    /**
+     * Returns the value contained in the document for the provided field path
+     * @param fieldPath The parsed path within the document
+     * @param clazz The expected class of the field value
+     * @return the value for the provided path if existing, null otherwise
+     * @throws IllegalArgumentException if the field doesn't exist or if the field that is found at the provided path is not
+     * of the expected type.
+     */
+    public <T> T getFieldValue(FieldPath fieldPath, Class<T> clazz) {
+        Object context = fieldPath.initialContext(this);
         for (String pathElement : fieldPath.pathElements) {
-            context = resolve(pathElement, path, context);
+            context = resolve(pathElement, fieldPath.path, context);
         }
-        return cast(path, context, clazz);
+        return cast(fieldPath.path, context, clazz);
     }
 
     /**
@@ -126,10 +137,24 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(String path, Class<T> clazz, boolean ignoreMissing) {
+        return getFieldValue(FieldPath.of(path), clazz, ignoreMissing);
+    }
+
+    /**
+     * Returns the value contained in the document for the provided field path
+     *
+     * @param fieldPath The parsed path within the document
+     * @param clazz The expected class of the field value
+     * @param ignoreMissing The flag to determine whether to throw an exception when `fieldPath` is not found in the document.
+     * @return the value for the provided path if existing, null otherwise.
+     * @throws IllegalArgumentException only if ignoreMissing is false and the field doesn't exist
+     * or if the field that is found at the provided path is not of the expected type.
+     */
+    public <T> T getFieldValue(FieldPath fieldPath, Class<T> clazz, boolean ignoreMissing) {
         try {
-            return getFieldValue(path, clazz);
+            return getFieldValue(fieldPath, clazz);
         } catch (IllegalArgumentException e) {
-            if (ignoreMissing && hasField(path) != true) {
+            if (ignoreMissing && hasField(fieldPath, false) != true) {
                 return null;
             } else {
                 throw e;
@@ -146,7 +171,7 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(TemplateScript.Factory pathTemplate, Class<T> clazz) {
-        return getFieldValue(renderTemplate(pathTemplate), clazz);
+        return getFieldValue(resolveFieldPath(pathTemplate, null), clazz);
     }
 
     /**
@@ -193,7 +218,7 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid
      */
     public boolean hasField(TemplateScript.Factory fieldPathTemplate) {
-        return hasField(renderTemplate(fieldPathTemplate));
+        return hasField(resolveFieldPath(fieldPathTemplate, null), false);
     }
 
     /**
@@ -214,8 +239,18 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public boolean hasField(String path, boolean failOutOfRange) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        return hasField(FieldPath.of(path), failOutOfRange);
+    }
+
+    /**
+     * Checks whether the document contains a value for the provided field path
+     * @param fieldPath The parsed path within the document
+     * @param failOutOfRange Whether to throw an IllegalArgumentException if array is accessed outside of its range
+     * @return true if the document contains a value for the field, false otherwise
+     */
+    public boolean hasField(FieldPath fieldPath, boolean failOutOfRange) {
+        final String path = fieldPath.path;
+        Object context = fieldPath.initialContext(this);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             String pathElement = fieldPath.pathElements[i];
             if (context == null) {
@@ -282,7 +317,7 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty, invalid or if the field doesn't exist.
      */
     public void removeField(TemplateScript.Factory fieldPathTemplate) {
-        removeField(renderTemplate(fieldPathTemplate));
+        removeField(resolveFieldPath(fieldPathTemplate, null));
     }
 
     /**
@@ -291,8 +326,17 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty, invalid or if the field doesn't exist.
      */
     public void removeField(String path) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        removeField(FieldPath.of(path));
+    }
+
+    /**
+     * Removes the field identified by the provided field path.
+     * @param fieldPath the parsed path of the field to be removed
+     * @throws IllegalArgumentException if the field doesn't exist.
+     */
+    public void removeField(FieldPath fieldPath) {
+        final String path = fieldPath.path;
+        Object context = fieldPath.initialContext(this);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             context = resolve(fieldPath.pathElements[i], path, context);
         }
@@ -377,7 +421,16 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public void appendFieldValue(String path, Object value) {
-        setFieldValue(path, value, true);
+        setFieldValue(FieldPath.of(path), value, true);
+    }
+
+    /**
+     * Appends the provided value to the provided field path in the document, see {@link #appendFieldValue(String, Object)}.
+     * @param fieldPath The parsed path within the document
+     * @param value The value or values to append to the existing ones
+     */
+    public void appendFieldValue(FieldPath fieldPath, Object value) {
+        setFieldValue(fieldPath, value, true);
     }
 
     /**
@@ -393,8 +446,8 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public void appendFieldValue(TemplateScript.Factory fieldPathTemplate, ValueSource valueSource) {
-        Map<String, Object> model = createTemplateModel();
-        appendFieldValue(fieldPathTemplate.newInstance(model).execute(), valueSource.copyAndResolve(model));
+        Map<String, Object> model = valueSource.isTemplated() ? createTemplateModel() : null;
+        setFieldValue(resolveFieldPath(fieldPathTemplate, model), valueSource.copyAndResolve(model), true);
     }
 
     /**
@@ -408,7 +461,17 @@ public final class IngestDocument {
      * item identified by the provided path.
      */
     public void setFieldValue(String path, Object value) {
-        setFieldValue(path, value, false);
+        setFieldValue(FieldPath.of(path), value, false);
+    }
+
+    /**
+     * Sets the provided value to the provided field path in the document, see {@link #setFieldValue(String, Object)}.
+     * @param fieldPath The parsed path within the document
+     * @param value The value to put in for the path key
+     * @throws IllegalArgumentException if the value cannot be set to the item identified by the provided path.
+     */
+    public void setFieldValue(FieldPath fieldPath, Object value) {
+        setFieldValue(fieldPath, value, false);
     }
 
     /**
@@ -421,13 +484,13 @@ public final class IngestDocument {
      * item identified by the provided path.
      */
     public void setFieldValue(TemplateScript.Factory fieldPathTemplate, ValueSource valueSource) {
-        Map<String, Object> model = createTemplateModel();
-        setFieldValue(fieldPathTemplate.newInstance(model).execute(), valueSource.copyAndResolve(model), false);
+        Map<String, Object> model = valueSource.isTemplated() ? createTemplateModel() : null;
+        setFieldValue(resolveFieldPath(fieldPathTemplate, model), valueSource.copyAndResolve(model), false);
     }
 
-    private void setFieldValue(String path, Object value, boolean append) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+    private void setFieldValue(FieldPath fieldPath, Object value, boolean append) {
+        final String path = fieldPath.path;
+        Object context = fieldPath.initialContext(this);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             String pathElement = fieldPath.pathElements[i];
             if (context == null) {
@@ -550,7 +613,28 @@ public final class IngestDocument {
     }
 
     public String renderTemplate(TemplateScript.Factory template) {
-        return template.newInstance(createTemplateModel()).execute();
+        return renderTemplate(template, null);
+    }
+
+    /**
+     * Renders the template with the given model, creating the model only if the template actually needs one.
+     */
+    private String renderTemplate(TemplateScript.Factory template, Map<String, Object> model) {
+        if (template instanceof ConstantTemplateScriptFactory) {
+            return ((ConstantTemplateScriptFactory) template).getValue();
+        }
+        return template.newInstance(model == null ? createTemplateModel() : model).execute();
+    }
+
+    /**
+     * Returns the field path of the given path template. Constant templates parse their path once and share it between
+     * documents, other templates are rendered and parsed for every document.
+     */
+    private FieldPath resolveFieldPath(TemplateScript.Factory fieldPathTemplate, Map<String, Object> model) {
+        if (fieldPathTemplate instanceof ConstantTemplateScriptFactory) {
+            return ((ConstantTemplateScriptFactory) fieldPathTemplate).getFieldPath();
+        }
+        return FieldPath.of(renderTemplate(fieldPathTemplate, model));
     }
 
     private Map<String, Object> createTemplateModel() {
@@ -713,21 +797,35 @@ public final class IngestDocument {
         }
     }
 
-    private class FieldPath {
+    /**
+     * A parsed field path. Field paths only depend on the path string, so processors with a constant field name parse
+     * it once when they are created and reuse it for every document.
+     */
+    public static final class FieldPath {
 
+        private final String path;
         private final String[] pathElements;
-        private final Object initialContext;
+        private final boolean ingestMetadata;
 
-        private FieldPath(String path) {
+        /**
+         * Parses the provided path in dot-notation.
+         * @throws IllegalArgumentException if the path is null, empty or invalid.
+         */
+        public static FieldPath of(String path) {
             if (Strings.isEmpty(path)) {
                 throw new IllegalArgumentException("path cannot be null nor empty");
             }
+            return new FieldPath(path);
+        }
+
+        private FieldPath(String path) {
+            this.path = path;
             String newPath;
             if (path.startsWith(INGEST_KEY_PREFIX)) {
-                initialContext = ingestMetadata;
+                ingestMetadata = true;
                 newPath = path.substring(INGEST_KEY_PREFIX.length(), path.length());
             } else {
-                initialContext = sourceAndMetadata;
+                ingestMetadata = false;
                 if (path.startsWith(SOURCE_PREFIX)) {
                     newPath = path.substring(SOURCE_PREFIX.length(), path.length());
                 } else {
@@ -740,5 +838,13 @@ public final class IngestDocument {
             }
         }
 
+        Object initialContext(IngestDocument document) {
+            return ingestMetadata ? document.ingestMetadata : document.sourceAndMetadata;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
     }
 }
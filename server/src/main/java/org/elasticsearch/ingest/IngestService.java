@@ -41,6 +41,7 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -75,6 +76,16 @@ public class IngestService implements ClusterStateApplier {
 
     public static final String NOOP_PIPELINE_NAME = "_none";
 
+    /**
+     * The maximum number of write threads that the items of a single bulk request are processed on. The default of {@code 1}
+     * processes all items of a bulk request sequentially on one thread.
+     */
+    public static final Setting<Integer> BULK_MAX_PARALLELISM_SETTING =
+        Setting.intSetting("ingest.bulk.max_parallelism", 1, 1, Setting.Property.NodeScope);
+
+    // splitting a bulk request only pays off if every partition has enough work to outweigh the cost of forking
+    static final int MIN_ITEMS_PER_PARTITION = 32;
+
     private static final Logger logger = LogManager.getLogger(IngestService.class);
 
     private final ClusterService clusterService;
@@ -88,6 +99,7 @@ public class IngestService implements ClusterStateApplier {
     private final ThreadPool threadPool;
     private final IngestMetric totalMetrics = new IngestMetric();
     private final List<Consumer<ClusterState>> ingestClusterStateListeners = new CopyOnWriteArrayList<>();
+    private final int bulkMaxParallelism;
 
     public IngestService(ClusterService clusterService, ThreadPool threadPool,
                          Environment env, ScriptService scriptService, AnalysisRegistry analysisRegistry,
@@ -106,6 +118,7 @@ public class IngestService implements ClusterStateApplier {
         );
 
         this.threadPool = threadPool;
+        this.bulkMaxParallelism = BULK_MAX_PARALLELISM_SETTING.get(clusterService.getSettings());
     }
 
     private static Map<String, Processor.Factory> processorFactories(List<IngestPlugin> ingestPlugins,
@@ -349,6 +362,7 @@ public class IngestService implements ClusterStateApplier {
             protected void doRun() {
                 final Thread originalThread = Thread.currentThread();
                 final AtomicInteger counter = new AtomicInteger(numberOfActionRequests);
+                final List<Runnable> items = new ArrayList<>();
                 int i = 0;
                 for (DocWriteRequest<?> actionRequest : actionRequests) {
                     IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(actionRequest);
@@ -380,14 +394,53 @@ public class IngestService implements ClusterStateApplier {
                         continue;
                     }
 
-                    executePipelines(i, pipelines.iterator(), indexRequest, onDropped, onFailure, counter, onCompletion, originalThread);
+                    final int slot = i;
+                    items.add(() -> executePipelines(slot, pipelines.iterator(), indexRequest, onDropped, onFailure, counter,
+                        onCompletion, originalThread));
 
                     i++;
                 }
+                executeItems(items, onCompletion);
             }
         });
     }
 
+    /**
+     * Runs the pipelines of the given bulk items. Large bulks are split into contiguous partitions that are processed on
+     * separate write threads, up to {@link #BULK_MAX_PARALLELISM_SETTING} of them including the current thread. Results
+     * are reported per slot, so the order in which items complete does not affect the bulk response.
+     */
+    private void executeItems(List<Runnable> items, BiConsumer<Thread, Exception> onCompletion) {
+        final int partitions = Math.min(bulkMaxParallelism, items.size() / MIN_ITEMS_PER_PARTITION);
+        if (partitions <= 1) {
+            items.forEach(Runnable::run);
+            return;
+        }
+        for (int partition = 1; partition < partitions; partition++) {
+            final List<Runnable> partitionItems =
+                items.subList(partition * items.size() / partitions, (partition + 1) * items.size() / partitions);
+            threadPool.executor(ThreadPool.Names.WRITE).execute(new AbstractRunnable() {
+
+                @Override
+                public void onFailure(Exception e) {
+                    onCompletion.accept(null, e);
+                }
+
+                @Override
+                public void onRejection(Exception e) {
+                    // the write pool is saturated, so process this partition on the current thread like a sequential bulk would
+                    partitionItems.forEach(Runnable::run);
+                }
+
+                @Override
+                protected void doRun() {
+                    partitionItems.forEach(Runnable::run);
+                }
+            });
+        }
+        items.subList(0, items.size() / partitions).forEach(Runnable::run);
+    }
+
     private void executePipelines(
         final int slot,
         final Iterator<String> it,
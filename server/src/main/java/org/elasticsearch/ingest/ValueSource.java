@@ -49,6 +49,14 @@ public interface ValueSource {
      */
     Object copyAndResolve(Map<String, Object> model);
 
+    /**
+     * Returns whether {@link #copyAndResolve(Map)} needs a template model. Value sources that return {@code false}
+     * may be resolved with a {@code null} model.
+     */
+    default boolean isTemplated() {
+        return true;
+    }
+
     static ValueSource wrap(Object value, ScriptService scriptService) {
 
         if (value instanceof Map) {
@@ -89,9 +97,16 @@ public interface ValueSource {
     final class MapValue implements ValueSource {
 
         private final Map<ValueSource, ValueSource> map;
+        private final boolean templated;
 
         MapValue(Map<ValueSource, ValueSource> map) {
             this.map = map;
+            this.templated = map.entrySet().stream().anyMatch(e -> e.getKey().isTemplated() || e.getValue().isTemplated());
+        }
+
+        @Override
+        public boolean isTemplated() {
+            return templated;
         }
 
         @Override
@@ -122,9 +137,16 @@ public interface ValueSource {
     final class ListValue implements ValueSource {
 
         private final List<ValueSource> values;
+        private final boolean templated;
 
         ListValue(List<ValueSource> values) {
             this.values = values;
+            this.templated = values.stream().anyMatch(ValueSource::isTemplated);
+        }
+
+        @Override
+        public boolean isTemplated() {
+            return templated;
         }
 
         @Override
@@ -160,6 +182,11 @@ public interface ValueSource {
             this.value = value;
         }
 
+        @Override
+        public boolean isTemplated() {
+            return false;
+        }
+
         @Override
         public Object copyAndResolve(Map<String, Object> model) {
             return value;
@@ -188,6 +215,11 @@ public interface ValueSource {
             this.value = value;
         }
 
+        @Override
+        public boolean isTemplated() {
+            return false;
+        }
+
         @Override
         public Object copyAndResolve(Map<String, Object> model) {
             return value;
@@ -31,6 +31,8 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.settings.SettingsFilter;
 import org.elasticsearch.discovery.Discovery;
+import org.elasticsearch.discovery.DiscoveryStats;
+import org.elasticsearch.gateway.PersistedClusterStateService;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -61,19 +63,22 @@ public class NodeService implements Closeable {
     private final SearchTransportService searchTransportService;
 
     private final Discovery discovery;
+    private final ClusterService clusterService;
+    private final PersistedClusterStateService persistedClusterStateService;
 
     NodeService(Settings settings, ThreadPool threadPool, MonitorService monitorService, Discovery discovery,
                 TransportService transportService, IndicesService indicesService, PluginsService pluginService,
                 CircuitBreakerService circuitBreakerService, ScriptService scriptService,
                 @Nullable HttpServerTransport httpServerTransport, IngestService ingestService, ClusterService clusterService,
                 SettingsFilter settingsFilter, ResponseCollectorService responseCollectorService,
-                SearchTransportService searchTransportService) {
+                SearchTransportService searchTransportService, PersistedClusterStateService persistedClusterStateService) {
         this.settings = settings;
         this.threadPool = threadPool;
         this.monitorService = monitorService;
         this.transportService = transportService;
         this.indicesService = indicesService;
         this.discovery = discovery;
+        this.clusterService = clusterService;
         this.pluginService = pluginService;
         this.circuitBreakerService = circuitBreakerService;
         this.httpServerTransport = httpServerTransport;
@@ -82,6 +87,7 @@ public class NodeService implements Closeable {
         this.scriptService = scriptService;
         this.responseCollectorService = responseCollectorService;
         this.searchTransportService = searchTransportService;
+        this.persistedClusterStateService = persistedClusterStateService;
         clusterService.addStateApplier(ingestService);
     }
 
@@ -117,12 +123,18 @@ public class NodeService implements Closeable {
                 http ? (httpServerTransport == null ? null : httpServerTransport.stats()) : null,
                 circuitBreaker ? circuitBreakerService.stats() : null,
                 script ? scriptService.stats() : null,
-                discoveryStats ? discovery.stats() : null,
+                discoveryStats ? discoveryStats() : null,
                 ingest ? ingestService.stats() : null,
                 adaptiveSelection ? responseCollectorService.getAdaptiveStats(searchTransportService.getPendingSearchRequests()) : null
         );
     }
 
+    private DiscoveryStats discoveryStats() {
+        final DiscoveryStats discoveryStats = discovery.stats();
+        return new DiscoveryStats(discoveryStats.getQueueStats(), discoveryStats.getPublishStats(), persistedClusterStateService.stats(),
+            clusterService.getClusterApplierService().stats());
+    }
+
     public IngestService getIngestService() {
         return ingestService;
     }
@@ -18,7 +18,9 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.search.Queries;
@@ -33,6 +35,7 @@ import org.elasticsearch.search.query.QueryPhaseExecutionException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -60,8 +63,7 @@ public class AggregationPhase implements SearchPhase {
                 }
                 context.aggregations().aggregators(aggregators);
                 if (!collectors.isEmpty()) {
-                    Collector collector = MultiBucketCollector.wrap(collectors);
-                    ((BucketCollector)collector).preCollection();
+                    Collector collector = createBucketCollector(context, collectors);
                     if (context.getProfilers() != null) {
                         collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
                                 // TODO: report on child aggs as well
@@ -75,6 +77,58 @@ public class AggregationPhase implements SearchPhase {
         }
     }
 
+    private static BucketCollector createBucketCollector(SearchContext context, List<Aggregator> collectors) throws IOException {
+        BucketCollector bucketCollector = MultiBucketCollector.wrap(collectors);
+        if (context.getProfilers() == null && bucketCollector.scoreMode().needsScores() == false) {
+            // collect top-level documents in blocks so that aggregators can amortize per-document work
+            bucketCollector = new BatchingBucketCollector(bucketCollector);
+        }
+        bucketCollector.preCollection();
+        return bucketCollector;
+    }
+
+    /**
+     * Returns a {@link CollectorManager} that collects each slice of segments with its own top level aggregators, or
+     * {@code null} if the aggregations of the given context cannot be collected concurrently. The first slice is collected
+     * by the aggregators created in {@link #preProcess(SearchContext)}, and {@link #execute(SearchContext)} merges the
+     * aggregations of all slices with a partial reduce.
+     */
+    public static CollectorManager<Collector, Void> createCollectorManager(SearchContext context) {
+        final Collector firstCollector = context.queryCollectors().get(AggregationPhase.class);
+        if (firstCollector == null || context.getProfilers() != null
+                || context.aggregations().factories().supportsConcurrentCollection() == false) {
+            return null;
+        }
+        return new CollectorManager<>() {
+            private boolean firstCollectorUsed;
+
+            @Override
+            public Collector newCollector() throws IOException {
+                // collectors are all created by the searching thread before the slices are forked
+                if (firstCollectorUsed == false) {
+                    firstCollectorUsed = true;
+                    return firstCollector;
+                }
+                final Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators(context);
+                final List<Aggregator> collectors = new ArrayList<>(aggregators.length);
+                for (Aggregator aggregator : aggregators) {
+                    if (aggregator instanceof GlobalAggregator == false) {
+                        collectors.add(aggregator);
+                    }
+                }
+                final Collector collector = createBucketCollector(context, collectors);
+                context.aggregations().addSliceAggregators(aggregators, collector);
+                return collector;
+            }
+
+            @Override
+            public Void reduce(Collection<Collector> collectors) {
+                // the aggregations of all slices are built and reduced by execute
+                return null;
+            }
+        };
+    }
+
     @Override
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
@@ -87,6 +141,11 @@ public class AggregationPhase implements SearchPhase {
             return;
         }
 
+        flush(context.queryCollectors().get(AggregationPhase.class));
+        for (Collector sliceCollector : context.aggregations().sliceCollectors()) {
+            flush(sliceCollector);
+        }
+
         Aggregator[] aggregators = context.aggregations().aggregators();
         List<Aggregator> globals = new ArrayList<>();
         for (int i = 0; i < aggregators.length; i++) {
@@ -143,11 +202,59 @@ public class AggregationPhase implements SearchPhase {
                     + "allowed at the top level");
             }
         }
-        context.queryResult().aggregations(new InternalAggregations(aggregations, siblingPipelineAggregators));
+        InternalAggregations internalAggregations = new InternalAggregations(aggregations, siblingPipelineAggregators);
+        if (context.aggregations().sliceAggregators().isEmpty() == false) {
+            internalAggregations = reduceSlices(context, internalAggregations);
+        }
+        context.queryResult().aggregations(internalAggregations);
 
         // disable aggregations so that they don't run on next pages in case of scrolling
         context.aggregations(null);
         context.queryCollectors().remove(AggregationPhase.class);
     }
 
+    private static void flush(Collector collector) {
+        if (collector instanceof BatchingBucketCollector) {
+            try {
+                ((BatchingBucketCollector) collector).flush();
+            } catch (CollectionTerminatedException e) {
+                // the aggregators are done with the last segment
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect the last block of documents", e);
+            }
+        }
+    }
+
+    /**
+     * Merges the given aggregations of the first slice of segments with the aggregations of the slices that were collected
+     * concurrently. This is a partial reduce, like the ones of the coordinating node, the final reduce runs on the coordinating
+     * node once the results of all shards are available.
+     */
+    private static InternalAggregations reduceSlices(SearchContext context, InternalAggregations firstSlice) {
+        final List<InternalAggregations> slices = new ArrayList<>(context.aggregations().sliceAggregators().size() + 1);
+        slices.add(firstSlice);
+        for (Aggregator[] aggregators : context.aggregations().sliceAggregators()) {
+            // like the aggregations of a shard, the aggregations of each slice are checked against the bucket limit on their own
+            context.aggregations().resetBucketMultiConsumer();
+            final List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+            for (Aggregator aggregator : aggregators) {
+                if (aggregator instanceof GlobalAggregator) {
+                    // global aggregations are collected once, by the aggregators of the first slice
+                    continue;
+                }
+                try {
+                    aggregator.postCollection();
+                    aggregations.add(aggregator.buildAggregation(0));
+                } catch (IOException e) {
+                    throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+                }
+            }
+            slices.add(new InternalAggregations(aggregations));
+        }
+        context.aggregations().resetBucketMultiConsumer();
+        // scripts only run in the final reduce, so no script service is needed
+        final InternalAggregation.ReduceContext reduceContext =
+            new InternalAggregation.ReduceContext(context.bigArrays(), null, context.aggregations().multiBucketConsumer(), false);
+        return InternalAggregations.reduce(slices, reduceContext);
+    }
 }
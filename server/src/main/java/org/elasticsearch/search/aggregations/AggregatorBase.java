@@ -18,8 +18,19 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.FutureArrays;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -261,6 +272,103 @@ public abstract class AggregatorBase extends Aggregator {
     protected void doPostCollection() throws IOException {
     }
 
+    /**
+     * Returns <code>true</code> if this is a top-level aggregator and the query of the request matches all live documents
+     * of the segment. In that case aggregators can compute the result of the segment from index statistics such as
+     * {@link PointValues} or terms statistics instead of collecting every document.
+     */
+    protected final boolean isLeafFullyMatched(LeafReaderContext ctx) throws IOException {
+        return parent == null && matchesAllDocs(context.query(), ctx.reader());
+    }
+
+    /**
+     * Returns <code>true</code> if <code>query</code> is made of clauses that {@link #matchesAllDocs(Query, LeafReader)}
+     * can resolve, that is a match_all query or a conjunction of ranges over points.
+     */
+    public static boolean mayMatchAllDocs(Query query) {
+        query = unwrapQuery(query);
+        if (query == null || query.getClass() == MatchAllDocsQuery.class) {
+            return true;
+        } else if (query instanceof PointRangeQuery) {
+            return true;
+        } else if (query instanceof BooleanQuery) {
+            BooleanQuery booleanQuery = (BooleanQuery) query;
+            if (booleanQuery.clauses().isEmpty()) {
+                return false;
+            }
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                if (clause.isRequired() == false || mayMatchAllDocs(clause.getQuery()) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if <code>query</code> matches all live documents of <code>reader</code>. This check
+     * only looks at the metadata of the segment so it may return <code>false</code> for queries that actually match
+     * all documents.
+     */
+    public static boolean matchesAllDocs(Query query, LeafReader reader) throws IOException {
+        query = unwrapQuery(query);
+        if (query == null || query.getClass() == MatchAllDocsQuery.class) {
+            return true;
+        } else if (query instanceof PointRangeQuery) {
+            return rangeMatchesAllDocs((PointRangeQuery) query, reader);
+        } else if (query instanceof BooleanQuery) {
+            BooleanQuery booleanQuery = (BooleanQuery) query;
+            if (booleanQuery.clauses().isEmpty()) {
+                return false;
+            }
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                if (clause.isRequired() == false || matchesAllDocs(clause.getQuery(), reader) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean rangeMatchesAllDocs(PointRangeQuery query, LeafReader reader) throws IOException {
+        final PointValues values = reader.getPointValues(query.getField());
+        if (values == null || values.getDocCount() != reader.maxDoc()) {
+            // some documents have no value for the field
+            return false;
+        }
+        final int numDims = query.getNumDims();
+        final int bytesPerDim = query.getBytesPerDim();
+        if (values.getNumIndexDimensions() != numDims || values.getBytesPerDimension() != bytesPerDim) {
+            return false;
+        }
+        final byte[] minPackedValue = values.getMinPackedValue();
+        final byte[] maxPackedValue = values.getMaxPackedValue();
+        final byte[] lowerPoint = query.getLowerPoint();
+        final byte[] upperPoint = query.getUpperPoint();
+        for (int dim = 0; dim < numDims; dim++) {
+            int offset = dim * bytesPerDim;
+            if (FutureArrays.compareUnsigned(minPackedValue, offset, offset + bytesPerDim, lowerPoint, offset, offset + bytesPerDim) < 0
+                    || FutureArrays.compareUnsigned(maxPackedValue, offset, offset + bytesPerDim,
+                        upperPoint, offset, offset + bytesPerDim) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Query unwrapQuery(Query query) {
+        if (query instanceof BoostQuery) {
+            return unwrapQuery(((BoostQuery) query).getQuery());
+        } else if (query instanceof IndexOrDocValuesQuery) {
+            return unwrapQuery(((IndexOrDocValuesQuery) query).getIndexQuery());
+        } else if (query instanceof ConstantScoreQuery) {
+            return unwrapQuery(((ConstantScoreQuery) query).getQuery());
+        }
+        return query;
+    }
+
     protected final InternalAggregations buildEmptySubAggregations() {
         List<InternalAggregation> aggs = new ArrayList<>();
         for (Aggregator aggregator : subAggregators) {
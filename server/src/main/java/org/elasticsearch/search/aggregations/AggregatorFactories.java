@@ -29,6 +29,7 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregatorFactory;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
@@ -210,6 +211,23 @@ public class AggregatorFactories {
         return aggregators;
     }
 
+    /**
+     * Returns whether all the aggregators created by these factories and their sub-factories can collect slices of segments
+     * concurrently, see {@link AggregatorFactory#supportsConcurrentCollection()}. Global aggregations are ignored since they are
+     * collected separately, on all the documents of the shard.
+     */
+    public boolean supportsConcurrentCollection() {
+        for (AggregatorFactory factory : factories) {
+            if (factory instanceof GlobalAggregatorFactory) {
+                continue;
+            }
+            if (factory.supportsConcurrentCollection() == false || factory.factories.supportsConcurrentCollection() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the number of sub-aggregator factories not including pipeline
      *         aggregator factories
@@ -198,6 +198,17 @@ public abstract class AggregatorFactory {
     public void doValidate() {
     }
 
+    /**
+     * Returns whether the aggregators of this factory can collect slices of the segments of a shard concurrently, each slice with
+     * its own aggregators whose results are then merged with a partial reduce. This requires that the aggregators of different
+     * slices share no mutable state, and that the partial reduce of their results matches the result of a single aggregator.
+     * Aggregations on scripts must not support it since scripts read documents through the lookup of the search context, which
+     * all slices share.
+     */
+    public boolean supportsConcurrentCollection() {
+        return false;
+    }
+
     protected abstract Aggregator createInternal(SearchContext searchContext,
                                                     Aggregator parent,
                                                     boolean collectsFromSingleBucket,
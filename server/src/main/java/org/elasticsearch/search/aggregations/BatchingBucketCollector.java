@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} that buffers the documents collected in the top-level bucket and hands them to the
+ * wrapped collector in blocks through {@link LeafBucketCollector#collect(int[], int, long)}. This lets aggregators
+ * amortize the per-document overhead of reading doc values and resolving buckets.
+ * <p>
+ * Documents are buffered per segment and the buffer is flushed when it is full, before moving to the next segment
+ * and when {@link #flush()} is called. Since scores are not buffered, this collector must only wrap collectors that
+ * don't need scores.
+ */
+public class BatchingBucketCollector extends BucketCollector {
+
+    static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final BucketCollector in;
+    private final int[] docs;
+    private LeafBucketCollector leaf;
+    private int count;
+
+    public BatchingBucketCollector(BucketCollector in) {
+        this(in, DEFAULT_BLOCK_SIZE);
+    }
+
+    BatchingBucketCollector(BucketCollector in, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("[blockSize] must be greater than 0, got " + blockSize);
+        }
+        this.in = in;
+        this.docs = new int[blockSize];
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return in.scoreMode();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        in.preCollection();
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // the buffered documents must be collected before the wrapped collector moves to the next segment
+        try {
+            flush();
+        } catch (CollectionTerminatedException e) {
+            // the previous segment is done, this doesn't affect the next one
+        }
+        final LeafBucketCollector sub = in.getLeafCollector(ctx);
+        leaf = sub;
+        return new LeafBucketCollector() {
+            @Override
+            public void setScorer(Scorable scorer) throws IOException {
+                sub.setScorer(scorer);
+            }
+
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                if (bucket != 0) {
+                    flush();
+                    sub.collect(doc, bucket);
+                    return;
+                }
+                docs[count++] = doc;
+                if (count == docs.length) {
+                    flush();
+                }
+            }
+        };
+    }
+
+    /**
+     * Collects the buffered documents into the wrapped collector.
+     */
+    public void flush() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        final int size = count;
+        count = 0;
+        try {
+            leaf.collect(docs, size, 0);
+        } catch (CollectionTerminatedException e) {
+            // stop buffering documents for a segment that the wrapped collector is done with
+            leaf = LeafBucketCollector.NO_OP_COLLECTOR;
+            throw e;
+        }
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        try {
+            flush();
+        } catch (CollectionTerminatedException e) {
+            // nothing left to collect
+        }
+        in.postCollection();
+    }
+
+    @Override
+    public String toString() {
+        return "batching(" + in + ")";
+    }
+}
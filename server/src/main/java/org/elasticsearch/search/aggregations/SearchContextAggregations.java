@@ -18,6 +18,11 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.search.Collector;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 
 /**
@@ -28,6 +33,8 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final MultiBucketConsumer multiBucketConsumer;
     private Aggregator[] aggregators;
+    private final List<Aggregator[]> sliceAggregators = new ArrayList<>();
+    private final List<Collector> sliceCollectors = new ArrayList<>();
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -54,6 +61,30 @@ public class SearchContextAggregations {
         this.aggregators = aggregators;
     }
 
+    /**
+     * Registers the top level aggregators that collect a slice of segments concurrently with the other slices, and the
+     * collector that wraps them.
+     */
+    public void addSliceAggregators(Aggregator[] aggregators, Collector collector) {
+        sliceAggregators.add(aggregators);
+        sliceCollectors.add(collector);
+    }
+
+    /**
+     * Returns the top level aggregators of the slices of segments that were collected concurrently, besides the ones
+     * returned by {@link #aggregators()}.
+     */
+    public List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
+
+    /**
+     * Returns the collectors of the aggregators returned by {@link #sliceAggregators()}, in the same order.
+     */
+    public List<Collector> sliceCollectors() {
+        return sliceCollectors;
+    }
+
     /**
      * Returns a consumer for multi bucket aggregation that checks the total number of buckets
      * created in the response
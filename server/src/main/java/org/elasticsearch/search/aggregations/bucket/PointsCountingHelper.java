@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.elasticsearch.common.time.DateUtils;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Helpers for bucket aggregators that count the documents of a segment per bucket by visiting the points of
+ * the field instead of collecting every document (filter-by-filter execution).
+ */
+public final class PointsCountingHelper {
+
+    private PointsCountingHelper() {}
+
+    /**
+     * Returns a converter for the points of the field of <code>config</code> or <code>null</code> if the values of the
+     * aggregation cannot be read from the points of the field.
+     */
+    public static Function<byte[], Number> getPointConverterOrNull(ValuesSourceConfig<? extends ValuesSource> config) {
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType == null || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            return ((NumberFieldMapper.NumberFieldType) fieldType)::parsePoint;
+        } else if (fieldType.getClass() == DateFieldMapper.DateFieldType.class) {
+            if (((DateFieldMapper.DateFieldType) fieldType).resolution() == DateFieldMapper.Resolution.NANOSECONDS) {
+                // date_nanos values are aggregated in milliseconds, see SortedNumericDVIndexFieldData.NanoSecondFieldData
+                return (in) -> DateUtils.toMilliSeconds(LongPoint.decodeDimension(in, 0));
+            }
+            return (in) -> LongPoint.decodeDimension(in, 0);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the points of <code>field</code> in the segment if counting them is equivalent to counting documents,
+     * that is if the segment has no deletions and every document has at most one value, or <code>null</code> otherwise.
+     */
+    public static PointValues getSingleValuedPointsOrNull(LeafReader reader, String field) throws IOException {
+        if (reader.hasDeletions()) {
+            return null;
+        }
+        PointValues values = reader.getPointValues(field);
+        if (values == null || values.getNumIndexDimensions() != 1 || values.size() != values.getDocCount()) {
+            return null;
+        }
+        return values;
+    }
+}
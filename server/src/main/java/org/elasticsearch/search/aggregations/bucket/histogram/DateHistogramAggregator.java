@@ -19,7 +19,9 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Nullable;
@@ -35,6 +37,7 @@ import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointsCountingHelper;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -44,6 +47,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * An aggregator for date values. Every date is rounded down using a configured
@@ -53,6 +57,12 @@ import java.util.Map;
  */
 class DateHistogramAggregator extends BucketsAggregator {
 
+    /**
+     * Counting from points visits every boundary between buckets of a segment, which costs about one leaf block
+     * of points. Beyond one bucket per this number of documents we collect documents instead.
+     */
+    static final int MIN_DOCS_PER_BUCKET_FOR_POINTS = 512;
+
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
@@ -66,11 +76,15 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final LongHash bucketOrds;
     private long offset;
 
+    private final String pointField;
+    private final Function<byte[], Number> pointConverter;
+
     DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding shardRounding,
             long offset, BucketOrder order, boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
-            DocValueFormat formatter, SearchContext aggregationContext,
-            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            DocValueFormat formatter, @Nullable String pointField, @Nullable Function<byte[], Number> pointConverter,
+            SearchContext aggregationContext, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, aggregationContext, parent, pipelineAggregators, metaData);
         this.rounding = rounding;
@@ -82,6 +96,8 @@ class DateHistogramAggregator extends BucketsAggregator {
         this.extendedBounds = extendedBounds;
         this.valuesSource = valuesSource;
         this.formatter = formatter;
+        this.pointField = pointField;
+        this.pointConverter = pointConverter;
 
         bucketOrds = new LongHash(1, aggregationContext.bigArrays());
     }
@@ -100,6 +116,10 @@ class DateHistogramAggregator extends BucketsAggregator {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (countFromPoints(ctx)) {
+            // the buckets of this segment have been counted from its points, we don't need to collect hits on this segment.
+            throw new CollectionTerminatedException();
+        }
         final SortedNumericDocValues values = valuesSource.longValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -129,9 +149,139 @@ class DateHistogramAggregator extends BucketsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                assert bucket == 0;
+                // Documents of a block tend to fall into the same bucket, so we remember the range of values
+                // covered by the last rounded key and its ordinal to skip both the rounding and the hash lookup.
+                long lastRounded = Long.MIN_VALUE;
+                long lastRangeStart = Long.MAX_VALUE;
+                long lastRangeEnd = Long.MIN_VALUE;
+                long lastBucketOrd = -1;
+                for (int d = 0; d < count; d++) {
+                    final int doc = docs[d];
+                    if (values.advanceExact(doc) == false) {
+                        continue;
+                    }
+                    final int valuesCount = values.docValueCount();
+                    long previousRounded = Long.MIN_VALUE;
+                    for (int i = 0; i < valuesCount; ++i) {
+                        long value = values.nextValue() - offset;
+                        final long rounded;
+                        if (value >= lastRangeStart && value < lastRangeEnd) {
+                            rounded = lastRounded;
+                        } else {
+                            rounded = shardRounding.round(value) + offset;
+                        }
+                        assert rounded >= previousRounded;
+                        if (rounded == previousRounded) {
+                            continue;
+                        }
+                        if (rounded == lastRounded && lastBucketOrd >= 0) {
+                            collectExistingBucket(sub, doc, lastBucketOrd);
+                        } else {
+                            long bucketOrd = bucketOrds.add(rounded);
+                            if (bucketOrd < 0) { // already seen
+                                bucketOrd = -1 - bucketOrd;
+                                collectExistingBucket(sub, doc, bucketOrd);
+                            } else {
+                                collectBucket(sub, doc, bucketOrd);
+                            }
+                            lastRounded = rounded;
+                            lastRangeStart = rounded - offset;
+                            lastRangeEnd = shardRounding.nextRoundingValue(lastRangeStart);
+                            lastBucketOrd = bucketOrd;
+                        }
+                        previousRounded = rounded;
+                    }
+                }
+            }
         };
     }
 
+    /**
+     * Counts the documents of the segment per bucket from the points of the field if the query matches all documents
+     * of the segment and no sub-aggregation needs to collect them.
+     *
+     * @return <code>true</code> if the documents have been counted, <code>false</code> if they need to be collected
+     */
+    private boolean countFromPoints(LeafReaderContext ctx) throws IOException {
+        if (pointConverter == null || subAggregators.length > 0 || isLeafFullyMatched(ctx) == false) {
+            return false;
+        }
+        final PointValues points = PointsCountingHelper.getSingleValuedPointsOrNull(ctx.reader(), pointField);
+        if (points == null) {
+            return false;
+        }
+        final long maxBuckets = Math.max(1, ctx.reader().maxDoc() / MIN_DOCS_PER_BUCKET_FOR_POINTS);
+        final long min = pointConverter.apply(points.getMinPackedValue()).longValue() - offset;
+        final long max = pointConverter.apply(points.getMaxPackedValue()).longValue() - offset;
+        long numBuckets = 1;
+        for (long key = shardRounding.round(min); (key = shardRounding.nextRoundingValue(key)) <= max; ) {
+            if (++numBuckets > maxBuckets) {
+                return false;
+            }
+        }
+        PointsBucketCounter counter = new PointsBucketCounter();
+        points.intersect(counter);
+        counter.flush();
+        return true;
+    }
+
+    /**
+     * Counts points per rounded key. Cells whose values all round to the same key are counted without decoding their points.
+     */
+    private class PointsBucketCounter implements PointValues.IntersectVisitor {
+        private long cellKey;
+        private long key;
+        private int count = 0;
+
+        @Override
+        public void visit(int docID) throws IOException {
+            increment(cellKey);
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) throws IOException {
+            increment(round(packedValue));
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            long minKey = round(minPackedValue);
+            if (minKey == round(maxPackedValue)) {
+                cellKey = minKey;
+                return PointValues.Relation.CELL_INSIDE_QUERY;
+            }
+            return PointValues.Relation.CELL_CROSSES_QUERY;
+        }
+
+        private long round(byte[] packedValue) {
+            return shardRounding.round(pointConverter.apply(packedValue).longValue() - offset) + offset;
+        }
+
+        private void increment(long docKey) {
+            if (count > 0 && docKey != key) {
+                flush();
+            }
+            key = docKey;
+            count++;
+        }
+
+        void flush() {
+            if (count == 0) {
+                return;
+            }
+            long bucketOrd = bucketOrds.add(key);
+            if (bucketOrd < 0) { // already seen
+                bucketOrd = -1 - bucketOrd;
+            }
+            incrementBucketDocCount(bucketOrd, count);
+            count = 0;
+        }
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
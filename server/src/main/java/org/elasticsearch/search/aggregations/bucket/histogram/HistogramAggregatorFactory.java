@@ -111,6 +111,11 @@ public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFact
         }
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
@@ -129,6 +129,45 @@ class NumericHistogramAggregator extends BucketsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                assert bucket == 0;
+                // Documents of a block tend to fall into the same bucket, remember the last key and its
+                // ordinal to skip the hash lookup in that case.
+                double lastKey = Double.NaN;
+                long lastBucketOrd = -1;
+                for (int d = 0; d < count; d++) {
+                    final int doc = docs[d];
+                    if (values.advanceExact(doc) == false) {
+                        continue;
+                    }
+                    final int valuesCount = values.docValueCount();
+                    double previousKey = Double.NEGATIVE_INFINITY;
+                    for (int i = 0; i < valuesCount; ++i) {
+                        double value = values.nextValue();
+                        double key = Math.floor((value - offset) / interval);
+                        assert key >= previousKey;
+                        if (key == previousKey) {
+                            continue;
+                        }
+                        if (key == lastKey) {
+                            collectExistingBucket(sub, doc, lastBucketOrd);
+                        } else {
+                            long bucketOrd = bucketOrds.add(Double.doubleToLongBits(key));
+                            if (bucketOrd < 0) { // already seen
+                                bucketOrd = -1 - bucketOrd;
+                                collectExistingBucket(sub, doc, bucketOrd);
+                            } else {
+                                collectBucket(sub, doc, bucketOrd);
+                            }
+                            lastKey = key;
+                            lastBucketOrd = bucketOrd;
+                        }
+                        previousKey = key;
+                    }
+                }
+            }
         };
     }
 
@@ -40,6 +40,11 @@ public class MissingAggregatorFactory extends ValuesSourceAggregatorFactory<Valu
         super(name, config, queryShardContext, parent, subFactoriesBuilder, metaData);
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected MissingAggregator createUnmapped(SearchContext searchContext,
                                                 Aggregator parent,
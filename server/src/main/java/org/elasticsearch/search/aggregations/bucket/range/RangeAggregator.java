@@ -19,7 +19,10 @@
 package org.elasticsearch.search.aggregations.bucket.range;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +41,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointsCountingHelper;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -47,6 +51,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 public class RangeAggregator extends BucketsAggregator {
 
@@ -225,9 +230,24 @@ public class RangeAggregator extends BucketsAggregator {
 
     final double[] maxTo;
 
+    private final String pointField;
+    private final Function<byte[], Number> pointConverter;
+
     public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
             InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, SearchContext context,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        this(name, factories, valuesSource, format, rangeFactory, ranges, keyed, null, null, context, parent,
+            pipelineAggregators, metaData);
+    }
+
+    /**
+     * @param pointField        The field to count documents from on segments that are fully matched, or {@code null}
+     * @param pointConverter    The converter of the points of <code>pointField</code> to the values of the aggregation
+     */
+    public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
+            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed,
+            @Nullable String pointField, @Nullable Function<byte[], Number> pointConverter, SearchContext context,
+            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
 
         super(name, factories, context, parent, pipelineAggregators, metaData);
         assert valuesSource != null;
@@ -243,7 +263,8 @@ public class RangeAggregator extends BucketsAggregator {
         for (int i = 1; i < this.ranges.length; ++i) {
             maxTo[i] = Math.max(this.ranges[i].to,maxTo[i-1]);
         }
-
+        this.pointField = pointField;
+        this.pointConverter = pointConverter;
     }
 
     @Override
@@ -257,6 +278,10 @@ public class RangeAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        if (countFromPoints(ctx)) {
+            // the ranges of this segment have been counted from its points, we don't need to collect hits on this segment.
+            throw new CollectionTerminatedException();
+        }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -321,6 +346,70 @@ public class RangeAggregator extends BucketsAggregator {
         };
     }
 
+    /**
+     * Counts the documents of the segment per range from the points of the field if the query matches all documents
+     * of the segment and no sub-aggregation needs to collect them.
+     *
+     * @return <code>true</code> if the documents have been counted, <code>false</code> if they need to be collected
+     */
+    private boolean countFromPoints(LeafReaderContext ctx) throws IOException {
+        if (pointConverter == null || subAggregators.length > 0 || isLeafFullyMatched(ctx) == false) {
+            return false;
+        }
+        final PointValues points = PointsCountingHelper.getSingleValuedPointsOrNull(ctx.reader(), pointField);
+        if (points == null) {
+            return false;
+        }
+        final int[] counts = new int[ranges.length];
+        final boolean[] insideCell = new boolean[ranges.length];
+        points.intersect(new PointValues.IntersectVisitor() {
+            @Override
+            public void visit(int docID) {
+                for (int i = 0; i < ranges.length; i++) {
+                    if (insideCell[i]) {
+                        counts[i]++;
+                    }
+                }
+            }
+
+            @Override
+            public void visit(int docID, byte[] packedValue) {
+                final double value = pointConverter.apply(packedValue).doubleValue();
+                for (int i = 0; i < ranges.length; i++) {
+                    if (ranges[i].matches(value)) {
+                        counts[i]++;
+                    }
+                }
+            }
+
+            @Override
+            public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+                final double min = pointConverter.apply(minPackedValue).doubleValue();
+                final double max = pointConverter.apply(maxPackedValue).doubleValue();
+                boolean inside = false;
+                for (int i = 0; i < ranges.length; i++) {
+                    final Range range = ranges[i];
+                    if (min >= range.from && max < range.to) {
+                        insideCell[i] = true;
+                        inside = true;
+                    } else if (max < range.from || min >= range.to) {
+                        insideCell[i] = false;
+                    } else {
+                        return PointValues.Relation.CELL_CROSSES_QUERY;
+                    }
+                }
+                // every range either contains the whole cell or none of it
+                return inside ? PointValues.Relation.CELL_INSIDE_QUERY : PointValues.Relation.CELL_OUTSIDE_QUERY;
+            }
+        });
+        for (int i = 0; i < ranges.length; i++) {
+            if (counts[i] > 0) {
+                incrementBucketDocCount(subBucketOrdinal(0, i), counts[i]);
+            }
+        }
+        return true;
+    }
+
     private long subBucketOrdinal(long owningBucketOrdinal, int rangeOrd) {
         return owningBucketOrdinal * ranges.length + rangeOrd;
     }
@@ -80,6 +80,13 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         this.showTermDocCountError = showTermDocCountError;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // slices are truncated to shard_size like shards and account for it in the doc count error, but a
+        // shard_min_doc_count would drop the terms that only reach it on the whole shard
+        return config.script() == null && bucketCountThresholds.getShardMinDocCount() <= 1;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
@@ -47,6 +47,11 @@ class CardinalityAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesS
         this.precisionThreshold = precisionThreshold;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
@@ -49,6 +49,11 @@ class ExtendedStatsAggregatorFactory extends ValuesSourceAggregatorFactory<Value
         this.sigma = sigma;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
@@ -54,6 +54,11 @@ class HDRPercentilesAggregatorFactory extends ValuesSourceAggregatorFactory<Valu
         this.keyed = keyed;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
@@ -41,6 +41,11 @@ class MinAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.Nu
         super(name, config, queryShardContext, parent, subFactoriesBuilder, metaData);
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
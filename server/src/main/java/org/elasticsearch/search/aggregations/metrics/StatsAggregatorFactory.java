@@ -45,6 +45,11 @@ class StatsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.
         super(name, config, queryShardContext, parent, subFactoriesBuilder, metaData);
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
@@ -18,17 +18,27 @@
  */
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.LongArray;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorBase;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -44,11 +54,13 @@ import java.util.Map;
 class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
 
     final ValuesSource valuesSource;
+    // the field whose index statistics can be used to count values on fully matched segments, or null
+    final MappedFieldType statsFieldType;
 
     // a count per bucket
     LongArray counts;
 
-    ValueCountAggregator(String name, ValuesSource valuesSource,
+    ValueCountAggregator(String name, ValuesSourceConfig<ValuesSource> config, ValuesSource valuesSource,
             SearchContext aggregationContext, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData)
             throws IOException {
@@ -57,6 +69,7 @@ class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource != null) {
             counts = context.bigArrays().newLongArray(1, true);
         }
+        this.statsFieldType = valuesSource != null ? getStatsFieldTypeOrNull(aggregationContext, parent, config) : null;
     }
 
     @Override
@@ -65,6 +78,14 @@ class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (statsFieldType != null && isLeafFullyMatched(ctx)) {
+            long segCount = findLeafValueCount(ctx.reader(), statsFieldType);
+            if (segCount >= 0) {
+                // the number of values has been extracted from the index, we don't need to collect hits on this segment.
+                counts.increment(0, segCount);
+                throw new CollectionTerminatedException();
+            }
+        }
         final BigArrays bigArrays = context.bigArrays();
         final SortedBinaryDocValues values = valuesSource.bytesValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
@@ -103,4 +124,53 @@ class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         Releasables.close(counts);
     }
 
+    /**
+     * Returns the field type if the number of values of fully matched segments can be read from the
+     * index statistics of the field or <code>null</code> otherwise.
+     *
+     * @param context The {@link SearchContext} of the aggregation.
+     * @param parent The parent aggregator.
+     * @param config The config for the values source.
+     */
+    static MappedFieldType getStatsFieldTypeOrNull(SearchContext context, Aggregator parent, ValuesSourceConfig<ValuesSource> config) {
+        if (parent != null || AggregatorBase.mayMatchAllDocs(context.query()) == false) {
+            return null;
+        }
+        if (config == null || config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType
+                || fieldType.getClass() == DateFieldMapper.DateFieldType.class
+                || fieldType instanceof KeywordFieldMapper.KeywordFieldType) {
+            return fieldType;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of values of the field in the segment or <code>-1</code> if it cannot be inferred
+     * from the index statistics.
+     */
+    static long findLeafValueCount(LeafReader reader, MappedFieldType fieldType) throws IOException {
+        if (reader.hasDeletions()) {
+            // index statistics include deleted documents
+            return -1;
+        }
+        final String field = fieldType.name();
+        if (fieldType instanceof KeywordFieldMapper.KeywordFieldType) {
+            // keyword doc values are deduplicated per document, like terms in the postings
+            final Terms terms = reader.terms(field);
+            if (terms == null) {
+                return reader.getFieldInfos().fieldInfo(field) == null ? 0 : -1;
+            }
+            return terms.getSumDocFreq();
+        }
+        // numbers and dates index one point per value, like their sorted numeric doc values
+        final PointValues pointValues = reader.getPointValues(field);
+        if (pointValues == null) {
+            return reader.getFieldInfos().fieldInfo(field) == null ? 0 : -1;
+        }
+        return pointValues.size();
+    }
 }
@@ -40,12 +40,17 @@ class ValueCountAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSo
         super(name, config, queryShardContext, parent, subFactoriesBuilder, metaData);
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return config.script() == null;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return new ValueCountAggregator(name, null, searchContext, parent, pipelineAggregators, metaData);
+        return new ValueCountAggregator(name, config, null, searchContext, parent, pipelineAggregators, metaData);
     }
 
     @Override
@@ -55,6 +60,6 @@ class ValueCountAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSo
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return new ValueCountAggregator(name, valuesSource, searchContext, parent, pipelineAggregators, metaData);
+        return new ValueCountAggregator(name, config, valuesSource, searchContext, parent, pipelineAggregators, metaData);
     }
 }
@@ -216,6 +216,13 @@ public class FetchPhase implements SearchPhase {
         sourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
         if (fieldsVisitor.source() != null) {
             sourceLookup.setSource(fieldsVisitor.source());
+        } else if (context.sourceRequested()) {
+            try {
+                sourceLookup.loadSyntheticSource();
+            } catch (IOException e) {
+                throw new FetchPhaseExecutionException(context.shardTarget(),
+                    "Failed to load synthetic source for doc id [" + docId + "]", e);
+            }
         }
         return searchHit;
     }
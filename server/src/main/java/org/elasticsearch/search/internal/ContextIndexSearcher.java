@@ -49,6 +49,8 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.dfs.AggregatedDfs;
@@ -64,6 +66,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -75,9 +81,17 @@ public class ContextIndexSearcher extends IndexSearcher {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * Thresholds used to group leaves into slices that are searched concurrently,
+     * similar to the defaults of {@link IndexSearcher#slices(List)}.
+     */
+    static final int MAX_DOCS_PER_SLICE = 250_000;
+    static final int MAX_SEGMENTS_PER_SLICE = 5;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private Runnable checkCancelled;
+    private Executor executor;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy) {
         super(reader);
@@ -98,6 +112,14 @@ public class ContextIndexSearcher extends IndexSearcher {
         this.checkCancelled = checkCancelled;
     }
 
+    /**
+     * Set the {@link Executor} used to search slices of leaves concurrently when searching with a
+     * {@link CollectorManager}. If not set, all leaves are searched sequentially on the calling thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
@@ -148,11 +170,21 @@ public class ContextIndexSearcher extends IndexSearcher {
     @SuppressWarnings({"unchecked", "rawtypes"})
     public void search(List<LeafReaderContext> leaves, Weight weight, CollectorManager manager,
             QuerySearchResult result, DocValueFormat[] formats, TotalHits totalHits) throws IOException {
-        final List<Collector> collectors = new ArrayList<>(leaves.size());
-        for (LeafReaderContext ctx : leaves) {
-            final Collector collector = manager.newCollector();
-            searchLeaf(ctx, weight, collector);
-            collectors.add(collector);
+        final List<Collector> collectors;
+        if (executor != null && leaves.size() > 1) {
+            final List<List<LeafReaderContext>> slices = sliceLeaves(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+            collectors = new ArrayList<>(slices.size());
+            for (int i = 0; i < slices.size(); i++) {
+                collectors.add(manager.newCollector());
+            }
+            searchSlices(slices, weight, collectors);
+        } else {
+            collectors = new ArrayList<>(leaves.size());
+            for (LeafReaderContext ctx : leaves) {
+                final Collector collector = manager.newCollector();
+                searchLeaf(ctx, weight, collector);
+                collectors.add(collector);
+            }
         }
         TopFieldDocs mergedTopDocs = (TopFieldDocs) manager.reduce(collectors);
         // Lucene sets shards indexes during merging of topDocs from different collectors
@@ -166,6 +198,111 @@ public class ContextIndexSearcher extends IndexSearcher {
         result.topDocs(new TopDocsAndMaxScore(mergedTopDocs, Float.NaN), formats);
     }
 
+    /**
+     * Returns whether slices of leaves are searched concurrently by {@link #search(Query, CollectorManager)}.
+     */
+    public boolean hasExecutor() {
+        return executor != null;
+    }
+
+    /**
+     * Searches slices of leaves concurrently with a collector per slice if an {@link Executor} is set, otherwise
+     * searches all leaves sequentially with a single collector.
+     */
+    @Override
+    public <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager) throws IOException {
+        final List<LeafReaderContext> leaves = getIndexReader().leaves();
+        if (executor == null || leaves.size() <= 1) {
+            return super.search(query, collectorManager);
+        }
+        final List<List<LeafReaderContext>> slices = sliceLeaves(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+        final List<C> collectors = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            collectors.add(collectorManager.newCollector());
+        }
+        final ScoreMode scoreMode = collectors.get(0).scoreMode();
+        final Weight weight = createWeight(rewrite(query), scoreMode, 1);
+        searchSlices(slices, weight, collectors);
+        return collectorManager.reduce(collectors);
+    }
+
+    /**
+     * Searches each slice with the collector at the same position in <code>collectors</code>. All slices but
+     * the first one are forked to the {@link #executor}, the first slice is searched on the calling thread which
+     * then waits for the forked slices to complete. Slices that the executor rejects are searched on the calling
+     * thread.
+     */
+    private void searchSlices(List<List<LeafReaderContext>> slices, Weight weight,
+                              List<? extends Collector> collectors) throws IOException {
+        assert slices.size() == collectors.size();
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        for (int i = 1; i < slices.size(); i++) {
+            final List<LeafReaderContext> slice = slices.get(i);
+            final Collector collector = collectors.get(i);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                for (LeafReaderContext ctx : slice) {
+                    searchLeaf(ctx, weight, collector);
+                }
+                return null;
+            });
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the queue of the executor is full or it is shutting down, search the slice on the calling thread
+                task.run();
+            }
+        }
+        Throwable failure = null;
+        try {
+            for (LeafReaderContext ctx : slices.get(0)) {
+                searchLeaf(ctx, weight, collectors.get(0));
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        ExceptionsHelper.reThrowIfNotNull(failure);
+    }
+
+    /**
+     * Groups consecutive leaves into slices. A slice is closed as soon as it holds more than <code>maxDocsPerSlice</code>
+     * documents or <code>maxSegmentsPerSlice</code> leaves. The order of the leaves is preserved so that
+     * a leaf sorter can still influence the order in which leaves are visited.
+     */
+    static List<List<LeafReaderContext>> sliceLeaves(List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        final List<List<LeafReaderContext>> slices = new ArrayList<>();
+        List<LeafReaderContext> current = new ArrayList<>();
+        long docs = 0;
+        for (LeafReaderContext ctx : leaves) {
+            current.add(ctx);
+            docs += ctx.reader().maxDoc();
+            if (docs > maxDocsPerSlice || current.size() >= maxSegmentsPerSlice) {
+                slices.add(current);
+                current = new ArrayList<>();
+                docs = 0;
+            }
+        }
+        if (current.isEmpty() == false) {
+            slices.add(current);
+        }
+        return slices;
+    }
+
     @Override
     protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
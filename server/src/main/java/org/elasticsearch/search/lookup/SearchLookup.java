@@ -21,8 +21,10 @@ package org.elasticsearch.search.lookup;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 
 import java.util.function.Function;
 
@@ -36,7 +38,12 @@ public class SearchLookup {
 
     public SearchLookup(MapperService mapperService, Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup) {
         docMap = new DocLookup(mapperService, fieldDataLookup);
-        sourceLookup = new SourceLookup();
+        DocumentMapper documentMapper = mapperService == null ? null : mapperService.documentMapper();
+        if (documentMapper != null && documentMapper.sourceMapper().isSynthetic()) {
+            sourceLookup = new SourceLookup(new SyntheticSourceLoader(documentMapper, fieldDataLookup));
+        } else {
+            sourceLookup = new SourceLookup();
+        }
         fieldsLookup = new FieldsLookup(mapperService);
     }
 
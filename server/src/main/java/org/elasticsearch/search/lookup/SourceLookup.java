@@ -21,14 +21,17 @@ package org.elasticsearch.search.lookup;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +41,9 @@ import static java.util.Collections.emptyMap;
 
 public class SourceLookup implements Map<String, Object> {
 
+    @Nullable
+    private final SyntheticSourceLoader syntheticSourceLoader;
+
     private LeafReader reader;
 
     private int docId = -1;
@@ -46,6 +52,17 @@ public class SourceLookup implements Map<String, Object> {
     private Map<String, Object> source;
     private XContentType sourceContentType;
 
+    public SourceLookup() {
+        this(null);
+    }
+
+    /**
+     * @param syntheticSourceLoader reconstructs the source of documents if the mapping doesn't store it, may be {@code null}
+     */
+    public SourceLookup(@Nullable SyntheticSourceLoader syntheticSourceLoader) {
+        this.syntheticSourceLoader = syntheticSourceLoader;
+    }
+
     public Map<String, Object> source() {
         return source;
     }
@@ -68,6 +85,9 @@ public class SourceLookup implements Map<String, Object> {
             FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
             reader.document(docId, sourceFieldVisitor);
             BytesReference source = sourceFieldVisitor.source();
+            if (source == null && syntheticSourceLoader != null) {
+                source = syntheticSourceLoader.load(reader, docId);
+            }
             if (source == null) {
                 this.source = emptyMap();
                 this.sourceContentType = null;
@@ -101,6 +121,19 @@ public class SourceLookup implements Map<String, Object> {
         this.docId = docId;
     }
 
+    /**
+     * Sets the source of the current document to its reconstruction from doc values if the mapping uses synthetic source.
+     *
+     * @return whether the source was reconstructed
+     */
+    public boolean loadSyntheticSource() throws IOException {
+        if (syntheticSourceLoader == null) {
+            return false;
+        }
+        this.sourceAsBytes = syntheticSourceLoader.load(reader, docId);
+        return true;
+    }
+
     public void setSource(BytesReference source) {
         this.sourceAsBytes = source;
     }
@@ -36,6 +36,7 @@ import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
@@ -74,6 +75,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -323,17 +325,25 @@ public class QueryPhase implements SearchPhase {
         // add the top docs collector, the first collector context in the chain
         collectors.addFirst(topDocsFactory);
 
-        final Collector queryCollector;
+        Collector queryCollector = null;
+        CollectorManager<Collector, Void> collectorManager = null;
         if (searchContext.getProfilers() != null) {
             InternalProfileCollector profileCollector = QueryCollectorContext.createQueryCollectorWithProfiler(collectors);
             searchContext.getProfilers().getCurrentQueryProfiler().setCollector(profileCollector);
             queryCollector = profileCollector;
-        } else {
+        } else if (searcher.hasExecutor()) {
+            collectorManager = createConcurrentCollectorManager(searchContext, collectors, topDocsFactory);
+        }
+        if (queryCollector == null && collectorManager == null) {
             queryCollector = QueryCollectorContext.createQueryCollector(collectors);
         }
         QuerySearchResult queryResult = searchContext.queryResult();
         try {
-            searcher.search(query, queryCollector);
+            if (collectorManager != null) {
+                searcher.search(query, collectorManager);
+            } else {
+                searcher.search(query, queryCollector);
+            }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
         } catch (TimeExceededException e) {
@@ -355,6 +365,43 @@ public class QueryPhase implements SearchPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    /**
+     * Returns a {@link CollectorManager} that collects each slice of leaves concurrently, or <code>null</code> if the
+     * collector chain must see all the documents of the shard. Only the top docs and the aggregations that can be
+     * merged with a partial reduce are collected per slice, terminate_after, post filters and min_score are not.
+     */
+    private static CollectorManager<Collector, Void> createConcurrentCollectorManager(SearchContext searchContext,
+            List<QueryCollectorContext> collectors, TopDocsCollectorContext topDocsFactory) {
+        final CollectorManager<Collector, Void> aggsManager;
+        if (collectors.size() == 1) {
+            aggsManager = null;
+        } else if (collectors.size() == 2 && searchContext.queryCollectors().size() == 1) {
+            // the chain holds the top docs and the additional query collectors, these must only be the aggregations
+            aggsManager = AggregationPhase.createCollectorManager(searchContext);
+            if (aggsManager == null) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        // the top docs collector context switches to the merged results of the slices once its manager is created
+        final CollectorManager<Collector, Void> topDocsManager = topDocsFactory.createCollectorManager();
+        if (topDocsManager == null || aggsManager == null) {
+            return topDocsManager;
+        }
+        return new CollectorManager<>() {
+            @Override
+            public Collector newCollector() throws IOException {
+                return MultiCollector.wrap(topDocsManager.newCollector(), aggsManager.newCollector());
+            }
+
+            @Override
+            public Void reduce(Collection<Collector> collectors) {
+                // the top docs are merged in postProcess and the aggregations in the aggregation phase
+                return null;
+            }
+        };
+    }
 
     /*
      * We use collectorManager during sort optimization, where
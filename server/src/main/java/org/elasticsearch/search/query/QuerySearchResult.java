@@ -22,6 +22,7 @@ package org.elasticsearch.search.query;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.CountingStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
@@ -55,6 +56,7 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private DocValueFormat[] sortValueFormats;
     private InternalAggregations aggregations;
     private boolean hasAggs;
+    private long serializedAggsSize = -1;
     private Suggest suggest;
     private boolean searchTimedOut;
     private Boolean terminatedEarly = null;
@@ -168,6 +170,21 @@ public final class QuerySearchResult extends SearchPhaseResult {
         return aggs;
     }
 
+    /**
+     * Returns the number of bytes that the aggregations of this result were read from, or <code>-1</code> if the result was not
+     * read from a stream, e.g. because it was produced on the local node.
+     */
+    public long serializedAggsSize() {
+        return serializedAggsSize;
+    }
+
+    /**
+     * Returns the aggregations of this result without consuming them, or <code>null</code> if they were already consumed.
+     */
+    public InternalAggregations peekAggs() {
+        return aggregations;
+    }
+
     public void aggregations(InternalAggregations aggregations) {
         this.aggregations = aggregations;
         hasAggs = aggregations != null;
@@ -273,7 +290,9 @@ public final class QuerySearchResult extends SearchPhaseResult {
         }
         setTopDocs(readTopDocs(in));
         if (hasAggs = in.readBoolean()) {
-            aggregations = new InternalAggregations(in);
+            CountingStreamInput.Counted<InternalAggregations> counted = CountingStreamInput.readCounting(in, InternalAggregations::new);
+            aggregations = counted.value();
+            serializedAggsSize = counted.bytes();
         }
         if (in.getVersion().before(Version.V_7_2_0)) {
             List<SiblingPipelineAggregator> pipelineAggregators = in.readNamedWriteableList(PipelineAggregator.class).stream()
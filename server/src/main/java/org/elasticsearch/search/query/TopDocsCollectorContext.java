@@ -30,6 +30,7 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.FieldDoc;
@@ -67,6 +68,9 @@ import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -98,9 +102,19 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         return false;
     }
 
+    /**
+     * Returns a {@link CollectorManager} to use instead of the collector returned by {@link #create(Collector)} when
+     * slices of leaves are searched concurrently, or <code>null</code> if the top docs cannot be collected per slice.
+     */
+    CollectorManager<Collector, Void> createCollectorManager() {
+        return null;
+    }
+
     static class EmptyTopDocsCollectorContext extends TopDocsCollectorContext {
         private final Collector collector;
-        private final Supplier<TotalHits> hitCountSupplier;
+        private final int trackTotalHitsUpTo;
+        private final boolean countHits;
+        private Supplier<TotalHits> hitCountSupplier;
 
         /**
          * Ctr
@@ -112,7 +126,9 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         private EmptyTopDocsCollectorContext(IndexReader reader, Query query,
                                              int trackTotalHitsUpTo, boolean hasFilterCollector) throws IOException {
             super(REASON_SEARCH_COUNT, 0);
+            this.trackTotalHitsUpTo = trackTotalHitsUpTo;
             if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+                this.countHits = false;
                 this.collector = new EarlyTerminatingCollector(new TotalHitCountCollector(), 0, false);
                 // for bwc hit count is set to 0, it will be converted to -1 by the coordinating node
                 this.hitCountSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
@@ -120,6 +136,7 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                 TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 int hitCount =  hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
+                this.countHits = hitCount == -1;
                 if (hitCount == -1) {
                     if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
                         this.collector = hitCountCollector;
@@ -144,6 +161,59 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        /**
+         * Each slice counts its own hits up to the threshold, the total hit count is the sum of the counts of all slices
+         * and is only a lower bound if one of the slices terminated early.
+         */
+        @Override
+        CollectorManager<Collector, Void> createCollectorManager() {
+            if (countHits == false) {
+                // the hit count does not depend on the collection, slices only need to skip their leaves
+                return new CollectorManager<>() {
+                    @Override
+                    public Collector newCollector() {
+                        return new EarlyTerminatingCollector(new TotalHitCountCollector(), 0, false);
+                    }
+
+                    @Override
+                    public Void reduce(Collection<Collector> collectors) {
+                        return null;
+                    }
+                };
+            }
+            final List<TotalHitCountCollector> hitCountCollectors = new ArrayList<>();
+            final List<EarlyTerminatingCollector> earlyTerminatingCollectors = new ArrayList<>();
+            hitCountSupplier = () -> {
+                long totalHits = 0;
+                for (TotalHitCountCollector hitCountCollector : hitCountCollectors) {
+                    totalHits += hitCountCollector.getTotalHits();
+                }
+                boolean hasEarlyTerminated = earlyTerminatingCollectors.stream().anyMatch(EarlyTerminatingCollector::hasEarlyTerminated);
+                return new TotalHits(totalHits,
+                    hasEarlyTerminated ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : TotalHits.Relation.EQUAL_TO);
+            };
+            return new CollectorManager<>() {
+                @Override
+                public Collector newCollector() {
+                    // collectors are all created by the searching thread before the slices are forked
+                    final TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
+                    hitCountCollectors.add(hitCountCollector);
+                    if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+                        return hitCountCollector;
+                    }
+                    final EarlyTerminatingCollector collector = new EarlyTerminatingCollector(hitCountCollector, trackTotalHitsUpTo, false);
+                    earlyTerminatingCollectors.add(collector);
+                    return collector;
+                }
+
+                @Override
+                public Void reduce(Collection<Collector> collectors) {
+                    // the hit counts are summed lazily in postProcess
+                    return null;
+                }
+            };
+        }
+
         @Override
         void postProcess(QuerySearchResult result) {
             final TotalHits totalHitCount = hitCountSupplier.get();
@@ -208,10 +278,14 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         }
 
         protected final @Nullable SortAndFormats sortAndFormats;
+        private final @Nullable ScoreDoc searchAfter;
+        private final int hitCountThreshold;
+        private final boolean trackMaxScore;
         private final Collector collector;
         private final Supplier<TotalHits> totalHitsSupplier;
-        private final Supplier<TopDocs> topDocsSupplier;
-        private final Supplier<Float> maxScoreSupplier;
+        // replaced by suppliers that merge the results of all slices when a collector manager is used
+        private Supplier<TopDocs> topDocsSupplier;
+        private Supplier<Float> maxScoreSupplier;
 
         /**
          * Ctr
@@ -234,35 +308,33 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                                               boolean hasFilterCollector) throws IOException {
             super(REASON_SEARCH_TOP_HITS, numHits);
             this.sortAndFormats = sortAndFormats;
-
-            final TopDocsCollector<?> topDocsCollector;
+            this.searchAfter = searchAfter;
+            this.trackMaxScore = trackMaxScore;
 
             if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0]))
                     && hasInfMaxScore(query)) {
                 // disable max score optimization since we have a mandatory clause
                 // that doesn't track the maximum score
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, Integer.MAX_VALUE);
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                hitCountThreshold = Integer.MAX_VALUE;
                 totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
             } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
                 // don't compute hit counts via the collector
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                hitCountThreshold = 1;
                 totalHitsSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
             } else {
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 final int hitCount = hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
                 if (hitCount == -1) {
-                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, trackTotalHitsUpTo);
-                    topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                    hitCountThreshold = trackTotalHitsUpTo;
                     totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
                 } else {
                     // don't compute hit counts via the collector
-                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
-                    topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                    hitCountThreshold = 1;
                     totalHitsSupplier = () -> new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
                 }
             }
+            final TopDocsCollector<?> topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+            topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
             MaxScoreCollector maxScoreCollector = null;
             if (sortAndFormats == null) {
                 maxScoreSupplier = () -> {
@@ -290,6 +362,73 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        /**
+         * Returns a {@link CollectorManager} to use instead of the collector returned by {@link #create(Collector)} when
+         * slices of leaves are searched concurrently. Each slice is collected by its own top docs collector and
+         * {@link #postProcess(QuerySearchResult)} merges the top docs of all slices, including the slices that were
+         * collected before a timeout.
+         */
+        @Override
+        CollectorManager<Collector, Void> createCollectorManager() {
+            final List<TopDocsCollector<?>> topDocsCollectors = new ArrayList<>();
+            final List<MaxScoreCollector> maxScoreCollectors = new ArrayList<>();
+            topDocsSupplier = new CachedSupplier<>(() -> mergeTopDocs(topDocsCollectors));
+            if (sortAndFormats != null && trackMaxScore) {
+                maxScoreSupplier = () -> {
+                    float maxScore = Float.NaN;
+                    for (MaxScoreCollector maxScoreCollector : maxScoreCollectors) {
+                        final float score = maxScoreCollector.getMaxScore();
+                        if (Float.isNaN(maxScore) || score > maxScore) {
+                            maxScore = score;
+                        }
+                    }
+                    return maxScore;
+                };
+            }
+            return new CollectorManager<>() {
+                @Override
+                public Collector newCollector() {
+                    // collectors are all created by the searching thread before the slices are forked
+                    final TopDocsCollector<?> topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+                    topDocsCollectors.add(topDocsCollector);
+                    MaxScoreCollector maxScoreCollector = null;
+                    if (sortAndFormats != null && trackMaxScore) {
+                        maxScoreCollector = new MaxScoreCollector();
+                        maxScoreCollectors.add(maxScoreCollector);
+                    }
+                    return MultiCollector.wrap(topDocsCollector, maxScoreCollector);
+                }
+
+                @Override
+                public Void reduce(Collection<Collector> collectors) {
+                    // the top docs are merged lazily in postProcess
+                    return null;
+                }
+            };
+        }
+
+        private TopDocs mergeTopDocs(List<TopDocsCollector<?>> topDocsCollectors) {
+            final TopDocs mergedTopDocs;
+            if (sortAndFormats == null) {
+                final TopDocs[] topDocs = new TopDocs[topDocsCollectors.size()];
+                for (int i = 0; i < topDocs.length; i++) {
+                    topDocs[i] = topDocsCollectors.get(i).topDocs();
+                }
+                mergedTopDocs = TopDocs.merge(0, numHits, topDocs, true);
+            } else {
+                final TopFieldDocs[] topDocs = new TopFieldDocs[topDocsCollectors.size()];
+                for (int i = 0; i < topDocs.length; i++) {
+                    topDocs[i] = (TopFieldDocs) topDocsCollectors.get(i).topDocs();
+                }
+                mergedTopDocs = TopDocs.merge(sortAndFormats.sort, 0, numHits, topDocs, true);
+            }
+            // the slice index is used to break ties while merging, the shard index is set later during the reduce phase
+            for (ScoreDoc scoreDoc : mergedTopDocs.scoreDocs) {
+                scoreDoc.shardIndex = -1;
+            }
+            return mergedTopDocs;
+        }
+
         TopDocsAndMaxScore newTopDocs() {
             TopDocs in = topDocsSupplier.get();
             float maxScore = maxScoreSupplier.get();
@@ -26,6 +26,8 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.util.Maps;
@@ -173,15 +175,23 @@ public class InboundHandler {
                 transportChannel = new TcpTransportChannel(outboundHandler, channel, action, requestId, version,
                     circuitBreakerService, messageLengthBytes, message.isCompress());
                 final T request = reg.newRequest(stream);
-                request.remoteAddress(new TransportAddress(channel.getRemoteAddress()));
-                // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
-                final int nextByte = stream.read();
-                // calling read() is useful to make sure the message is fully read, even if there some kind of EOS marker
-                if (nextByte != -1) {
-                    throw new IllegalStateException("Message not fully read (request) for requestId [" + requestId + "], action [" + action
-                        + "], available [" + stream.available() + "]; resetting");
+                boolean dispatched = false;
+                try {
+                    request.remoteAddress(new TransportAddress(channel.getRemoteAddress()));
+                    // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
+                    final int nextByte = stream.read();
+                    // calling read() is useful to make sure the message is fully read, even if there some kind of EOS marker
+                    if (nextByte != -1) {
+                        throw new IllegalStateException("Message not fully read (request) for requestId [" + requestId + "], action ["
+                            + action + "], available [" + stream.available() + "]; resetting");
+                    }
+                    threadPool.executor(reg.getExecutor()).execute(new RequestHandler<>(reg, request, transportChannel));
+                    dispatched = true;
+                } finally {
+                    if (dispatched == false) {
+                        releaseRequest(request);
+                    }
                 }
-                threadPool.executor(reg.getExecutor()).execute(new RequestHandler<>(reg, request, transportChannel));
             }
         } catch (Exception e) {
             // the circuit breaker tripped
@@ -246,6 +256,17 @@ public class InboundHandler {
         });
     }
 
+    /**
+     * Releases a request that holds on to the bytes of the message it was read from, see
+     * {@link StreamInput#readReleasableBytesReference()}. Such requests implement
+     * {@link Releasable} and are released once their handler returns, so handlers that need their content for longer must retain it.
+     */
+    private static void releaseRequest(TransportRequest request) {
+        if (request instanceof Releasable) {
+            Releasables.close((Releasable) request);
+        }
+    }
+
     private static class RequestHandler<T extends TransportRequest> extends AbstractRunnable {
         private final RequestHandlerRegistry<T> reg;
         private final T request;
@@ -267,6 +288,11 @@ public class InboundHandler {
             return reg.isForceExecution();
         }
 
+        @Override
+        public void onAfter() {
+            releaseRequest(request);
+        }
+
         @Override
         public void onFailure(Exception e) {
             try {
@@ -20,11 +20,13 @@
 package org.elasticsearch.action.admin.cluster.node.stats;
 
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
+import org.elasticsearch.gateway.PersistedClusterStateStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
@@ -259,6 +261,20 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    PersistedClusterStateStats persistenceStats = discoveryStats.getPersistenceStats();
+                    if (persistenceStats == null) {
+                        assertNull(deserializedDiscoveryStats.getPersistenceStats());
+                    } else {
+                        PersistedClusterStateStats deserializedPersistenceStats = deserializedDiscoveryStats.getPersistenceStats();
+                        assertEquals(persistenceStats.getFullWriteCount(), deserializedPersistenceStats.getFullWriteCount());
+                        assertEquals(persistenceStats.getFullWriteTimeMillis(), deserializedPersistenceStats.getFullWriteTimeMillis());
+                        assertEquals(persistenceStats.getIncrementalWriteCount(), deserializedPersistenceStats.getIncrementalWriteCount());
+                        assertEquals(persistenceStats.getIncrementalWriteTimeMillis(),
+                            deserializedPersistenceStats.getIncrementalWriteTimeMillis());
+                        assertEquals(persistenceStats.getIndicesWritten(), deserializedPersistenceStats.getIndicesWritten());
+                        assertEquals(persistenceStats.getIndicesSkipped(), deserializedPersistenceStats.getIndicesSkipped());
+                    }
+                    assertEquals(discoveryStats.getClusterApplierStats(), deserializedDiscoveryStats.getClusterApplierStats());
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -437,6 +453,21 @@ public class NodeStatsTests extends ESTestCase {
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong())
+                : null,
+                randomBoolean()
+                ? new PersistedClusterStateStats(
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong())
+                : null,
+                randomBoolean()
+                ? new ClusterApplierStats(randomList(0, 5, () -> new ClusterApplierStats.Recording(
+                    randomAlphaOfLengthBetween(3, 20),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong())))
                 : null)
             : null;
         IngestStats ingestStats = null;
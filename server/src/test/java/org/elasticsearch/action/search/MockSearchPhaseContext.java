@@ -22,6 +22,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -33,6 +34,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -42,6 +44,7 @@ import java.util.concurrent.atomic.AtomicReference;
 public final class MockSearchPhaseContext implements SearchPhaseContext {
     private static final Logger logger = LogManager.getLogger(MockSearchPhaseContext.class);
     final AtomicReference<Throwable> phaseFailure = new AtomicReference<>();
+    final List<Releasable> releasables = new CopyOnWriteArrayList<>();
     final int numShards;
     final AtomicInteger numSuccess;
     final List<ShardSearchFailure> failures = Collections.synchronizedList(new ArrayList<>());
@@ -134,6 +137,11 @@ public final class MockSearchPhaseContext implements SearchPhaseContext {
         Assert.fail("should not be called");
     }
 
+    @Override
+    public void addReleasable(Releasable releasable) {
+        releasables.add(releasable);
+    }
+
     @Override
     public void sendReleaseSearchContext(long contextId, Transport.Connection connection, OriginalIndices originalIndices) {
         releasedSearchContexts.add(contextId);
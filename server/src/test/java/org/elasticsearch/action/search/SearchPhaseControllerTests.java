@@ -31,9 +31,15 @@ import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.shard.ShardId;
@@ -68,12 +74,14 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.elasticsearch.action.search.SearchProgressListener.NOOP;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
@@ -840,4 +848,107 @@ public class SearchPhaseControllerTests extends ESTestCase {
         }
     }
 
+    public void testConsumerReducesOnceBufferedAggsExceedLimit() {
+        int expectedNumResults = randomIntBetween(5, 20);
+        TestCircuitBreaker breaker = new TestCircuitBreaker(Long.MAX_VALUE);
+        SearchPhaseController controller = newControllerWithMaxBufferedAggsSize(breaker, new ByteSizeValue(1));
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")).size(0));
+        request.setBatchedReduceSize(expectedNumResults - 1);
+        ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        assertThat(consumer, instanceOf(SearchPhaseController.QueryPhaseResultConsumer.class));
+        for (int i = 0; i < expectedNumResults; i++) {
+            consumer.consumeResult(newMaxResult(i, i));
+            // results are merged as they arrive, so that at most one shard result is buffered next to the reduced one
+            assertThat(((SearchPhaseController.QueryPhaseResultConsumer) consumer).getNumBuffered(), lessThanOrEqualTo(2));
+            assertThat(breaker.used.get(), greaterThan(0L));
+        }
+        assertEquals(expectedNumResults - 2, ((SearchPhaseController.QueryPhaseResultConsumer) consumer).getNumReducePhases());
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        InternalMax max = (InternalMax) reduce.aggregations.asList().get(0);
+        assertEquals(expectedNumResults - 1, max.getValue(), 0.0D);
+        assertEquals(expectedNumResults - 1, reduce.numReducePhases);
+        assertEquals(0L, breaker.used.get());
+    }
+
+    public void testConsumerFailsSearchWhenBreakerTrips() {
+        int expectedNumResults = randomIntBetween(3, 10);
+        TestCircuitBreaker breaker = new TestCircuitBreaker(1);
+        SearchPhaseController controller = newControllerWithMaxBufferedAggsSize(breaker, new ByteSizeValue(randomIntBetween(1, 1024)));
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")).size(0));
+        request.setBatchedReduceSize(2);
+        ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            consumer.consumeResult(newMaxResult(i, i));
+        }
+        assertEquals(0L, breaker.used.get());
+        expectThrows(CircuitBreakingException.class, consumer::reduce);
+        assertEquals(0L, breaker.used.get());
+    }
+
+    public void testConsumerReleasesBreakerOnClose() {
+        int expectedNumResults = randomIntBetween(3, 10);
+        TestCircuitBreaker breaker = new TestCircuitBreaker(Long.MAX_VALUE);
+        SearchPhaseController controller = newControllerWithMaxBufferedAggsSize(breaker, new ByteSizeValue(randomIntBetween(1, 1024)));
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")).size(0));
+        request.setBatchedReduceSize(2);
+        ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        for (int i = 0; i < expectedNumResults - 1; i++) {
+            consumer.consumeResult(newMaxResult(i, i));
+        }
+        assertThat(breaker.used.get(), greaterThan(0L));
+        consumer.close();
+        assertEquals(0L, breaker.used.get());
+        // results that arrive after the search failed are not accounted for
+        consumer.consumeResult(newMaxResult(expectedNumResults - 1, expectedNumResults - 1));
+        assertEquals(0L, breaker.used.get());
+    }
+
+    private SearchPhaseController newControllerWithMaxBufferedAggsSize(CircuitBreaker breaker, ByteSizeValue maxBufferedAggsSize) {
+        Settings settings = Settings.builder()
+            .put(SearchPhaseController.MAX_BUFFERED_AGGS_SIZE_SETTING.getKey(), maxBufferedAggsSize.getStringRep())
+            .build();
+        ClusterSettings clusterSettings = new ClusterSettings(settings,
+            Collections.singleton(SearchPhaseController.MAX_BUFFERED_AGGS_SIZE_SETTING));
+        return new SearchPhaseController(finalReduce -> {
+            reductions.add(finalReduce);
+            return new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, finalReduce);
+        }, breaker, clusterSettings);
+    }
+
+    private static QuerySearchResult newMaxResult(int shardIndex, double value) {
+        QuerySearchResult result = new QuerySearchResult(shardIndex, new SearchShardTarget("node", new ShardId("a", "b", shardIndex),
+            null, OriginalIndices.NONE));
+        result.topDocs(new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), Float.NaN),
+            new DocValueFormat[0]);
+        result.aggregations(new InternalAggregations(Collections.singletonList(new InternalMax("test", value, DocValueFormat.RAW,
+            Collections.emptyList(), Collections.emptyMap()))));
+        result.setShardIndex(shardIndex);
+        return result;
+    }
+
+    private static class TestCircuitBreaker extends NoopCircuitBreaker {
+        final AtomicLong used = new AtomicLong();
+        final long limit;
+
+        TestCircuitBreaker(long limit) {
+            super(CircuitBreaker.REQUEST);
+            this.limit = limit;
+        }
+
+        @Override
+        public double addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (used.get() + bytes > limit) {
+                throw new CircuitBreakingException("tripped [" + label + "]", bytes, limit, Durability.TRANSIENT);
+            }
+            return used.addAndGet(bytes);
+        }
+
+        @Override
+        public long addWithoutBreaking(long bytes) {
+            return used.addAndGet(bytes);
+        }
+    }
 }
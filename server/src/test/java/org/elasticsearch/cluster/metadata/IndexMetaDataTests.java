@@ -136,6 +136,30 @@ public class IndexMetaDataTests extends ESTestCase {
         }
     }
 
+    public void testIdenticalMappingsAreShared() throws IOException {
+        final String mapping = "{\"_doc\":{\"properties\":{\"" + randomAlphaOfLength(10) + "\":{\"type\":\"keyword\"}}}}";
+        final Settings settings = Settings.builder()
+            .put("index.version.created", 1)
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            .build();
+        final IndexMetaData first = IndexMetaData.builder("first").settings(settings).putMapping(mapping).build();
+        final IndexMetaData second = IndexMetaData.builder("second").settings(settings).putMapping(mapping).build();
+        assertSame(first.mapping(), second.mapping());
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        second.writeTo(out);
+        try (StreamInput in = new NamedWriteableAwareStreamInput(out.bytes().streamInput(), writableRegistry())) {
+            final IndexMetaData deserialized = IndexMetaData.readFrom(in);
+            assertEquals(second, deserialized);
+            assertSame(first.mapping(), deserialized.mapping());
+        }
+
+        final IndexMetaData other = IndexMetaData.builder("other").settings(settings)
+            .putMapping("{\"_doc\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}").build();
+        assertNotSame(first.mapping(), other.mapping());
+    }
+
     public void testGetRoutingFactor() {
         Integer numShard = randomFrom(1, 2, 4, 8, 16);
         int routingFactor = IndexMetaData.getRoutingFactor(32, numShard);
@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.Balancer;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelIndex;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelNode;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.NodeSorter;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.WeightFunction;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BalancedShardsAllocatorTests extends ESAllocationTestCase {
+
+    public void testIncrementalWeightsMatchFullSort() {
+        final ClusterState clusterState = randomCluster();
+        final RoutingAllocation allocation = new RoutingAllocation(yesAllocationDeciders(), new RoutingNodes(clusterState, false),
+            clusterState, ClusterInfo.EMPTY, System.nanoTime());
+        final WeightFunction weightFunction = new WeightFunction(randomFloat(), randomFloat() + 0.1f);
+        final Balancer balancer = new Balancer(logger, allocation, weightFunction, 1.0f);
+        final List<String> indices = new ArrayList<>();
+        for (ObjectCursor<String> index : clusterState.metaData().indices().keys()) {
+            indices.add(index.value);
+        }
+
+        for (String index : indices) {
+            assertWeightOrder(balancer, weightFunction, index);
+        }
+
+        // keep a sorter up to date with the moves of random shards and compare it to a full re-sort after every move
+        final String sortedIndex = randomFrom(indices);
+        final NodeSorter sorter = balancer.newNodeSorter();
+        sorter.reset(sortedIndex);
+        final ModelNode[] modelNodes = balancer.nodesArray();
+        final int moves = randomIntBetween(1, 100);
+        for (int move = 0; move < moves; move++) {
+            final ModelNode source = randomFrom(Arrays.stream(modelNodes).filter(node -> node.numShards() > 0).toArray(ModelNode[]::new));
+            final ModelNode target = randomValueOtherThan(source, () -> randomFrom(modelNodes));
+            final List<ShardRouting> shards = new ArrayList<>();
+            for (ModelIndex modelIndex : source) {
+                modelIndex.forEach(shards::add);
+            }
+            final ShardRouting shard = randomFrom(shards);
+            source.removeShard(shard);
+            target.addShard(shard);
+
+            sorter.updateWeight(positionOf(sorter, source), 0, modelNodes.length);
+            sorter.updateWeight(positionOf(sorter, target), 0, modelNodes.length);
+            final NodeSorter fullSort = balancer.newNodeSorter();
+            fullSort.reset(sortedIndex);
+            assertThat(sorter.weights, equalTo(fullSort.weights));
+            for (int i = 0; i < modelNodes.length; i++) {
+                assertThat(sorter.weights[i], equalTo(sorter.weight(sorter.modelNodes[i])));
+            }
+
+            assertWeightOrder(balancer, weightFunction, shard.getIndexName());
+            assertWeightOrder(balancer, weightFunction, randomFrom(indices));
+        }
+    }
+
+    /**
+     * Checks the weight delta and the order of the nodes for the given index against a full sort of all nodes
+     */
+    private static void assertWeightOrder(Balancer balancer, WeightFunction weightFunction, String index) {
+        final NodeSorter sorter = balancer.newNodeSorter();
+        sorter.reset(index);
+        final float[] weights = sorter.weights;
+        assertThat(balancer.weightDelta(index), equalTo(weights[weights.length - 1] - weights[0]));
+
+        final int numAdditionalShards = randomIntBetween(0, 1);
+        final NodeSorter sorterWithAddedShards = new NodeSorter(balancer.nodesArray(), weightFunction, balancer, numAdditionalShards);
+        sorterWithAddedShards.reset(index);
+        final List<ModelNode> nodesInWeightOrder = new ArrayList<>();
+        for (Iterator<ModelNode> iterator = balancer.nodesInWeightOrder(index, numAdditionalShards); iterator.hasNext(); ) {
+            nodesInWeightOrder.add(iterator.next());
+        }
+        assertThat(nodesInWeightOrder.size(), equalTo(sorterWithAddedShards.modelNodes.length));
+        float previousWeight = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < nodesInWeightOrder.size(); i++) {
+            final float nodeWeight = sorterWithAddedShards.weight(nodesInWeightOrder.get(i));
+            assertThat(nodeWeight, equalTo(sorterWithAddedShards.weights[i]));
+            assertThat(previousWeight, lessThanOrEqualTo(nodeWeight));
+            previousWeight = nodeWeight;
+        }
+        assertThat(nodesInWeightOrder.stream().distinct().count(), equalTo((long) nodesInWeightOrder.size()));
+    }
+
+    private static int positionOf(NodeSorter sorter, ModelNode node) {
+        for (int i = 0; i < sorter.modelNodes.length; i++) {
+            if (sorter.modelNodes[i] == node) {
+                return i;
+            }
+        }
+        throw new AssertionError("node " + node + " is not sorted");
+    }
+
+    private ClusterState randomCluster() {
+        final MetaData.Builder metaData = MetaData.builder();
+        final int numberOfIndices = randomIntBetween(1, 10);
+        for (int i = 0; i < numberOfIndices; i++) {
+            metaData.put(IndexMetaData.builder("test" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(randomIntBetween(1, 10)).numberOfReplicas(randomIntBetween(0, 2)));
+        }
+        final RoutingTable.Builder routingTable = RoutingTable.builder();
+        for (ObjectCursor<IndexMetaData> cursor : metaData.build().indices().values()) {
+            routingTable.addAsNew(cursor.value);
+        }
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        final int numberOfNodes = randomIntBetween(2, 20);
+        for (int i = 0; i < numberOfNodes; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        final AllocationService allocationService = createAllocationService(Settings.EMPTY);
+        ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .nodes(nodes).metaData(metaData).routingTable(routingTable.build()).build();
+        clusterState = allocationService.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, allocationService);
+
+        // nodes that join without a reroute hold no shards yet
+        final DiscoveryNodes.Builder emptyNodes = DiscoveryNodes.builder(clusterState.nodes());
+        final int numberOfEmptyNodes = randomIntBetween(0, 3);
+        for (int i = 0; i < numberOfEmptyNodes; i++) {
+            emptyNodes.add(newNode("empty" + i));
+        }
+        return ClusterState.builder(clusterState).nodes(emptyNodes).build();
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.service;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
@@ -38,6 +39,7 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.MockLogAppender;
 import org.elasticsearch.test.junit.annotations.TestLogging;
@@ -48,17 +50,26 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.createNoOpNodeConnectionsService;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 public class ClusterApplierServiceTests extends ESTestCase {
 
@@ -91,11 +102,15 @@ public class ClusterApplierServiceTests extends ESTestCase {
     }
 
     private TimedClusterApplierService createTimedClusterService(boolean makeMaster) {
+        return createTimedClusterService(makeMaster, Settings.EMPTY);
+    }
+
+    private TimedClusterApplierService createTimedClusterService(boolean makeMaster, Settings settings) {
         DiscoveryNode localNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), emptyMap(),
             emptySet(), Version.CURRENT);
         TimedClusterApplierService timedClusterApplierService = new TimedClusterApplierService(Settings.builder().put("cluster.name",
-            "ClusterApplierServiceTests").build(), new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
-            threadPool);
+            "ClusterApplierServiceTests").put(settings).build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool);
         timedClusterApplierService.setNodeConnectionsService(createNoOpNodeConnectionsService());
         timedClusterApplierService.setInitialState(ClusterState.builder(new ClusterName("ClusterApplierServiceTests"))
             .nodes(DiscoveryNodes.builder()
@@ -495,6 +510,100 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testAppliersAreCalledAndRecorded() throws InterruptedException {
+        clusterApplierService.close();
+        clusterApplierService = createTimedClusterService(true, Settings.builder()
+            .put(ClusterApplierService.CLUSTER_SERVICE_APPLIER_THREADS_SETTING.getKey(), randomIntBetween(1, 4)).build());
+
+        final int appliers = randomIntBetween(1, 10);
+        final CountDownLatch appliersCalled = new CountDownLatch(appliers);
+        for (int i = 0; i < appliers; i++) {
+            clusterApplierService.addStateApplier(event -> {
+                // appliers are always called on the cluster applier thread, whatever the number of applier threads
+                assertThat(Thread.currentThread().getName(), containsString(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME));
+                appliersCalled.countDown();
+            });
+        }
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        clusterApplierService.onNewClusterState("test", () -> ClusterState.builder(clusterApplierService.state()).build(),
+            new ClusterApplyListener() {
+
+                @Override
+                public void onSuccess(String source) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(String source, Exception e) {
+                    error.compareAndSet(null, e);
+                    latch.countDown();
+                }
+            }
+        );
+
+        latch.await();
+        assertNull(error.get());
+        // all appliers were called before the state was applied
+        assertThat(appliersCalled.getCount(), equalTo(0L));
+
+        final List<ClusterApplierStats.Recording> recordings = clusterApplierService.stats().getRecordings();
+        assertThat(recordings.stream().mapToLong(ClusterApplierStats.Recording::getCount).sum(),
+            greaterThanOrEqualTo((long) appliers));
+        for (int i = 1; i < recordings.size(); i++) {
+            assertThat(recordings.get(i - 1).getTimeInMillis(), greaterThanOrEqualTo(recordings.get(i).getTimeInMillis()));
+        }
+    }
+
+    public void testRunConcurrently() {
+        clusterApplierService.close();
+        clusterApplierService = createTimedClusterService(true, Settings.builder()
+            .put(ClusterApplierService.CLUSTER_SERVICE_APPLIER_THREADS_SETTING.getKey(), randomIntBetween(1, 4)).build());
+
+        final String currentThreadName = Thread.currentThread().getName();
+
+        final int taskCount = randomIntBetween(0, 100);
+        final Set<Integer> failingTasks = new HashSet<>(randomSubsetOf(between(0, Math.min(taskCount, 3)),
+            IntStream.range(0, taskCount).boxed().collect(Collectors.toList())));
+        final Set<Integer> completedTasks = ConcurrentCollections.newConcurrentSet();
+        final List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            final int task = i;
+            tasks.add(() -> {
+                if (failingTasks.contains(task)) {
+                    throw new ElasticsearchException("task [" + task + "] failed");
+                }
+                final String threadName = Thread.currentThread().getName();
+                if (threadName.equals(currentThreadName) == false) {
+                    // the parallel threads pass the cluster state thread assertions, yet cannot read the cluster state being applied
+                    assertThat(threadName, containsString(ClusterApplierService.CLUSTER_UPDATE_PARALLEL_THREAD_NAME));
+                    assertThat(threadName, not(containsString(ClusterApplierService.CLUSTER_UPDATE_THREAD_NAME)));
+                    assertTrue(ClusterService.assertClusterOrMasterStateThread());
+                    expectThrows(AssertionError.class, () -> ClusterApplierService.assertNotClusterStateUpdateThread("test"));
+                    expectThrows(AssertionError.class, clusterApplierService::state);
+                }
+                assertTrue(completedTasks.add(task));
+            });
+        }
+
+        if (failingTasks.isEmpty()) {
+            clusterApplierService.runConcurrently(tasks);
+        } else {
+            final ElasticsearchException e = expectThrows(ElasticsearchException.class, () -> clusterApplierService.runConcurrently(tasks));
+            assertThat(countFailures(e), equalTo(failingTasks.size()));
+        }
+        assertThat(completedTasks.size() + failingTasks.size(), equalTo(taskCount));
+    }
+
+    private static int countFailures(Throwable failure) {
+        int failures = 1;
+        for (Throwable suppressed : failure.getSuppressed()) {
+            failures += countFailures(suppressed);
+        }
+        return failures;
+    }
+
     static class TimedClusterApplierService extends ClusterApplierService {
 
         final ClusterSettings clusterSettings;
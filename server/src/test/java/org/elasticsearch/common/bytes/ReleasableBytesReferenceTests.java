@@ -21,12 +21,14 @@ package org.elasticsearch.common.bytes;
 
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.util.ByteArray;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 
@@ -85,6 +87,51 @@ public class ReleasableBytesReferenceTests extends AbstractBytesReferenceTestCas
         });
     }
 
+    public void testReleasedOnceAllReferencesAreReleased() throws IOException {
+        final AtomicInteger released = new AtomicInteger();
+        final BytesReference delegate = newBytesReference(randomIntBetween(10, 100));
+        final ReleasableBytesReference reference = new ReleasableBytesReference(delegate, released::incrementAndGet);
+        final int from = randomIntBetween(0, delegate.length() - 1);
+        final ReleasableBytesReference slice = reference.retainedSlice(from, randomIntBetween(0, delegate.length() - from));
+        assertThat(slice, equalTo(delegate.slice(from, slice.length())));
+        assertSame(reference, reference.retain());
+        reference.close();
+        reference.close();
+        assertThat(released.get(), equalTo(0));
+        slice.close();
+        assertThat(released.get(), equalTo(1));
+    }
+
+    public void testStreamInputSharesBytes() throws IOException {
+        final AtomicInteger released = new AtomicInteger();
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.writeVInt(randomInt());
+        final BytesReference bytes = new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 100)));
+        out.writeBytesReference(bytes);
+        out.writeString("tail");
+        final ReleasableBytesReference reference = new ReleasableBytesReference(out.bytes(), released::incrementAndGet);
+        final ReleasableBytesReference read;
+        try (StreamInput in = reference.streamInput()) {
+            in.readVInt();
+            read = in.readReleasableBytesReference();
+            assertThat(in.readString(), equalTo("tail"));
+        }
+        assertThat(read, equalTo(bytes));
+        reference.close();
+        assertThat(released.get(), equalTo(0));
+        read.close();
+        assertThat(released.get(), equalTo(1));
+    }
+
+    public void testWrappedStreamInputCopiesBytes() throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        final BytesReference bytes = new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 100)));
+        out.writeBytesReference(bytes);
+        try (StreamInput in = out.bytes().streamInput(); ReleasableBytesReference read = in.readReleasableBytesReference()) {
+            assertThat(read, equalTo(bytes));
+        }
+    }
+
     @Override
     public void testToBytesRefSharedPage() throws IOException {
         // CompositeBytesReference doesn't share pages
@@ -48,7 +48,9 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -943,4 +945,108 @@ public class CacheTests extends ESTestCase {
             assertEquals(RemovalNotification.RemovalReason.INVALIDATED, removalNotifications.get(i).getRemovalReason());
         }
     }
+
+    // the sketch of a cache without a maximum weight must not be grown, and lose its estimates, with every new entry
+    public void testFrequencyAwareSketchWithoutMaximumWeight() {
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().setFrequencyAwareEviction(true).build();
+        cache.put(0, "0");
+        final int tableLength = cache.getSketchTableLength();
+        assertThat(tableLength, greaterThanOrEqualTo(1 << 16));
+        for (int i = 1; i < 1000; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        assertEquals(tableLength, cache.getSketchTableLength());
+    }
+
+    // cache a set of frequently accessed entries, then scan through many keys that are each accessed once and check that
+    // the frequently accessed entries were not evicted by the scan
+    public void testFrequencyAwareEvictionResistsScans() {
+        int maximumWeight = randomIntBetween(500, 2000);
+        int numberOfHotKeys = maximumWeight / 2;
+        AtomicLong evictions = new AtomicLong();
+        Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .setFrequencyAwareEviction(true)
+                        .removalListener(notification -> evictions.incrementAndGet())
+                        .build();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < numberOfHotKeys; i++) {
+                if (cache.get(i) == null) {
+                    cache.put(i, Integer.toString(i));
+                }
+            }
+        }
+        for (int i = numberOfHotKeys; i < numberOfHotKeys + 10 * maximumWeight; i++) {
+            if (cache.get(i) == null) {
+                cache.put(i, Integer.toString(i));
+            }
+        }
+        assertEquals(maximumWeight, cache.count());
+        assertEquals(maximumWeight, cache.weight());
+        assertEquals(evictions.get(), cache.stats().getEvictions());
+        int hits = 0;
+        for (int i = 0; i < numberOfHotKeys; i++) {
+            if (cache.get(i) != null) {
+                hits++;
+            }
+        }
+        // a few hot entries may have been pushed out while they were still in the admission window
+        assertThat(hits, greaterThanOrEqualTo(numberOfHotKeys - maximumWeight / 100 - 1));
+    }
+
+    // concurrently read, load and invalidate weighted entries of a frequency-aware cache, then check that the weight and
+    // count of the cache are consistent with its entries and that the maximum weight is respected
+    public void testFrequencyAwareEvictionTorture() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        int maximumWeight = randomIntBetween(100, 1000);
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .weigher((k, v) -> 1 + k % 5)
+                        .setFrequencyAwareEviction(true)
+                        .build();
+
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        // skew the keys so that some of them are much more frequent than others
+                        Integer key = Math.abs((int) (random.nextGaussian() * maximumWeight));
+                        try {
+                            cache.computeIfAbsent(key, Object::toString);
+                        } catch (ExecutionException e) {
+                            throw new AssertionError(e);
+                        }
+                        if (random.nextInt(100) == 0) {
+                            cache.invalidate(key);
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        int count = 0;
+        long weight = 0;
+        for (Integer key : cache.keys()) {
+            count++;
+            weight += 1 + key % 5;
+        }
+        assertEquals(count, cache.count());
+        assertEquals(weight, cache.weight());
+        assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class FrequencySketchTests extends ESTestCase {
+
+    public void testEmptySketch() {
+        FrequencySketch sketch = new FrequencySketch();
+        assertThat(sketch.tableLength(), equalTo(0));
+        sketch.increment(randomInt());
+        assertThat(sketch.frequency(randomInt()), equalTo(0));
+    }
+
+    public void testEnsureCapacity() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(randomIntBetween(0, 8));
+        assertThat(sketch.tableLength(), equalTo(8));
+        sketch.ensureCapacity(1000);
+        assertThat(sketch.tableLength(), equalTo(1024));
+        sketch.ensureCapacity(10);
+        assertThat(sketch.tableLength(), equalTo(1024));
+        sketch.ensureCapacity(Long.MAX_VALUE);
+        assertThat(sketch.tableLength(), equalTo(1 << 20));
+    }
+
+    public void testIncrementIsNeverUnderestimated() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(512);
+        String key = randomAlphaOfLength(10);
+        int increments = randomIntBetween(0, FrequencySketch.MAXIMUM_FREQUENCY);
+        for (int i = 0; i < increments; i++) {
+            sketch.increment(key);
+        }
+        assertThat(sketch.frequency(key), greaterThanOrEqualTo(increments));
+    }
+
+    public void testFrequencySaturates() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(512);
+        Integer key = randomInt();
+        for (int i = 0; i < FrequencySketch.MAXIMUM_FREQUENCY + randomIntBetween(1, 100); i++) {
+            sketch.increment(key);
+        }
+        assertThat(sketch.frequency(key), equalTo(FrequencySketch.MAXIMUM_FREQUENCY));
+    }
+
+    public void testEstimatesDecay() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(512);
+        Integer hot = -1;
+        for (int i = 0; i < FrequencySketch.MAXIMUM_FREQUENCY; i++) {
+            sketch.increment(hot);
+        }
+        assertThat(sketch.frequency(hot), equalTo(FrequencySketch.MAXIMUM_FREQUENCY));
+        // the sketch is aged after ten increments per slot of its table
+        for (int i = 0; i < 10 * sketch.tableLength(); i++) {
+            sketch.increment(i);
+        }
+        assertThat(sketch.frequency(hot), lessThan(FrequencySketch.MAXIMUM_FREQUENCY));
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class DirectBigArraysTests extends ESTestCase {
+
+    private BigArrays bigArrays;
+
+    @Before
+    public void init() {
+        bigArrays = new DirectBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService(), CircuitBreaker.REQUEST);
+    }
+
+    public void testByteArrayGrowth() {
+        final int totalLen = randomIntBetween(1, 1000000);
+        final int startLen = randomIntBetween(1, randomBoolean() ? 1000 : totalLen);
+        ByteArray array = bigArrays.newByteArray(startLen, randomBoolean());
+        byte[] ref = new byte[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomByte();
+            array = bigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+        }
+        if (totalLen > PageCacheRecycler.BYTE_PAGE_SIZE) {
+            assertThat(array, instanceOf(BigDirectByteArray.class));
+        }
+        array.close();
+    }
+
+    public void testLongArrayGrowth() {
+        final int totalLen = randomIntBetween(1, 1000000);
+        final int startLen = randomIntBetween(1, randomBoolean() ? 1000 : totalLen);
+        LongArray array = bigArrays.newLongArray(startLen, randomBoolean());
+        long[] ref = new long[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomLong();
+            array = bigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+            assertEquals(ref[i] + 1, array.increment(i, 1));
+        }
+        if (totalLen > PageCacheRecycler.LONG_PAGE_SIZE) {
+            assertThat(array, instanceOf(BigDirectLongArray.class));
+        }
+        array.close();
+    }
+
+    public void testDoubleArrayGrowth() {
+        final int totalLen = randomIntBetween(1, 1000000);
+        final int startLen = randomIntBetween(1, randomBoolean() ? 1000 : totalLen);
+        DoubleArray array = bigArrays.newDoubleArray(startLen, randomBoolean());
+        double[] ref = new double[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomDouble();
+            array = bigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i), 0.001d);
+            assertEquals(ref[i] + 1, array.increment(i, 1), 0.001d);
+        }
+        if (totalLen > PageCacheRecycler.LONG_PAGE_SIZE) {
+            assertThat(array, instanceOf(BigDirectDoubleArray.class));
+        }
+        array.close();
+    }
+
+    public void testClearedOnCreation() {
+        final long size = randomIntBetween(PageCacheRecycler.LONG_PAGE_SIZE + 1, 10 * PageCacheRecycler.LONG_PAGE_SIZE);
+        LongArray array = bigArrays.newLongArray(size, true);
+        for (long i = 0; i < size; ++i) {
+            assertEquals(0L, array.get(i));
+        }
+        array.close();
+    }
+
+    public void testLongArrayFill() {
+        final int len = randomIntBetween(1, 100000);
+        final int fromIndex = randomIntBetween(0, len - 1);
+        final int toIndex = randomBoolean()
+            ? Math.min(fromIndex + randomInt(100), len) // single page
+            : randomIntBetween(fromIndex, len); // likely multiple pages
+        final LongArray array2 = bigArrays.newLongArray(len, randomBoolean());
+        final long[] array1 = new long[len];
+        for (int i = 0; i < len; ++i) {
+            array1[i] = randomLong();
+            array2.set(i, array1[i]);
+        }
+        final long rand = randomLong();
+        Arrays.fill(array1, fromIndex, toIndex, rand);
+        array2.fill(fromIndex, toIndex, rand);
+        for (int i = 0; i < len; ++i) {
+            assertEquals(array1[i], array2.get(i));
+        }
+        array2.close();
+    }
+
+    public void testByteArrayBulkGetAndSet() {
+        final byte[] array1 = new byte[randomIntBetween(1, 1000000)];
+        random().nextBytes(array1);
+        final ByteArray array2 = bigArrays.newByteArray(array1.length, randomBoolean());
+        for (int i = 0; i < array1.length; ) {
+            final int len = Math.min(array1.length - i, randomBoolean() ? randomInt(10) : randomInt(3 * PageCacheRecycler.BYTE_PAGE_SIZE));
+            array2.set(i, array1, i, len);
+            i += len;
+        }
+        final BytesRef ref = new BytesRef();
+        for (int i = 0; i < 1000; ++i) {
+            final int offset = randomInt(array1.length - 1);
+            final int len = randomInt(Math.min(randomBoolean() ? 10 : Integer.MAX_VALUE, array1.length - offset));
+            array2.get(offset, len, ref);
+            assertEquals(new BytesRef(array1, offset, len), ref);
+        }
+        array2.close();
+    }
+
+    public void testDirectPagesAreBoundedAndReused() {
+        final int maxDirectPages = randomIntBetween(1, 8);
+        final PageCacheRecycler recycler = new PageCacheRecycler(Settings.builder()
+            .put(PageCacheRecycler.LIMIT_DIRECT_SETTING.getKey(), maxDirectPages * PageCacheRecycler.PAGE_SIZE_IN_BYTES + "b")
+            .build());
+        final List<Recycler.V<ByteBuffer>> pages = new ArrayList<>();
+        for (int i = 0; i < maxDirectPages; i++) {
+            final Recycler.V<ByteBuffer> page = recycler.directPage(randomBoolean());
+            assertTrue(page.v().isDirect());
+            assertFalse(page.isRecycled());
+            pages.add(page);
+        }
+        // past the limit, pages are allocated on-heap so that no direct memory waits for the garbage collector
+        final Recycler.V<ByteBuffer> heapPage = recycler.directPage(randomBoolean());
+        assertFalse(heapPage.v().isDirect());
+        assertEquals(maxDirectPages * PageCacheRecycler.PAGE_SIZE_IN_BYTES, recycler.directMemoryInBytes());
+        heapPage.close();
+
+        final Recycler.V<ByteBuffer> released = pages.remove(randomIntBetween(0, pages.size() - 1));
+        released.v().putLong(0, randomValueOtherThan(0L, ESTestCase::randomLong));
+        released.close();
+        final Recycler.V<ByteBuffer> reused = recycler.directPage(true);
+        assertTrue(reused.isRecycled());
+        assertSame(released.v(), reused.v());
+        assertEquals(0L, reused.v().getLong(0));
+        pages.add(reused);
+        assertEquals(maxDirectPages * PageCacheRecycler.PAGE_SIZE_IN_BYTES, recycler.directMemoryInBytes());
+        Releasables.close(pages);
+    }
+
+    public void testArraysWithoutRecyclerUseHeapPages() {
+        final BigArrays nonRecycling = new DirectBigArrays(null, new NoneCircuitBreakerService(), CircuitBreaker.REQUEST);
+        final long size = randomLongBetween(PageCacheRecycler.LONG_PAGE_SIZE + 1, 10 * PageCacheRecycler.LONG_PAGE_SIZE);
+        final LongArray array = nonRecycling.newLongArray(size);
+        assertThat(array, instanceOf(BigDirectLongArray.class));
+        for (long i = 0; i < size; i++) {
+            array.set(i, i);
+        }
+        for (long i = 0; i < size; i++) {
+            assertEquals(i, array.get(i));
+        }
+        array.close();
+    }
+
+    public void testByteArrayGetReusesMaterializedBytes() {
+        final byte[] bytes = new byte[randomIntBetween(2, 100)];
+        random().nextBytes(bytes);
+        final ByteArray array = bigArrays.newByteArray(bytes.length, randomBoolean());
+        array.set(0, bytes, 0, bytes.length);
+
+        final BytesRef ref = new BytesRef();
+        array.get(0, bytes.length, ref);
+        final byte[] materialized = ref.bytes;
+        array.get(1, bytes.length - 1, ref);
+        assertSame(materialized, ref.bytes);
+        assertEquals(new BytesRef(bytes, 1, bytes.length - 1), ref);
+
+        // bytes that the array did not materialize are never overwritten
+        final byte[] foreign = new byte[bytes.length];
+        final BytesRef other = new BytesRef(foreign);
+        array.get(0, bytes.length, other);
+        assertNotSame(foreign, other.bytes);
+        assertArrayEquals(new byte[bytes.length], foreign);
+        assertEquals(new BytesRef(bytes), other);
+        // and a ref holding previously materialized bytes keeps its content
+        assertEquals(new BytesRef(bytes, 1, bytes.length - 1), ref);
+        array.close();
+    }
+
+    public void testWithCircuitBreakingKeepsPagesOffHeap() {
+        final BigArrays breaking = bigArrays.withCircuitBreaking();
+        assertThat(breaking, instanceOf(DirectBigArrays.class));
+        assertSame(breaking, breaking.withCircuitBreaking());
+        LongArray array = breaking.newLongArray(PageCacheRecycler.LONG_PAGE_SIZE + 1);
+        assertThat(array, instanceOf(BigDirectLongArray.class));
+        array.close();
+    }
+
+    public void testMaxSizeExceededOnNew() {
+        final long size = scaledRandomIntBetween(5, 1 << 22);
+        final long maxSize = size - 1;
+        HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+            Settings.builder()
+                .put(REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), maxSize, ByteSizeUnit.BYTES)
+                .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+                .build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        BigArrays breaking = new DirectBigArrays(null, hcbs, CircuitBreaker.REQUEST).withCircuitBreaking();
+        expectThrows(CircuitBreakingException.class, () -> breaking.newLongArray(size));
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+    }
+}
@@ -27,11 +27,13 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -285,4 +287,46 @@ public class AsyncIOProcessorTests extends ESTestCase {
         assertEquals(threadCount, received.get());
         threads.forEach(t -> assertFalse(t.isAlive()));
     }
+
+    public void testAwaitBatch() throws Exception {
+        final int items = randomIntBetween(2, 10);
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final CountDownLatch awaitingBatch = new CountDownLatch(1);
+        final AtomicBoolean awaited = new AtomicBoolean();
+        AsyncIOProcessor<Object> processor = new AsyncIOProcessor<Object>(logger, items, threadContext) {
+            @Override
+            protected void awaitBatch(int ownItems) {
+                if (awaited.compareAndSet(false, true)) {
+                    assertEquals(1, ownItems);
+                    awaitingBatch.countDown();
+                    try {
+                        assertBusy(() -> assertEquals(items, ownItems + queuedItems()));
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }
+
+            @Override
+            protected void write(List<Tuple<Object, Consumer<Exception>>> candidates) {
+                batchSizes.add(candidates.size());
+            }
+        };
+
+        final CountDownLatch notified = new CountDownLatch(items);
+        final Thread first = new Thread(() -> processor.put(new Object(), e -> notified.countDown()));
+        first.start();
+        assertTrue(awaitingBatch.await(10, TimeUnit.SECONDS));
+        final List<Thread> threads = IntStream.range(1, items)
+            .mapToObj(i -> new Thread(() -> processor.put(new Object(), e -> notified.countDown())))
+            .collect(Collectors.toList());
+        threads.forEach(Thread::start);
+        assertTrue(notified.await(10, TimeUnit.SECONDS));
+        first.join();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // all items were written by a single batch
+        assertEquals(List.of(items), batchSizes);
+    }
 }
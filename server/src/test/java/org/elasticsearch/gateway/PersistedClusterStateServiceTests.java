@@ -868,6 +868,52 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testTracksWriteStats() throws IOException {
+        final long writeDurationMillis = randomLongBetween(1, 1000);
+        final AtomicLong currentTime = new AtomicLong();
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createDataPaths())) {
+            final PersistedClusterStateService persistedClusterStateService = new PersistedClusterStateService(nodeEnvironment,
+                xContentRegistry(), BigArrays.NON_RECYCLING_INSTANCE,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                () -> currentTime.getAndAdd(writeDurationMillis));
+
+            PersistedClusterStateStats stats = persistedClusterStateService.stats();
+            assertThat(stats.getFullWriteCount(), equalTo(0L));
+            assertThat(stats.getIncrementalWriteCount(), equalTo(0L));
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                writer.writeFullStateAndCommit(0L, clusterState);
+
+                final ClusterState newClusterState = ClusterState.builder(clusterState)
+                    .metaData(MetaData.builder(clusterState.metaData())
+                        .put(IndexMetaData.builder("test")
+                            .settings(Settings.builder()
+                                .put(IndexMetaData.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                                .put(IndexMetaData.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 0)
+                                .put(IndexMetaData.SETTING_INDEX_VERSION_CREATED.getKey(), Version.CURRENT)
+                                .put(IndexMetaData.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random())))))
+                    .incrementVersion().build();
+                writer.writeIncrementalStateAndCommit(0L, clusterState, newClusterState);
+
+                // a state with the same metadata instance, e.g. after a routing table change, does not write any index metadata
+                final ClusterState sameMetaDataState = ClusterState.builder(newClusterState).incrementVersion().build();
+                assertSame(newClusterState.metaData(), sameMetaDataState.metaData());
+                writer.writeIncrementalStateAndCommit(0L, newClusterState, sameMetaDataState);
+
+                assertThat(loadPersistedClusterState(persistedClusterStateService).version(), equalTo(sameMetaDataState.version()));
+            }
+
+            stats = persistedClusterStateService.stats();
+            assertThat(stats.getFullWriteCount(), equalTo(1L));
+            assertThat(stats.getFullWriteTimeMillis(), equalTo(writeDurationMillis));
+            assertThat(stats.getIncrementalWriteCount(), equalTo(2L));
+            assertThat(stats.getIncrementalWriteTimeMillis(), equalTo(2 * writeDurationMillis));
+            assertThat(stats.getIndicesWritten(), equalTo(1L));
+            assertThat(stats.getIndicesSkipped(), equalTo(1L));
+        }
+    }
+
     private void assertExpectedLogs(long currentTerm, ClusterState previousState, ClusterState clusterState,
                                     PersistedClusterStateService.Writer writer, MockLogAppender.LoggingExpectation expectation)
         throws IllegalAccessException, IOException {
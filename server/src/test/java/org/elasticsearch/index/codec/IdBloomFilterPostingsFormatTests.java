@@ -0,0 +1,143 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene84.Lucene84Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+@SuppressCodecs("*") // we test against our own codec so never get a random one here!
+public class IdBloomFilterPostingsFormatTests extends ESTestCase {
+
+    public void testBloomFilter() {
+        final int numTerms = randomIntBetween(1, 10000);
+        final IdBloomFilterPostingsFormat.BloomFilter filter =
+            IdBloomFilterPostingsFormat.BloomFilter.withExpectedTerms(numTerms * randomIntBetween(1, 8));
+        final MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+        final Set<BytesRef> terms = new HashSet<>();
+        for (int i = 0; i < numTerms; i++) {
+            final BytesRef term = new BytesRef(UUIDs.randomBase64UUID(random()));
+            terms.add(term);
+            filter.add(term, hash);
+        }
+        final IdBloomFilterPostingsFormat.BloomFilter downsized = filter.downsize();
+        for (BytesRef term : terms) {
+            assertTrue(filter.mightContain(term, hash));
+            assertTrue(downsized.mightContain(term, hash));
+        }
+        int falsePositives = 0;
+        final int numChecks = 10000;
+        for (int i = 0; i < numChecks; i++) {
+            final BytesRef term = new BytesRef(UUIDs.randomBase64UUID(random()));
+            if (terms.contains(term) == false && downsized.mightContain(term, hash)) {
+                falsePositives++;
+            }
+        }
+        // sized for less than 1% false positives, leave room for randomness
+        assertThat(falsePositives, lessThan(numChecks * 3 / 100));
+    }
+
+    public void testSeekExact() throws Exception {
+        final Codec codec = new Lucene84Codec() {
+            final PostingsFormat idPostingsFormat = new IdBloomFilterPostingsFormat();
+
+            @Override
+            public PostingsFormat getPostingsFormatForField(String field) {
+                return IdFieldMapper.NAME.equals(field) ? idPostingsFormat : super.getPostingsFormatForField(field);
+            }
+        };
+        try (Directory dir = newDirectory()) {
+            final IndexWriterConfig iwc = newIndexWriterConfig(null);
+            iwc.setCodec(codec);
+            final Set<BytesRef> ids = new HashSet<>();
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                final int numDocs = scaledRandomIntBetween(10, 2000);
+                for (int i = 0; i < numDocs; i++) {
+                    final String id = UUIDs.randomBase64UUID(random());
+                    ids.add(new BytesRef(id));
+                    final Document doc = new Document();
+                    doc.add(new StringField(IdFieldMapper.NAME, id, Field.Store.NO));
+                    doc.add(new StringField("field", randomAlphaOfLength(4), Field.Store.NO));
+                    writer.addDocument(doc);
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                if (randomBoolean()) {
+                    writer.forceMerge(randomIntBetween(1, 3));
+                }
+                writer.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                for (BytesRef id : ids) {
+                    int found = 0;
+                    for (LeafReaderContext leaf : reader.leaves()) {
+                        final TermsEnum termsEnum = leaf.reader().terms(IdFieldMapper.NAME).iterator();
+                        if (termsEnum.seekExact(id)) {
+                            final PostingsEnum postings = termsEnum.postings(null, PostingsEnum.NONE);
+                            assertNotEquals(DocIdSetIterator.NO_MORE_DOCS, postings.nextDoc());
+                            found++;
+                        }
+                    }
+                    assertThat(found, equalTo(1));
+                }
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    final Terms terms = leaf.reader().terms(IdFieldMapper.NAME);
+                    final TermsEnum termsEnum = terms.iterator();
+                    for (int i = 0; i < 100; i++) {
+                        final BytesRef missing = new BytesRef(UUIDs.randomBase64UUID(random()));
+                        assertEquals(ids.contains(missing), termsEnum.seekExact(missing));
+                    }
+                    int numTerms = 0;
+                    final TermsEnum iterator = terms.iterator();
+                    for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+                        assertTrue(ids.contains(term));
+                        numTerms++;
+                    }
+                    assertThat(numTerms, equalTo(leaf.reader().maxDoc()));
+                }
+            }
+        }
+    }
+}
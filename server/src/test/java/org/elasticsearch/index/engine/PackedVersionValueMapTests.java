@@ -0,0 +1,126 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class PackedVersionValueMapTests extends ESTestCase {
+
+    public void testAgainstHashMap() {
+        final PackedVersionValueMap map = new PackedVersionValueMap();
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final List<BytesRef> uids = new ArrayList<>();
+        final int numUids = randomIntBetween(1, 2000);
+        for (int i = 0; i < numUids; i++) {
+            uids.add(new BytesRef(TestUtil.randomSimpleString(random(), 1, 40)));
+        }
+        final int iters = scaledRandomIntBetween(1000, 50000);
+        for (int i = 0; i < iters; i++) {
+            final BytesRef uid = randomFrom(uids);
+            switch (randomIntBetween(0, 3)) {
+                case 0:
+                case 1:
+                    final VersionValue value = randomIndexVersionValue();
+                    assertThat(map.put(uid, value), equalTo(expected.put(uid, value)));
+                    break;
+                case 2:
+                    assertThat(map.remove(uid), equalTo(expected.remove(uid)));
+                    break;
+                default:
+                    assertThat(map.get(uid), equalTo(expected.get(uid)));
+            }
+            assertThat(map.size(), equalTo(expected.size()));
+        }
+        assertThat(new HashMap<>(map), equalTo(expected));
+        if (expected.isEmpty() == false) {
+            assertThat(map.ramBytesUsed(), greaterThan(0L));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertThat(map.ramBytesUsed(), equalTo(0L));
+        for (BytesRef uid : uids) {
+            assertNull(map.get(uid));
+        }
+    }
+
+    public void testRejectsDeletes() {
+        final PackedVersionValueMap map = new PackedVersionValueMap();
+        expectThrows(IllegalArgumentException.class, () -> map.put(new BytesRef("1"), new DeleteVersionValue(1, 1, 1, 1)));
+    }
+
+    public void testConcurrentAccess() throws Exception {
+        final PackedVersionValueMap map = new PackedVersionValueMap();
+        final int numThreads = randomIntBetween(2, 6);
+        final int numOps = scaledRandomIntBetween(1000, 20000);
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        final Thread[] threads = new Thread[numThreads];
+        final List<Map<BytesRef, VersionValue>> expected = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int threadId = t;
+            final Map<BytesRef, VersionValue> threadExpected = new HashMap<>();
+            expected.add(threadExpected);
+            threads[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    // threads use disjoint uids, like the engine which serializes operations on the same uid
+                    for (int i = 0; i < numOps; i++) {
+                        final BytesRef uid = new BytesRef(threadId + "_" + (i % 500));
+                        final VersionValue value = new IndexVersionValue(null, i, i, threadId);
+                        map.put(uid, value);
+                        assertThat(map.get(uid), equalTo(value));
+                        if (i % 7 == 0) {
+                            map.remove(uid);
+                            threadExpected.remove(uid);
+                        } else {
+                            threadExpected.put(uid, value);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final Map<BytesRef, VersionValue> allExpected = new HashMap<>();
+        expected.forEach(allExpected::putAll);
+        assertThat(new HashMap<>(map), equalTo(allExpected));
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        final Translog.Location location = randomBoolean() ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomLong(), randomLong(), randomLong());
+    }
+}
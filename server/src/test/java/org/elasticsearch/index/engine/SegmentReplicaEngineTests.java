@@ -0,0 +1,347 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StandardDirectoryReader;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MockDirectoryWrapper;
+import org.apache.lucene.store.OutputStreamIndexOutput;
+import org.apache.lucene.util.LuceneTestCase;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.replication.ReplicationType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+
+@LuceneTestCase.SuppressFileSystems("WindowsFS") // the segments of a new primary replace files that are still open
+public class SegmentReplicaEngineTests extends EngineTestCase {
+
+    @Override
+    protected Settings indexSettings() {
+        return Settings.builder().put(super.indexSettings())
+            .put(IndexSettings.INDEX_REPLICATION_TYPE_SETTING.getKey(), ReplicationType.SEGMENT.toString())
+            .build();
+    }
+
+    public void testOperationsAreOnlyWrittenToTranslog() throws Exception {
+        IOUtils.close(engine, store);
+        final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+        try (Store store = createStore()) {
+            final EngineConfig config = config(defaultSettings, store, createTempDir(), newMergePolicy(), null, null,
+                globalCheckpoint::get);
+            // bootstraps an empty index and translog
+            createEngine(config).close();
+            final int numDocs = scaledRandomIntBetween(10, 100);
+            try (SegmentReplicaEngine engine = new SegmentReplicaEngine(config)) {
+                engine.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+                for (int i = 0; i < numDocs; i++) {
+                    final ParsedDocument doc = createParsedDoc(Integer.toString(i), null);
+                    engine.index(replicaIndexForDoc(doc, 1, i, false));
+                }
+                engine.noOp(new Engine.NoOp(numDocs, primaryTerm.get(), Engine.Operation.Origin.REPLICA, System.nanoTime(), "test"));
+                engine.syncTranslog();
+                assertThat(engine.getProcessedLocalCheckpoint(), equalTo((long) numDocs));
+                assertThat(engine.getPersistedLocalCheckpoint(), equalTo((long) numDocs));
+                assertThat(getDocIds(engine, true), empty());
+
+                engine.flush(true, true);
+                assertThat(engine.getTranslog().stats().getUncommittedOperations(), equalTo(numDocs + 1));
+                assertThat(store.readLastCommittedSegmentsInfo().getUserData().get(SequenceNumbers.LOCAL_CHECKPOINT_KEY),
+                    equalTo(Long.toString(SequenceNumbers.NO_OPS_PERFORMED)));
+                globalCheckpoint.set(engine.getPersistedLocalCheckpoint());
+            }
+            // a regular engine, as opened when the replica is promoted, indexes the operations of the translog into Lucene
+            try (InternalEngine engine = new InternalEngine(config)) {
+                engine.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+                assertThat(getDocIds(engine, true), hasSize(numDocs));
+            }
+        }
+    }
+
+    public void testReplicateRefreshedSegments() throws Exception {
+        IOUtils.close(replicaEngine);
+        final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+        final EngineConfig replicaConfig = config(defaultSettings, storeReplica, replicaTranslogDir, newMergePolicy(), null, null,
+            globalCheckpoint::get);
+        SegmentReplicaEngine replica = new SegmentReplicaEngine(replicaConfig);
+        try {
+            replica.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+            final int rounds = randomIntBetween(1, 5);
+            for (int round = 0; round < rounds; round++) {
+                indexOnPrimaryAndReplica(replica, scaledRandomIntBetween(1, 50));
+                if (randomBoolean()) {
+                    engine.flush();
+                }
+                if (randomBoolean()) {
+                    replica.rollTranslogGeneration();
+                }
+                engine.refresh("test");
+                replica.syncTranslog();
+                // the global checkpoint may lag behind the refreshed operations, which caps the local checkpoint of the copy
+                globalCheckpoint.set(randomLongBetween(globalCheckpoint.get(), replica.getPersistedLocalCheckpoint()));
+
+                final long localCheckpoint = replicateSegments(engine, store, replica, storeReplica, globalCheckpoint.get());
+                assertThat(getDocIds(replica, false), equalTo(getDocIds(engine, false)));
+                assertThat(replica.getLastCommittedSegmentInfos().getUserData().get(SequenceNumbers.LOCAL_CHECKPOINT_KEY),
+                    equalTo(Long.toString(localCheckpoint)));
+                // the operations that are not in the installed segments must be replayed if the replica is reopened
+                final Set<Long> seqNos = new HashSet<>();
+                try (Translog.Snapshot snapshot = replica.getTranslog().newSnapshot()) {
+                    Translog.Operation operation;
+                    while ((operation = snapshot.next()) != null) {
+                        seqNos.add(operation.seqNo());
+                    }
+                }
+                for (long seqNo = localCheckpoint + 1; seqNo <= replica.getProcessedLocalCheckpoint(); seqNo++) {
+                    assertThat(seqNos, hasItem(seqNo));
+                }
+            }
+
+            // the installed segments are only kept when the replica is reopened if they are safe
+            final long processedCheckpoint = replica.getProcessedLocalCheckpoint();
+            globalCheckpoint.set(replica.getPersistedLocalCheckpoint());
+            replica.syncTranslog();
+            replica.close();
+            replica = new SegmentReplicaEngine(replicaConfig);
+            replica.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+            assertThat(replica.getProcessedLocalCheckpoint(), equalTo(processedCheckpoint));
+            assertThat(getDocIds(replica, true), equalTo(getDocIds(engine, true)));
+
+            // operations that were never copied as segments are indexed from the translog when the replica is promoted
+            indexOnPrimaryAndReplica(replica, scaledRandomIntBetween(1, 50));
+            replica.syncTranslog();
+            globalCheckpoint.set(replica.getPersistedLocalCheckpoint());
+            replica.close();
+            try (InternalEngine promoted = new InternalEngine(replicaConfig)) {
+                promoted.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+                assertThat(getDocIds(promoted, true), equalTo(getDocIds(engine, true)));
+            }
+        } finally {
+            IOUtils.close(replica);
+        }
+    }
+
+    public void testRollBackSegmentsOfFailedPrimary() throws Exception {
+        IOUtils.close(replicaEngine);
+        final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+        final EngineConfig replicaConfig = config(defaultSettings, storeReplica, replicaTranslogDir, newMergePolicy(), null, null,
+            globalCheckpoint::get);
+        SegmentReplicaEngine replica = new SegmentReplicaEngine(replicaConfig);
+        try {
+            replica.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+            indexOnPrimaryAndReplica(replica, scaledRandomIntBetween(1, 50));
+            engine.refresh("test");
+            replica.syncTranslog();
+            globalCheckpoint.set(replica.getPersistedLocalCheckpoint());
+            replica.syncTranslog();
+            replicateSegments(engine, store, replica, storeReplica, globalCheckpoint.get());
+            final List<DocIdSeqNoAndSource> safeDocs = getDocIds(engine, false);
+
+            // the primary refreshes an operation that is copied to the replica as a segment before it is replicated, then fails
+            final Engine.IndexResult lostResult = engine.index(indexForDoc(createParsedDoc("lost", null)));
+            engine.refresh("test");
+            replicateSegments(engine, store, replica, storeReplica, globalCheckpoint.get());
+            assertThat(getDocIds(replica, false), equalTo(getDocIds(engine, false)));
+            assertThat(replica.getMaxSeqNoOfInstalledSegments(), equalTo(lostResult.getSeqNo()));
+
+            // the replica detects the new primary, and is reset to the global checkpoint as its copied segments are above it
+            primaryTerm.incrementAndGet();
+            replica.close();
+            replica = new SegmentReplicaEngine(replicaConfig);
+            replica.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+            assertThat(getDocIds(replica, false), equalTo(safeDocs));
+
+            // the new primary assigns the same sequence number to another operation, which is acknowledged before it fails as well
+            replica.rollTranslogGeneration();
+            replica.index(replicaIndexForDoc(createParsedDoc("acked", null), 1, lostResult.getSeqNo(), false));
+            replica.syncTranslog();
+            globalCheckpoint.set(lostResult.getSeqNo());
+            replica.syncTranslog();
+            replica.close();
+
+            try (InternalEngine promoted = new InternalEngine(replicaConfig)) {
+                promoted.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+                assertThat(promoted.getProcessedLocalCheckpoint(), equalTo(lostResult.getSeqNo()));
+                final Set<String> expectedIds = new HashSet<>();
+                for (DocIdSeqNoAndSource doc : safeDocs) {
+                    expectedIds.add(doc.getId());
+                }
+                expectedIds.add("acked");
+                final Set<String> ids = new HashSet<>();
+                for (DocIdSeqNoAndSource doc : getDocIds(promoted, true)) {
+                    ids.add(doc.getId());
+                }
+                assertThat(ids, equalTo(expectedIds));
+            }
+        } finally {
+            IOUtils.close(replica);
+        }
+    }
+
+    public void testInstallSegmentsOfNewPrimary() throws Exception {
+        IOUtils.close(replicaEngine, storeReplica);
+        final MockDirectoryWrapper directory = newMockDirectory();
+        // the files of the new primary replace the ones of the previous primary while the current reader has them open, which is
+        // allowed by the file systems that these tests run on
+        directory.setNoDeleteOpenFile(false);
+        try (Store replicaStore = createStore(directory);
+             Store newPrimaryStore = createStore()) {
+            final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+            final EngineConfig replicaConfig = config(defaultSettings, replicaStore, createTempDir(), newMergePolicy(), null, null,
+                globalCheckpoint::get);
+            createEngine(replicaConfig).close();
+            try (SegmentReplicaEngine replica = new SegmentReplicaEngine(replicaConfig)) {
+                replica.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+                final int numDocs = scaledRandomIntBetween(1, 50);
+                for (int i = 0; i < numDocs; i++) {
+                    engine.index(indexForDoc(createParsedDoc("old-" + i, null)));
+                }
+                engine.refresh("test");
+                replicateSegments(engine, store, replica, replicaStore, engine.getProcessedLocalCheckpoint());
+                assertVisibleCount(replica, numDocs, false);
+                final boolean copiedSegmentsAreSafe = randomBoolean();
+                if (copiedSegmentsAreSafe) {
+                    globalCheckpoint.set(engine.getProcessedLocalCheckpoint());
+                    replica.syncTranslog();
+                }
+
+                // a new primary names its segments the same way as the previous one, but their content differs
+                try (InternalEngine newPrimary = createEngine(newPrimaryStore, createTempDir())) {
+                    final int numNewDocs = scaledRandomIntBetween(1, 50);
+                    for (int i = 0; i < numNewDocs; i++) {
+                        newPrimary.index(indexForDoc(createParsedDoc("new-" + i, null)));
+                    }
+                    newPrimary.refresh("test");
+                    if (copiedSegmentsAreSafe) {
+                        // the safe commit must remain readable to roll the replica back to it
+                        final EngineException e = expectThrows(EngineException.class, () ->
+                            replicateSegments(newPrimary, newPrimaryStore, replica, replicaStore, SequenceNumbers.NO_OPS_PERFORMED));
+                        assertThat(e.getMessage(), containsString("replace files of the safe commit"));
+                        return;
+                    }
+                    replicateSegments(newPrimary, newPrimaryStore, replica, replicaStore, SequenceNumbers.NO_OPS_PERFORMED);
+                    assertVisibleCount(replica, numNewDocs, false);
+                    assertThat(getDocIds(replica, false), equalTo(getDocIds(newPrimary, false)));
+
+                    // the commit of the previous primary is dropped, the empty safe commit and the installed commit are kept
+                    final List<IndexCommit> commits = DirectoryReader.listCommits(replicaStore.directory());
+                    assertThat(commits, hasSize(2));
+                    final Set<String> referencedFiles = new HashSet<>();
+                    for (IndexCommit commit : commits) {
+                        referencedFiles.addAll(commit.getFileNames());
+                    }
+                    for (String file : replicaStore.directory().listAll()) {
+                        if (file.startsWith(IndexFileNames.SEGMENTS) || IndexFileNames.CODEC_FILE_PATTERN.matcher(file).matches()) {
+                            assertThat(referencedFiles, hasItem(file));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void indexOnPrimaryAndReplica(Engine replica, int numOps) throws IOException {
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < numOps; i++) {
+            if (ids.isEmpty() == false && rarely()) {
+                final String id = ids.remove(randomIntBetween(0, ids.size() - 1));
+                final Engine.DeleteResult result = engine.delete(new Engine.Delete(id, newUid(id), primaryTerm.get()));
+                replica.delete(new Engine.Delete(id, newUid(id), result.getSeqNo(), primaryTerm.get(), result.getVersion(), null,
+                    Engine.Operation.Origin.REPLICA, System.nanoTime(), SequenceNumbers.UNASSIGNED_SEQ_NO, 0));
+            } else {
+                final String id = Integer.toString(randomIntBetween(0, 100));
+                final ParsedDocument doc = createParsedDoc(id, null);
+                final Engine.IndexResult result = engine.index(indexForDoc(doc));
+                replica.index(replicaIndexForDoc(doc, result.getVersion(), result.getSeqNo(), false));
+                ids.add(id);
+            }
+        }
+    }
+
+    /**
+     * Copies the refreshed segments of the given primary to the replica and installs them, the same way as the segment replication
+     * services do. Returns the local checkpoint of the installed segments.
+     */
+    private static long replicateSegments(InternalEngine primary, Store primaryStore, SegmentReplicaEngine replica, Store replicaStore,
+                                          long globalCheckpoint) throws IOException {
+        final long localCheckpoint = Math.min(primary.lastRefreshedCheckpoint(), globalCheckpoint);
+        final byte[] segmentInfosBytes;
+        final long segmentInfosGeneration;
+        final Map<String, String> tempFiles = new HashMap<>();
+        try (Engine.Searcher searcher = primary.acquireSearcher("test", Engine.SearcherScope.INTERNAL)) {
+            final SegmentInfos segmentInfos =
+                ((StandardDirectoryReader) FilterDirectoryReader.unwrap(searcher.getDirectoryReader())).getSegmentInfos().clone();
+            final Map<String, String> userData = new HashMap<>(segmentInfos.getUserData());
+            userData.put(SequenceNumbers.LOCAL_CHECKPOINT_KEY, Long.toString(localCheckpoint));
+            userData.put(SequenceNumbers.MAX_SEQ_NO, Long.toString(primary.getSeqNoStats(globalCheckpoint).getMaxSeqNo()));
+            segmentInfos.setUserData(userData, false);
+
+            final Store.MetadataSnapshot replicaMetadata;
+            try (Engine.IndexCommitRef commitRef = replica.acquireLastIndexCommit(false)) {
+                replicaMetadata = replicaStore.getMetadata(commitRef.getIndexCommit());
+            }
+            for (StoreFileMetaData file : primaryStore.getMetadata(segmentInfos)) {
+                final StoreFileMetaData existing = replicaMetadata.get(file.name());
+                if (existing != null && existing.isSame(file)) {
+                    continue;
+                }
+                final String tempFile = "replication.test." + file.name();
+                replicaStore.directory().copyFrom(primaryStore.directory(), file.name(), tempFile, IOContext.DEFAULT);
+                tempFiles.put(tempFile, file.name());
+            }
+            final BytesStreamOutput out = new BytesStreamOutput();
+            try (IndexOutput output = new OutputStreamIndexOutput("segment infos", "segment_infos", out, 1024)) {
+                segmentInfos.write(primaryStore.directory(), output);
+            }
+            segmentInfosBytes = BytesReference.toBytes(out.bytes());
+            segmentInfosGeneration = segmentInfos.getGeneration();
+        }
+        replica.installSegmentInfos(segmentInfosBytes, segmentInfosGeneration, new HashSet<>(tempFiles.values()),
+            () -> replicaStore.renameTempFilesSafe(tempFiles, false));
+        return localCheckpoint;
+    }
+}
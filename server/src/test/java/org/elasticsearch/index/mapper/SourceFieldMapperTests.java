@@ -30,11 +30,14 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.test.InternalSettingsPlugin;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
@@ -225,4 +228,83 @@ public class SourceFieldMapperTests extends ESSingleNodeTestCase {
             assertTrue(message, message.contains("Unexpected close marker '}'"));
         }
     }
+
+    public void testModeNotUpdateable() throws Exception {
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        String mapping1 = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").endObject().endObject());
+        String mapping2 = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .endObject().endObject());
+        assertConflicts(mapping1, mapping2, parser, "Cannot update mode setting for [_source]");
+    }
+
+    public void testSyntheticModeOnlyStoresRecoverySource() throws Exception {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties").startObject("field").field("type", "keyword").endObject().endObject()
+            .endObject().endObject());
+
+        DocumentMapper documentMapper = createIndex("test").mapperService().documentMapperParser()
+            .parse("type", new CompressedXContent(mapping));
+        assertTrue(documentMapper.sourceMapper().isSynthetic());
+        assertFalse(documentMapper.sourceMapper().isComplete());
+
+        ParsedDocument doc = documentMapper.parse(new SourceToParse("test", "1",
+            BytesReference.bytes(XContentFactory.jsonBuilder().startObject().field("field", "value").endObject()),
+            XContentType.JSON));
+        assertNull(doc.rootDoc().getField(SourceFieldMapper.NAME));
+        assertNotNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+    }
+
+    public void testSyntheticModeRejectsFilters() throws Exception {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").array("includes", "foo.*").endObject()
+            .endObject().endObject());
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> parser.parse("type", new CompressedXContent(mapping)));
+        assertThat(e.getMessage(), containsString("[_source] in [synthetic] mode can't be disabled or use [includes] or [excludes]"));
+    }
+
+    public void testSyntheticModeRejectsFieldsWithoutDocValues() throws Exception {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties").startObject("field").field("type", "text").endObject().endObject()
+            .endObject().endObject());
+        MapperService mapperService = createIndex("test").mapperService();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> mapperService.merge("type",
+            new CompressedXContent(mapping), MapperService.MergeReason.MAPPING_UPDATE));
+        assertThat(e.getMessage(), containsString("field [field] of type [text] must be one of"));
+    }
+
+    public void testSyntheticSourceIsReconstructedFromDocValues() throws Exception {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("_doc")
+            .startObject("_source").field("mode", "synthetic").endObject()
+            .startObject("properties")
+                .startObject("host").startObject("properties")
+                    .startObject("name").field("type", "keyword").endObject()
+                .endObject().endObject()
+                .startObject("cpu").field("type", "long").endObject()
+                .startObject("load").field("type", "double").endObject()
+                .startObject("tags").field("type", "keyword").endObject()
+            .endObject()
+            .endObject().endObject());
+        client().admin().indices().prepareCreate("test").addMapping("_doc", mapping, XContentType.JSON).get();
+        client().prepareIndex("test", "_doc", "1").setSource(XContentFactory.jsonBuilder().startObject()
+            .field("tags", new String[] {"b", "a"})
+            .field("cpu", 42)
+            .field("load", 0.5)
+            .startObject("host").field("name", "node-1").endObject()
+            .endObject()).get();
+
+        Map<String, Object> source = client().prepareGet("test", "1").get().getSourceAsMap();
+        assertThat(source.get("cpu"), equalTo(42));
+        assertThat(source.get("load"), equalTo(0.5));
+        assertThat(source.get("tags"), equalTo(Arrays.asList("a", "b")));
+        assertThat(source.get("host"), equalTo(Collections.singletonMap("name", "node-1")));
+
+        client().admin().indices().prepareRefresh("test").get();
+        SearchHit hit = client().prepareSearch("test").get().getHits().getAt(0);
+        assertThat(hit.getSourceAsMap(), equalTo(source));
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TranslogSyncProcessorTests extends ESTestCase {
+
+    private final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+    private final AtomicLong relativeTimeInNanos = new AtomicLong();
+    private final AtomicLong syncNanos = new AtomicLong();
+    private final AtomicReference<TimeValue> maxDelay = new AtomicReference<>(TimeValue.timeValueHours(1));
+    private final List<Integer> syncedBatchSizes = new CopyOnWriteArrayList<>();
+
+    private TranslogSyncProcessor newProcessor() {
+        return new TranslogSyncProcessor(logger, threadContext, locations -> {
+            syncedBatchSizes.add((int) locations.count());
+            relativeTimeInNanos.addAndGet(syncNanos.get());
+            return true;
+        }, maxDelay::get, relativeTimeInNanos::get);
+    }
+
+    private static void sync(TranslogSyncProcessor processor, int locations, long tookMillis, AtomicLong syncNanos) throws IOException {
+        syncNanos.set(TimeValue.timeValueMillis(tookMillis).nanos());
+        final List<Tuple<Translog.Location, Consumer<Exception>>> candidates = new ArrayList<>();
+        for (int i = 0; i < locations; i++) {
+            candidates.add(new Tuple<>(new Translog.Location(1, i, 1), e -> {}));
+        }
+        processor.write(candidates);
+    }
+
+    public void testWindowGrowsAndShrinksWithSyncLatency() throws IOException {
+        final TranslogSyncProcessor processor = newProcessor();
+        assertThat(processor.batchWindowNanos(), equalTo(0L));
+
+        // a sync that did not coalesce requests never holds the next one back
+        sync(processor, 1, 10, syncNanos);
+        assertThat(processor.batchWindowNanos(), equalTo(0L));
+
+        final int batchSize = randomIntBetween(2, 10);
+        sync(processor, batchSize, 10, syncNanos);
+        assertThat(processor.batchWindowNanos(), equalTo(TimeValue.timeValueMillis(5).nanos()));
+
+        long previousWindow = processor.batchWindowNanos();
+        for (int i = 0; i < 5; i++) {
+            sync(processor, batchSize, 100, syncNanos);
+            final long window = processor.batchWindowNanos();
+            assertThat(window, greaterThan(previousWindow));
+            assertThat(window, lessThanOrEqualTo(TimeValue.timeValueMillis(50).nanos()));
+            previousWindow = window;
+        }
+
+        for (int i = 0; i < 5; i++) {
+            sync(processor, batchSize, 1, syncNanos);
+            final long window = processor.batchWindowNanos();
+            assertThat(window, lessThan(previousWindow));
+            assertThat(window, greaterThan(TimeValue.timeValueMillis(1).nanos() / 2));
+            previousWindow = window;
+        }
+
+        sync(processor, 1, 1, syncNanos);
+        assertThat(processor.batchWindowNanos(), equalTo(0L));
+    }
+
+    public void testWindowIsCappedByMaxDelay() throws IOException {
+        final TranslogSyncProcessor processor = newProcessor();
+        sync(processor, randomIntBetween(2, 10), 100, syncNanos);
+        assertThat(processor.batchWindowNanos(), equalTo(TimeValue.timeValueMillis(50).nanos()));
+
+        final long maxDelayMillis = randomLongBetween(1, 49);
+        maxDelay.set(TimeValue.timeValueMillis(maxDelayMillis));
+        assertThat(processor.batchWindowNanos(), equalTo(TimeValue.timeValueMillis(maxDelayMillis).nanos()));
+
+        maxDelay.set(TimeValue.ZERO);
+        assertThat(processor.batchWindowNanos(), equalTo(0L));
+
+        maxDelay.set(TimeValue.timeValueMillis(randomLongBetween(50, 1000)));
+        assertThat(processor.batchWindowNanos(), equalTo(TimeValue.timeValueMillis(50).nanos()));
+    }
+
+    public void testWindowEndsOnceBatchIsComplete() throws Exception {
+        final TranslogSyncProcessor processor = newProcessor();
+        final int batchSize = randomIntBetween(2, 10);
+        // the window lasts a minute, so the batch is only synced in time if the last queued location ends the window
+        sync(processor, batchSize, TimeValue.timeValueMinutes(2).millis(), syncNanos);
+        assertThat(processor.batchWindowNanos(), equalTo(TimeValue.timeValueMinutes(1).nanos()));
+        syncedBatchSizes.clear();
+
+        final CountDownLatch notified = new CountDownLatch(batchSize);
+        final Thread leader = new Thread(() -> processor.put(new Translog.Location(2, 0, 1), e -> notified.countDown()));
+        leader.start();
+        assertBusy(() -> assertTrue(processor.isAwaitingBatch()));
+
+        final List<Thread> followers = new ArrayList<>();
+        for (int i = 1; i < batchSize; i++) {
+            final Translog.Location location = new Translog.Location(2, i, 1);
+            followers.add(new Thread(() -> processor.put(location, e -> notified.countDown())));
+        }
+        followers.forEach(Thread::start);
+
+        assertTrue(notified.await(10, TimeUnit.SECONDS));
+        leader.join();
+        for (Thread follower : followers) {
+            follower.join();
+        }
+        assertThat(syncedBatchSizes, equalTo(List.of(batchSize)));
+        assertFalse(processor.isAwaitingBatch());
+    }
+}
@@ -509,7 +509,8 @@ public class TranslogTests extends ESTestCase {
                 builder.endObject();
                 assertThat(Strings.toString(builder), equalTo("{\"translog\":{\"operations\":4,\"size_in_bytes\":" + expectedSizeInBytes
                     + ",\"uncommitted_operations\":4,\"uncommitted_size_in_bytes\":" + expectedSizeInBytes
-                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge() + "}}"));
+                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge()
+                    + ",\"sync_total\":0,\"sync_total_time_in_millis\":0,\"synced_locations\":0}}"));
             }
         }
 
@@ -524,6 +525,37 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testSyncStats() throws IOException {
+        assertThat(translog.stats().getSyncTotal(), equalTo(0L));
+        assertThat(translog.stats().getSyncedLocations(), equalTo(0L));
+
+        final int batches = randomIntBetween(1, 10);
+        long seqNo = 0;
+        long locationsSynced = 0;
+        for (int i = 0; i < batches; i++) {
+            final List<Translog.Location> locations = new ArrayList<>();
+            final int operations = randomIntBetween(1, 10);
+            for (int j = 0; j < operations; j++) {
+                locations.add(translog.add(new Translog.Index(Long.toString(seqNo), seqNo++, primaryTerm.get(), new byte[]{1})));
+            }
+            locationsSynced += locations.size();
+            assertTrue(translog.ensureSynced(randomFrom(locations.stream(), locations.stream().sorted(Comparator.reverseOrder()))));
+            // syncing the same locations again is a no-op
+            assertFalse(translog.ensureSynced(locations.stream()));
+            final TranslogStats stats = translog.stats();
+            assertThat(stats.getSyncTotal(), equalTo(i + 1L));
+            assertThat(stats.getSyncedLocations(), equalTo(locationsSynced));
+        }
+
+        final TranslogStats stats = translog.stats();
+        final BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        final TranslogStats copy = new TranslogStats(out.bytes().streamInput());
+        assertThat(copy.getSyncTotal(), equalTo(stats.getSyncTotal()));
+        assertThat(copy.getSyncTotalTimeInMillis(), equalTo(stats.getSyncTotalTimeInMillis()));
+        assertThat(copy.getSyncedLocations(), equalTo(stats.getSyncedLocations()));
+    }
+
     public void testUncommittedOperations() throws Exception {
         final TranslogDeletionPolicy deletionPolicy = translog.getDeletionPolicy();
         deletionPolicy.setRetentionAgeInMillis(randomLong());
@@ -626,6 +658,57 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testSnapshotWithMmapReaders() throws IOException {
+        final Path path = createTempDir();
+        final Settings settings = Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_READERS_SETTING.getKey(), true)
+            .build();
+        final TranslogConfig translogConfig = getTranslogConfig(path, settings);
+        final String translogUUID = Translog.createEmptyTranslog(path, SequenceNumbers.NO_OPS_PERFORMED, shardId, primaryTerm.get());
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final List<TranslogReader> readers;
+        final Translog.Snapshot outlivingSnapshot;
+        try (Translog mmapTranslog = new Translog(translogConfig, translogUUID,
+                createTranslogDeletionPolicy(translogConfig.getIndexSettings()), () -> SequenceNumbers.NO_OPS_PERFORMED,
+                primaryTerm::get, seqNo -> {})) {
+            final int numOps = randomIntBetween(1, 200);
+            for (int i = 0; i < numOps; i++) {
+                // some operations are larger than the buffer that unmapped snapshots reuse
+                final byte[] source = randomByteArrayOfLength(randomBoolean() ? randomIntBetween(1, 16) : randomIntBetween(1024, 4096));
+                addToTranslogAndList(mmapTranslog, ops, new Translog.Index(Integer.toString(i), i, primaryTerm.get(), source));
+                if (rarely()) {
+                    mmapTranslog.rollGeneration();
+                }
+            }
+            mmapTranslog.rollGeneration();
+            readers = new ArrayList<>(mmapTranslog.getReaders());
+            // the mapping of each generation is shared by concurrent snapshots
+            try (Translog.Snapshot snapshot = mmapTranslog.newSnapshot();
+                 Translog.Snapshot snapshot1 = mmapTranslog.newSnapshot()) {
+                for (TranslogReader reader : readers) {
+                    assertThat(reader.mappedGenerationRefCount(), equalTo(3));
+                }
+                assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+                assertThat(snapshot1, SnapshotMatchers.equalsTo(ops));
+            }
+            for (TranslogReader reader : readers) {
+                assertThat(reader.mappedGenerationRefCount(), equalTo(1));
+            }
+            outlivingSnapshot = mmapTranslog.newSnapshot();
+        }
+        // closing the translog releases its readers' mappings, but generations stay mapped until the last snapshot is closed
+        for (TranslogReader reader : readers) {
+            assertThat(reader.mappedGenerationRefCount(), equalTo(1));
+        }
+        try (Translog.Snapshot snapshot = outlivingSnapshot) {
+            assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+        }
+        for (TranslogReader reader : readers) {
+            assertThat(reader.mappedGenerationRefCount(), equalTo(0));
+        }
+    }
+
     public void testReadLocation() throws IOException {
         ArrayList<Translog.Operation> ops = new ArrayList<>();
         ArrayList<Translog.Location> locs = new ArrayList<>();
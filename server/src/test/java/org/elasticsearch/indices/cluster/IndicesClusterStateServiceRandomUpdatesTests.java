@@ -519,6 +519,14 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
                 client) {
             @Override
             protected void updateGlobalCheckpointForShard(final ShardId shardId) {}
+
+            @Override
+            protected void runConcurrently(List<Runnable> tasks) {
+                // the updates may complete in any order when they run concurrently
+                final List<Runnable> shuffledTasks = new ArrayList<>(tasks);
+                Collections.shuffle(shuffledTasks, random());
+                shuffledTasks.forEach(Runnable::run);
+            }
         };
     }
 
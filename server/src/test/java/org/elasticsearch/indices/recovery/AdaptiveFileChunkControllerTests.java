@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class AdaptiveFileChunkControllerTests extends ESTestCase {
+
+    public void testDefaults() {
+        final int chunkSize = Math.toIntExact(RecoverySettings.DEFAULT_CHUNK_SIZE.getBytes());
+        final int concurrentChunks = between(1, 8);
+        final AdaptiveFileChunkController controller = new AdaptiveFileChunkController(chunkSize, concurrentChunks);
+        assertThat(controller.window(), equalTo(concurrentChunks));
+        assertThat(controller.maxWindow(), equalTo(concurrentChunks * AdaptiveFileChunkController.MAX_WINDOW_MULTIPLIER));
+        assertThat(controller.chunkSize(), equalTo(chunkSize));
+        assertThat(controller.maxChunkSize(), equalTo(AdaptiveFileChunkController.MAX_CHUNK_SIZE_IN_BYTES));
+
+        // chunk sizes outside of the adaptive range are kept as the bounds of the range
+        final AdaptiveFileChunkController tiny = new AdaptiveFileChunkController(10, 1);
+        assertThat(tiny.chunkSize(), equalTo(10));
+        assertThat(tiny.maxChunkSize(), equalTo(AdaptiveFileChunkController.MAX_CHUNK_SIZE_IN_BYTES));
+    }
+
+    public void testInvalidArguments() {
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveFileChunkController(1024, 0, 4, 512, 2048));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveFileChunkController(1024, 5, 4, 512, 2048));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveFileChunkController(256, 1, 4, 512, 2048));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveFileChunkController(4096, 1, 4, 512, 2048));
+    }
+
+    public void testGrowsWithStableRoundTrips() {
+        final AdaptiveFileChunkController controller = new AdaptiveFileChunkController(1024, 1, 4, 512, 4096);
+        final long rtt = randomLongBetween(1_000, 1_000_000);
+        long now = 0;
+        int lastWindow = controller.window();
+        final long initialGeneration = controller.generation();
+        while (controller.generation() == initialGeneration) {
+            now += rtt;
+            controller.onResponse(controller.generation(), rtt, now);
+            assertThat(controller.window(), lessThanOrEqualTo(controller.maxWindow()));
+            if (controller.generation() == initialGeneration) {
+                assertThat(controller.window(), greaterThanOrEqualTo(lastWindow));
+                lastWindow = controller.window();
+            }
+        }
+        // reaching the maximum window doubles the chunk size and halves the window
+        assertThat(controller.chunkSize(), equalTo(2048));
+        assertThat(controller.window(), equalTo(2));
+
+        for (int i = 0; i < 1000; i++) {
+            now += rtt;
+            controller.onResponse(controller.generation(), rtt, now);
+        }
+        assertThat(controller.chunkSize(), equalTo(4096));
+        assertThat(controller.window(), equalTo(4));
+    }
+
+    public void testShrinksWithGrowingRoundTrips() {
+        final AdaptiveFileChunkController controller = new AdaptiveFileChunkController(2048, 4, 8, 512, 4096);
+        long rtt = 1_000;
+        long now = 0;
+        controller.onResponse(controller.generation(), rtt, now);
+        final long initialGeneration = controller.generation();
+        while (controller.generation() == initialGeneration) {
+            rtt *= 2;
+            now += rtt;
+            controller.onResponse(controller.generation(), rtt, now);
+        }
+        // the window shrinks down to a single chunk before the chunk size does
+        assertThat(controller.window(), equalTo(1));
+        assertThat(controller.chunkSize(), equalTo(1024));
+
+        for (int i = 0; i < 100; i++) {
+            rtt = Math.min(rtt * 2, Long.MAX_VALUE / 4);
+            now += rtt;
+            controller.onResponse(controller.generation(), rtt, now);
+        }
+        assertThat(controller.window(), equalTo(1));
+        assertThat(controller.chunkSize(), equalTo(512));
+    }
+
+    public void testShrinksAtMostOncePerRoundTrip() {
+        final AdaptiveFileChunkController controller = new AdaptiveFileChunkController(1024, 8, 16, 512, 4096);
+        controller.onResponse(controller.generation(), 1_000, 0);
+        // a burst of slow responses arriving at the same time only shrinks the window once
+        for (int i = 0; i < 10; i++) {
+            controller.onResponse(controller.generation(), 100_000, 1);
+        }
+        assertThat(controller.window(), equalTo(6));
+    }
+
+    public void testIgnoresResponsesOfPreviousChunkSize() {
+        final AdaptiveFileChunkController controller = new AdaptiveFileChunkController(1024, 1, 2, 512, 4096);
+        final long staleGeneration = controller.generation() - 1;
+        for (int i = 0; i < 100; i++) {
+            controller.onResponse(staleGeneration, randomLongBetween(1, 1_000_000), i);
+        }
+        assertThat(controller.window(), equalTo(1));
+        assertThat(controller.chunkSize(), equalTo(1024));
+    }
+}
@@ -333,6 +333,43 @@ public class RecoveryTargetTests extends ESTestCase {
         }
     }
 
+    public void testIndexFileChunks() throws IOException {
+        final Index index = new Index();
+        assertThat(index.fileChunks(), equalTo(0L));
+        assertThat(index.fileChunkThroughput(), equalTo(0L));
+
+        final int chunks = randomIntBetween(2, 20);
+        long nowNanos = randomNonNegativeLong() / 2;
+        final long startNanos = nowNanos;
+        long bytesAfterFirst = 0;
+        long maxChunkSize = 0;
+        for (int i = 0; i < chunks; i++) {
+            final int chunkSize = randomIntBetween(1, 1 << 20);
+            if (i > 0) {
+                nowNanos += randomLongBetween(1, 1_000_000);
+                bytesAfterFirst += chunkSize;
+            }
+            maxChunkSize = Math.max(maxChunkSize, chunkSize);
+            index.addFileChunk(chunkSize, nowNanos);
+        }
+        assertThat(index.fileChunks(), equalTo((long) chunks));
+        assertThat(index.maxFileChunkSize(), equalTo(maxChunkSize));
+        final long expectedThroughput = (long) (bytesAfterFirst * 1_000_000_000.0 / (nowNanos - startNanos));
+        assertThat(index.fileChunkThroughput(), equalTo(expectedThroughput));
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        index.writeTo(out);
+        final Index deserialized = new Index(out.bytes().streamInput());
+        assertThat(deserialized.fileChunks(), equalTo(index.fileChunks()));
+        assertThat(deserialized.maxFileChunkSize(), equalTo(index.maxFileChunkSize()));
+        assertThat(deserialized.fileChunkThroughput(), equalTo(index.fileChunkThroughput()));
+
+        index.reset();
+        assertThat(index.fileChunks(), equalTo(0L));
+        assertThat(index.maxFileChunkSize(), equalTo(0L));
+        assertThat(index.fileChunkThroughput(), equalTo(0L));
+    }
+
     public void testStageSequenceEnforcement() {
         final DiscoveryNode discoveryNode = new DiscoveryNode("1", buildNewFakeTransportAddress(), emptyMap(), emptySet(),
             Version.CURRENT);
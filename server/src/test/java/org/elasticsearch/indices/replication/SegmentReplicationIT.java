@@ -0,0 +1,133 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.replication;
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.InternalTestCluster;
+
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+@LuceneTestCase.SuppressFileSystems("WindowsFS") // the segments of a new primary replace files that are still open
+public class SegmentReplicationIT extends ESIntegTestCase {
+
+    private static final String INDEX_NAME = "test-idx";
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal))
+            .put(SegmentReplicationTargetService.SEGMENT_REPLICATION_INTERVAL_SETTING.getKey(), "100ms")
+            .build();
+    }
+
+    private void createSegmentReplicationIndex(int numberOfReplicas) {
+        createIndex(INDEX_NAME, Settings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, numberOfReplicas)
+            .put(IndexSettings.INDEX_REPLICATION_TYPE_SETTING.getKey(), ReplicationType.SEGMENT.toString())
+            .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), -1)
+            .build());
+        ensureGreen(INDEX_NAME);
+    }
+
+    public void testReplicasSearchRefreshedSegments() throws Exception {
+        internalCluster().startNodes(2);
+        createSegmentReplicationIndex(1);
+
+        final int numDocs = scaledRandomIntBetween(1, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex(INDEX_NAME).setId(Integer.toString(i)).setSource("value", "original").get();
+        }
+        refresh(INDEX_NAME);
+        assertHitCountOnAllCopies(matchAllQuery(), numDocs);
+
+        final int numDeletes = randomIntBetween(0, numDocs);
+        for (int i = 0; i < numDeletes; i++) {
+            client().prepareDelete(INDEX_NAME, Integer.toString(i)).get();
+        }
+        final int numUpdates = randomIntBetween(0, numDocs - numDeletes);
+        for (int i = numDeletes; i < numDeletes + numUpdates; i++) {
+            client().prepareIndex(INDEX_NAME).setId(Integer.toString(i)).setSource("value", "updated").get();
+        }
+        // operations are only searchable on the replica once the primary refreshed them
+        assertHitCountOnAllCopies(matchAllQuery(), numDocs);
+        refresh(INDEX_NAME);
+        assertHitCountOnAllCopies(matchAllQuery(), numDocs - numDeletes);
+        assertHitCountOnAllCopies(idsQuery().addIds("0"), numDeletes > 0 ? 0 : 1);
+        assertHitCountOnAllCopies(termQuery("value", "updated"), numUpdates);
+        assertHitCountOnAllCopies(termQuery("value", "original"), numDocs - numDeletes - numUpdates);
+    }
+
+    public void testReplicasSearchSegmentsOfPromotedPrimary() throws Exception {
+        internalCluster().startNodes(3);
+        createSegmentReplicationIndex(2);
+
+        final int numDocs = scaledRandomIntBetween(1, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex(INDEX_NAME).setId(Integer.toString(i)).setSource("value", "before").get();
+        }
+        refresh(INDEX_NAME);
+        assertHitCountOnAllCopies(matchAllQuery(), numDocs);
+        // these operations are only in the translog of the replicas when the primary fails
+        final int numUnrefreshedDocs = scaledRandomIntBetween(0, 100);
+        for (int i = 0; i < numUnrefreshedDocs; i++) {
+            client().prepareIndex(INDEX_NAME).setId(Integer.toString(numDocs + i)).setSource("value", "before").get();
+        }
+
+        final ClusterState state = client().admin().cluster().prepareState().get().getState();
+        final ShardRouting primaryShard = state.routingTable().index(INDEX_NAME).shard(0).primaryShard();
+        final DiscoveryNode primaryNode = state.nodes().resolveNode(primaryShard.currentNodeId());
+        internalCluster().stopRandomNode(InternalTestCluster.nameFilter(primaryNode.getName()));
+        ensureYellowAndNoInitializingShards(INDEX_NAME);
+
+        final int numNewDocs = scaledRandomIntBetween(1, 100);
+        for (int i = 0; i < numNewDocs; i++) {
+            client().prepareIndex(INDEX_NAME).setId("new-" + i).setSource("value", "after").get();
+        }
+        refresh(INDEX_NAME);
+        assertHitCountOnAllCopies(matchAllQuery(), numDocs + numUnrefreshedDocs + numNewDocs);
+        assertHitCountOnAllCopies(termQuery("value", "after"), numNewDocs);
+    }
+
+    /**
+     * Waits until every started copy of the shard returns the expected number of hits for the given query.
+     */
+    private void assertHitCountOnAllCopies(QueryBuilder query, long expectedHits) throws Exception {
+        assertBusy(() -> {
+            final ClusterState state = client().admin().cluster().prepareState().get().getState();
+            for (ShardRouting shardRouting : state.routingTable().index(INDEX_NAME).shard(0).activeShards()) {
+                assertHitCount(client().prepareSearch(INDEX_NAME).setQuery(query).setSize(0)
+                    .setPreference("_only_nodes:" + shardRouting.currentNodeId()).get(), expectedHits);
+            }
+        });
+    }
+}
@@ -195,6 +195,9 @@ public class ConfigurationUtilsTests extends ESTestCase {
         result = ConfigurationUtils.compileTemplate(randomAlphaOfLength(10), randomAlphaOfLength(10), randomAlphaOfLength(10),
             propertyValue, scriptService);
         assertThat(result.newInstance(null).execute(), equalTo(propertyValue));
+        assertThat(result, instanceOf(ConstantTemplateScriptFactory.class));
+        IngestDocument ingestDocument = new IngestDocument(new HashMap<>(), new HashMap<>());
+        assertThat(ingestDocument.renderTemplate(result), equalTo(propertyValue));
         verify(scriptService, times(0)).compile(any(), any());
     }
 
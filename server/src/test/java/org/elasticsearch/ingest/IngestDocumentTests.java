@@ -384,7 +384,7 @@ public class IngestDocumentTests extends ESTestCase {
 
     public void testSetFieldValueNullName() {
         try {
-            ingestDocument.setFieldValue(null, "bar");
+            ingestDocument.setFieldValue((String) null, "bar");
             fail("add field should have failed");
         } catch (IllegalArgumentException e) {
             assertThat(e.getMessage(), equalTo("path cannot be null nor empty"));
@@ -1018,4 +1018,30 @@ public class IngestDocumentTests extends ESTestCase {
         }
     }
 
+    public void testFieldPathAccess() {
+        final IngestDocument.FieldPath fieldPath = IngestDocument.FieldPath.of("_source.fizz.buzz");
+        assertThat(ingestDocument.getFieldValue(fieldPath, String.class), equalTo("hello world"));
+        assertTrue(ingestDocument.hasField(fieldPath, false));
+
+        ingestDocument.setFieldValue(fieldPath, "new value");
+        assertThat(ingestDocument.getFieldValue("fizz.buzz", String.class), equalTo("new value"));
+        ingestDocument.appendFieldValue(fieldPath, "other value");
+        assertThat(ingestDocument.getFieldValue("fizz.buzz", List.class), equalTo(Arrays.asList("new value", "other value")));
+
+        ingestDocument.removeField(fieldPath);
+        assertFalse(ingestDocument.hasField("fizz.buzz"));
+        assertThat(ingestDocument.getFieldValue(fieldPath, String.class, true), nullValue());
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> ingestDocument.getFieldValue(fieldPath, String.class));
+        assertThat(e.getMessage(), equalTo("field [buzz] not present as part of path [_source.fizz.buzz]"));
+    }
+
+    public void testConstantPathTemplatesParseTheirPathOnce() {
+        final ConstantTemplateScriptFactory template = new ConstantTemplateScriptFactory("fizz.buzz");
+        assertThat(template.getFieldPath(), sameInstance(template.getFieldPath()));
+        assertThat(ingestDocument.getFieldValue(template, String.class), equalTo("hello world"));
+        ingestDocument.removeField(template);
+        assertFalse(ingestDocument.hasField(template));
+    }
+
 }
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.ResourceNotFoundException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.DocWriteRequest;
@@ -46,6 +47,9 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.util.concurrent.XRejectedExecutionHandler;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.cbor.CborXContent;
@@ -69,10 +73,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
@@ -83,6 +92,7 @@ import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
@@ -123,7 +133,7 @@ public class IngestServiceTests extends ESTestCase {
     }
     public void testIngestPlugin() {
         Client client = mock(Client.class);
-        IngestService ingestService = new IngestService(mock(ClusterService.class), threadPool, null, null,
+        IngestService ingestService = new IngestService(mockClusterService(Settings.EMPTY), threadPool, null, null,
             null, Collections.singletonList(DUMMY_PLUGIN), client);
         Map<String, Processor.Factory> factories = ingestService.getProcessorFactories();
         assertTrue(factories.containsKey("foo"));
@@ -133,14 +143,14 @@ public class IngestServiceTests extends ESTestCase {
     public void testIngestPluginDuplicate() {
         Client client = mock(Client.class);
         IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () ->
-            new IngestService(mock(ClusterService.class), threadPool, null, null,
+            new IngestService(mockClusterService(Settings.EMPTY), threadPool, null, null,
             null, Arrays.asList(DUMMY_PLUGIN, DUMMY_PLUGIN), client));
         assertTrue(e.getMessage(), e.getMessage().contains("already registered"));
     }
 
     public void testExecuteIndexPipelineDoesNotExist() {
         Client client = mock(Client.class);
-        IngestService ingestService = new IngestService(mock(ClusterService.class), threadPool, null, null,
+        IngestService ingestService = new IngestService(mockClusterService(Settings.EMPTY), threadPool, null, null,
             null, Collections.singletonList(DUMMY_PLUGIN), client);
         final IndexRequest indexRequest =
             new IndexRequest("_index").id("_id").source(emptyMap()).setPipeline("_id").setFinalPipeline("_none");
@@ -880,6 +890,137 @@ public class IngestServiceTests extends ESTestCase {
         verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
     }
 
+    public void testBulkRequestExecutionInParallel() throws Exception {
+        int numRequest = IngestService.MIN_ITEMS_PER_PARTITION * randomIntBetween(1, 8) + randomIntBetween(0, 16);
+        ExecutorService executorService = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            executeBulkRequestInParallel(numRequest, between(1, 8), executorService, new AtomicReference<>());
+        } finally {
+            terminate(executorService);
+        }
+    }
+
+    public void testBulkRequestExecutionInParallelOnWriteThreads() throws Exception {
+        int parallelism = between(2, 8);
+        int numRequest = IngestService.MIN_ITEMS_PER_PARTITION * parallelism + randomIntBetween(0, 16);
+        EsThreadPoolExecutor executorService = EsExecutors.newFixed(getTestName(), parallelism, 100,
+            EsExecutors.daemonThreadFactory("ingest_bulk"), new ThreadContext(Settings.EMPTY));
+        try {
+            AtomicReference<Thread> originalThread = new AtomicReference<>();
+            Map<Integer, Thread> executingThreads = executeBulkRequestInParallel(numRequest, parallelism, executorService,
+                originalThread);
+
+            // every partition runs on a write thread of its own, and the first one on the thread that forked the others
+            Set<Thread> partitionThreads = new HashSet<>();
+            for (int partition = 0; partition < parallelism; partition++) {
+                Set<Thread> threads = new HashSet<>();
+                for (int i = partition * numRequest / parallelism; i < (partition + 1) * numRequest / parallelism; i++) {
+                    threads.add(executingThreads.get(i));
+                }
+                assertThat(threads.size(), equalTo(1));
+                Thread thread = threads.iterator().next();
+                assertThat(thread.getName(), containsString("[ingest_bulk]"));
+                if (partition == 0) {
+                    assertThat(thread, sameInstance(originalThread.get()));
+                }
+                partitionThreads.add(thread);
+            }
+            assertThat(partitionThreads.size(), equalTo(parallelism));
+        } finally {
+            terminate(executorService);
+        }
+    }
+
+    public void testBulkRequestExecutionInParallelWithRejections() throws Exception {
+        int parallelism = between(3, 8);
+        int numRequest = IngestService.MIN_ITEMS_PER_PARTITION * parallelism + randomIntBetween(0, 16);
+        // a single write thread with room for a single queued task, so all partitions but the first forked one are rejected
+        EsThreadPoolExecutor executorService = EsExecutors.newFixed(getTestName(), 1, 1,
+            EsExecutors.daemonThreadFactory("ingest_bulk"), new ThreadContext(Settings.EMPTY));
+        try {
+            AtomicReference<Thread> originalThread = new AtomicReference<>();
+            Map<Integer, Thread> executingThreads = executeBulkRequestInParallel(numRequest, parallelism, executorService,
+                originalThread);
+
+            long rejected = ((XRejectedExecutionHandler) executorService.getRejectedExecutionHandler()).rejected();
+            assertThat(rejected, equalTo((long) parallelism - 2));
+            assertThat(executingThreads.size(), equalTo(numRequest));
+            for (Thread thread : executingThreads.values()) {
+                assertThat(thread, sameInstance(originalThread.get()));
+            }
+        } finally {
+            terminate(executorService);
+        }
+    }
+
+    /**
+     * Runs a bulk request through a pipeline that fails every third document and checks the failures, the completion
+     * and the stats. Returns the thread that ran the pipeline of each slot.
+     */
+    private Map<Integer, Thread> executeBulkRequestInParallel(int numRequest, int maxParallelism, ExecutorService executorService,
+                                                              AtomicReference<Thread> originalThread) throws Exception {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = new IndexRequest("_index").id(Integer.toString(i)).setPipeline("_id").setFinalPipeline("_none");
+            indexRequest.source(Requests.INDEX_CONTENT_TYPE, "field1", "value1");
+            bulkRequest.add(indexRequest);
+        }
+
+        final Map<Integer, Thread> executingThreads = new ConcurrentHashMap<>();
+        final Processor processor = mock(Processor.class);
+        when(processor.getType()).thenReturn("mock");
+        when(processor.getTag()).thenReturn("mockTag");
+        doAnswer(args -> {
+            IngestDocument ingestDocument = (IngestDocument) args.getArguments()[0];
+            @SuppressWarnings("unchecked")
+            BiConsumer<IngestDocument, Exception> handler = (BiConsumer) args.getArguments()[1];
+            String id = ingestDocument.getFieldValue(IngestDocument.MetaData.ID.getFieldName(), String.class);
+            executingThreads.put(Integer.parseInt(id), Thread.currentThread());
+            if (Integer.parseInt(id) % 3 == 0) {
+                handler.accept(null, new RuntimeException("failed [" + id + "]"));
+            } else {
+                handler.accept(ingestDocument, null);
+            }
+            return null;
+        }).when(processor).execute(any(), any());
+        Map<String, Processor.Factory> map = Map.of("mock", (factories, tag, config) -> processor);
+
+        Settings settings = Settings.builder().put(IngestService.BULK_MAX_PARALLELISM_SETTING.getKey(), maxParallelism).build();
+        IngestService ingestService = createWithProcessors(map, settings, executorService);
+        PutPipelineRequest putRequest = new PutPipelineRequest("_id",
+            new BytesArray("{\"processors\": [{\"mock\": {}}]}"), XContentType.JSON);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(putRequest, clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        final Map<Integer, Exception> failures = new ConcurrentHashMap<>();
+        final AtomicInteger completions = new AtomicInteger();
+        final AtomicReference<Exception> completionException = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        ingestService.executeBulkRequest(numRequest, bulkRequest.requests(), failures::put, (thread, e) -> {
+            completions.incrementAndGet();
+            originalThread.set(thread);
+            completionException.set(e);
+            latch.countDown();
+        }, slot -> {});
+        latch.await();
+
+        assertThat(completions.get(), equalTo(1));
+        assertThat(completionException.get(), nullValue());
+        for (int i = 0; i < numRequest; i++) {
+            if (i % 3 == 0) {
+                assertThat(ExceptionsHelper.unwrapCause(failures.get(i)).getMessage(), equalTo("failed [" + i + "]"));
+            } else {
+                assertThat(failures.get(i), nullValue());
+            }
+        }
+        int numFailures = (numRequest + 2) / 3;
+        assertThat(failures.size(), equalTo(numFailures));
+        assertStats(ingestService.stats().getTotalStats(), numRequest, numFailures, 0);
+        return executingThreads;
+    }
+
     public void testBulkRequestExecutionWithFailures() throws Exception {
         BulkRequest bulkRequest = new BulkRequest();
         String pipelineId = "_id";
@@ -1195,7 +1336,7 @@ public class IngestServiceTests extends ESTestCase {
         // Create ingest service:
         Client client = mock(Client.class);
         IngestService ingestService =
-            new IngestService(mock(ClusterService.class), threadPool, null, null, null, List.of(testPlugin), client);
+            new IngestService(mockClusterService(Settings.EMPTY), threadPool, null, null, null, List.of(testPlugin), client);
         ingestService.addIngestClusterStateListener(ingestClusterStateListener);
 
         // Create pipeline and apply the resulting cluster state, which should update the counter in the right order:
@@ -1263,13 +1404,16 @@ public class IngestServiceTests extends ESTestCase {
     }
 
     private static IngestService createWithProcessors(Map<String, Processor.Factory> processors) {
+        return createWithProcessors(processors, Settings.EMPTY, EsExecutors.newDirectExecutorService());
+    }
 
+    private static IngestService createWithProcessors(Map<String, Processor.Factory> processors, Settings settings,
+                                                      ExecutorService executorService) {
         Client client = mock(Client.class);
         ThreadPool threadPool = mock(ThreadPool.class);
-        ExecutorService executorService = EsExecutors.newDirectExecutorService();
         when(threadPool.generic()).thenReturn(executorService);
         when(threadPool.executor(anyString())).thenReturn(executorService);
-        return new IngestService(mock(ClusterService.class), threadPool, null, null,
+        return new IngestService(mockClusterService(settings), threadPool, null, null,
             null, Collections.singletonList(new IngestPlugin() {
             @Override
             public Map<String, Processor.Factory> getProcessors(final Processor.Parameters parameters) {
@@ -1278,6 +1422,12 @@ public class IngestServiceTests extends ESTestCase {
         }), client);
     }
 
+    private static ClusterService mockClusterService(Settings settings) {
+        ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.getSettings()).thenReturn(settings);
+        return clusterService;
+    }
+
     private CompoundProcessor mockCompoundProcessor() {
         CompoundProcessor processor = mock(CompoundProcessor.class);
         doAnswer(args -> {
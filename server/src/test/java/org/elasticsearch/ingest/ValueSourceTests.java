@@ -83,6 +83,7 @@ public class ValueSourceTests extends ESTestCase {
         String propertyValue = randomAlphaOfLength(10);
         ValueSource result = ValueSource.wrap(propertyValue, scriptService);
         assertThat(result.copyAndResolve(null), equalTo(propertyValue));
+        assertFalse(result.isTemplated());
         verify(scriptService, times(0)).compile(any(), any());
     }
 
@@ -94,6 +95,16 @@ public class ValueSourceTests extends ESTestCase {
         when(scriptService.compile(any(), any())).thenReturn(new TestTemplateService.MockTemplateScript.Factory(compiledValue));
         ValueSource result = ValueSource.wrap(propertyValue, scriptService);
         assertThat(result.copyAndResolve(Collections.emptyMap()), equalTo(compiledValue));
+        assertTrue(result.isTemplated());
         verify(scriptService, times(1)).compile(any(), any());
     }
+
+    public void testIsTemplated() {
+        ScriptService scriptService = mock(ScriptService.class);
+        when(scriptService.isLangSupported(anyString())).thenReturn(true);
+        when(scriptService.compile(any(), any())).thenReturn(new TestTemplateService.MockTemplateScript.Factory("value"));
+        assertFalse(ValueSource.wrap(Map.of("key", List.of(1, "value", true)), scriptService).isTemplated());
+        assertTrue(ValueSource.wrap(Map.of("key", List.of(1, "{{value}}")), scriptService).isTemplated());
+        assertTrue(ValueSource.wrap(Map.of("{{key}}", "value"), scriptService).isTemplated());
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchingBucketCollectorTests extends ESTestCase {
+
+    private static class RecordingBucketCollector extends BucketCollector {
+
+        private final int terminateSegmentAfter;
+        private final List<Integer> docs = new ArrayList<>();
+        private int maxBlockSize = 0;
+        private int numBlocks = 0;
+        private boolean postCollection = false;
+
+        RecordingBucketCollector(int terminateSegmentAfter) {
+            this.terminateSegmentAfter = terminateSegmentAfter;
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext context) {
+            return new LeafBucketCollector() {
+                int collected = 0;
+
+                @Override
+                public void collect(int doc, long bucket) {
+                    throw new AssertionError("documents should be collected in blocks");
+                }
+
+                @Override
+                public void collect(int[] blockDocs, int count, long bucket) {
+                    assertEquals(0, bucket);
+                    assertTrue(count > 0);
+                    if (collected >= terminateSegmentAfter) {
+                        throw new CollectionTerminatedException();
+                    }
+                    numBlocks++;
+                    maxBlockSize = Math.max(maxBlockSize, count);
+                    for (int i = 0; i < count; i++) {
+                        if (i > 0) {
+                            assertTrue(blockDocs[i] > blockDocs[i - 1]);
+                        }
+                        docs.add(context.docBase + blockDocs[i]);
+                    }
+                    collected += count;
+                }
+            };
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        @Override
+        public void preCollection() {}
+
+        @Override
+        public void postCollection() {
+            postCollection = true;
+        }
+    }
+
+    public void testCollectInBlocks() throws IOException {
+        try (Directory dir = newDirectory();
+             RandomIndexWriter w = new RandomIndexWriter(random(), dir)) {
+            int numDocs = randomIntBetween(1, 2000);
+            for (int i = 0; i < numDocs; i++) {
+                w.addDocument(new Document());
+                if (rarely()) {
+                    w.commit();
+                }
+            }
+            try (IndexReader reader = w.getReader()) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                int blockSize = randomIntBetween(1, 300);
+                RecordingBucketCollector recording = new RecordingBucketCollector(Integer.MAX_VALUE);
+                BatchingBucketCollector collector = new BatchingBucketCollector(recording, blockSize);
+                collector.preCollection();
+                searcher.search(new MatchAllDocsQuery(), collector);
+                collector.postCollection();
+
+                assertTrue(recording.postCollection);
+                assertTrue(recording.maxBlockSize <= blockSize);
+                assertEquals(numDocs, recording.docs.size());
+                for (int i = 0; i < numDocs; i++) {
+                    assertEquals(i, (int) recording.docs.get(i));
+                }
+            }
+        }
+    }
+
+    public void testTerminatedSegment() throws IOException {
+        try (Directory dir = newDirectory();
+             RandomIndexWriter w = new RandomIndexWriter(random(), dir)) {
+            int numSegments = randomIntBetween(2, 5);
+            int docsPerSegment = 20;
+            for (int s = 0; s < numSegments; s++) {
+                for (int i = 0; i < docsPerSegment; i++) {
+                    w.addDocument(new Document());
+                }
+                w.flush();
+            }
+            try (IndexReader reader = w.getReader()) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                RecordingBucketCollector recording = new RecordingBucketCollector(5);
+                BatchingBucketCollector collector = new BatchingBucketCollector(recording, 5);
+                collector.preCollection();
+                searcher.search(new MatchAllDocsQuery(), collector);
+                collector.flush();
+
+                // every segment accepts a single block before terminating
+                int expectedDocs = 0;
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    expectedDocs += Math.min(5, leaf.reader().maxDoc());
+                }
+                assertEquals(reader.leaves().size(), recording.numBlocks);
+                assertEquals(expectedDocs, recording.docs.size());
+            }
+        }
+    }
+
+    public void testInvalidBlockSize() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> new BatchingBucketCollector(BucketCollector.NO_OP_COLLECTOR, 0));
+        assertEquals("[blockSize] must be greater than 0, got 0", e.getMessage());
+    }
+}
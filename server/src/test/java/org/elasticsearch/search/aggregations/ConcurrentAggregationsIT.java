@@ -0,0 +1,155 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.MergePolicyConfig;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.bucket.global.Global;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.range.Range;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Cardinality;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.Stats;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.cardinality;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.global;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.range;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.stats;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that the aggregations collected per slice of segments when concurrent segment search is enabled match the
+ * aggregations collected sequentially.
+ */
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 1)
+public class ConcurrentAggregationsIT extends ESIntegTestCase {
+
+    public void testAggregationsMatchSequentialCollection() throws Exception {
+        assertAcked(prepareCreate("idx").setSettings(Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            // keep many segments so that the shard is searched in several slices
+            .put(MergePolicyConfig.INDEX_MERGE_ENABLED, false))
+            .setMapping("name", "type=keyword", "value", "type=long"));
+        final int numSegments = randomIntBetween(8, 20);
+        for (int i = 0; i < numSegments; i++) {
+            final List<IndexRequestBuilder> builders = new ArrayList<>();
+            for (int j = randomIntBetween(1, 20); j > 0; j--) {
+                builders.add(client().prepareIndex("idx").setSource("name", "name_" + randomIntBetween(1, 10),
+                    "value", randomIntBetween(0, 100)));
+            }
+            indexRandom(false, false, builders);
+            refresh("idx");
+        }
+        // a few documents that do not match the query, only the global aggregation sees them
+        indexRandom(true, false, client().prepareIndex("idx").setSource("name", "other", "value", 1000));
+
+        final SearchResponse expected = search();
+        assertAcked(client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey(), true)));
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertSameAggregations(expected, search());
+            }
+        } finally {
+            assertAcked(client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey())));
+        }
+    }
+
+    private static SearchResponse search() {
+        final SearchRequestBuilder request = client().prepareSearch("idx")
+            .setQuery(QueryBuilders.rangeQuery("value").lte(100))
+            .setSize(0)
+            .addAggregation(terms("terms").field("name").size(20).subAggregation(max("max").field("value")))
+            .addAggregation(histogram("histo").field("value").interval(10))
+            .addAggregation(range("range").field("value").addUnboundedTo(50).addUnboundedFrom(50))
+            .addAggregation(stats("stats").field("value"))
+            .addAggregation(cardinality("cardinality").field("name"))
+            .addAggregation(global("global").subAggregation(sum("sum").field("value")));
+        final SearchResponse response = request.get();
+        assertSearchResponse(response);
+        return response;
+    }
+
+    private static void assertSameAggregations(SearchResponse expected, SearchResponse actual) {
+        assertThat(actual.getHits().getTotalHits(), equalTo(expected.getHits().getTotalHits()));
+
+        final Terms expectedTerms = expected.getAggregations().get("terms");
+        final Terms actualTerms = actual.getAggregations().get("terms");
+        assertThat(actualTerms.getBuckets().size(), equalTo(expectedTerms.getBuckets().size()));
+        for (Terms.Bucket expectedBucket : expectedTerms.getBuckets()) {
+            final Terms.Bucket actualBucket = actualTerms.getBucketByKey(expectedBucket.getKeyAsString());
+            assertThat(actualBucket.getDocCount(), equalTo(expectedBucket.getDocCount()));
+            final Max expectedMax = expectedBucket.getAggregations().get("max");
+            final Max actualMax = actualBucket.getAggregations().get("max");
+            assertThat(actualMax.getValue(), equalTo(expectedMax.getValue()));
+        }
+
+        final Histogram expectedHisto = expected.getAggregations().get("histo");
+        final Histogram actualHisto = actual.getAggregations().get("histo");
+        assertThat(actualHisto.getBuckets().size(), equalTo(expectedHisto.getBuckets().size()));
+        for (int i = 0; i < expectedHisto.getBuckets().size(); i++) {
+            assertThat(actualHisto.getBuckets().get(i).getKey(), equalTo(expectedHisto.getBuckets().get(i).getKey()));
+            assertThat(actualHisto.getBuckets().get(i).getDocCount(), equalTo(expectedHisto.getBuckets().get(i).getDocCount()));
+        }
+
+        final Range expectedRange = expected.getAggregations().get("range");
+        final Range actualRange = actual.getAggregations().get("range");
+        for (int i = 0; i < expectedRange.getBuckets().size(); i++) {
+            assertThat(actualRange.getBuckets().get(i).getDocCount(), equalTo(expectedRange.getBuckets().get(i).getDocCount()));
+        }
+
+        final Stats expectedStats = expected.getAggregations().get("stats");
+        final Stats actualStats = actual.getAggregations().get("stats");
+        assertThat(actualStats.getCount(), equalTo(expectedStats.getCount()));
+        assertThat(actualStats.getSum(), equalTo(expectedStats.getSum()));
+        assertThat(actualStats.getMin(), equalTo(expectedStats.getMin()));
+        assertThat(actualStats.getMax(), equalTo(expectedStats.getMax()));
+
+        final Cardinality expectedCardinality = expected.getAggregations().get("cardinality");
+        final Cardinality actualCardinality = actual.getAggregations().get("cardinality");
+        assertThat(actualCardinality.getValue(), equalTo(expectedCardinality.getValue()));
+
+        final Global expectedGlobal = expected.getAggregations().get("global");
+        final Global actualGlobal = actual.getAggregations().get("global");
+        assertThat(actualGlobal.getDocCount(), equalTo(expectedGlobal.getDocCount()));
+        final Sum expectedSum = expectedGlobal.getAggregations().get("sum");
+        final Sum actualSum = actualGlobal.getAggregations().get("sum");
+        assertThat(actualSum.getValue(), equalTo(expectedSum.getValue()));
+    }
+}
@@ -20,18 +20,24 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.time.DateFormatters;
+import org.elasticsearch.index.mapper.ContentPath;
 import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.Mapper;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
@@ -1164,6 +1170,70 @@ public class DateHistogramAggregatorTests extends AggregatorTestCase {
         assertWarnings("[interval] on [date_histogram] is deprecated, use [fixed_interval] or [calendar_interval] in the future.");
     }
 
+    public void testCountFromPoints() throws IOException {
+        countFromPointsTestCase(false);
+    }
+
+    public void testCountFromPointsWithNanosecondResolution() throws IOException {
+        countFromPointsTestCase(true);
+    }
+
+    private void countFromPointsTestCase(boolean useNanosecondResolution) throws IOException {
+        DateFieldMapper.Builder builder = new DateFieldMapper.Builder(DATE_FIELD);
+        builder.docValues(true);
+        if (useNanosecondResolution) {
+            builder.withResolution(DateFieldMapper.Resolution.NANOSECONDS);
+        }
+        // the resolution is only applied to the field type when the mapper is built
+        DateFieldMapper.DateFieldType fieldType =
+            builder.build(new Mapper.BuilderContext(createIndexSettings().getSettings(), new ContentPath(0))).fieldType();
+        assertEquals(useNanosecondResolution ? DateFieldMapper.Resolution.NANOSECONDS : DateFieldMapper.Resolution.MILLISECONDS,
+            fieldType.resolution());
+
+        try (Directory directory = newDirectory()) {
+            long from = asLong(randomFrom("2015-01-01", "2017-01-01", "2017-11-01"), fieldType);
+            long to = asLong("2018-01-01", fieldType);
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                int numDocs = randomIntBetween(1, 10000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    String id = Integer.toString(i);
+                    document.add(new StringField("id", id, Field.Store.NO));
+                    long instant = randomLongBetween(from, to);
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, instant));
+                    document.add(new LongPoint(DATE_FIELD, instant));
+                    indexWriter.addDocument(document);
+                    if (rarely()) {
+                        indexWriter.deleteDocuments(new Term("id", id));
+                    }
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                DateHistogramAggregationBuilder aggregationBuilder = new DateHistogramAggregationBuilder("_name")
+                    .field(DATE_FIELD)
+                    .calendarInterval(randomFrom(DateHistogramInterval.YEAR, DateHistogramInterval.QUARTER, DateHistogramInterval.MONTH));
+
+                // an exists query on doc values can't be resolved from points so all documents are collected
+                InternalDateHistogram expected = search(indexSearcher, new DocValuesFieldExistsQuery(DATE_FIELD),
+                    aggregationBuilder, fieldType);
+                Query[] allDocsQueries = new Query[] {
+                    new MatchAllDocsQuery(),
+                    LongPoint.newRangeQuery(DATE_FIELD, from, to)
+                };
+                for (Query query : allDocsQueries) {
+                    InternalDateHistogram histogram = search(indexSearcher, query, aggregationBuilder, fieldType);
+                    assertEquals(expected.getBuckets().size(), histogram.getBuckets().size());
+                    for (int i = 0; i < expected.getBuckets().size(); i++) {
+                        assertEquals(expected.getBuckets().get(i).getKey(), histogram.getBuckets().get(i).getKey());
+                        assertEquals(expected.getBuckets().get(i).getDocCount(), histogram.getBuckets().get(i).getDocCount());
+                    }
+                }
+            }
+        }
+    }
+
     private void testSearchCase(Query query, List<String> dataset,
                                 Consumer<DateHistogramAggregationBuilder> configure,
                                 Consumer<InternalDateHistogram> verify, boolean useNanosecondResolution) throws IOException {
@@ -0,0 +1,158 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.range;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.time.DateFormatters;
+import org.elasticsearch.index.mapper.ContentPath;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+
+import java.io.IOException;
+
+public class RangeAggregatorTests extends AggregatorTestCase {
+
+    private static final String NUMBER_FIELD = "number";
+    private static final String DATE_FIELD = "date";
+
+    public void testCountFromPoints() throws IOException {
+        NumberFieldMapper.NumberType type = randomFrom(NumberFieldMapper.NumberType.LONG, NumberFieldMapper.NumberType.DOUBLE);
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(type);
+        fieldType.setName(NUMBER_FIELD);
+        fieldType.setHasDocValues(true);
+
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                int numDocs = randomIntBetween(1, 5000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    String id = Integer.toString(i);
+                    document.add(new StringField("id", id, Field.Store.NO));
+                    Number value = type == NumberFieldMapper.NumberType.LONG
+                        ? randomLongBetween(-100, 100)
+                        : randomDoubleBetween(-100, 100, true);
+                    for (Field field : type.createFields(NUMBER_FIELD, value, true, true, false)) {
+                        document.add(field);
+                    }
+                    indexWriter.addDocument(document);
+                    if (rarely()) {
+                        indexWriter.deleteDocuments(new Term("id", id));
+                    }
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                RangeAggregationBuilder aggregationBuilder = new RangeAggregationBuilder("_name")
+                    .field(NUMBER_FIELD)
+                    .addUnboundedTo(-50)
+                    .addRange(-60, 10)
+                    .addRange(0, 0)
+                    .addRange(0, 50)
+                    .addRange(-5.5, 5.5)
+                    .addUnboundedFrom(42);
+
+                // an exists query on doc values can't be resolved from points so all documents are collected
+                InternalRange<?, ?> expected = search(indexSearcher, new DocValuesFieldExistsQuery(NUMBER_FIELD),
+                    aggregationBuilder, fieldType);
+                Query rangeQuery = type == NumberFieldMapper.NumberType.LONG
+                    ? LongPoint.newRangeQuery(NUMBER_FIELD, -100, 100)
+                    : DoublePoint.newRangeQuery(NUMBER_FIELD, -100, 100);
+                for (Query query : new Query[] { new MatchAllDocsQuery(), rangeQuery }) {
+                    InternalRange<?, ?> range = search(indexSearcher, query, aggregationBuilder, fieldType);
+                    assertEquals(expected.getBuckets().size(), range.getBuckets().size());
+                    for (int i = 0; i < expected.getBuckets().size(); i++) {
+                        assertEquals(expected.getBuckets().get(i).getKey(), range.getBuckets().get(i).getKey());
+                        assertEquals(expected.getBuckets().get(i).getDocCount(), range.getBuckets().get(i).getDocCount());
+                    }
+                }
+            }
+        }
+    }
+
+    public void testCountFromPointsWithNanosecondResolution() throws IOException {
+        DateFieldMapper.Builder builder = new DateFieldMapper.Builder(DATE_FIELD);
+        builder.docValues(true);
+        builder.withResolution(DateFieldMapper.Resolution.NANOSECONDS);
+        DateFieldMapper.DateFieldType fieldType =
+            builder.build(new Mapper.BuilderContext(createIndexSettings().getSettings(), new ContentPath(0))).fieldType();
+
+        try (Directory directory = newDirectory()) {
+            long from = fieldType.parse("2015-01-01");
+            long to = fieldType.parse("2018-01-01");
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                int numDocs = randomIntBetween(1, 5000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    long instant = randomLongBetween(from, to);
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, instant));
+                    document.add(new LongPoint(DATE_FIELD, instant));
+                    indexWriter.addDocument(document);
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                // the values of date_nanos fields are aggregated in milliseconds
+                RangeAggregationBuilder aggregationBuilder = new RangeAggregationBuilder("_name")
+                    .field(DATE_FIELD)
+                    .addUnboundedTo(asMillis("2016-01-01"))
+                    .addRange(asMillis("2016-06-01"), asMillis("2017-06-01"))
+                    .addUnboundedFrom(asMillis("2017-01-01"));
+
+                // an exists query on doc values can't be resolved from points so all documents are collected
+                InternalRange<?, ?> expected = search(indexSearcher, new DocValuesFieldExistsQuery(DATE_FIELD),
+                    aggregationBuilder, fieldType);
+                long total = 0;
+                for (InternalRange.Bucket bucket : expected.getBuckets()) {
+                    total += bucket.getDocCount();
+                }
+                assertTrue(total > 0);
+                InternalRange<?, ?> range = search(indexSearcher, new MatchAllDocsQuery(), aggregationBuilder, fieldType);
+                assertEquals(expected.getBuckets().size(), range.getBuckets().size());
+                for (int i = 0; i < expected.getBuckets().size(); i++) {
+                    assertEquals(expected.getBuckets().get(i).getKey(), range.getBuckets().get(i).getKey());
+                    assertEquals(expected.getBuckets().get(i).getDocCount(), range.getBuckets().get(i).getDocCount());
+                }
+            }
+        }
+    }
+
+    private static long asMillis(String dateTime) {
+        return DateFormatters.from(DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parse(dateTime)).toInstant().toEpochMilli();
+    }
+}
@@ -725,6 +725,13 @@ public class MinAggregatorTests extends AggregatorTestCase {
                     mockNumericValuesSourceConfig("number", type, true)
                 )
             );
+            assertNotNull(
+                MinAggregator.getPointReaderOrNull(
+                    mockSearchContext(LongPoint.newRangeQuery("timestamp", 0, 10)),
+                    null,
+                    mockNumericValuesSourceConfig("number", type, true)
+                )
+            );
             assertNull(
                 MinAggregator.getPointReaderOrNull(
                     mockSearchContext(null),
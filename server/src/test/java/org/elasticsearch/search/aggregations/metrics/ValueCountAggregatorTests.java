@@ -20,13 +20,20 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -185,6 +192,106 @@ public class ValueCountAggregatorTests extends AggregatorTestCase {
         }, fieldType);
     }
 
+    public void testShortcutOnFullyMatchedSegments() throws IOException {
+        MappedFieldType numberType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        numberType.setName("number");
+        numberType.setHasDocValues(true);
+        MappedFieldType keywordType = new KeywordFieldMapper.KeywordFieldType();
+        keywordType.setName("keyword");
+        keywordType.setHasDocValues(true);
+
+        try (Directory directory = newDirectory()) {
+            int numDocs = randomIntBetween(1, 200);
+            long expectedNumbers = 0;
+            long expectedKeywords = 0;
+            long expectedRangeNumbers = 0;
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                for (int i = 0; i < numDocs; i++) {
+                    boolean deleted = rarely();
+                    Document document = new Document();
+                    document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+                    int numValues = randomIntBetween(1, 3);
+                    for (int j = 0; j < numValues; j++) {
+                        long value = randomLongBetween(0, 100);
+                        document.add(new LongPoint("number", value));
+                        document.add(new SortedNumericDocValuesField("number", value));
+                        if (deleted == false && value <= 50) {
+                            expectedRangeNumbers++;
+                        }
+                    }
+                    int numKeywords = randomIntBetween(0, 2);
+                    for (int j = 0; j < numKeywords; j++) {
+                        // distinct values since keyword doc values are deduplicated per document
+                        BytesRef value = new BytesRef(Integer.toString(j));
+                        document.add(new StringField("keyword", value, Field.Store.NO));
+                        document.add(new SortedSetDocValuesField("keyword", value));
+                    }
+                    indexWriter.addDocument(document);
+                    if (deleted) {
+                        indexWriter.deleteDocuments(new Term("id", Integer.toString(i)));
+                    } else {
+                        expectedNumbers += numValues;
+                        expectedKeywords += numKeywords;
+                    }
+                    if (rarely()) {
+                        indexWriter.commit();
+                    }
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                Query[] allDocsQueries = new Query[] {
+                    new MatchAllDocsQuery(),
+                    LongPoint.newRangeQuery("number", Long.MIN_VALUE, Long.MAX_VALUE)
+                };
+                for (Query query : allDocsQueries) {
+                    assertEquals(expectedNumbers, countValues(indexSearcher, query, numberType));
+                    assertEquals(expectedKeywords, countValues(indexSearcher, query, keywordType));
+                }
+                assertEquals(expectedRangeNumbers, countValues(indexSearcher, LongPoint.newRangeQuery("number", 0, 50), numberType));
+            }
+        }
+    }
+
+    public void testFindLeafValueCount() throws IOException {
+        MappedFieldType numberType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.INTEGER);
+        numberType.setName("number");
+        MappedFieldType keywordType = new KeywordFieldMapper.KeywordFieldType();
+        keywordType.setName("keyword");
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            indexWriter.addDocument(Arrays.asList(new IntPoint("number", 1), new IntPoint("number", 2),
+                new StringField("keyword", "foo", Field.Store.NO), new StringField("keyword", "bar", Field.Store.NO)));
+            indexWriter.addDocument(Arrays.asList(new IntPoint("number", 3), new StringField("id", "1", Field.Store.NO)));
+            indexWriter.forceMerge(1);
+            try (IndexReader reader = DirectoryReader.open(indexWriter.w)) {
+                LeafReader leafReader = reader.leaves().get(0).reader();
+                assertEquals(3, ValueCountAggregator.findLeafValueCount(leafReader, numberType));
+                assertEquals(2, ValueCountAggregator.findLeafValueCount(leafReader, keywordType));
+                MappedFieldType missingType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.INTEGER);
+                missingType.setName("missing");
+                assertEquals(0, ValueCountAggregator.findLeafValueCount(leafReader, missingType));
+            }
+            indexWriter.deleteDocuments(new Term("id", "1"));
+            try (IndexReader reader = DirectoryReader.open(indexWriter.w)) {
+                LeafReader leafReader = reader.leaves().get(0).reader();
+                // statistics of segments with deletions can't be used
+                assertEquals(-1, ValueCountAggregator.findLeafValueCount(leafReader, numberType));
+                assertEquals(-1, ValueCountAggregator.findLeafValueCount(leafReader, keywordType));
+            }
+        }
+    }
+
+    private long countValues(IndexSearcher indexSearcher, Query query, MappedFieldType fieldType) throws IOException {
+        ValueCountAggregationBuilder aggregationBuilder = new ValueCountAggregationBuilder("_name", null).field(fieldType.name());
+        ValueCountAggregator aggregator = createAggregator(query, aggregationBuilder, indexSearcher, createIndexSettings(), fieldType);
+        aggregator.preCollection();
+        indexSearcher.search(query, aggregator);
+        aggregator.postCollection();
+        return ((InternalValueCount) aggregator.buildAggregation(0L)).getValue();
+    }
+
     private void testCase(Query query,
                           ValueType valueType,
                           CheckedConsumer<RandomIndexWriter, IOException> indexer,
@@ -22,6 +22,7 @@ package org.elasticsearch.search.internal;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
@@ -47,8 +48,12 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -65,7 +70,9 @@ import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
@@ -73,11 +80,16 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -165,6 +177,79 @@ public class ContextIndexSearcherTests extends ESTestCase {
         directory.close();
     }
 
+    public void testSliceLeaves() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(1, 20);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 10);
+            for (int j = 0; j < numDocs; j++) {
+                w.addDocument(new Document());
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        List<LeafReaderContext> leaves = reader.leaves();
+        int maxSegmentsPerSlice = randomIntBetween(1, 5);
+        List<List<LeafReaderContext>> slices = ContextIndexSearcher.sliceLeaves(leaves, Integer.MAX_VALUE, maxSegmentsPerSlice);
+        assertEquals((leaves.size() + maxSegmentsPerSlice - 1) / maxSegmentsPerSlice, slices.size());
+        int leaf = 0;
+        for (List<LeafReaderContext> slice : slices) {
+            assertThat(slice.size(), lessThanOrEqualTo(maxSegmentsPerSlice));
+            for (LeafReaderContext ctx : slice) {
+                assertSame(leaves.get(leaf++), ctx);
+            }
+        }
+        assertEquals(leaves.size(), leaf);
+        // every leaf holds at least one document
+        assertEquals(leaves.size(), ContextIndexSearcher.sliceLeaves(leaves, 0, Integer.MAX_VALUE).size());
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testConcurrentSearchWithCollectorManager() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(2, 20);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField("rank", randomLong()));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        Sort sort = new Sort(new SortField("rank", SortField.Type.LONG));
+        int numHits = randomIntBetween(1, 20);
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+            Weight weight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE, 1f);
+            QuerySearchResult expected = new QuerySearchResult();
+            searcher.search(reader.leaves(), weight, TopFieldCollector.createSharedManager(sort, numHits, null, Integer.MAX_VALUE),
+                expected, new DocValueFormat[] { DocValueFormat.RAW }, null);
+
+            searcher.setExecutor(executor);
+            QuerySearchResult actual = new QuerySearchResult();
+            searcher.search(reader.leaves(), weight, TopFieldCollector.createSharedManager(sort, numHits, null, Integer.MAX_VALUE),
+                actual, new DocValueFormat[] { DocValueFormat.RAW }, null);
+
+            assertEquals(expected.topDocs().topDocs.totalHits, actual.topDocs().topDocs.totalHits);
+            ScoreDoc[] expectedDocs = expected.topDocs().topDocs.scoreDocs;
+            ScoreDoc[] actualDocs = actual.topDocs().topDocs.scoreDocs;
+            assertEquals(expectedDocs.length, actualDocs.length);
+            for (int i = 0; i < expectedDocs.length; i++) {
+                assertEquals(expectedDocs[i].doc, actualDocs[i].doc);
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            IOUtils.close(reader, w, dir);
+        }
+    }
+
     public void testContextIndexSearcherSparseNoDeletions() throws IOException {
         doTestContextIndexSearcher(true, false);
     }
@@ -88,8 +88,14 @@ import org.elasticsearch.test.TestSearchContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.search.query.QueryPhase.indexFieldHasDuplicateData;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
@@ -834,6 +840,83 @@ public class QueryPhaseTests extends IndexShardTestCase {
 
     }
 
+    public void testConcurrentTopDocsCollection() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numSegments = randomIntBetween(2, 12);
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(1, 30);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                StringBuilder text = new StringBuilder("foo");
+                for (int k = randomIntBetween(0, 5); k > 0; k--) {
+                    text.append(randomBoolean() ? " foo" : " bar");
+                }
+                doc.add(new TextField("title", text.toString(), Store.NO));
+                doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 100)));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+
+        IndexReader reader = DirectoryReader.open(dir);
+        final Query query = new TermQuery(new Term("title", "foo"));
+        final SortAndFormats sort = randomBoolean() ? null : new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT)),
+            new DocValueFormat[] { DocValueFormat.RAW });
+        final int size = randomIntBetween(1, 20);
+        final int trackTotalHitsUpTo = randomFrom(SearchContext.TRACK_TOTAL_HITS_ACCURATE, randomIntBetween(1, 10));
+
+        TestSearchContext expected = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+        expected.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        expected.parsedQuery(new ParsedQuery(query));
+        expected.sort(sort);
+        expected.trackScores(true);
+        expected.setSize(size);
+        expected.trackTotalHitsUpTo(trackTotalHitsUpTo);
+        QueryPhase.executeInternal(expected);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            // a rejecting executor searches all slices on the calling thread
+            for (Executor sliceExecutor : Arrays.<Executor>asList(executor, r -> { throw new RejectedExecutionException(); })) {
+                ContextIndexSearcher searcher = newContextSearcher(reader);
+                searcher.setExecutor(sliceExecutor);
+                TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+                context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+                context.parsedQuery(new ParsedQuery(query));
+                context.sort(sort);
+                context.trackScores(true);
+                context.setSize(size);
+                context.trackTotalHitsUpTo(trackTotalHitsUpTo);
+                QueryPhase.executeInternal(context);
+
+                TopDocs expectedTopDocs = expected.queryResult().topDocs().topDocs;
+                TopDocs actualTopDocs = context.queryResult().topDocs().topDocs;
+                if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+                    assertEquals(expectedTopDocs.totalHits, actualTopDocs.totalHits);
+                } else {
+                    // every slice counts hits up to the threshold
+                    assertThat(actualTopDocs.totalHits.value, greaterThanOrEqualTo((long) Math.min(trackTotalHitsUpTo,
+                        expectedTopDocs.totalHits.value)));
+                }
+                assertEquals(expected.queryResult().getMaxScore(), context.queryResult().getMaxScore(), 0f);
+                assertEquals(expectedTopDocs.scoreDocs.length, actualTopDocs.scoreDocs.length);
+                for (int i = 0; i < expectedTopDocs.scoreDocs.length; i++) {
+                    assertEquals(expectedTopDocs.scoreDocs[i].doc, actualTopDocs.scoreDocs[i].doc);
+                    assertEquals(expectedTopDocs.scoreDocs[i].score, actualTopDocs.scoreDocs[i].score, 0f);
+                    assertEquals(-1, actualTopDocs.scoreDocs[i].shardIndex);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            reader.close();
+            dir.close();
+        }
+    }
+
     private static ContextIndexSearcher newContextSearcher(IndexReader reader) {
         return new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
             IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
@@ -24,6 +24,7 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.settings.Settings;
@@ -82,7 +83,13 @@ public class QuerySearchResultTests extends ESTestCase {
         assertEquals(querySearchResult.from(), deserialized.from());
         assertEquals(querySearchResult.size(), deserialized.size());
         assertEquals(querySearchResult.hasAggs(), deserialized.hasAggs());
+        assertEquals(-1L, querySearchResult.serializedAggsSize());
         if (deserialized.hasAggs()) {
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.setVersion(version);
+                querySearchResult.peekAggs().writeTo(out);
+                assertEquals(out.size(), deserialized.serializedAggsSize());
+            }
             Aggregations aggs = querySearchResult.consumeAggs();
             Aggregations deserializedAggs = deserialized.consumeAggs();
             assertEquals(aggs.asList(), deserializedAggs.asList());
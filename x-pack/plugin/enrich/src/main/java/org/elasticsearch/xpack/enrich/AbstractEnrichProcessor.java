@@ -39,6 +39,7 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
     protected AbstractEnrichProcessor(
         String tag,
         Client client,
+        EnrichCache enrichCache,
         String policyName,
         TemplateScript.Factory field,
         TemplateScript.Factory targetField,
@@ -47,7 +48,17 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         String matchField,
         int maxMatches
     ) {
-        this(tag, createSearchRunner(client), policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        this(
+            tag,
+            createSearchRunner(client, enrichCache),
+            policyName,
+            field,
+            targetField,
+            ignoreMissing,
+            overrideEnabled,
+            matchField,
+            maxMatches
+        );
     }
 
     protected AbstractEnrichProcessor(
@@ -115,13 +126,14 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
 
                 String targetField = ingestDocument.renderTemplate(this.targetField);
                 if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
+                    // the response may be cached and shared with other documents, so these must get their own copies of the sources
                     if (maxMatches == 1) {
-                        Map<String, Object> firstDocument = searchHits[0].getSourceAsMap();
+                        Map<String, Object> firstDocument = IngestDocument.deepCopyMap(searchHits[0].getSourceAsMap());
                         ingestDocument.setFieldValue(targetField, firstDocument);
                     } else {
                         List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
                         for (SearchHit searchHit : searchHits) {
-                            Map<String, Object> enrichDocument = searchHit.getSourceAsMap();
+                            Map<String, Object> enrichDocument = IngestDocument.deepCopyMap(searchHit.getSourceAsMap());
                             enrichDocuments.add(enrichDocument);
                         }
                         ingestDocument.setFieldValue(targetField, enrichDocuments);
@@ -174,13 +186,21 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         return maxMatches;
     }
 
-    private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(Client client) {
+    private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(
+        Client client,
+        EnrichCache enrichCache
+    ) {
         return (req, handler) -> {
-            client.execute(
-                EnrichCoordinatorProxyAction.INSTANCE,
-                req,
-                ActionListener.wrap(resp -> { handler.accept(resp, null); }, e -> { handler.accept(null, e); })
-            );
+            SearchResponse cachedResponse = enrichCache.get(req);
+            if (cachedResponse != null) {
+                handler.accept(cachedResponse, null);
+                return;
+            }
+            // concurrent lookups of the same value may both search and put the same response, which is harmless
+            client.execute(EnrichCoordinatorProxyAction.INSTANCE, req, ActionListener.wrap(resp -> {
+                enrichCache.put(req, resp);
+                handler.accept(resp, null);
+            }, e -> { handler.accept(null, e); }));
         };
     }
 }
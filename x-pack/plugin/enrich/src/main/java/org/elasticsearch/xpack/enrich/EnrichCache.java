@@ -0,0 +1,124 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.AliasOrIndex;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+
+import java.util.Objects;
+
+/**
+ * A node level cache for the lookups of enrich processors, so that documents with a match value that was recently looked up do
+ * not need to search the enrich index again.
+ *
+ * The entries are keyed by the concrete enrich index that the alias of the policy points to and by the search request. Enrich
+ * indices are never modified once a policy execution completes, so cached entries never go stale: once a new policy execution
+ * moves the alias to a new enrich index, lookups use new keys and the entries of the previous enrich index are evicted over time.
+ *
+ * The cache is bounded by the approximate size of the cached responses, see {@link EnrichPlugin#CACHE_SIZE}.
+ */
+public class EnrichCache {
+
+    // a rough estimate of the size of an entry besides the sources of its hits, which covers the key and the response objects
+    static final long ENTRY_OVERHEAD_IN_BYTES = 512;
+
+    private final Cache<CacheKey, SearchResponse> cache;
+    private volatile MetaData metaData;
+
+    EnrichCache(long maxSizeInBytes) {
+        this.cache = CacheBuilder.<CacheKey, SearchResponse>builder()
+            .setMaximumWeight(maxSizeInBytes)
+            .weigher((key, searchResponse) -> sizeInBytes(searchResponse))
+            .build();
+    }
+
+    /**
+     * Returns the cached response for the given search request, or {@code null} if there is none.
+     */
+    SearchResponse get(SearchRequest searchRequest) {
+        final CacheKey cacheKey = toKey(searchRequest);
+        return cacheKey == null ? null : cache.get(cacheKey);
+    }
+
+    void put(SearchRequest searchRequest, SearchResponse searchResponse) {
+        final CacheKey cacheKey = toKey(searchRequest);
+        if (cacheKey != null) {
+            cache.put(cacheKey, searchResponse);
+        }
+    }
+
+    void setMetadata(MetaData metaData) {
+        this.metaData = metaData;
+    }
+
+    public EnrichStatsAction.Response.CacheStats getStats(String localNodeId) {
+        final Cache.CacheStats cacheStats = cache.stats();
+        return new EnrichStatsAction.Response.CacheStats(
+            localNodeId,
+            cache.count(),
+            cache.weight(),
+            cacheStats.getHits(),
+            cacheStats.getMisses(),
+            cacheStats.getEvictions()
+        );
+    }
+
+    private CacheKey toKey(SearchRequest searchRequest) {
+        final MetaData metaData = this.metaData;
+        if (metaData == null) {
+            return null;
+        }
+        assert searchRequest.indices().length == 1 : "enrich lookups search a single policy alias";
+        final AliasOrIndex aliasOrIndex = metaData.getAliasAndIndexLookup().get(searchRequest.indices()[0]);
+        if (aliasOrIndex == null || aliasOrIndex.getIndices().size() != 1) {
+            // let the search report the missing enrich index
+            return null;
+        }
+        return new CacheKey(aliasOrIndex.getIndices().get(0).getIndex().getName(), searchRequest);
+    }
+
+    private static long sizeInBytes(SearchResponse searchResponse) {
+        long sizeInBytes = ENTRY_OVERHEAD_IN_BYTES;
+        for (SearchHit hit : searchResponse.getHits().getHits()) {
+            final BytesReference source = hit.getSourceRef();
+            if (source != null) {
+                sizeInBytes += source.length();
+            }
+        }
+        return sizeInBytes;
+    }
+
+    private static final class CacheKey {
+
+        private final String enrichIndex;
+        private final SearchRequest searchRequest;
+
+        private CacheKey(String enrichIndex, SearchRequest searchRequest) {
+            this.enrichIndex = enrichIndex;
+            this.searchRequest = searchRequest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return enrichIndex.equals(cacheKey.enrichIndex) && searchRequest.equals(cacheKey.searchRequest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enrichIndex, searchRequest);
+        }
+    }
+}
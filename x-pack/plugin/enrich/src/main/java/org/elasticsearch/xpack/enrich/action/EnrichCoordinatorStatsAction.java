@@ -5,6 +5,7 @@
  */
 package org.elasticsearch.xpack.enrich.action;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
@@ -17,6 +18,7 @@ import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -24,7 +26,9 @@ import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CacheStats;
 import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CoordinatorStats;
+import org.elasticsearch.xpack.enrich.EnrichCache;
 
 import java.io.IOException;
 import java.util.List;
@@ -88,31 +92,43 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
     public static class NodeResponse extends BaseNodeResponse {
 
         private final CoordinatorStats coordinatorStats;
+        private final CacheStats cacheStats;
 
-        NodeResponse(DiscoveryNode node, CoordinatorStats coordinatorStats) {
+        NodeResponse(DiscoveryNode node, CoordinatorStats coordinatorStats, CacheStats cacheStats) {
             super(node);
             this.coordinatorStats = coordinatorStats;
+            this.cacheStats = cacheStats;
         }
 
         NodeResponse(StreamInput in) throws IOException {
             super(in);
             this.coordinatorStats = new CoordinatorStats(in);
+            this.cacheStats = in.getVersion().onOrAfter(Version.V_8_0_0) ? new CacheStats(in) : null;
         }
 
         public CoordinatorStats getCoordinatorStats() {
             return coordinatorStats;
         }
 
+        @Nullable
+        public CacheStats getCacheStats() {
+            return cacheStats;
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             super.writeTo(out);
             coordinatorStats.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                cacheStats.writeTo(out);
+            }
         }
     }
 
     public static class TransportAction extends TransportNodesAction<Request, Response, NodeRequest, NodeResponse> {
 
         private final EnrichCoordinatorProxyAction.Coordinator coordinator;
+        private final EnrichCache enrichCache;
 
         @Inject
         public TransportAction(
@@ -120,7 +136,8 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
             ClusterService clusterService,
             TransportService transportService,
             ActionFilters actionFilters,
-            EnrichCoordinatorProxyAction.Coordinator coordinator
+            EnrichCoordinatorProxyAction.Coordinator coordinator,
+            EnrichCache enrichCache
         ) {
             super(
                 NAME,
@@ -134,6 +151,7 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
                 NodeResponse.class
             );
             this.coordinator = coordinator;
+            this.enrichCache = enrichCache;
         }
 
         @Override
@@ -160,7 +178,7 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
         @Override
         protected NodeResponse nodeOperation(NodeRequest request, Task task) {
             DiscoveryNode node = clusterService.localNode();
-            return new NodeResponse(node, coordinator.getStats(node.getId()));
+            return new NodeResponse(node, coordinator.getStats(node.getId()), enrichCache.getStats(node.getId()));
         }
     }
 
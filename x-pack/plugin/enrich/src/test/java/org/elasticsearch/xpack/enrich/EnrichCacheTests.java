@@ -0,0 +1,112 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class EnrichCacheTests extends ESTestCase {
+
+    public void testCaching() {
+        final EnrichCache enrichCache = new EnrichCache(1024 * 1024);
+        final SearchRequest searchRequest1 = lookup("policy1", "1");
+        final SearchRequest searchRequest2 = lookup("policy1", "2");
+        final SearchResponse searchResponse = emptySearchResponse();
+
+        // without metadata nothing is cached
+        enrichCache.put(searchRequest1, searchResponse);
+        assertThat(enrichCache.get(searchRequest1), nullValue());
+        assertStats(enrichCache, 0, 0, 0);
+
+        enrichCache.setMetadata(metaData("policy1", 1));
+        assertThat(enrichCache.get(searchRequest1), nullValue());
+        enrichCache.put(searchRequest1, searchResponse);
+        assertThat(enrichCache.get(searchRequest1), sameInstance(searchResponse));
+        // equal requests share the cached response
+        assertThat(enrichCache.get(lookup("policy1", "1")), sameInstance(searchResponse));
+        assertThat(enrichCache.get(searchRequest2), nullValue());
+        assertStats(enrichCache, 1, 2, 2);
+
+        // a new policy execution moves the alias to a new enrich index, so the previous responses are not used anymore
+        enrichCache.setMetadata(metaData("policy1", 2));
+        assertThat(enrichCache.get(searchRequest1), nullValue());
+        assertStats(enrichCache, 1, 2, 3);
+
+        // lookups against a missing enrich index are not cached
+        final SearchRequest missingPolicyRequest = lookup("policy2", "1");
+        enrichCache.put(missingPolicyRequest, searchResponse);
+        assertThat(enrichCache.get(missingPolicyRequest), nullValue());
+        assertStats(enrichCache, 1, 2, 3);
+    }
+
+    public void testEvictsBySize() {
+        final int maxEntries = randomIntBetween(1, 10);
+        final EnrichCache enrichCache = new EnrichCache(maxEntries * EnrichCache.ENTRY_OVERHEAD_IN_BYTES);
+        enrichCache.setMetadata(metaData("policy1", 1));
+        final int entries = maxEntries + randomIntBetween(1, 10);
+        for (int i = 0; i < entries; i++) {
+            enrichCache.put(lookup("policy1", Integer.toString(i)), emptySearchResponse());
+        }
+
+        final EnrichStatsAction.Response.CacheStats cacheStats = enrichCache.getStats("_id");
+        assertThat(cacheStats.getCount(), equalTo((long) maxEntries));
+        assertThat(cacheStats.getSizeInBytes(), equalTo(maxEntries * EnrichCache.ENTRY_OVERHEAD_IN_BYTES));
+        assertThat(cacheStats.getEvictions(), equalTo((long) (entries - maxEntries)));
+    }
+
+    private static void assertStats(EnrichCache enrichCache, long count, long hits, long misses) {
+        final EnrichStatsAction.Response.CacheStats cacheStats = enrichCache.getStats("_id");
+        assertThat(cacheStats.getNodeId(), equalTo("_id"));
+        assertThat(cacheStats.getCount(), equalTo(count));
+        assertThat(cacheStats.getHits(), equalTo(hits));
+        assertThat(cacheStats.getMisses(), equalTo(misses));
+    }
+
+    private static SearchRequest lookup(String policyName, String value) {
+        return new SearchRequest(EnrichPolicy.getBaseName(policyName))
+            .source(new SearchSourceBuilder().query(new MatchQueryBuilder("match_field", value)));
+    }
+
+    private static MetaData metaData(String policyName, long execution) {
+        return MetaData.builder()
+            .put(
+                IndexMetaData.builder(EnrichPolicy.getBaseName(policyName) + "-" + execution)
+                    .settings(settings(Version.CURRENT))
+                    .numberOfShards(1)
+                    .numberOfReplicas(0)
+                    .putAlias(AliasMetaData.builder(EnrichPolicy.getBaseName(policyName)).build())
+            )
+            .build();
+    }
+
+    private static SearchResponse emptySearchResponse() {
+        return new SearchResponse(
+            InternalSearchResponse.empty(),
+            null,
+            1,
+            1,
+            0,
+            0,
+            ShardSearchFailure.EMPTY_ARRAY,
+            SearchResponse.Clusters.EMPTY
+        );
+    }
+}
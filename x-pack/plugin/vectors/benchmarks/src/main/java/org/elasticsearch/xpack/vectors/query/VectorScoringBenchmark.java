@@ -0,0 +1,240 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.lucene.search.function.ScriptScoreQuery;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.script.ScoreScript;
+import org.elasticsearch.script.Script;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the time to find the top hits of a segment of {@code dense_vector} doc values with a brute force {@code knn}
+ * query and with the equivalent {@code script_score} query. The script queries run a {@link ScriptScoreQuery} whose
+ * scripts call the {@link ScoreScriptUtils} functions that Painless binds to {@code cosineSimilarity} and
+ * {@code dotProduct}, so only the compilation of the script source is left out.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class VectorScoringBenchmark {
+
+    private static final String FIELD = "vector";
+    private static final int NUMBER_OF_VECTORS = 10_000;
+    private static final int NUMBER_OF_HITS = 10;
+
+    @Param({"32", "128", "512"})
+    private int dims;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+
+    private Query knnDotProduct;
+    private Query knnCosineSimilarity;
+    private Query scriptDotProduct;
+    private Query scriptCosineSimilarity;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < NUMBER_OF_VECTORS; i++) {
+                Document document = new Document();
+                document.add(new BinaryDocValuesField(FIELD, encode(randomVector(random, dims))));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        // the query cache would skip the scoring of the later iterations
+        searcher.setQueryCache(null);
+
+        float[] queryVector = randomVector(random, dims);
+        List<Number> queryVectorParam = new ArrayList<>(dims);
+        for (float value : queryVector) {
+            queryVectorParam.add(value);
+        }
+        knnDotProduct = new KnnQuery(FIELD, queryVector, VectorSimilarity.DOT_PRODUCT, Version.CURRENT);
+        knnCosineSimilarity = new KnnQuery(FIELD, normalize(queryVector), VectorSimilarity.COSINE, Version.CURRENT);
+        // scripts must not return negative scores, so the dot product is scored like the knn query does
+        scriptDotProduct = scriptScoreQuery("Math.max(0, (1 + dotProduct(params.query_vector, 'vector')) / 2)", script -> {
+            ScoreScriptUtils.DotProduct function = new ScoreScriptUtils.DotProduct(script, queryVectorParam, FIELD);
+            return () -> Math.max(0, (1 + function.dotProduct()) / 2);
+        });
+        scriptCosineSimilarity = scriptScoreQuery("cosineSimilarity(params.query_vector, 'vector') + 1.0", script -> {
+            ScoreScriptUtils.CosineSimilarity function = new ScoreScriptUtils.CosineSimilarity(script, queryVectorParam, FIELD);
+            return () -> function.cosineSimilarity() + 1.0;
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public TopDocs scriptDotProduct() throws IOException {
+        return searcher.search(scriptDotProduct, NUMBER_OF_HITS);
+    }
+
+    @Benchmark
+    public TopDocs scriptCosineSimilarity() throws IOException {
+        return searcher.search(scriptCosineSimilarity, NUMBER_OF_HITS);
+    }
+
+    @Benchmark
+    public TopDocs knnDotProduct() throws IOException {
+        return searcher.search(knnDotProduct, NUMBER_OF_HITS);
+    }
+
+    @Benchmark
+    public TopDocs knnCosineSimilarity() throws IOException {
+        return searcher.search(knnCosineSimilarity, NUMBER_OF_HITS);
+    }
+
+    /**
+     * Creates a {@code script_score} query whose scripts score documents like the compiled Painless script of the given
+     * source: Painless creates the class binding of a vector function once per script instance, that is once per segment,
+     * and calls it for every document.
+     */
+    private static Query scriptScoreQuery(String source, Function<ScoreScript, VectorFunction> functionFactory) {
+        ScoreScript.LeafFactory leafFactory = new ScoreScript.LeafFactory() {
+            @Override
+            public boolean needs_score() {
+                return false;
+            }
+
+            @Override
+            public ScoreScript newInstance(LeafReaderContext context) throws IOException {
+                return new VectorScoreScript(context, functionFactory);
+            }
+        };
+        return new ScriptScoreQuery(new MatchAllDocsQuery(), new Script(source), leafFactory, null, "index", 0, Version.CURRENT);
+    }
+
+    @FunctionalInterface
+    private interface VectorFunction {
+        double apply();
+    }
+
+    /**
+     * A score script that reads the vector field from its doc values, like the doc lookup of a search does, without the
+     * mappings that the lookup needs.
+     */
+    private static class VectorScoreScript extends ScoreScript {
+        private final Map<String, ScriptDocValues<?>> doc;
+        private final VectorFunction function;
+        private int docId;
+
+        VectorScoreScript(LeafReaderContext context, Function<ScoreScript, VectorFunction> functionFactory) throws IOException {
+            super(null, null, null);
+            this.doc = Collections.singletonMap(FIELD, new DenseVectorScriptDocValues(context.reader().getBinaryDocValues(FIELD)));
+            this.function = functionFactory.apply(this);
+        }
+
+        @Override
+        public Map<String, ScriptDocValues<?>> getDoc() {
+            return doc;
+        }
+
+        @Override
+        public void setDocument(int docId) {
+            this.docId = docId;
+        }
+
+        @Override
+        public int _getDocId() {
+            return docId;
+        }
+
+        @Override
+        public double execute(ExplanationHolder explanation) {
+            return function.apply();
+        }
+    }
+
+    private static float[] randomVector(Random random, int dims) {
+        float[] vector = new float[dims];
+        for (int dim = 0; dim < dims; dim++) {
+            vector[dim] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private static double magnitude(float[] vector) {
+        double magnitude = 0;
+        for (float value : vector) {
+            magnitude += value * value;
+        }
+        return Math.sqrt(magnitude);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double magnitude = magnitude(vector);
+        float[] normalized = new float[vector.length];
+        for (int dim = 0; dim < vector.length; dim++) {
+            normalized[dim] = (float) (vector[dim] / magnitude);
+        }
+        return normalized;
+    }
+
+    /**
+     * Encodes the vector like the {@code dense_vector} field mapper does: the big endian floats of the vector followed by
+     * its magnitude.
+     */
+    private static BytesRef encode(float[] vector) {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(Float.BYTES * (vector.length + 1));
+        for (float value : vector) {
+            byteBuffer.putFloat(value);
+        }
+        byteBuffer.putFloat((float) magnitude(vector));
+        return new BytesRef(byteBuffer.array());
+    }
+}
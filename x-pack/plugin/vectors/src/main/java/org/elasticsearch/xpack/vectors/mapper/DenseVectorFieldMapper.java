@@ -121,7 +121,7 @@ public class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMap
             return new DenseVectorFieldType(this);
         }
 
-        int dims() {
+        public int dims() {
             return dims;
         }
 
@@ -10,10 +10,14 @@ package org.elasticsearch.xpack.vectors.mapper;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 
-import java.nio.ByteBuffer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 
 public final class VectorEncoderDecoder {
     public static final byte INT_BYTES = 4;
+    // vectors are encoded with ByteBuffer#putFloat, which is big endian
+    private static final VarHandle FLOAT_VIEW = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.BIG_ENDIAN);
 
     private VectorEncoderDecoder() { }
 
@@ -30,7 +34,6 @@ public final class VectorEncoderDecoder {
      */
     public static float decodeVectorMagnitude(Version indexVersion, BytesRef vectorBR) {
         assert indexVersion.onOrAfter(Version.V_7_5_0);
-        ByteBuffer byteBuffer = ByteBuffer.wrap(vectorBR.bytes, vectorBR.offset, vectorBR.length);
-        return byteBuffer.getFloat(vectorBR.offset + vectorBR.length - 4);
+        return (float) FLOAT_VIEW.get(vectorBR.bytes, vectorBR.offset + vectorBR.length - INT_BYTES);
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.elasticsearch.Version;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Scores every document with a vector in the field by the {@link VectorSimilarity} between its vector and the query vector.
+ */
+final class KnnQuery extends Query {
+
+    private final String field;
+    private final float[] queryVector;
+    private final VectorSimilarity similarity;
+    private final Version indexVersion;
+
+    KnnQuery(String field, float[] queryVector, VectorSimilarity similarity, Version indexVersion) {
+        this.field = field;
+        this.queryVector = queryVector;
+        this.similarity = similarity;
+        this.indexVersion = indexVersion;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
+        return new Weight(this) {
+            @Override
+            public void extractTerms(Set<Term> terms) {
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                Scorer scorer = scorer(context);
+                if (scorer != null && scorer.iterator().advance(doc) == doc) {
+                    return Explanation.match(scorer.score(), "[" + similarity + "] similarity of field [" + field
+                        + "] to the query vector, with boost [" + boost + "]");
+                }
+                return Explanation.noMatch("no vector in field [" + field + "]");
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                BinaryDocValues values = context.reader().getBinaryDocValues(field);
+                if (values == null) {
+                    return null;
+                }
+                return new Scorer(this) {
+                    @Override
+                    public DocIdSetIterator iterator() {
+                        return values;
+                    }
+
+                    @Override
+                    public int docID() {
+                        return values.docID();
+                    }
+
+                    @Override
+                    public float getMaxScore(int upTo) {
+                        float maxScore = similarity.maxScore();
+                        return maxScore == Float.POSITIVE_INFINITY ? maxScore : boost * maxScore;
+                    }
+
+                    @Override
+                    public float score() throws IOException {
+                        return boost * similarity.score(queryVector, values.binaryValue(), indexVersion);
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                return DocValues.isCacheable(context, field);
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        return "knn(" + this.field + ", " + similarity + ", " + Arrays.toString(queryVector) + ")";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (sameClassAs(other) == false) {
+            return false;
+        }
+        KnnQuery that = (KnnQuery) other;
+        return field.equals(that.field)
+            && Arrays.equals(queryVector, that.queryVector)
+            && similarity == that.similarity
+            && indexVersion.equals(that.indexVersion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, Arrays.hashCode(queryVector), similarity, indexVersion);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.DenseVectorFieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * A query that matches all documents with a value for a {@code dense_vector} field and scores them by the similarity
+ * of their vector to a query vector. Together with the search size this gives a brute force k nearest neighbours
+ * search, which scores documents without the overhead of a script.
+ */
+public class KnnQueryBuilder extends AbstractQueryBuilder<KnnQueryBuilder> {
+    public static final String NAME = "knn";
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
+    private static final ParseField SIMILARITY_FIELD = new ParseField("similarity");
+
+    private final String fieldName;
+    private final float[] queryVector;
+    private final VectorSimilarity similarity;
+
+    public KnnQueryBuilder(String fieldName, float[] queryVector, VectorSimilarity similarity) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a field");
+        }
+        if (queryVector == null || queryVector.length == 0) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a non empty query vector");
+        }
+        if (similarity == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a similarity");
+        }
+        if (similarity.normalizeQuery() && isZero(queryVector)) {
+            // a zero vector can't be normalized, so its similarity to any document vector is undefined
+            throw new IllegalArgumentException("[" + NAME + "] requires a non zero query vector for the [" + similarity + "] similarity");
+        }
+        this.fieldName = fieldName;
+        this.queryVector = queryVector;
+        this.similarity = similarity;
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public KnnQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        fieldName = in.readString();
+        queryVector = in.readFloatArray();
+        similarity = in.readEnum(VectorSimilarity.class);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeFloatArray(queryVector);
+        out.writeEnum(similarity);
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public float[] queryVector() {
+        return queryVector;
+    }
+
+    public VectorSimilarity similarity() {
+        return similarity;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.array(QUERY_VECTOR_FIELD.getPreferredName(), queryVector);
+        builder.field(SIMILARITY_FIELD.getPreferredName(), similarity.toString());
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    private static final ConstructingObjectParser<KnnQueryBuilder, Void> PARSER = new ConstructingObjectParser<>(NAME,
+        a -> {
+            @SuppressWarnings("unchecked")
+            List<Float> values = (List<Float>) a[1];
+            float[] queryVector = new float[values.size()];
+            for (int i = 0; i < queryVector.length; i++) {
+                queryVector[i] = values.get(i);
+            }
+            VectorSimilarity similarity = a[2] == null ? VectorSimilarity.COSINE : VectorSimilarity.fromString((String) a[2]);
+            return new KnnQueryBuilder((String) a[0], queryVector, similarity);
+        });
+
+    static {
+        PARSER.declareString(constructorArg(), FIELD_FIELD);
+        PARSER.declareFloatArray(constructorArg(), QUERY_VECTOR_FIELD);
+        PARSER.declareString(optionalConstructorArg(), SIMILARITY_FIELD);
+        declareStandardFields(PARSER);
+    }
+
+    public static KnnQueryBuilder fromXContent(XContentParser parser) {
+        try {
+            return PARSER.apply(parser, null);
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected Query doToQuery(QueryShardContext context) throws IOException {
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        if (fieldType == null) {
+            return new MatchNoDocsQuery("unmapped field [" + fieldName + "]");
+        }
+        if (fieldType instanceof DenseVectorFieldType == false) {
+            throw new IllegalArgumentException("[" + NAME + "] queries are only supported on [dense_vector] fields, but field ["
+                + fieldName + "] is of type [" + fieldType.typeName() + "]");
+        }
+        int dims = ((DenseVectorFieldType) fieldType).dims();
+        if (queryVector.length != dims) {
+            throw new IllegalArgumentException("The query vector has a different number of dimensions [" +
+                queryVector.length + "] than the document vectors [" + dims + "].");
+        }
+
+        float[] vector = queryVector;
+        if (similarity.normalizeQuery()) {
+            double magnitude = 0;
+            for (float value : queryVector) {
+                magnitude += value * value;
+            }
+            magnitude = Math.sqrt(magnitude);
+            vector = new float[queryVector.length];
+            for (int dim = 0; dim < vector.length; dim++) {
+                vector[dim] = (float) (queryVector[dim] / magnitude);
+            }
+        }
+        return new KnnQuery(fieldType.name(), vector, similarity, context.indexVersionCreated());
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, Arrays.hashCode(queryVector), similarity);
+    }
+
+    @Override
+    protected boolean doEquals(KnnQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName)
+            && Arrays.equals(queryVector, other.queryVector)
+            && similarity == other.similarity;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Similarity functions between a query vector and encoded dense vectors. The functions read the floats of the document
+ * vector straight from its doc values bytes, so scoring a document neither decodes the vector into an array nor
+ * allocates a buffer to read it.
+ */
+public enum VectorSimilarity {
+
+    /**
+     * Cosine similarity, scored as {@code (1 + cosine) / 2}. The query vector must be normalized to unit length. Rounding
+     * errors of the encoded vector and its magnitude can push the cosine of opposite vectors below {@code -1}, such scores
+     * are scored as {@code 0}.
+     */
+    COSINE {
+        @Override
+        public float score(float[] queryVector, BytesRef docVector, Version indexVersion) {
+            return (float) Math.max(0, (1 + cosineSimilarity(queryVector, docVector, indexVersion)) / 2);
+        }
+
+        @Override
+        public boolean normalizeQuery() {
+            return true;
+        }
+    },
+
+    /**
+     * Dot product, scored as {@code (1 + dot_product) / 2}. This equals the cosine score for vectors of unit length,
+     * negative scores of other vectors are scored as {@code 0}. Scores of vectors that are not of unit length are not
+     * bounded.
+     */
+    DOT_PRODUCT {
+        @Override
+        public float score(float[] queryVector, BytesRef docVector, Version indexVersion) {
+            return (float) Math.max(0, (1 + dotProduct(queryVector, docVector)) / 2);
+        }
+
+        @Override
+        public float maxScore() {
+            return Float.POSITIVE_INFINITY;
+        }
+    },
+
+    /**
+     * Manhattan distance, scored as {@code 1 / (1 + l1_norm)}.
+     */
+    L1_NORM {
+        @Override
+        public float score(float[] queryVector, BytesRef docVector, Version indexVersion) {
+            return (float) (1 / (1 + l1Norm(queryVector, docVector)));
+        }
+    },
+
+    /**
+     * Euclidean distance, scored as {@code 1 / (1 + l2_norm)}.
+     */
+    L2_NORM {
+        @Override
+        public float score(float[] queryVector, BytesRef docVector, Version indexVersion) {
+            return (float) (1 / (1 + l2Norm(queryVector, docVector)));
+        }
+    };
+
+    // vectors are encoded with ByteBuffer#putFloat, which is big endian
+    private static final VarHandle FLOAT_VIEW = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Returns the score of the document vector, which is always in the range {@code [0, maxScore()]}.
+     */
+    public abstract float score(float[] queryVector, BytesRef docVector, Version indexVersion);
+
+    /**
+     * Returns an upper bound of the scores of any document vector, or {@link Float#POSITIVE_INFINITY} if the scores
+     * are not bounded.
+     */
+    public float maxScore() {
+        return 1f;
+    }
+
+    /**
+     * Whether the query vector must be normalized to unit length before it is passed to {@link #score}.
+     */
+    public boolean normalizeQuery() {
+        return false;
+    }
+
+    public static VectorSimilarity fromString(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static double dotProduct(float[] queryVector, BytesRef docVector) {
+        byte[] bytes = docVector.bytes;
+        int offset = docVector.offset;
+        double dotProduct = 0;
+        for (int dim = 0; dim < queryVector.length; dim++) {
+            dotProduct += queryVector[dim] * (float) FLOAT_VIEW.get(bytes, offset + dim * VectorEncoderDecoder.INT_BYTES);
+        }
+        return dotProduct;
+    }
+
+    public static double l1Norm(float[] queryVector, BytesRef docVector) {
+        byte[] bytes = docVector.bytes;
+        int offset = docVector.offset;
+        double l1norm = 0;
+        for (int dim = 0; dim < queryVector.length; dim++) {
+            l1norm += Math.abs(queryVector[dim] - (float) FLOAT_VIEW.get(bytes, offset + dim * VectorEncoderDecoder.INT_BYTES));
+        }
+        return l1norm;
+    }
+
+    public static double l2Norm(float[] queryVector, BytesRef docVector) {
+        byte[] bytes = docVector.bytes;
+        int offset = docVector.offset;
+        double l2norm = 0;
+        for (int dim = 0; dim < queryVector.length; dim++) {
+            double diff = queryVector[dim] - (float) FLOAT_VIEW.get(bytes, offset + dim * VectorEncoderDecoder.INT_BYTES);
+            l2norm += diff * diff;
+        }
+        return Math.sqrt(l2norm);
+    }
+
+    /**
+     * Computes the cosine similarity between a query vector that is normalized to unit length and a document vector.
+     * The similarity to a document vector of zero magnitude is undefined, such vectors get a similarity of {@code 0}.
+     */
+    public static double cosineSimilarity(float[] normalizedQueryVector, BytesRef docVector, Version indexVersion) {
+        if (indexVersion.onOrAfter(Version.V_7_5_0)) {
+            float vectorMagnitude = VectorEncoderDecoder.decodeVectorMagnitude(indexVersion, docVector);
+            if (vectorMagnitude == 0) {
+                return 0;
+            }
+            return dotProduct(normalizedQueryVector, docVector) / vectorMagnitude;
+        }
+        byte[] bytes = docVector.bytes;
+        int offset = docVector.offset;
+        double dotProduct = 0;
+        double vectorMagnitude = 0;
+        for (int dim = 0; dim < normalizedQueryVector.length; dim++) {
+            float docValue = (float) FLOAT_VIEW.get(bytes, offset + dim * VectorEncoderDecoder.INT_BYTES);
+            dotProduct += normalizedQueryVector[dim] * docValue;
+            vectorMagnitude += docValue * docValue;
+        }
+        if (vectorMagnitude == 0) {
+            return 0;
+        }
+        return dotProduct / (float) Math.sqrt(vectorMagnitude);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.AbstractQueryTestCase;
+import org.elasticsearch.xpack.vectors.Vectors;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnQueryBuilderTests extends AbstractQueryTestCase<KnnQueryBuilder> {
+
+    private static final String VECTOR_FIELD = "vector";
+    private static final int DIMS = 3;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return Collections.singleton(Vectors.class);
+    }
+
+    @Override
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        mapperService.merge("_doc", new CompressedXContent(Strings.toString(PutMappingRequest.simpleMapping(
+            VECTOR_FIELD, "type=dense_vector,dims=" + DIMS))), MapperService.MergeReason.MAPPING_UPDATE);
+    }
+
+    @Override
+    protected KnnQueryBuilder doCreateTestQueryBuilder() {
+        return new KnnQueryBuilder(VECTOR_FIELD, randomVector(DIMS), randomFrom(VectorSimilarity.values()));
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(KnnQueryBuilder queryBuilder, Query query, QueryShardContext context) {
+        assertThat(query, instanceOf(KnnQuery.class));
+        assertThat(query, equalTo(new KnnQuery(VECTOR_FIELD, normalizedQueryVector(queryBuilder), queryBuilder.similarity(),
+            context.indexVersionCreated())));
+    }
+
+    private static float[] normalizedQueryVector(KnnQueryBuilder queryBuilder) {
+        float[] queryVector = queryBuilder.queryVector();
+        if (queryBuilder.similarity().normalizeQuery() == false) {
+            return queryVector;
+        }
+        double magnitude = 0;
+        for (float value : queryVector) {
+            magnitude += value * value;
+        }
+        magnitude = Math.sqrt(magnitude);
+        float[] normalized = new float[queryVector.length];
+        for (int dim = 0; dim < normalized.length; dim++) {
+            normalized[dim] = (float) (queryVector[dim] / magnitude);
+        }
+        return normalized;
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int dim = 0; dim < dims; dim++) {
+            vector[dim] = randomFloat() + 0.1f;
+        }
+        return vector;
+    }
+
+    public void testIllegalArguments() {
+        expectThrows(IllegalArgumentException.class, () -> new KnnQueryBuilder(null, randomVector(DIMS), VectorSimilarity.COSINE));
+        expectThrows(IllegalArgumentException.class, () -> new KnnQueryBuilder(VECTOR_FIELD, new float[0], VectorSimilarity.COSINE));
+        expectThrows(IllegalArgumentException.class, () -> new KnnQueryBuilder(VECTOR_FIELD, randomVector(DIMS), null));
+    }
+
+    public void testZeroQueryVector() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> new KnnQueryBuilder(VECTOR_FIELD, new float[DIMS], VectorSimilarity.COSINE));
+        assertThat(e.getMessage(), equalTo("[knn] requires a non zero query vector for the [cosine] similarity"));
+        // the other similarities are well defined for a zero query vector
+        new KnnQueryBuilder(VECTOR_FIELD, new float[DIMS], randomValueOtherThan(VectorSimilarity.COSINE,
+            () -> randomFrom(VectorSimilarity.values())));
+    }
+
+    public void testWrongDimensions() {
+        KnnQueryBuilder queryBuilder = new KnnQueryBuilder(VECTOR_FIELD, randomVector(DIMS + 1), VectorSimilarity.DOT_PRODUCT);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> queryBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("query vector has a different number of dimensions [4] than the document vectors [3]"));
+    }
+
+    public void testNonVectorField() {
+        KnnQueryBuilder queryBuilder = new KnnQueryBuilder(STRING_FIELD_NAME, randomVector(DIMS), VectorSimilarity.COSINE);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> queryBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("[knn] queries are only supported on [dense_vector] fields"));
+    }
+
+    public void testUnmappedField() throws IOException {
+        KnnQueryBuilder queryBuilder = new KnnQueryBuilder("unmapped", randomVector(DIMS), VectorSimilarity.COSINE);
+        assertThat(queryBuilder.toQuery(createShardContext()), instanceOf(MatchNoDocsQuery.class));
+    }
+
+    public void testUnknownSimilarity() {
+        String query = "{\"knn\" : {\"field\" : \"vector\", \"query_vector\" : [1.0, 2.0, 3.0], \"similarity\" : \"hamming\"}}";
+        expectThrows(ParsingException.class, () -> parseQuery(query));
+    }
+
+    public void testFromJson() throws IOException {
+        String query =
+            "{\n" +
+            "  \"knn\" : {\n" +
+            "    \"field\" : \"vector\",\n" +
+            "    \"query_vector\" : [\n" +
+            "      0.5,\n" +
+            "      -1.0,\n" +
+            "      2.0\n" +
+            "    ],\n" +
+            "    \"similarity\" : \"l2_norm\",\n" +
+            "    \"boost\" : 2.0\n" +
+            "  }\n" +
+            "}";
+        KnnQueryBuilder queryBuilder = (KnnQueryBuilder) parseQuery(query);
+        checkGeneratedJson(query, queryBuilder);
+        assertThat(queryBuilder.fieldName(), equalTo("vector"));
+        assertArrayEquals(new float[] {0.5f, -1.0f, 2.0f}, queryBuilder.queryVector(), 0.0f);
+        assertThat(queryBuilder.similarity(), equalTo(VectorSimilarity.L2_NORM));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class VectorSimilarityTests extends ESTestCase {
+
+    public void testFunctionsOnEncodedVectors() {
+        int dims = randomIntBetween(1, 64);
+        float[] queryVector = randomVector(dims);
+        float[] docVector = randomVector(dims);
+        for (Version indexVersion : new Version[] {Version.V_7_4_0, Version.CURRENT}) {
+            BytesRef encoded = encode(docVector, indexVersion, randomIntBetween(0, 16));
+
+            double dotProduct = 0;
+            double l1Norm = 0;
+            double l2Norm = 0;
+            double magnitude = 0;
+            for (int dim = 0; dim < dims; dim++) {
+                dotProduct += queryVector[dim] * docVector[dim];
+                l1Norm += Math.abs(queryVector[dim] - docVector[dim]);
+                double diff = queryVector[dim] - docVector[dim];
+                l2Norm += diff * diff;
+                magnitude += docVector[dim] * docVector[dim];
+            }
+            assertEquals(dotProduct, VectorSimilarity.dotProduct(queryVector, encoded), 0.0001);
+            assertEquals(l1Norm, VectorSimilarity.l1Norm(queryVector, encoded), 0.0001);
+            assertEquals(Math.sqrt(l2Norm), VectorSimilarity.l2Norm(queryVector, encoded), 0.0001);
+            assertEquals(dotProduct / (float) Math.sqrt(magnitude),
+                VectorSimilarity.cosineSimilarity(queryVector, encoded, indexVersion), 0.0001);
+
+            for (VectorSimilarity similarity : VectorSimilarity.values()) {
+                float[] vector = similarity.normalizeQuery() ? normalize(queryVector) : queryVector;
+                float score = similarity.score(vector, encoded, indexVersion);
+                assertThat(similarity + " score", score, greaterThanOrEqualTo(0f));
+                assertThat(similarity + " score", score, lessThanOrEqualTo(similarity.maxScore()));
+            }
+        }
+    }
+
+    public void testDotProductScoreIsUnbounded() {
+        float[] queryVector = new float[] {2, 3};
+        BytesRef docVector = encode(new float[] {4, 5}, Version.CURRENT, 0);
+        assertEquals(12f, VectorSimilarity.DOT_PRODUCT.score(queryVector, docVector, Version.CURRENT), 0.0001f);
+        assertThat(VectorSimilarity.DOT_PRODUCT.maxScore(), equalTo(Float.POSITIVE_INFINITY));
+    }
+
+    public void testCosineSimilarityToZeroVector() {
+        float[] queryVector = normalize(randomVector(randomIntBetween(1, 64)));
+        for (Version indexVersion : new Version[] {Version.V_7_4_0, Version.CURRENT}) {
+            BytesRef docVector = encode(new float[queryVector.length], indexVersion, randomIntBetween(0, 16));
+            assertThat(VectorSimilarity.cosineSimilarity(queryVector, docVector, indexVersion), equalTo(0d));
+            assertThat(VectorSimilarity.COSINE.score(queryVector, docVector, indexVersion), equalTo(0.5f));
+        }
+    }
+
+    public void testCosineScoreOfOppositeVectors() {
+        float[] vector = randomVector(randomIntBetween(1, 64));
+        float[] opposite = new float[vector.length];
+        for (int dim = 0; dim < vector.length; dim++) {
+            opposite[dim] = -vector[dim];
+        }
+        for (Version indexVersion : new Version[] {Version.V_7_4_0, Version.CURRENT}) {
+            BytesRef docVector = encode(opposite, indexVersion, randomIntBetween(0, 16));
+            float score = VectorSimilarity.COSINE.score(normalize(vector), docVector, indexVersion);
+            assertThat(score, greaterThanOrEqualTo(0f));
+            assertEquals(0f, score, 0.0001f);
+        }
+    }
+
+    public void testKnnQuery() throws IOException {
+        float[][] vectors = new float[][] {{1, 0}, {0.8f, 0.6f}, {0, 1}, {-1, 0}};
+        try (Directory directory = newDirectory(); RandomIndexWriter writer = new RandomIndexWriter(random(), directory)) {
+            for (int i = 0; i < vectors.length; i++) {
+                Document document = new Document();
+                document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                document.add(new BinaryDocValuesField("vector", encode(vectors[i], Version.CURRENT, 0)));
+                writer.addDocument(document);
+            }
+            // a document without a vector does not match
+            Document document = new Document();
+            document.add(new StringField("id", "none", Field.Store.YES));
+            writer.addDocument(document);
+
+            try (IndexReader reader = writer.getReader()) {
+                IndexSearcher searcher = newSearcher(reader);
+                KnnQuery query = new KnnQuery("vector", new float[] {1, 0}, VectorSimilarity.COSINE, Version.CURRENT);
+                TopDocs topDocs = searcher.search(query, 10);
+                assertThat(topDocs.totalHits.value, equalTo(4L));
+                String[] expectedOrder = new String[] {"0", "1", "2", "3"};
+                float[] expectedScores = new float[] {1.0f, 0.9f, 0.5f, 0.0f};
+                for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    assertThat(searcher.doc(scoreDoc.doc).get("id"), equalTo(expectedOrder[i]));
+                    assertEquals(expectedScores[i], scoreDoc.score, 0.0001f);
+                    assertEquals(scoreDoc.score, searcher.explain(query, scoreDoc.doc).getValue().floatValue(), 0.0f);
+                }
+            }
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double magnitude = 0;
+        for (float value : vector) {
+            magnitude += value * value;
+        }
+        magnitude = Math.sqrt(magnitude);
+        float[] normalized = new float[vector.length];
+        for (int dim = 0; dim < vector.length; dim++) {
+            normalized[dim] = (float) (vector[dim] / magnitude);
+        }
+        return normalized;
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int dim = 0; dim < dims; dim++) {
+            vector[dim] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private static BytesRef encode(float[] values, Version indexVersion, int offset) {
+        int length = indexVersion.onOrAfter(Version.V_7_5_0)
+            ? VectorEncoderDecoder.INT_BYTES * values.length + VectorEncoderDecoder.INT_BYTES
+            : VectorEncoderDecoder.INT_BYTES * values.length;
+        byte[] bytes = new byte[offset + length];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, length);
+        double dotProduct = 0f;
+        for (float value : values) {
+            byteBuffer.putFloat(value);
+            dotProduct += value * value;
+        }
+        if (indexVersion.onOrAfter(Version.V_7_5_0)) {
+            byteBuffer.putFloat((float) Math.sqrt(dotProduct));
+        }
+        return new BytesRef(bytes, offset, length);
+    }
+}